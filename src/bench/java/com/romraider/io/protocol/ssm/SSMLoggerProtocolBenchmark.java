@@ -0,0 +1,131 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.protocol.ssm;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.romraider.Settings;
+import com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator;
+import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocol;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.Module;
+
+/**
+ * Decoding of a read address response into the queries of one poll
+ * cycle for the K-line and CAN variants of the SSM logger protocol.
+ * One and two byte parameters alternate, the last query repeats an
+ * address to exercise the duplicate filtering.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SSMLoggerProtocolBenchmark {
+    private static final byte READ_ADDRESS_RESPONSE = (byte) 0xE8;
+
+    @Param({"iso9141", "iso15765"})
+    public String transport;
+
+    @Param({"16", "64"})
+    public int parameters;
+
+    private LoggerProtocol protocol;
+    private Collection<EcuQuery> queries;
+    private PollingState pollState;
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        final EcuDataConvertor[] convertors = {new EcuParameterConvertorImpl(
+                "units", "x*.25", "0.00", -1, "uint16", Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault())};
+        final List<EcuQuery> list = new ArrayList<EcuQuery>();
+        int address = 0xFF6000;
+        int dataLength = 0;
+        for (int i = 0; i < parameters; i++) {
+            final int length = i % 2 == 0 ? 1 : 2;
+            list.add(new EcuQueryImpl(new EcuParameterImpl("P" + i, "Parameter " + i, "",
+                    new EcuAddressImpl("0x" + Integer.toHexString(address), length, -1),
+                    null, null, null, convertors)));
+            address += length;
+            dataLength += length;
+        }
+        list.add(list.get(0));
+        queries = list;
+        pollState = new PollingStateImpl();
+
+        final byte[] data = new byte[dataLength];
+        new Random(1L).nextBytes(data);
+        final Module module;
+        if ("iso9141".equals(transport)) {
+            module = new Module("ECU", new byte[]{0x10}, "Engine",
+                    new byte[]{(byte) 0xF0}, false);
+            protocol = new com.romraider.io.protocol.ssm.iso9141.SSMLoggerProtocol();
+            // header, tester, module, length, command, data, checksum
+            response = new byte[data.length + 6];
+            response[0] = (byte) 0x80;
+            response[1] = module.getTester()[0];
+            response[2] = module.getAddress()[0];
+            response[3] = (byte) (data.length + 1);
+            response[4] = READ_ADDRESS_RESPONSE;
+            System.arraycopy(data, 0, response, 5, data.length);
+            response[response.length - 1] = SSMChecksumCalculator.calculateChecksum(response);
+        } else {
+            module = new Module("ECU", new byte[]{0x00, 0x00, 0x07, (byte) 0xE8}, "Engine",
+                    new byte[]{0x00, 0x00, 0x07, (byte) 0xE0}, false);
+            protocol = new com.romraider.io.protocol.ssm.iso15765.SSMLoggerProtocol();
+            // module, command, data
+            response = new byte[data.length + 5];
+            System.arraycopy(module.getAddress(), 0, response, 0, 4);
+            response[4] = READ_ADDRESS_RESPONSE;
+            System.arraycopy(data, 0, response, 5, data.length);
+        }
+        // the protocol validates responses against the last module addressed
+        protocol.constructReadAddressRequest(module, queries);
+    }
+
+    @Benchmark
+    public Collection<EcuQuery> processReadAddressResponses() {
+        protocol.processReadAddressResponses(queries, response, pollState);
+        return queries;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.romraider.Settings;
+
+/**
+ * Conversion of raw logger responses into values, once per parameter and
+ * poll cycle.  Each call converts a batch of differing responses so the
+ * work is not folded into a constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EcuParameterConvertorBenchmark {
+    private static final int RESPONSES = 256;
+
+    @Param({"uint8", "uint16", "int16", "float", "bit"})
+    public String dataType;
+
+    private EcuParameterConvertorImpl convertor;
+    private byte[][] responses;
+
+    @Setup
+    public void setUp() {
+        final boolean bit = "bit".equals(dataType);
+        final int length = bit || "uint8".equals(dataType) ? 1
+                : "float".equals(dataType) ? 4 : 2;
+        convertor = new EcuParameterConvertorImpl("units", "x*.25-40", "0.00",
+                bit ? 3 : -1, bit ? "uint8" : dataType, Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault());
+        final Random random = new Random(1L);
+        responses = new byte[RESPONSES][length];
+        for (byte[] response : responses) {
+            random.nextBytes(response);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESPONSES)
+    public double convert() {
+        double sum = 0;
+        for (byte[] response : responses) {
+            sum += convertor.convert(response);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
+import com.romraider.logger.ecu.comms.query.ResponsePool;
+import com.romraider.logger.ecu.comms.query.ResponseSlots;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.MessageListener;
+import com.romraider.util.SettingsManager;
+
+/**
+ * Logging one poll cycle to file: the response is collected into a line
+ * and written as a CSV row or binary record.  The log goes to a temporary
+ * directory that is removed after the trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FileUpdateHandlerBenchmark {
+    private static final int CYCLES = 1024;
+
+    @Param({"csv", "binary"})
+    public String format;
+
+    @Param({"16", "64"})
+    public int parameters;
+
+    private File directory;
+    private FileUpdateHandlerImpl handler;
+    private ResponsePool pool;
+    private int[] slots;
+    private double[][] values;
+    private long timestamp;
+    private int cycle;
+
+    @Setup
+    public void setUp() throws Exception {
+        // default settings without dialogs, nothing is saved
+        SettingsManager.setTesting(true);
+        directory = File.createTempFile("romraider", "bench");
+        directory.delete();
+        directory.mkdirs();
+        final Settings settings = SettingsManager.getSettings();
+        settings.setLoggerOutputDirPath(directory.getAbsolutePath());
+        settings.setFileLoggingBinary("binary".equals(format));
+
+        handler = new FileUpdateHandlerImpl(new SilentListener());
+        final ResponseSlots responseSlots = new ResponseSlots();
+        pool = new ResponsePool(responseSlots, 4);
+        slots = new int[parameters];
+        for (int i = 0; i < parameters; i++) {
+            final EcuDataConvertor[] convertors = {new EcuParameterConvertorImpl(
+                    "units", "x*.1", i % 2 == 0 ? "0.00" : "#", -1, "uint16",
+                    Settings.Endian.BIG, new HashMap<String, String>(), getDefault())};
+            final LoggerData parameter = new EcuParameterImpl("P" + i, "Parameter " + i, "",
+                    new EcuAddressImpl("0x" + Integer.toHexString(0xFF6000 + i * 2), 2, -1),
+                    null, null, null, convertors);
+            slots[i] = responseSlots.assign(parameter);
+            handler.registerData(parameter);
+        }
+
+        final Random random = new Random(1L);
+        values = new double[CYCLES][parameters];
+        for (double[] row : values) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextInt(65536) * 0.1;
+            }
+        }
+        timestamp = System.currentTimeMillis();
+        handler.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        handler.stop();
+        final File[] logs = directory.listFiles();
+        if (logs != null) {
+            for (File log : logs) {
+                log.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void handleDataUpdate() {
+        final double[] row = values[cycle++ & (CYCLES - 1)];
+        final ColumnarResponse response = pool.acquire();
+        response.setTimestamp(timestamp += 20);
+        for (int i = 0; i < row.length; i++) {
+            response.setValue(slots[i], row[i]);
+        }
+        handler.handleDataUpdate(response);
+        response.release();
+    }
+
+    private static final class SilentListener implements MessageListener {
+        @Override
+        public void reportStats(String message) {
+        }
+
+        @Override
+        public void reportPollRates(String report) {
+        }
+
+        @Override
+        public void reportMessage(String message) {
+        }
+
+        @Override
+        public void reportMessageInTitleBar(String message) {
+        }
+
+        @Override
+        public void reportError(String error) {
+        }
+
+        @Override
+        public void reportError(Exception e) {
+        }
+
+        @Override
+        public void reportError(String error, Exception e) {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Document;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+/**
+ * Opening an image: building the tables of a large definition and
+ * populating them from the image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RomBenchmark {
+
+    @Param({"1000"})
+    public int tables;
+
+    @Param({"16"})
+    public int size;
+
+    private Document document;
+    private byte[] image;
+    private JProgressPane progress;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // default settings without dialogs, nothing is saved
+        SettingsManager.setTesting(true);
+        document = SyntheticRom.parse(SyntheticRom.definition(tables, size));
+        image = SyntheticRom.image(tables, size, 1L);
+        progress = new JProgressPane();
+    }
+
+    @Benchmark
+    public Rom unmarshallXMLDefinition() throws Exception {
+        return SyntheticRom.unmarshall(document, image, progress);
+    }
+
+    @Benchmark
+    public Rom populateTables(Unpopulated unpopulated) {
+        unpopulated.rom.populateTables(image, progress);
+        return unpopulated.rom;
+    }
+
+    /**
+     * A freshly unmarshalled ROM for each call, cleared afterwards so the
+     * populated tables are not kept registered.
+     */
+    @State(Scope.Thread)
+    public static class Unpopulated {
+        private Rom rom;
+
+        @Setup(Level.Invocation)
+        public void setUp(RomBenchmark benchmark) throws Exception {
+            rom = SyntheticRom.unmarshall(benchmark.document, benchmark.image,
+                    benchmark.progress);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            rom.clearData();
+        }
+    }
+}
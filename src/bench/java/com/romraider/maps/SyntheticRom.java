@@ -0,0 +1,159 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.xml.DOMRomUnmarshaller;
+
+/**
+ * Builds the synthetic definitions and images used by the editor
+ * benchmarks.  The definition holds a number of 3D tables of uint16 cells
+ * with float axes, stored back to back from {@link #FIRST_TABLE} in an
+ * image of {@link #IMAGE_SIZE} bytes.  Axis values increase so lookups
+ * land inside the table, the cells are pseudo random.
+ */
+public final class SyntheticRom {
+    public static final int IMAGE_SIZE = 1024 * 1024;
+    public static final int FIRST_TABLE = 0x1000;
+    public static final String XML_ID = "BENCHMARK";
+
+    private SyntheticRom() {
+    }
+
+    /**
+     * @return the number of image bytes taken by one table
+     */
+    public static int tableLength(int size) {
+        return size * 4 * 2 + size * size * 2;
+    }
+
+    /**
+     * @return the text of a definition with <code>tables</code> tables of
+     * <code>size</code> by <code>size</code> cells
+     */
+    public static String definition(int tables, int size) {
+        checkFits(tables, size);
+        final StringBuilder xml = new StringBuilder(tables * 1024);
+        xml.append("<roms>\n");
+        xml.append(" <scalingbase name=\"rpm\" units=\"RPM\" expression=\"x\""
+                + " to_byte=\"x\" format=\"#\" fineincrement=\"50\" coarseincrement=\"100\"/>\n");
+        xml.append(" <rom>\n  <romid>\n   <xmlid>").append(XML_ID).append("</xmlid>\n");
+        xml.append("   <internalidaddress>0</internalidaddress>\n");
+        xml.append("   <internalidstring>").append(XML_ID).append("</internalidstring>\n");
+        xml.append("   <make>Benchmark</make>\n   <filesize>")
+            .append(IMAGE_SIZE / 1024).append("kb</filesize>\n  </romid>\n");
+        int address = FIRST_TABLE;
+        for (int i = 0; i < tables; i++) {
+            final int xAxis = address;
+            final int yAxis = xAxis + size * 4;
+            final int data = yAxis + size * 4;
+            xml.append("  <table type=\"3D\" name=\"Table ").append(i)
+                .append("\" category=\"Category ").append(i % 16)
+                .append("\" storagetype=\"uint16\" endian=\"big\" sizex=\"")
+                .append(size).append("\" sizey=\"").append(size)
+                .append("\" userlevel=\"1\" storageaddress=\"0x")
+                .append(Integer.toHexString(data)).append("\">\n");
+            xml.append("   <scaling units=\"AFR\" expression=\"x*.001\" to_byte=\"x/.001\""
+                    + " format=\"0.00\" fineincrement=\".01\" coarseincrement=\".1\"/>\n");
+            xml.append("   <table type=\"X Axis\" name=\"Load\" storagetype=\"float\""
+                    + " endian=\"big\" storageaddress=\"0x")
+                .append(Integer.toHexString(xAxis)).append("\">\n");
+            xml.append("    <scaling units=\"g/rev\" expression=\"x\" to_byte=\"x\""
+                    + " format=\"0.00\" fineincrement=\".01\" coarseincrement=\".1\"/>\n");
+            xml.append("   </table>\n");
+            xml.append("   <table type=\"Y Axis\" name=\"Engine Speed\" storagetype=\"float\""
+                    + " endian=\"big\" storageaddress=\"0x")
+                .append(Integer.toHexString(yAxis)).append("\">\n");
+            xml.append("    <scaling base=\"rpm\"/>\n   </table>\n");
+            xml.append("   <description>Synthetic table ").append(i).append("</description>\n");
+            xml.append("  </table>\n");
+            address += tableLength(size);
+        }
+        xml.append(" </rom>\n</roms>\n");
+        return xml.toString();
+    }
+
+    /**
+     * @return an image matching {@link #definition(int, int)}
+     */
+    public static byte[] image(int tables, int size, long seed) {
+        checkFits(tables, size);
+        final byte[] image = new byte[IMAGE_SIZE];
+        new Random(seed).nextBytes(image);
+        System.arraycopy(XML_ID.getBytes(), 0, image, 0, XML_ID.length());
+        final ByteBuffer bb = ByteBuffer.wrap(image);
+        int address = FIRST_TABLE;
+        for (int i = 0; i < tables; i++) {
+            bb.position(address);
+            for (int x = 0; x < size; x++) {
+                bb.putFloat(0.1f * (x + 1));
+            }
+            for (int y = 0; y < size; y++) {
+                bb.putFloat(500f * (y + 1));
+            }
+            address += tableLength(size);
+        }
+        return image;
+    }
+
+    public static Document parse(String definition) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(
+                new ByteArrayInputStream(definition.getBytes("UTF-8")));
+    }
+
+    /**
+     * @return the tables of the definition, not yet populated
+     */
+    public static Rom unmarshall(Document document, byte[] image,
+            JProgressPane progress) throws Exception {
+        final Node root = document.getDocumentElement();
+        return new DOMRomUnmarshaller().unmarshallXMLDefinition(null, root,
+                DOMRomUnmarshaller.findFirstRomNode(root), image, progress);
+    }
+
+    /**
+     * @return the ROM with its tables populated from the image
+     */
+    public static Rom load(int tables, int size, long seed) throws Exception {
+        final byte[] image = image(tables, size, seed);
+        final JProgressPane progress = new JProgressPane();
+        final Rom rom = unmarshall(parse(definition(tables, size)), image, progress);
+        rom.populateTables(image, progress);
+        return rom;
+    }
+
+    private static void checkFits(int tables, int size) {
+        if (FIRST_TABLE + (long) tables * tableLength(size) > IMAGE_SIZE) {
+            throw new IllegalArgumentException(tables + " tables of " + size
+                    + " x " + size + " do not fit the image");
+        }
+    }
+}
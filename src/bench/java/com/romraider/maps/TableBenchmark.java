@@ -0,0 +1,105 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.romraider.util.SettingsManager;
+
+/**
+ * Cell level work on populated tables: reading the real values, writing
+ * the cells back to the image and interpolating 3D tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"64"})
+    public int tables;
+
+    @Param({"16", "32"})
+    public int size;
+
+    private Table3D[] table3Ds;
+    private double[] xs = new double[QUERIES];
+    private double[] ys = new double[QUERIES];
+
+    @Setup
+    public void setUp() throws Exception {
+        // default settings without dialogs, nothing is saved
+        SettingsManager.setTesting(true);
+        final List<Table> loaded = SyntheticRom.load(tables, size, 1L).getTables();
+        table3Ds = new Table3D[loaded.size()];
+        for (int i = 0; i < table3Ds.length; i++) {
+            table3Ds[i] = (Table3D) loaded.get(i);
+        }
+        final Random random = new Random(2L);
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = 0.1 + random.nextDouble() * 0.1 * (size - 1);
+            ys[i] = 500 + random.nextDouble() * 500 * (size - 1);
+        }
+    }
+
+    @Benchmark
+    public double getRealValue() {
+        double sum = 0;
+        for (Table3D table : table3Ds) {
+            for (DataCell[] column : table.get3dData()) {
+                for (DataCell cell : column) {
+                    sum += cell.getRealValue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void saveBinValueInFile() {
+        for (Table3D table : table3Ds) {
+            for (DataCell[] column : table.get3dData()) {
+                for (DataCell cell : column) {
+                    cell.saveBinValueInFile();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void queryTable(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            final Table3D table = table3Ds[i % table3Ds.length];
+            blackhole.consume(table.queryTable(xs[i], ys[i]));
+        }
+    }
+}
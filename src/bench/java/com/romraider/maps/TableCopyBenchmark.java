@@ -0,0 +1,71 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.romraider.util.ObjectCloner;
+
+/**
+ * Copying the tables of an inherited definition: the serialization deep
+ * copy formerly used against {@link Table#copy()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TableCopyBenchmark {
+
+    @Param({"2000"})
+    public int tables;
+
+    private Table3D[] table3Ds;
+
+    @Setup
+    public void setUp() {
+        table3Ds = new Table3D[tables];
+        for (int i = 0; i < tables; i++) {
+            table3Ds[i] = TableFixtures.buildTable("Table " + i, 8 + (i % 4) * 4);
+        }
+    }
+
+    @Benchmark
+    public void deepCopy(Blackhole blackhole) throws Exception {
+        for (Table table : table3Ds) {
+            blackhole.consume(ObjectCloner.deepCopy(table));
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        for (Table table : table3Ds) {
+            blackhole.consume(table.copy());
+        }
+    }
+}
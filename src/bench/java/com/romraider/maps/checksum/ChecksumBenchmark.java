@@ -0,0 +1,136 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Validation and update of each built in checksum type over a full size
+ * image.  Validation runs on an image whose checksums are correct, so the
+ * whole range is summed; update starts from the unfixed image every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChecksumBenchmark {
+    private static final int IMAGE_SIZE = 1024 * 1024;
+    private static final int E38_IMAGE_SIZE = 2 * 1024 * 1024;
+    private static final int E38_INDEX = 0x10000;
+    private static final int[] E38_OFFSETS = {0x24, 0x48, 0x6b, 0x8e, 0xb1, 0xd4};
+
+    @Param({"STD", "ALT", "ALT2", "BYTEXOR", "COPY",
+            "MOTRONICSINGLE", "MOTRONICDOUBLE", "E38PCM"})
+    public String type;
+
+    private ChecksumManager manager;
+    private byte[] original;
+    private byte[] valid;
+    private byte[] image;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final boolean e38 = "E38PCM".equals(type);
+        original = new byte[e38 ? E38_IMAGE_SIZE : IMAGE_SIZE];
+        new Random(1L).nextBytes(original);
+        if (e38) {
+            writeE38Segments(original);
+        }
+        manager = (ChecksumManager) Class.forName(
+                ChecksumBenchmark.class.getPackage().getName() + ".Checksum" + type).newInstance();
+        manager.configure(configuration(type));
+        valid = original.clone();
+        manager.update(valid);
+        image = new byte[original.length];
+    }
+
+    @Setup(Level.Invocation)
+    public void resetImage() {
+        System.arraycopy(original, 0, image, 0, original.length);
+    }
+
+    @Benchmark
+    public int validate() {
+        return manager.validate(valid);
+    }
+
+    @Benchmark
+    public int update() {
+        return manager.update(image);
+    }
+
+    private static Map<String, String> configuration(String type) {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("type", type);
+        if (type.equals("STD") || type.equals("ALT") || type.equals("ALT2")) {
+            vars.put("start", "0x0");
+            vars.put("end", "0xFFF00");
+            vars.put("sumloc", "0xFFF00");
+            vars.put("xorloc", "0xFFF04");
+        } else if (type.equals("BYTEXOR")) {
+            vars.put("start", "0x0");
+            vars.put("end", "0xFFFFE");
+            vars.put("xorloc", "0xFFFFF");
+        } else if (type.equals("COPY")) {
+            vars.put("start", "0x0");
+            vars.put("end", "0x7FFFF");
+            vars.put("loc", "0x80000");
+        } else if (type.equals("MOTRONICSINGLE")) {
+            vars.put("start", "0x0");
+            vars.put("end", "0xFFFFD");
+            vars.put("loc", "0xFFFFE");
+        } else if (type.equals("MOTRONICDOUBLE")) {
+            vars.put("start", "0x0");
+            vars.put("end", "0x7FFFF");
+            vars.put("startsecond", "0x80000");
+            vars.put("endsecond", "0xFFFFD");
+            vars.put("loc", "0xFFFFE");
+        }
+        return vars;
+    }
+
+    /**
+     * Lay out six segments after the segment table, even start and odd
+     * end as the E38 calculation requires.
+     */
+    private static void writeE38Segments(byte[] image) {
+        final ByteBuffer bb = ByteBuffer.wrap(image);
+        final int first = 0x20000;
+        final int length = (image.length - first) / E38_OFFSETS.length;
+        for (int i = 0; i < E38_OFFSETS.length; i++) {
+            final int start = first + i * length;
+            bb.putInt(E38_INDEX + E38_OFFSETS[i], start);
+            bb.putInt(E38_INDEX + E38_OFFSETS[i] + 4, start + length - 1);
+        }
+    }
+}
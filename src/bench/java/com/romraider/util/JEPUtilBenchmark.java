@@ -0,0 +1,66 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Expression evaluation as done for every table cell and logger value.
+ * The expressions are typical of the definitions: a plain scale, an
+ * offset temperature, a conversion with a division and a function call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JEPUtilBenchmark {
+
+    @Param({"x", "x*.001333224", "(x-40)*1.8+32", "14.7/(1+x*.0078125)", "sqrt(x)*10"})
+    public String expression;
+
+    private final Map<String, Double> values = new HashMap<String, Double>();
+    private double x;
+
+    @Setup
+    public void setUp() {
+        values.put("x", 1234.0);
+        x = 1234.0;
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return JEPUtil.evaluate(expression, x);
+    }
+
+    @Benchmark
+    public double evaluateMap() {
+        return JEPUtil.evaluate(expression, values);
+    }
+}
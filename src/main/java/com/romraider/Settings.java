@@ -35,6 +35,7 @@ import java.util.Map;
 import java.util.Vector;
 
 import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.logger.ecu.comms.manager.DispatchPolicy;
 import com.romraider.logger.ecu.definition.EcuDefinition;
 import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.external.phidget.interfacekit.io.IntfKitSensor;
@@ -89,6 +90,13 @@ public class Settings implements Serializable {
 
     /* Table Settings */
     public static final String defaultTableToolBarName = "Table Tools";
+    // 3D tables with at least this many cells are painted as one grid, 0 - never
+    public static final int DEFAULT_GRID_VIEW_CELLS = 0;
+
+    /* Logger Settings */
+    public static final int DEFAULT_LOGGER_DISPATCH_QUEUE_SIZE = 64;
+    public static final int DEFAULT_LOGGER_GRAPH_HISTORY = 600;
+    public static final int DEFAULT_LOGGER_FRAME_RATE = 30;
 
     public enum Endian {
         LITTLE(1),
@@ -206,6 +214,7 @@ public class Settings implements Serializable {
     private int tableClickBehavior = 0; // TableTreeNode click behavior. 0=open/close frame, 1=open/focus frame
     private boolean sortTableTree = false; // false - Table Tree is in definition order, true - alphabetical
     private boolean colorAxis = false;
+    private int gridViewCells = DEFAULT_GRID_VIEW_CELLS;
 
     private String loggerPort;
     private String loggerPortDefault = "";
@@ -216,6 +225,7 @@ public class Settings implements Serializable {
     private String fileLoggingControllerSwitchId = "S20"; // defogger switch by default
     private boolean fileLoggingControllerSwitchActive = false;
     private boolean fileLoggingAbsoluteTimestamp;
+    private boolean fileLoggingBinary;
     private String logfileNameText;
     private boolean logExternalsOnly;
     private boolean autoConnectOnStartup = true;
@@ -234,6 +244,10 @@ public class Settings implements Serializable {
     private static String loggerTargetModule = "ecu";
     private static Module loggerDestinationTarget;
     private boolean fastPoll = true;
+    private DispatchPolicy loggerDispatchPolicy = DispatchPolicy.DROP_OLDEST;
+    private int loggerDispatchQueueSize = DEFAULT_LOGGER_DISPATCH_QUEUE_SIZE;
+    private int loggerGraphHistory = DEFAULT_LOGGER_GRAPH_HISTORY;
+    private int loggerFrameRate = DEFAULT_LOGGER_FRAME_RATE;
     private double loggerDividerLocation = 400;
     private String loggerDebuggingLevel = "info";
     private static String j2534Device = "";
@@ -283,10 +297,12 @@ public class Settings implements Serializable {
 	private Boolean searchElm327 = false;
 
     public Settings() {
-        //center window by default
-        Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
-        windowLocation.move(((int) (screenSize.getWidth() - windowSize.getWidth()) / 2),
-                ((int) (screenSize.getHeight() - windowSize.getHeight()) / 2));
+        //center window by default, there is no screen when running headless
+        if (!java.awt.GraphicsEnvironment.isHeadless()) {
+            Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
+            windowLocation.move(((int) (screenSize.getWidth() - windowSize.getWidth()) / 2),
+                    ((int) (screenSize.getHeight() - windowSize.getHeight()) / 2));
+        }
     }
 
     public Dimension getWindowSize() {
@@ -666,6 +682,14 @@ public class Settings implements Serializable {
         this.fileLoggingAbsoluteTimestamp = fileLoggingAbsoluteTimestamp;
     }
 
+    public boolean isFileLoggingBinary() {
+        return fileLoggingBinary;
+    }
+
+    public void setFileLoggingBinary(boolean fileLoggingBinary) {
+        this.fileLoggingBinary = fileLoggingBinary;
+    }
+
     public ConnectionProperties getLoggerConnectionProperties() {
         return loggerConnectionProperties;
     }
@@ -746,6 +770,44 @@ public class Settings implements Serializable {
         return fastPoll;
     }
 
+    public DispatchPolicy getLoggerDispatchPolicy() {
+        return loggerDispatchPolicy;
+    }
+
+    public void setLoggerDispatchPolicy(DispatchPolicy policy) {
+        this.loggerDispatchPolicy = policy;
+    }
+
+    public int getLoggerDispatchQueueSize() {
+        return loggerDispatchQueueSize;
+    }
+
+    public void setLoggerDispatchQueueSize(int size) {
+        this.loggerDispatchQueueSize = size > 0 ? size : 1;
+    }
+
+    /**
+     * @return the seconds of history kept by each logger graph
+     */
+    public int getLoggerGraphHistory() {
+        return loggerGraphHistory;
+    }
+
+    public void setLoggerGraphHistory(int seconds) {
+        this.loggerGraphHistory = seconds > 0 ? seconds : 1;
+    }
+
+    /**
+     * @return the frames per second the logger displays are updated at
+     */
+    public int getLoggerFrameRate() {
+        return loggerFrameRate;
+    }
+
+    public void setLoggerFrameRate(int fps) {
+        this.loggerFrameRate = fps > 0 ? fps : DEFAULT_LOGGER_FRAME_RATE;
+    }
+
     public void setLogfileNameText(String text) {
         this.logfileNameText = text;
     }
@@ -934,6 +996,18 @@ public class Settings implements Serializable {
         this.colorAxis = colorAxis;
     }
 
+    /**
+     * @return the number of cells from which a 3D table is shown with a
+     * single grid component, 0 to always use one component per cell
+     */
+    public int getGridViewCells() {
+        return this.gridViewCells;
+    }
+
+    public void setGridViewCells(int cells) {
+        this.gridViewCells = cells > 0 ? cells : 0;
+    }
+
     public String getDefaultScale() {
         return this.defaultScale;
     }
@@ -81,6 +81,7 @@ import com.romraider.maps.Table1DView.Table1DType;
 import com.romraider.maps.Table2D;
 import com.romraider.maps.Table2DView;
 import com.romraider.maps.Table3D;
+import com.romraider.maps.Table3DGridView;
 import com.romraider.maps.Table3DView;
 import com.romraider.maps.TableBitwiseSwitch;
 import com.romraider.maps.TableBitwiseSwitchView;
@@ -423,11 +424,16 @@ public class ECUEditor extends AbstractFrame {
         else if(t instanceof Table2D)
             v = new Table2DView((Table2D)t);
         else if(t instanceof Table3D)
-            v = new Table3DView((Table3D)t);
+            v = isGridView((Table3D)t) ? new Table3DGridView((Table3D)t) : new Table3DView((Table3D)t);
         
         return v;
     }
     
+    private static boolean isGridView(Table3D t) {
+        final int cells = SettingsManager.getSettings().getGridViewCells();
+        return cells > 0 && t.getSizeX() * t.getSizeY() >= cells;
+    }
+
     private void openClosedTable(TableTreeNode node)
     {
         Table t = node.getTable();
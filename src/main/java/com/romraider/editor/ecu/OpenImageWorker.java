@@ -48,11 +48,14 @@ import com.romraider.maps.Rom;
 import com.romraider.swing.DefinitionFilter;
 import com.romraider.util.SettingsManager;
 import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.RomDefinitionIndex;
 import com.romraider.xml.ConversionLayer.ConversionLayer;
 import com.romraider.xml.ConversionLayer.ConversionLayerFactory;
 
 public class OpenImageWorker extends SwingWorker<Void, Void> {
     private static final Logger LOGGER = Logger.getLogger(OpenImageWorker.class);
+    private static final String INDEX_FILE = "/definitions.idx";
+    private static RomDefinitionIndex definitionIndex;
     private final File inputFile;
     private Rom rom;
     private String finalStatus;
@@ -66,6 +69,14 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
     {
     	return rom;
     }
+
+    private static synchronized RomDefinitionIndex getDefinitionIndex() {
+        if (definitionIndex == null) {
+            definitionIndex = new RomDefinitionIndex(
+                    new File(SettingsManager.getSettingsDir() + INDEX_FILE));
+        }
+        return definitionIndex;
+    }
     
     private void loadRom(Rom rom, byte[] input) {
           ECUEditor editor = ECUEditorManager.getECUEditor();
@@ -236,8 +247,18 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
             Document doc = null;
 
             try {
-            	doc = createDocument(f);
-				romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+                if (RomDefinitionIndex.isIndexable(f)) {
+                    // identify through the index, then build only the matching rom and its bases
+                    RomDefinitionIndex.Match match = getDefinitionIndex().findMatch(f, input);
+                    if (match != null) {
+                        doc = RomDefinitionIndex.parseRomDocument(f, match);
+                        romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+                    }
+                }
+                else {
+                    doc = createDocument(f);
+                    romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+                }
             }
             catch(Exception e) {
             	showExceptionPopup(e, f);
@@ -250,6 +271,8 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
             }
          }
 
+        getDefinitionIndex().save();
+
         if(!found) {
         	showNoDefinitionFoundPopup(input);
         }
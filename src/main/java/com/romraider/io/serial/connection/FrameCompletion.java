@@ -0,0 +1,146 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+/**
+ * Finds the end of a reply frame among the bytes received after a request
+ * so that a read of unknown length can return as soon as the reply is
+ * complete instead of waiting for the line to go quiet.  The echo of the
+ * request that a K-line interface returns ahead of the reply is skipped.
+ */
+public abstract class FrameCompletion {
+
+    /**
+     * @param request - the request sent, or null
+     * @param data - the bytes received
+     * @param length - the number of valid bytes in data
+     * @return the number of bytes up to the end of the first complete reply
+     * frame, or -1 if no complete frame has been received yet
+     */
+    public final int frameEnd(byte[] request, byte[] data, int length) {
+        int start = 0;
+        if (request != null && request.length > 0) {
+            final int n = Math.min(request.length, length);
+            boolean echo = true;
+            for (int i = 0; i < n && echo; i++) {
+                echo = data[i] == request[i];
+            }
+            if (echo) {
+                if (length <= request.length) {
+                    return -1;
+                }
+                start = request.length;
+            }
+        }
+        return frameEnd(data, start, length);
+    }
+
+    /**
+     * @return the end of the first complete frame starting at start, or -1
+     */
+    protected abstract int frameEnd(byte[] data, int start, int length);
+
+    /**
+     * @param protocol - the logger protocol name
+     * @return the completion for the protocol or null if the protocol
+     * replies are not framed in a known way
+     */
+    public static FrameCompletion forProtocol(String protocol) {
+        if ("SSM".equalsIgnoreCase(protocol)) {
+            return new SsmFrameCompletion();
+        }
+        if ("DS2".equalsIgnoreCase(protocol)) {
+            return new Ds2FrameCompletion();
+        }
+        if ("NCS".equalsIgnoreCase(protocol)) {
+            return new KwpFrameCompletion();
+        }
+        return null;
+    }
+
+    /**
+     * 0x80 destination source data_length data... checksum
+     */
+    static final class SsmFrameCompletion extends FrameCompletion {
+        @Override
+        protected int frameEnd(byte[] data, int start, int length) {
+            if (length - start < 4 || data[start] != (byte) 0x80) {
+                return -1;
+            }
+            final int end = start + 4 + (data[start + 3] & 0xFF) + 1;
+            return end <= length ? end : -1;
+        }
+    }
+
+    /**
+     * address frame_length data... checksum, the length counts every byte
+     */
+    static final class Ds2FrameCompletion extends FrameCompletion {
+        @Override
+        protected int frameEnd(byte[] data, int start, int length) {
+            if (length - start < 2) {
+                return -1;
+            }
+            final int frameLength = data[start + 1] & 0xFF;
+            if (frameLength < 3) {
+                return -1;
+            }
+            final int end = start + frameLength;
+            return end <= length ? end : -1;
+        }
+    }
+
+    /**
+     * ISO 14230 format [target source] [length] service data... checksum.
+     * Negative responses with code 0x78, response pending, are skipped as
+     * the final reply follows them.
+     */
+    static final class KwpFrameCompletion extends FrameCompletion {
+        private static final byte NEGATIVE_RESPONSE = (byte) 0x7F;
+        private static final byte RESPONSE_PENDING = (byte) 0x78;
+
+        @Override
+        protected int frameEnd(byte[] data, int start, int length) {
+            while (length - start > 0) {
+                final int format = data[start] & 0xFF;
+                int header = (format & 0xC0) == 0 ? 1 : 3;
+                int dataLength = format & 0x3F;
+                if (dataLength == 0) {
+                    if (length - start <= header) {
+                        return -1;
+                    }
+                    dataLength = data[start + header] & 0xFF;
+                    header++;
+                }
+                final int end = start + header + dataLength + 1;
+                if (end > length) {
+                    return -1;
+                }
+                if (dataLength < 3
+                        || data[start + header] != NEGATIVE_RESPONSE
+                        || data[start + header + 2] != RESPONSE_PENDING) {
+                    return end;
+                }
+                start = end;
+            }
+            return -1;
+        }
+    }
+}
@@ -34,6 +34,25 @@ public interface SerialConnection {
 
     void readStaleData();
 
+    /**
+     * Wait until at least the given number of bytes is available.
+     * @param numBytes - the number of bytes needed
+     * @param timeout - the maximum wait in msec
+     * @return true if the bytes arrived before the timeout
+     */
+    boolean awaitAvailable(int numBytes, long timeout);
+
+    /**
+     * Wait for the reply to a request of unknown length.  The wait ends when
+     * the completion finds a complete reply frame or when no byte has arrived
+     * for the quiet time.
+     * @param request - the request sent
+     * @param completion - the protocol frame check, or null
+     * @param quietTime - msec without a new byte that ends the wait
+     * @return the number of bytes available
+     */
+    int awaitReply(byte[] request, FrameCompletion completion, long quietTime);
+
     void close();
     
     void sendBreak(int duration);
@@ -20,6 +20,7 @@
 package com.romraider.io.serial.connection;
 
 import static com.fazecast.jSerialComm.SerialPort.FLOW_CONTROL_DISABLED;
+import static com.fazecast.jSerialComm.SerialPort.LISTENING_EVENT_DATA_RECEIVED;
 import static com.fazecast.jSerialComm.SerialPort.TIMEOUT_READ_SEMI_BLOCKING;
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
@@ -28,39 +29,49 @@ import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.currentTimeMillis;
 import static org.apache.log4j.Logger.getLogger;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 
 import org.apache.log4j.Logger;
 
 import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
 import com.fazecast.jSerialComm.SerialPortInvalidPortException;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.logger.ecu.exception.ConfigurationException;
 import com.romraider.logger.ecu.exception.NotConnectedException;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
+/**
+ * A serial port connection.  Received bytes are delivered by the port's
+ * data received events into a {@link SerialReceiveBuffer}, readers block on
+ * the buffer and wake as soon as the bytes they need have arrived.
+ */
 public class SerialConnectionImpl implements SerialConnection {
     private static final Logger LOGGER = getLogger(SerialConnectionImpl.class);
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+    private static final int RECEIVE_BUFFER_MAX_SIZE = 1024 * 1024;
+    private final SerialReceiveBuffer received =
+            new SerialReceiveBuffer(RECEIVE_BUFFER_SIZE, RECEIVE_BUFFER_MAX_SIZE);
     private final SerialPort serialPort;
     private final BufferedOutputStream os;
-    private final BufferedInputStream is;
-    private final BufferedReader reader;
+    private boolean skipLineFeed;
 
     public SerialConnectionImpl(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
         checkNotNull(connectionProperties, "connectionProperties");
+        SerialPort port = null;
         try {
-            serialPort = connect(portName, connectionProperties);
-            os = new BufferedOutputStream(serialPort.getOutputStream());
-            is = new BufferedInputStream(serialPort.getInputStream());
-            reader = new BufferedReader(new InputStreamReader(is));
+            port = connect(portName, connectionProperties);
+            os = new BufferedOutputStream(port.getOutputStream());
+            if (!port.addDataListener(new ReceiveListener()))
+                throw new ConfigurationException("Data listener");
+            serialPort = port;
             LOGGER.info("Serial connection initialised: " + connectionProperties);
         } catch (Exception e) {
-            close();
+            if (port != null) port.closePort();
             throw new NotConnectedException(e);
         }
     }
@@ -77,47 +88,45 @@ public class SerialConnectionImpl implements SerialConnection {
 
     @Override
     public int available() {
-        try {
-            return is.available();
-        } catch (IOException e) {
-            throw new SerialCommunicationException("Available: " + e);
-        }
+        return received.available();
     }
 
     @Override
     public int read() {
-        try {
-            waitForBytes(1);
-            return is.read();
-        } catch (IOException e) {
-            throw new SerialCommunicationException("Read: " + e);
-        }
+        waitForBytes(1);
+        return received.read();
     }
 
     @Override
     public void read(byte[] bytes) {
-        try {
-            waitForBytes(bytes.length);
-            is.read(bytes, 0, bytes.length);
-        } catch (IOException e) {
-            throw new SerialCommunicationException("Read bytes: " + e);
-        }
+        waitForBytes(bytes.length);
+        received.read(bytes, 0, bytes.length);
     }
 
     @Override
     public String readLine() {
-        try {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
             waitForBytes(1);
-            return reader.readLine();
-        } catch (IOException e) {
-            throw new SerialCommunicationException("Read line: " + e);
+            final int b = received.read();
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (b == '\n') continue;
+            }
+            if (b == '\n') break;
+            if (b == '\r') {
+                skipLineFeed = true;
+                break;
+            }
+            line.write(b);
         }
+        return new String(line.toByteArray());
     }
 
     @Override
     public byte[] readAvailable() {
-        byte[] response = new byte[available()];
-        read(response);
+        final byte[] response = new byte[available()];
+        received.read(response, 0, response.length);
         return response;
     }
 
@@ -126,14 +135,24 @@ public class SerialConnectionImpl implements SerialConnection {
         if (available() <= 0) return;
         final long end = currentTimeMillis() + 100L;
         do {
-            byte[] staleBytes = readAvailable();
             if (LOGGER.isDebugEnabled())
-                LOGGER.debug("Stale data read: " + asHex(staleBytes));
-            sleep(2);
-        } while (  (available() > 0)
+                LOGGER.debug("Stale data read: " + asHex(readAvailable()));
+            else
+                received.clear();
+        } while (  received.await(1, 2L)
                 && (currentTimeMillis() <= end));
     }
 
+    @Override
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        return received.await(numBytes, timeout);
+    }
+
+    @Override
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        return received.awaitReply(request, completion, quietTime);
+    }
+
     @Override
     public void close() {
         if (os != null) {
@@ -143,26 +162,13 @@ public class SerialConnectionImpl implements SerialConnection {
                 LOGGER.error("Error closing output stream", e);
             }
         }
-        if (reader != null) {
-            try {
-                //readStaleData();
-                reader.close();
-            } catch (IOException e) {
-                LOGGER.error("Error closing input stream reader", e);
-            }
-        }
-        if (is != null) {
-            try {
-                //readStaleData();
-                is.close();
-            } catch (IOException e) {
-                LOGGER.error("Error closing input stream", e);
-            }
-        }
         if (serialPort != null) {
+            serialPort.removeDataListener();
             if (!serialPort.closePort())
                 LOGGER.error("Error closing serial port: " + serialPort.getSystemPortName());
         }
+        if (received.getDropCount() > 0)
+            LOGGER.warn("Serial receive buffer overflow, bytes dropped: " + received.getDropCount());
         LOGGER.info("Connection closed.");
     }
 
@@ -212,6 +218,22 @@ public class SerialConnectionImpl implements SerialConnection {
     }
 
     private void waitForBytes(int numBytes) {
-        while (available() < numBytes) sleep(2L);
+        if (!received.await(numBytes, -1L))
+            throw new SerialCommunicationException("Read interrupted");
+    }
+
+    private final class ReceiveListener implements SerialPortDataListener {
+        @Override
+        public int getListeningEvents() {
+            return LISTENING_EVENT_DATA_RECEIVED;
+        }
+
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            final byte[] data = event.getReceivedData();
+            if (data != null && data.length > 0) {
+                received.write(data, 0, data.length);
+            }
+        }
     }
 }
@@ -23,9 +23,7 @@ import static com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator.calcul
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.arraycopy;
-import static java.lang.System.currentTimeMillis;
 import static org.apache.log4j.Logger.getLogger;
 
 import org.apache.log4j.Logger;
@@ -33,21 +31,23 @@ import org.apache.log4j.Logger;
 import com.romraider.io.connection.ConnectionManager;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.util.SettingsManager;
 
 public final class SerialConnectionManager implements ConnectionManager {
     private static final Logger LOGGER = getLogger(SerialConnectionManager.class);
     private final SerialConnection connection;
     private final ConnectionProperties connectionProperties;
+    private final FrameCompletion frameCompletion;
     private byte[] lastResponse;
     private final long timeout;
-    private long readTimeout;
 
     public SerialConnectionManager(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
         checkNotNull(connectionProperties, "connectionProperties");
         this.connectionProperties = connectionProperties;
         timeout = connectionProperties.getConnectTimeout();
-        readTimeout = timeout;
+        frameCompletion = FrameCompletion.forProtocol(
+                SettingsManager.getSettings().getLoggerProtocol());
         // Use TestSerialConnection for testing!!
         connection = new SerialConnectionImpl(portName, connectionProperties);
         //connection = new TestSerialConnection2(portName, connectionProperties);
@@ -73,17 +73,12 @@ public final class SerialConnectionManager implements ConnectionManager {
             connection.readStaleData();
             connection.write(request);
         }
-        while (connection.available() < response.length) {
-            sleep(1);
-            readTimeout -= 1;
-            if (readTimeout <= 0) {
-                byte[] badBytes = connection.readAvailable();
-                if (LOGGER.isDebugEnabled())
-                    LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
-                return; // this will reinitialize the connection
-            }
+        if (!connection.awaitAvailable(response.length, timeout)) {
+            byte[] badBytes = connection.readAvailable();
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
+            return; // this will reinitialize the connection
         }
-        readTimeout = timeout;
         connection.read(response);
 
         if (pollState.getCurrentState() == PollingState.State.STATE_1){
@@ -104,7 +99,9 @@ public final class SerialConnectionManager implements ConnectionManager {
         }
     }
 
-    // Send request and wait specified time for response with unknown length
+    // Send request and wait for response with unknown length, the wait ends
+    // when a complete reply frame of the logger protocol has arrived or the
+    // line has been quiet for the specified time
     @Override
     public byte[] send(byte[] bytes) {
         checkNotNull(bytes, "bytes");
@@ -114,17 +111,7 @@ public final class SerialConnectionManager implements ConnectionManager {
         if (LOGGER.isTraceEnabled())
             LOGGER.trace("Writing bytes");
         connection.write(bytes);
-        int available = 0;
-        boolean keepLooking = true;
-        long lastChange = currentTimeMillis();
-        while (keepLooking) {
-            sleep(2);
-            if (connection.available() != available) {
-                available = connection.available();
-                lastChange = currentTimeMillis();
-            }
-            keepLooking = (currentTimeMillis() - lastChange) < timeout;
-        }
+        connection.awaitReply(bytes, frameCompletion, timeout);
         return connection.readAvailable();
     }
 
@@ -138,12 +125,10 @@ public final class SerialConnectionManager implements ConnectionManager {
             LOGGER.debug("Serial sending line break of duration: " + duration + " msec");
         connection.sendBreak(duration);
         do {
-            sleep(2);
             byte[] badBytes = connection.readAvailable();
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug("Serial clearing line (stale data): " + asHex(badBytes));
-            sleep(10);
-        } while (connection.available() > 0 );
+        } while (connection.awaitAvailable(1, 12L));
     }
 
     @Override
@@ -0,0 +1,268 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the bytes received from a serial port until they are read.
+ * <p>
+ * The port's event thread adds bytes as they arrive and wakes any reader
+ * waiting for them, so a reader returns as soon as its data is complete
+ * rather than on the next poll of the port.  The buffer grows as needed up
+ * to a maximum size, after which the oldest bytes are dropped.
+ */
+final class SerialReceiveBuffer {
+    private final Lock lock = new ReentrantLock();
+    private final Condition arrived = lock.newCondition();
+    private final int maxCapacity;
+    private byte[] buffer;
+    private byte[] frame = new byte[0];
+    private int head;
+    private int count;
+    private long lastArrival;
+    private long dropCount;
+
+    SerialReceiveBuffer(int capacity, int maxCapacity) {
+        this.buffer = new byte[capacity];
+        this.maxCapacity = Math.max(capacity, maxCapacity);
+    }
+
+    /**
+     * Add received bytes and wake the waiting readers.
+     */
+    void write(byte[] data, int offset, int length) {
+        lock.lock();
+        try {
+            if (count + length > buffer.length) {
+                grow(count + length);
+            }
+            if (length > buffer.length) {
+                dropCount += length - buffer.length;
+                offset += length - buffer.length;
+                length = buffer.length;
+            }
+            final int overflow = count + length - buffer.length;
+            if (overflow > 0) {
+                skip(overflow);
+                dropCount += overflow;
+            }
+            int tail = (head + count) % buffer.length;
+            final int first = Math.min(length, buffer.length - tail);
+            System.arraycopy(data, offset, buffer, tail, first);
+            System.arraycopy(data, offset + first, buffer, 0, length - first);
+            count += length;
+            lastArrival = System.nanoTime();
+            arrived.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    int available() {
+        lock.lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes dropped because the buffer was full
+     */
+    long getDropCount() {
+        lock.lock();
+        try {
+            return dropCount;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until at least the given number of bytes is available.
+     * @param numBytes - the number of bytes needed
+     * @param timeout - the maximum wait in msec, negative to wait without
+     * a limit
+     * @return true if the bytes are available, false on timeout or when
+     * the thread is interrupted
+     */
+    boolean await(int numBytes, long timeout) {
+        lock.lock();
+        try {
+            long remaining = MILLISECONDS.toNanos(timeout);
+            while (count < numBytes) {
+                if (timeout < 0) {
+                    arrived.await();
+                }
+                else {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = arrived.awaitNanos(remaining);
+                }
+            }
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the reply to a request of unknown length.  The wait ends
+     * when the completion finds a complete reply or when no byte has
+     * arrived for the quiet time.
+     * @param request - the request sent, its echo may precede the reply
+     * @param completion - the protocol frame check, or null to wait for
+     * the line to go quiet
+     * @param quietTime - msec without a new byte that ends the wait
+     * @return the number of bytes available
+     */
+    int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        final long quiet = MILLISECONDS.toNanos(quietTime);
+        final long start = System.nanoTime();
+        lock.lock();
+        try {
+            while (true) {
+                if (completion != null && count > 0
+                        && completion.frameEnd(request, snapshot(), count) > 0) {
+                    return count;
+                }
+                final long since = lastArrival - start > 0 ? lastArrival : start;
+                final long remaining = since + quiet - System.nanoTime();
+                if (remaining <= 0) {
+                    return count;
+                }
+                arrived.awaitNanos(remaining);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the next byte or -1 if none is available
+     */
+    int read() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return -1;
+            }
+            final int b = buffer[head] & 0xFF;
+            skip(1);
+            return b;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read up to <code>length</code> of the available bytes without waiting.
+     * @return the number of bytes read
+     */
+    int read(byte[] bytes, int offset, int length) {
+        lock.lock();
+        try {
+            final int n = Math.min(length, count);
+            final int first = Math.min(n, buffer.length - head);
+            System.arraycopy(buffer, head, bytes, offset, first);
+            System.arraycopy(buffer, 0, bytes, offset + first, n - first);
+            skip(n);
+            return n;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discard all the available bytes.
+     * @return the number of bytes discarded
+     */
+    int clear() {
+        lock.lock();
+        try {
+            final int n = count;
+            skip(n);
+            return n;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void skip(int n) {
+        head = (head + n) % buffer.length;
+        count -= n;
+        if (count == 0) {
+            head = 0;
+        }
+    }
+
+    private void grow(int needed) {
+        int capacity = buffer.length;
+        while (capacity < needed && capacity < maxCapacity) {
+            capacity = Math.min(capacity * 2, maxCapacity);
+        }
+        if (capacity == buffer.length) {
+            return;
+        }
+        final byte[] grown = new byte[capacity];
+        final int first = Math.min(count, buffer.length - head);
+        System.arraycopy(buffer, head, grown, 0, first);
+        System.arraycopy(buffer, 0, grown, first, count - first);
+        buffer = grown;
+        head = 0;
+    }
+
+    /**
+     * @return the available bytes from the start of the array, the array
+     * is reused by the next call
+     */
+    private byte[] snapshot() {
+        if (frame.length < count) {
+            frame = new byte[buffer.length];
+        }
+        final int first = Math.min(count, buffer.length - head);
+        System.arraycopy(buffer, head, frame, 0, first);
+        System.arraycopy(buffer, 0, frame, first, count - first);
+        return frame;
+    }
+}
@@ -161,6 +161,14 @@ final class TestSerialConnection implements SerialConnection {
     public void readStaleData() {
     }
 
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        return available();
+    }
+
     public void close() {
         LOGGER.info("*** TEST *** Connection closed.");
     }
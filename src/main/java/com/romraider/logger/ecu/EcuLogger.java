@@ -24,6 +24,7 @@ import static com.romraider.Version.LOGGER_DEFS_URL;
 import static com.romraider.Version.PRODUCT_NAME;
 import static com.romraider.Version.VERSION;
 import static com.romraider.logger.ecu.profile.UserProfileLoader.BACKUP_PROFILE;
+import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.getFile;
 import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.saveProfileToFile;
 import static com.romraider.logger.ecu.ui.swing.vertical.VerticalTextIcon.ROTATE_LEFT;
 import static com.romraider.util.ParamChecker.checkNotNull;
@@ -140,6 +141,7 @@ import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.ExternalDataImpl;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.definition.Module;
+import com.romraider.logger.ecu.definition.PollRate;
 import com.romraider.logger.ecu.definition.Transport;
 import com.romraider.logger.ecu.exception.ConfigurationException;
 import com.romraider.logger.ecu.exception.PortNotFoundException;
@@ -158,6 +160,7 @@ import com.romraider.logger.ecu.ui.SerialPortComboBox;
 import com.romraider.logger.ecu.ui.StatusIndicator;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandlerManager;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandlerManagerImpl;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler;
 import com.romraider.logger.ecu.ui.handler.dash.DashboardUpdateHandler;
 import com.romraider.logger.ecu.ui.handler.dataflow.DataflowSimulationHandler;
 import com.romraider.logger.ecu.ui.handler.dyno.DynoUpdateHandler;
@@ -173,6 +176,8 @@ import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 import com.romraider.logger.ecu.ui.paramlist.ParameterListTable;
 import com.romraider.logger.ecu.ui.paramlist.ParameterListTableModel;
 import com.romraider.logger.ecu.ui.paramlist.ParameterRow;
+import com.romraider.logger.ecu.ui.playback.PlaybackControlPanel;
+import com.romraider.logger.ecu.ui.playback.PlaybackManager;
 import com.romraider.logger.ecu.ui.playback.PlaybackManagerImpl;
 import com.romraider.logger.ecu.ui.swing.layout.BetterFlowLayout;
 import com.romraider.logger.ecu.ui.swing.menubar.EcuLoggerMenuBar;
@@ -197,7 +202,6 @@ import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
 
 
-import com.romraider.util.ThreadUtil;
 
 /*
 TODO: add better debug logging, preferably to a file and switchable (on/off)
@@ -207,7 +211,7 @@ So much to do, so little time....
 TODO: Keyboard accessibility (enable/disable parameters, select tabs, etc)
 TODO: Rewrite user profile application and saving to allow tab specific settings (eg. warn levels on dash tab)
 TODO: Add custom graph tab (eg. engine speed vs. boost, etc.)
-TODO: Add log analysis tab (or maybe new window?), including log playback, custom graphs, map compare, etc
+TODO: Add log analysis tab (or maybe new window?), including custom graphs, map compare, etc
  */
 
 public final class EcuLogger extends AbstractFrame implements MessageListener {
@@ -246,6 +250,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     private JLabel calIdLabel;
     private JLabel ecuIdLabel;
     private JLabel statsLabel;
+    private PlaybackControlPanel playbackControls;
     private JTabbedPane tabbedPane;
     private SerialPortComboBox portsComboBox;
     private DataUpdateHandlerManager dataHandlerManager;
@@ -434,6 +439,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
             }
         };
         fileUpdateHandler = new FileUpdateHandlerImpl(this);
+        FrameScheduler.getInstance().setFrameRate(getSettings().getLoggerFrameRate());
         dataTableModel = new LiveDataTableModel();
         liveDataUpdateHandler = new LiveDataUpdateHandler(dataTableModel);
         graphPanel = new JPanel(new BorderLayout(2, 2));
@@ -886,6 +892,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         if (profile != null) {
             try {
                 loggerData.selectConvertor(profile.getSelectedConvertor(loggerData));
+                loggerData.setPollRate(profile.getPollRate(loggerData));
             } catch (Exception e) {
                 reportError(e);
             }
@@ -936,7 +943,8 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
             boolean dataTabSelected = dataTabRow.isSelected();
             boolean graphTabSelected = isEcuDataSelected(id, graphTabRows);
             boolean dashTabSelected = isEcuDataSelected(id, dashTabRows);
-            profileItems.put(id, new UserProfileItemImpl(units, dataTabSelected, graphTabSelected, dashTabSelected));
+            PollRate pollRate = dataTabRow.getLoggerData().getPollRate();
+            profileItems.put(id, new UserProfileItemImpl(units, dataTabSelected, graphTabSelected, dashTabSelected, pollRate));
         }
         return profileItems;
     }
@@ -1368,31 +1376,39 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         }
 
         controlPanel.add(buildPortsComboBox(), WEST);
-        //TODO: Finish log playback stuff...
-        //        controlPanel.add(buildPlaybackControls(), CENTER);
+        controlPanel.add(buildPlaybackControls(), CENTER);
         controlPanel.add(buildStatusIndicator(), EAST);
         return controlPanel;
     }
 
     private Component buildPlaybackControls() {
-        JButton playButton = new JButton("Play");
-        playButton.addActionListener(new ActionListener() {
+        playbackControls = new PlaybackControlPanel(new PlaybackControlPanel.Host() {
             @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-                ThreadUtil.runAsDaemon(new Runnable() {
-                    @Override
-                    public void run() {
-                        PlaybackManagerImpl playbackManager = new PlaybackManagerImpl(ecuParams, liveDataUpdateHandler, graphUpdateHandler, dashboardUpdateHandler, mafUpdateHandler, dynoUpdateHandler,
-                                TableUpdateHandler.getInstance());
-                        playbackManager.load(new File("foo.csv"));
-                        playbackManager.play();
-                    }
-                });
+            public PlaybackManager createPlaybackManager() {
+                if (ecuParams == null) {
+                    return null;
+                }
+                return new PlaybackManagerImpl(ecuParams, liveDataUpdateHandler,
+                        graphUpdateHandler, dashboardUpdateHandler, mafUpdateHandler,
+                        dynoUpdateHandler, TableUpdateHandler.getInstance());
+            }
+
+            @Override
+            public boolean isLogging() {
+                return EcuLogger.this.isLogging();
+            }
+
+            @Override
+            public void stopLogging() {
+                EcuLogger.this.stopLogging();
+            }
+
+            @Override
+            public File getLogDirectory() {
+                return getFile(getSettings().getLoggerOutputDirPath());
             }
         });
-        JPanel panel = new JPanel();
-        panel.add(playButton);
-        return panel;
+        return playbackControls;
     }
 
     private Component buildFileNameExtention() {
@@ -1840,6 +1856,15 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     }
 
     public void startLogging() {
+        if (playbackControls != null) {
+            invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    playbackControls.close();
+                }
+            });
+        }
+        FrameScheduler.getInstance().resetMetrics();
         controller.start();
     }
 
@@ -2014,6 +2039,31 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         }
     }
 
+    @Override
+    public void reportPollRates(final String report) {
+        final String frames = buildFrameStats();
+        invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                statsLabel.setToolTipText(isNullOrEmpty(report)
+                        ? frames : "<html>" + report + "<br>" + frames);
+            }
+        });
+    }
+
+    private String buildFrameStats() {
+        final FrameScheduler scheduler = FrameScheduler.getInstance();
+        return MessageFormat.format(
+                rb.getString("FRAMESTATS"),
+                scheduler.getFrameRate(),
+                scheduler.getFrameCount(),
+                scheduler.getLateFrameCount(),
+                String.format("%.2f", scheduler.getAverageFrameNanos() / 1e6),
+                String.format("%.2f", scheduler.getMaxFrameNanos() / 1e6),
+                scheduler.getAppliedCount(),
+                scheduler.getDroppedCount());
+    }
+
     private JLabel buildStatsLabel() {
         JLabel label = new JLabel(" ");
         label.setForeground(BLACK);
@@ -20,87 +20,166 @@
 package com.romraider.logger.ecu.comms.io.connection;
 
 import static com.romraider.io.protocol.ssm.iso15765.SSMProtocol.ADDRESS_SIZE;
+import static com.romraider.io.protocol.ssm.iso15765.SSMProtocol.DATA_SIZE;
+import static com.romraider.io.protocol.ssm.iso15765.SSMProtocol.READ_ADDRESS_RESPONSE;
+import static com.romraider.io.protocol.ssm.iso15765.SSMProtocol.RESPONSE_NON_DATA_BYTES;
 import static com.romraider.util.HexUtil.asHex;
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+import static com.romraider.util.ParamChecker.checkNotNull;
 import static java.lang.System.arraycopy;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
 import com.romraider.io.connection.ConnectionManager;
-import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocol;
+import com.romraider.io.protocol.Protocol;
 import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
-import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
-import com.romraider.logger.ecu.definition.EcuAddress;
-import com.romraider.logger.ecu.definition.EcuAddressImpl;
-import com.romraider.logger.ecu.definition.EcuData;
-import com.romraider.logger.ecu.definition.EcuDataConvertor;
-import com.romraider.logger.ecu.definition.EcuParameterImpl;
 import com.romraider.logger.ecu.definition.Module;
-import com.romraider.util.HexUtil;
+import com.romraider.logger.ecu.exception.InvalidResponseException;
 
-public class SSMLoggerCANSubQuery {
+/**
+ * Reads the addresses of a set of queries over ISO15765 in requests of a
+ * limited number of addresses, as needed by the TCU which only answers
+ * requests that fit in a single CAN frame.
+ * <p>
+ * The read is planned once per query set.  Addresses shared by several
+ * queries, such as the bits of a switch byte, are read once and the
+ * request and response buffers are kept for the following cycles, so a
+ * cycle costs one round-trip per request and no new objects.
+ */
+public final class SSMLoggerCANSubQuery {
     private static final Logger LOGGER = getLogger(SSMLoggerCANSubQuery.class);
-    private static final int CAN_HEADER_LENGTH = 5;
-    private static final ArrayList<EcuQuery> subQuery = new ArrayList<EcuQuery>();
+    /** The number of addresses a TCU single frame read request holds. */
+    public static final int TCU_ADDRESSES_PER_REQUEST = 1;
+    private final int addressesPerRequest;
+    private Module module;
+    private EcuQuery[] queries = new EcuQuery[0];
+    private byte[][] requests;
+    private byte[][] responses;
+    private byte[] values;
+    private int[][] queryAddresses;
+    private byte[][] queryValues;
+
+    public SSMLoggerCANSubQuery(int addressesPerRequest) {
+        checkGreaterThanZero(addressesPerRequest, "addressesPerRequest");
+        this.addressesPerRequest = addressesPerRequest;
+    }
 
-    public static final byte[] doSubQuery(
-            ArrayList<EcuQuery> tcuSubQuery,
+    /**
+     * Read the addresses of all the queries and set their responses.
+     */
+    public void read(
+            List<EcuQuery> tcuQueries,
             ConnectionManager manager,
-            LoggerProtocol protocol,
+            Protocol protocol,
             Module module,
             PollingState pollState) {
 
-        final byte[][] addresses = convertToByteAddresses(tcuSubQuery);
-        final byte[] responses = new byte[CAN_HEADER_LENGTH + addresses.length];
-        for (int i = 0; i < addresses.length; i++) {
-            final EcuAddress ea =
-                    new EcuAddressImpl("0x" + HexUtil.asHex(addresses[i]), 1, 1);
-            final EcuParameterImpl epi =
-                    new EcuParameterImpl(tcuSubQuery.get(0).getLoggerData().getId(),
-                            tcuSubQuery.get(0).getLoggerData().getName(),
-                            tcuSubQuery.get(0).getLoggerData().getDescription(),
-                            ea, null, null, null,
-                            new EcuDataConvertor[] {
-                                tcuSubQuery.get(0).getLoggerData().getSelectedConvertor()
-                            }
-                    );
-            subQuery.clear();
-            subQuery.add(new EcuQueryImpl(epi));
-            final byte[] request = protocol.constructReadAddressRequest(
-                    module, subQuery);
+        checkNotNull(tcuQueries, manager, protocol, module, pollState);
+        if (!isPlanned(tcuQueries, module)) {
+            plan(tcuQueries, protocol, module);
+        }
+        int offset = 0;
+        for (int i = 0; i < requests.length; i++) {
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug(module + " CAN Sub Request " + i + " ---> " + asHex(requests[i]));
+            manager.send(requests[i], responses[i], pollState);
             if (LOGGER.isDebugEnabled())
-                LOGGER.debug(module + " CAN Sub Request " + i + " ---> " + asHex(request));
-            final byte[] response = protocol.constructReadAddressResponse(
-                    subQuery, pollState);
-            manager.send(request, response, pollState);
-            if (i == 0) {
-                arraycopy(response, 0, responses, 0, response.length);
+                LOGGER.debug(module + " CAN Sub Response " + i + " <--- " + asHex(responses[i]));
+            validateResponse(responses[i]);
+            final int length = responses[i].length - RESPONSE_NON_DATA_BYTES;
+            arraycopy(responses[i], RESPONSE_NON_DATA_BYTES, values, offset, length);
+            offset += length;
+        }
+        for (int i = 0; i < queries.length; i++) {
+            final int[] addresses = queryAddresses[i];
+            final byte[] bytes = queryValues[i];
+            for (int j = 0; j < addresses.length; j++) {
+                bytes[j] = values[addresses[j]];
             }
-            else {
-                final byte b = response[response.length - 1 ];
-                responses[CAN_HEADER_LENGTH + i] = b;
+            queries[i].setResponse(bytes);
+        }
+    }
+
+    /**
+     * @return the number of requests sent per read of the planned queries
+     */
+    public int getRequestCount() {
+        return requests == null ? 0 : requests.length;
+    }
+
+    private boolean isPlanned(List<EcuQuery> tcuQueries, Module module) {
+        if (module != this.module || tcuQueries.size() != queries.length) {
+            return false;
+        }
+        for (int i = 0; i < queries.length; i++) {
+            if (tcuQueries.get(i) != queries[i]) {
+                return false;
             }
         }
-        return responses;
+        return true;
     }
 
-    private static final byte[][] convertToByteAddresses(Collection<EcuQuery> queries) {
-        int byteCount = 0;
-        for (EcuQuery query : queries) {
-            byteCount += query.getAddresses().length;
+    private void plan(List<EcuQuery> tcuQueries, Protocol protocol, Module module) {
+        final Map<String, Integer> unique = new HashMap<String, Integer>();
+        final List<byte[]> addresses = new ArrayList<byte[]>();
+        queries = tcuQueries.toArray(new EcuQuery[tcuQueries.size()]);
+        queryAddresses = new int[queries.length][];
+        queryValues = new byte[queries.length][];
+        for (int i = 0; i < queries.length; i++) {
+            final byte[] bytes = queries[i].getBytes();
+            final int count = bytes.length / ADDRESS_SIZE;
+            queryAddresses[i] = new int[count];
+            queryValues[i] = new byte[count * DATA_SIZE];
+            for (int j = 0; j < count; j++) {
+                final byte[] address = new byte[ADDRESS_SIZE];
+                arraycopy(bytes, j * ADDRESS_SIZE, address, 0, ADDRESS_SIZE);
+                final String key = asHex(address);
+                Integer index = unique.get(key);
+                if (index == null) {
+                    index = addresses.size();
+                    unique.put(key, index);
+                    addresses.add(address);
+                }
+                queryAddresses[i][j] = index;
+            }
         }
-        final byte[][] addresses = new byte[byteCount][ADDRESS_SIZE];
-        int i = 0;
-        for (EcuQuery query : queries) {
-            final byte[] bytes = query.getBytes();
-            for (int j = 0; j < bytes.length / ADDRESS_SIZE; j++) {
-                arraycopy(bytes, j * ADDRESS_SIZE, addresses[i++], 0, ADDRESS_SIZE);
+
+        final int requestCount =
+                (addresses.size() + addressesPerRequest - 1) / addressesPerRequest;
+        requests = new byte[requestCount][];
+        responses = new byte[requestCount][];
+        for (int i = 0; i < requestCount; i++) {
+            final int from = i * addressesPerRequest;
+            final int to = Math.min(from + addressesPerRequest, addresses.size());
+            final byte[][] chunk = addresses.subList(from, to).toArray(new byte[to - from][]);
+            requests[i] = protocol.constructReadAddressRequest(module, chunk);
+            responses[i] = new byte[RESPONSE_NON_DATA_BYTES + chunk.length * DATA_SIZE];
+        }
+        values = new byte[addresses.size() * DATA_SIZE];
+        this.module = module;
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug(module + " CAN read planned: " + queries.length + " queries, "
+                    + addresses.size() + " addresses, " + requestCount + " requests");
+    }
+
+    private void validateResponse(byte[] response) {
+        final byte[] id = module.getAddress();
+        for (int i = 0; i < id.length; i++) {
+            if (response[i] != id[i]) {
+                throw new InvalidResponseException(
+                        "Invalid " + module.getName() + " id: " + asHex(response));
             }
         }
-        return addresses;
+        if (response[id.length] != READ_ADDRESS_RESPONSE) {
+            throw new InvalidResponseException(
+                    "Invalid " + module.getName() + " read response: " + asHex(response));
+        }
     }
 }
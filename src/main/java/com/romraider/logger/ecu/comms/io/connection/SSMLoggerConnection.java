@@ -45,8 +45,9 @@ public final class SSMLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(SSMLoggerConnection.class);
     private final LoggerProtocol protocol;
     private final ConnectionManager manager;
-    private List<EcuQuery> tcuQueries = new ArrayList<EcuQuery>();
-    private final Collection<EcuQuery> tcuSubQuery = new ArrayList<EcuQuery>();
+    private final List<EcuQuery> tcuQueries = new ArrayList<EcuQuery>();
+    private final SSMLoggerCANSubQuery tcuSubQuery =
+            new SSMLoggerCANSubQuery(SSMLoggerCANSubQuery.TCU_ADDRESSES_PER_REQUEST);
     Settings settings = SettingsManager.getSettings();
 
     public SSMLoggerConnection(ConnectionManager manager) {
@@ -93,37 +94,14 @@ public final class SSMLoggerConnection implements LoggerConnection {
             PollingState pollState) {
 
         // Determine if ISO15765 is selected and then if TCU is selected.  If
-        // both are true then proceed to split queries so max CAN data packet
-        // contains 8 or less bytes, otherwise don't split up the queries.
+        // both are true then the queries are read in requests that fit a
+        // single CAN data packet of 8 or less bytes, otherwise don't split
+        // up the queries.
         if (settings.isCanBus() && module.getName().equalsIgnoreCase("TCU")) {
-            tcuQueries = (ArrayList<EcuQuery>) queries;
-            final int tcuQueryListLength = tcuQueries.size();
-            for (int i = 0; i < tcuQueryListLength; i++) {
-                tcuSubQuery.clear();
-                tcuSubQuery.add(tcuQueries.get(i));
-                final int addrLength = tcuQueries.get(i).getAddresses().length;
-                final byte[] request = protocol.constructReadAddressRequest(
-                        module, tcuSubQuery);
-                byte[] response = new byte[0];
-                if (addrLength == 1) {
-                    if (LOGGER.isDebugEnabled())
-                        LOGGER.debug(module + " CAN Request  ---> " + asHex(request));
-                    response = protocol.constructReadAddressResponse(
-                            tcuSubQuery, pollState);
-                    manager.send(request, response, pollState);
-                }
-                if (addrLength > 1) {
-                    response = SSMLoggerCANSubQuery.doSubQuery(
-                            (ArrayList<EcuQuery>) tcuSubQuery, manager,
-                            protocol, module, pollState);
-                }
-                final byte[] processedResponse = protocol.preprocessResponse(
-                        request, response, pollState);
-                if (LOGGER.isDebugEnabled())
-                    LOGGER.debug(module + " CAN Response <--- " + asHex(processedResponse));
-                protocol.processReadAddressResponses(
-                        tcuSubQuery, processedResponse, pollState);
-            }
+            tcuQueries.clear();
+            tcuQueries.addAll(queries);
+            tcuSubQuery.read(tcuQueries, manager, protocol.getProtocol(),
+                    module, pollState);
         }
         else {
             final byte[] request = protocol.constructReadAddressRequest(
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,69 +17,183 @@
  * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
  */
 
-package com.romraider.logger.ecu.comms.manager;
 
+package com.romraider.logger.ecu.comms.manager;
 
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
 import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.file.FileUpdateHandler;
 
-
-public class AsyncDataUpdateHandler extends Thread {
+/**
+ * Hands the responses of the query thread to the update handlers.
+ * <p>
+ * Each consumer thread owns a bounded {@link ResponseRingBuffer}.  File
+ * handlers get a consumer of their own that always blocks rather than
+ * drop, so slow display handlers can neither delay nor lose log rows;
+ * all other handlers share a consumer using the configured policy.
+ */
+public class AsyncDataUpdateHandler {
     private static final Logger LOGGER = Logger.getLogger(AsyncDataUpdateHandler.class);
+    private static final int FILE_CAPACITY = 1024;
+    private static final int BATCH_SIZE = 16;
+    private static final long POLL_TIMEOUT = 100L;
+    private final List<Consumer> consumers = new ArrayList<Consumer>();
+    private final Consumer displayConsumer;
+
+    public AsyncDataUpdateHandler(DataUpdateHandler[] handlers) {
+        this(handlers, DispatchPolicy.DROP_OLDEST, Settings.DEFAULT_LOGGER_DISPATCH_QUEUE_SIZE);
+    }
 
-    Vector<Response> responsesToUpdate = new Vector<Response>();
-	DataUpdateHandler[] handlers;
-	private  boolean stop = false;
-	private volatile boolean isRunning = false;
-	
-	public AsyncDataUpdateHandler(DataUpdateHandler[] handlers) {
-		this.handlers = handlers;
-		setName("AsyncDataUpdater");
-	}
-	
-    public void run(){
-    	LOGGER.info("Starting AsyncDataUpdateHandler");
-    	stop = false;
-    	
-    	while(!stop) {	    	
-    		isRunning = true;	
-    		
-	    	synchronized(responsesToUpdate) {		   
-	    		Response r;	    		
-	    		while(!responsesToUpdate.isEmpty()) {
-	    			r = responsesToUpdate.get(0);
-	    			
-		    	   for(DataUpdateHandler handler: handlers) {
-		    		   handler.handleDataUpdate(r);
-		    	   }	
-		    	   
-		    	   responsesToUpdate.remove(0);		    	   
-			  }
-	    	}
-		       
-	       try {
-	    	   Thread.sleep(16); //60 FPS
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-       }
-    	
-    	LOGGER.info("AsyncDataUpdater stopped.");
-    	isRunning = false;
+    public AsyncDataUpdateHandler(DataUpdateHandler[] handlers,
+            DispatchPolicy policy, int capacity) {
+        final List<DataUpdateHandler> display = new ArrayList<DataUpdateHandler>();
+        final List<DataUpdateHandler> file = new ArrayList<DataUpdateHandler>();
+        for (DataUpdateHandler handler : handlers) {
+            if (handler instanceof FileUpdateHandler) {
+                file.add(handler);
+            } else {
+                display.add(handler);
+            }
+        }
+        displayConsumer = new Consumer("AsyncDataUpdater", display,
+                new ResponseRingBuffer(capacity, policy));
+        consumers.add(displayConsumer);
+        if (!file.isEmpty()) {
+            consumers.add(new Consumer("AsyncFileUpdater", file,
+                    new ResponseRingBuffer(Math.max(capacity, FILE_CAPACITY),
+                            DispatchPolicy.BLOCK)));
+        }
     }
-    
+
+    public void start() {
+        LOGGER.info("Starting AsyncDataUpdateHandler");
+        for (Consumer consumer : consumers) {
+            consumer.start();
+        }
+    }
+
+    /**
+     * Stop accepting responses.  The consumers finish the responses already
+     * queued and then exit.
+     */
     public void stopUpdater() {
-    	stop = true;
+        for (Consumer consumer : consumers) {
+            consumer.buffer.close();
+        }
     }
-    
+
     public boolean isRunning() {
-    	return isRunning;
+        for (Consumer consumer : consumers) {
+            if (consumer.isAlive()) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
+    /**
+     * Queue a response for every consumer.  Depending on the policy this
+     * may discard older responses or wait for a consumer to catch up.
+     */
     public void addResponse(Response response) {
-    	responsesToUpdate.add(response);   
+        try {
+            for (Consumer consumer : consumers) {
+                // retain first, the consumer may release as soon as it is queued
+                retain(response);
+                boolean queued = false;
+                try {
+                    release(consumer.buffer.put(response));
+                    queued = true;
+                }
+                finally {
+                    if (!queued) release(response);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            release(response);
+        }
+    }
+
+    /**
+     * @return the number of responses waiting for the display handlers
+     */
+    public int getQueueDepth() {
+        return displayConsumer.buffer.getDepth();
+    }
+
+    /**
+     * @return the number of responses the display handlers never received
+     */
+    public long getDropCount() {
+        return displayConsumer.buffer.getDropCount();
+    }
+
+    private static void retain(Response response) {
+        if (response instanceof ColumnarResponse) {
+            ((ColumnarResponse) response).retain();
+        }
+    }
+
+    private static void release(Response response) {
+        if (response instanceof ColumnarResponse) {
+            ((ColumnarResponse) response).release();
+        }
+    }
+
+    private static final class Consumer extends Thread {
+        private final DataUpdateHandler[] handlers;
+        private final ResponseRingBuffer buffer;
+
+        Consumer(String name, List<DataUpdateHandler> handlers,
+                ResponseRingBuffer buffer) {
+            this.handlers = handlers.toArray(new DataUpdateHandler[handlers.size()]);
+            this.buffer = buffer;
+            setName(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final Response[] batch = new Response[BATCH_SIZE];
+            try {
+                while (true) {
+                    final int n = buffer.drainTo(batch, POLL_TIMEOUT);
+                    if (n == 0 && buffer.isClosed()) {
+                        break;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        dispatch(batch[i]);
+                        batch[i] = null;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn(getName() + " interrupted");
+            }
+            LOGGER.info(getName() + " stopped.");
+        }
+
+        private void dispatch(Response response) {
+            for (DataUpdateHandler handler : handlers) {
+                try {
+                    handler.handleDataUpdate(response);
+                }
+                catch (RuntimeException e) {
+                    LOGGER.error("Error updating " + handler.getClass().getSimpleName(), e);
+                }
+            }
+            release(response);
+        }
     }
-  }
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.definition.EcuData;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterConvertorImpl;
+
+/**
+ * Evaluates the derived parameters of a query cycle in a single pass.
+ * <p>
+ * The graph is built when the queried parameters change.  Every value a
+ * derived parameter needs becomes a node identified by the parameter and
+ * the convertor it is converted with, so an input shared by several
+ * derived parameters, such as engine speed or mass airflow, is decoded
+ * from the response bytes once per cycle.  Derived parameters of derived
+ * parameters are ordered after their inputs and the node values are kept
+ * in one array indexed in that order.
+ * <p>
+ * Only the queried derived parameters and the nodes they depend on are
+ * part of the graph.  An input that is also queried on its own is taken
+ * from that query, which converts its response at most once.
+ */
+final class DerivedParameterGraph {
+    private static final Node[] NO_NODES = new Node[0];
+    private static final EcuQuery[] NO_QUERIES = new EcuQuery[0];
+    private EcuQuery[] outputQueries = NO_QUERIES;
+    private EcuQuery[] directQueries = NO_QUERIES;
+    private EcuDataConvertor[] outputConvertors = new EcuDataConvertor[0];
+    private int[] outputNodes = new int[0];
+    private double[] outputValues = new double[0];
+    private Node[] nodes = NO_NODES;
+    private double[] values = new double[0];
+
+    /**
+     * Build the graph for the given queries.
+     * @param derivedQueries - the queries of derived parameters, their
+     * values are returned by {@link #evaluate()} in this order
+     * @param queries - the other ECU queries of the cycle
+     */
+    void bind(EcuQuery[] derivedQueries, EcuQuery[] queries) {
+        final Map<EcuData, EcuQuery> direct = new IdentityHashMap<EcuData, EcuQuery>();
+        for (EcuQuery query : queries) {
+            direct.put((EcuData) query.getLoggerData(), query);
+        }
+        final Map<Key, Integer> index = new HashMap<Key, Integer>();
+        final Set<Key> visiting = new HashSet<Key>();
+        final List<Node> order = new ArrayList<Node>();
+        final EcuDataConvertor[] convertors = new EcuDataConvertor[derivedQueries.length];
+        final int[] outputs = new int[derivedQueries.length];
+        for (int i = 0; i < derivedQueries.length; i++) {
+            final EcuQuery query = derivedQueries[i];
+            final EcuData ecuData = (EcuData) query.getLoggerData();
+            convertors[i] = ecuData.getSelectedConvertor();
+            outputs[i] = addNode(ecuData, convertors[i], query, 0,
+                    direct, index, visiting, order);
+        }
+        outputQueries = derivedQueries;
+        directQueries = queries;
+        outputConvertors = convertors;
+        outputNodes = outputs;
+        outputValues = new double[outputs.length];
+        nodes = order.toArray(new Node[order.size()]);
+        values = new double[nodes.length];
+    }
+
+    /**
+     * Decode the inputs and evaluate the derived parameters from the last
+     * responses.  The graph is rebuilt first when the units of a derived
+     * parameter have been changed.
+     * @return the value of each derived query in the order they were
+     * bound, the array is reused by the next evaluation
+     */
+    double[] evaluate() {
+        for (int i = 0; i < outputQueries.length; i++) {
+            if (outputQueries[i].getLoggerData().getSelectedConvertor() != outputConvertors[i]) {
+                bind(outputQueries, directQueries);
+                break;
+            }
+        }
+        final Node[] nodes = this.nodes;
+        final double[] values = this.values;
+        for (int i = 0; i < nodes.length; i++) {
+            values[i] = nodes[i].evaluate(values);
+        }
+        for (int i = 0; i < outputNodes.length; i++) {
+            outputValues[i] = values[outputNodes[i]];
+        }
+        return outputValues;
+    }
+
+    /**
+     * @return the number of values evaluated per cycle
+     */
+    int size() {
+        return nodes.length;
+    }
+
+    private int addNode(EcuData ecuData, EcuDataConvertor convertor,
+            EcuQuery source, int offset, Map<EcuData, EcuQuery> direct,
+            Map<Key, Integer> index, Set<Key> visiting, List<Node> order) {
+
+        final Key key = new Key(ecuData, convertor);
+        final Integer existing = index.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final Node node;
+        final EcuQuery query = direct.get(ecuData);
+        if (convertor instanceof EcuDerivedParameterConvertorImpl) {
+            if (!visiting.add(key)) {
+                throw new IllegalStateException(
+                        "Circular dependency on derived parameter " + ecuData.getName());
+            }
+            final EcuDerivedParameterConvertorImpl derived =
+                    (EcuDerivedParameterConvertorImpl) convertor;
+            final int[] inputs = new int[derived.getVariableCount()];
+            for (int i = 0; i < inputs.length; i++) {
+                final EcuData input = derived.getVariableData(i);
+                inputs[i] = input == null ? -1 : addNode(input,
+                        derived.getVariableConvertor(i), source,
+                        offset + derived.getVariableOffset(i),
+                        direct, index, visiting, order);
+            }
+            visiting.remove(key);
+            node = new ExpressionNode(derived, inputs);
+        }
+        else if (query != null) {
+            node = new QueryNode(query, convertor);
+        }
+        else {
+            node = new ByteNode(source, offset,
+                    ecuData.getAddress().getLength(), convertor);
+        }
+        index.put(key, order.size());
+        order.add(node);
+        return order.size() - 1;
+    }
+
+    private abstract static class Node {
+        /**
+         * @param values - the values of the nodes ordered before this one
+         */
+        abstract double evaluate(double[] values);
+    }
+
+    /**
+     * A value taken from a query of its own.
+     */
+    private static final class QueryNode extends Node {
+        private final EcuQuery query;
+        private final EcuDataConvertor convertor;
+
+        QueryNode(EcuQuery query, EcuDataConvertor convertor) {
+            this.query = query;
+            this.convertor = convertor;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            if (query.getLoggerData().getSelectedConvertor() == convertor) {
+                return query.getResponse();
+            }
+            return convertor.convert(query.getResponseBytes());
+        }
+    }
+
+    /**
+     * A value decoded from its part of the response of a derived query.
+     */
+    private static final class ByteNode extends Node {
+        private final EcuQuery source;
+        private final int offset;
+        private final byte[] bytes;
+        private final EcuDataConvertor convertor;
+
+        ByteNode(EcuQuery source, int offset, int length, EcuDataConvertor convertor) {
+            this.source = source;
+            this.offset = offset;
+            this.bytes = new byte[length];
+            this.convertor = convertor;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            final byte[] response = source.getResponseBytes();
+            if (response.length < offset + bytes.length) {
+                return 0.0;
+            }
+            System.arraycopy(response, offset, bytes, 0, bytes.length);
+            return convertor.convert(bytes);
+        }
+    }
+
+    /**
+     * A derived value evaluated from the values of its inputs.
+     */
+    private static final class ExpressionNode extends Node {
+        private final EcuDerivedParameterConvertorImpl convertor;
+        private final int[] inputs;
+        private final double[] arguments;
+
+        ExpressionNode(EcuDerivedParameterConvertorImpl convertor, int[] inputs) {
+            this.convertor = convertor;
+            this.inputs = inputs;
+            this.arguments = new double[inputs.length];
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            for (int i = 0; i < inputs.length; i++) {
+                arguments[i] = inputs[i] < 0 ? 0.0 : values[inputs[i]];
+            }
+            return convertor.evaluate(arguments);
+        }
+    }
+
+    private static final class Key {
+        private final EcuData ecuData;
+        private final EcuDataConvertor convertor;
+
+        Key(EcuData ecuData, EcuDataConvertor convertor) {
+            this.ecuData = ecuData;
+            this.convertor = convertor;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) object;
+            return ecuData == key.ecuData && convertor == key.convertor;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(ecuData)
+                    + System.identityHashCode(convertor);
+        }
+    }
+}
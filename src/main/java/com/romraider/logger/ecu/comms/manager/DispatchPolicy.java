@@ -0,0 +1,46 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+/**
+ * What a {@link ResponseRingBuffer} does with a new response when it is full.
+ */
+public enum DispatchPolicy {
+    /** Discard the oldest queued response to make room. */
+    DROP_OLDEST,
+    /** Replace the newest queued response, handlers only see the latest. */
+    COALESCE_LATEST,
+    /** Wait until the consumer has made room. */
+    BLOCK;
+
+    /**
+     * @return the policy with the given name or the default when unknown
+     */
+    public static DispatchPolicy fromString(String name, DispatchPolicy defaultPolicy) {
+        if (name != null) {
+            for (DispatchPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name.trim())) {
+                    return policy;
+                }
+            }
+        }
+        return defaultPolicy;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.Query;
+import com.romraider.logger.ecu.definition.PollRate;
+
+/**
+ * Chooses the ECU queries that are due in each query cycle according to the
+ * {@link PollRate} of their parameter and keeps count of the rate each
+ * query is actually polled at.
+ * <p>
+ * A query with a divisor of <i>n</i> is sent once every <i>n</i> cycles.
+ * Queries are given a phase as they are first seen so that the slower ones
+ * are spread over the cycles instead of all landing in the same frame.  A
+ * new query is always sent in its first cycle so it has a value to report.
+ * Queries that are not sent keep their last response.
+ * <p>
+ * In fast poll mode the ECU streams the replies to the last request until
+ * the request changes, so every query is due in every cycle and the rates
+ * are not applied.
+ * <p>
+ * Several protocols load the address list into the ECU once and only send
+ * it again for a new query, so the caller must flag a new query whenever
+ * {@link #isDueChanged()} even if the number of due queries is the same.
+ */
+final class PollScheduler {
+    private final Map<Query, Entry> entries = new IdentityHashMap<Query, Entry>();
+    private List<EcuQuery> due = new ArrayList<EcuQuery>();
+    private List<EcuQuery> lastDue = new ArrayList<EcuQuery>();
+    private boolean dueChanged;
+    private final DecimalFormat rateFormat = new DecimalFormat("0.0");
+    private long cycle;
+    private int nextPhase;
+    private long start;
+
+    PollScheduler() {
+        reset(System.currentTimeMillis());
+    }
+
+    /**
+     * Start a new measurement period and forget the queries that are not
+     * in the given collection.
+     */
+    void retainAll(Collection<? extends Query> queries, long now) {
+        final Map<Query, Boolean> live = new IdentityHashMap<Query, Boolean>();
+        for (Query query : queries) {
+            live.put(query, Boolean.TRUE);
+        }
+        final Iterator<Query> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!live.containsKey(iterator.next())) {
+                iterator.remove();
+            }
+        }
+        reset(now);
+    }
+
+    /**
+     * @param queries - the ECU queries selected for logging
+     * @param pollAll - true to send every query, as for fast poll mode
+     * @return the queries to send this cycle, the list is reused by the
+     * call after next
+     */
+    List<EcuQuery> select(List<EcuQuery> queries, boolean pollAll) {
+        checkNotNull(queries, "queries");
+        final List<EcuQuery> previous = due;
+        due = lastDue;
+        lastDue = previous;
+        due.clear();
+        for (EcuQuery query : queries) {
+            Entry entry = entries.get(query);
+            if (entry == null) {
+                entry = new Entry(nextPhase++);
+                entries.put(query, entry);
+                entry.polls++;
+                due.add(query);
+                continue;
+            }
+            final int divisor = query.getLoggerData().getPollRate().getDivisor();
+            if (pollAll || divisor <= 1 || (cycle + entry.phase) % divisor == 0) {
+                entry.polls++;
+                due.add(query);
+            }
+        }
+        cycle++;
+        dueChanged = !sameQueries(due, lastDue);
+        return due;
+    }
+
+    /**
+     * @return true if the last call to select returned other queries, or
+     * the same queries in another order, than the call before it
+     */
+    boolean isDueChanged() {
+        return dueChanged;
+    }
+
+    private static boolean sameQueries(List<EcuQuery> a, List<EcuQuery> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of times the query was sent per second since the
+     * measurement period started
+     */
+    double getAchievedRate(Query query, long now) {
+        final Entry entry = entries.get(query);
+        final double seconds = (now - start) / 1000.0;
+        if (entry == null || seconds <= 0) {
+            return 0.0;
+        }
+        return entry.polls / seconds;
+    }
+
+    /**
+     * @return the parameter names with their achieved rate in Hz
+     */
+    String buildRateReport(long now) {
+        final StringBuilder report = new StringBuilder();
+        for (Query query : entries.keySet()) {
+            if (report.length() > 0) {
+                report.append(", ");
+            }
+            report.append(query.getLoggerData().getName())
+                .append(' ')
+                .append(rateFormat.format(getAchievedRate(query, now)))
+                .append(" Hz");
+        }
+        return report.toString();
+    }
+
+    private void reset(long now) {
+        for (Entry entry : entries.values()) {
+            entry.polls = 0;
+        }
+        start = now;
+    }
+
+    private static final class Entry {
+        private final int phase;
+        private int polls;
+
+        Entry(int phase) {
+            this.phase = phase;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import static java.util.Collections.synchronizedMap;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -45,15 +46,17 @@ import com.romraider.Settings;
 import com.romraider.io.j2534.api.J2534Library;
 import com.romraider.io.j2534.api.J2534LibraryLocator;
 import com.romraider.logger.ecu.comms.io.connection.LoggerConnection;
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
 import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
 import com.romraider.logger.ecu.comms.query.ExternalQuery;
 import com.romraider.logger.ecu.comms.query.ExternalQueryImpl;
 import com.romraider.logger.ecu.comms.query.Query;
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
+import com.romraider.logger.ecu.comms.query.ResponsePool;
+import com.romraider.logger.ecu.comms.query.ResponseSlots;
 import com.romraider.logger.ecu.definition.EcuData;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterImpl;
 import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.definition.Module;
@@ -74,9 +77,23 @@ public final class QueryManagerImpl implements QueryManager {
             synchronizedMap(new HashMap<String, Query>());
     private final Map<String, Query> addList = new HashMap<String, Query>();
     private final List<String> removeList = new ArrayList<String>();
+    private final ResponseSlots responseSlots = new ResponseSlots();
+    private final ResponsePool responsePool =
+            new ResponsePool(responseSlots, RESPONSE_POOL_SIZE);
+    private Query[] activeQueries = new Query[0];
+    private int[] activeSlots = new int[0];
+    private int[] derivedSlots = new int[0];
+    private final DerivedParameterGraph derivedGraph = new DerivedParameterGraph();
+    private final PollScheduler pollScheduler = new PollScheduler();
+    private long nextRateReport;
+    private int polledCount;
+    private int ecuQueryCount;
     private static final PollingState pollState = new PollingStateImpl();
     private static final Settings settings = SettingsManager.getSettings();
     private static final String EXT = "Externals";
+    private static final int RESPONSE_POOL_SIZE = 32;
+    // msec between updates of the achieved poll rates shown while logging
+    private static final long RATE_REPORT_INTERVAL = 1000L;
     private final EcuInitCallback ecuInitCallback;
     private final MessageListener messageListener;
     private FileLoggerControllerSwitchMonitor monitor;
@@ -124,6 +141,7 @@ public final class QueryManagerImpl implements QueryManager {
 
         //FIXME: This is a hack!!
         String queryId = buildQueryId(callerId, loggerData);
+        responseSlots.assign(loggerData);
         if (loggerData.getDataType() == EXTERNAL) {
             addList.put(queryId, new ExternalQueryImpl((ExternalData) loggerData));
         } else {
@@ -277,7 +295,9 @@ public final class QueryManagerImpl implements QueryManager {
                 dataUpdater.stopUpdater();
             }
 
-            dataUpdater = new AsyncDataUpdateHandler(updateHandlers);
+            dataUpdater = new AsyncDataUpdateHandler(updateHandlers,
+                    settings.getLoggerDispatchPolicy(),
+                    settings.getLoggerDispatchQueueSize());
             dataUpdater.start();
 
             boolean lastPollState = settings.isFastPoll();
@@ -354,6 +374,11 @@ public final class QueryManagerImpl implements QueryManager {
                     messageListener.reportMessage(MessageFormat.format(
                             rb.getString("QUERYING"), moduleName));
                     messageListener.reportStats(buildStatsMessage(queryStart, queryCounter));
+                    if (currentTimeMillis() >= nextRateReport) {
+                        messageListener.reportPollRates(
+                                pollScheduler.buildRateReport(currentTimeMillis()));
+                        nextRateReport = currentTimeMillis() + RATE_REPORT_INTERVAL;
+                    }
                 }
             }
         } catch (Exception e) {
@@ -361,6 +386,7 @@ public final class QueryManagerImpl implements QueryManager {
             sleep(500L);
         } finally {
             messageListener.reportMessage(rb.getString("STOPPING"));
+            logPollRates();
             txManager.stop();
             pollState.setCurrentState(PollingState.State.STATE_0);
             pollState.setNewQuery(true);
@@ -369,10 +395,25 @@ public final class QueryManagerImpl implements QueryManager {
 
     private void sendEcuQueries(TransmissionManager txManager) {
         final List<EcuQuery> ecuQueries = filterEcuQueries(queryMap.values());
+        // the fast poll reply stream is fixed to the last request sent
+        final List<EcuQuery> dueQueries =
+                pollScheduler.select(ecuQueries, pollState.isFastPoll());
+        // the ECU keeps the address list of the last new query
+        if (pollScheduler.isDueChanged()) {
+            pollState.setNewQuery(true);
+        }
+        ecuQueryCount = ecuQueries.size();
+        polledCount = dueQueries.size();
         if (fileLoggerQuery != null
-                && settings.isFileLoggingControllerSwitchActive())
-            ecuQueries.add(fileLoggerQuery);
-            txManager.sendQueries(ecuQueries, pollState);
+                && settings.isFileLoggingControllerSwitchActive()) {
+            // the scheduler compares against the list it returned
+            final List<EcuQuery> sent = new ArrayList<EcuQuery>(dueQueries);
+            sent.add(fileLoggerQuery);
+            txManager.sendQueries(sent, pollState);
+        }
+        else {
+            txManager.sendQueries(dueQueries, pollState);
+        }
     }
 
     private void sendExternalQueries() {
@@ -393,16 +434,22 @@ public final class QueryManagerImpl implements QueryManager {
     private void handleQueryResponse() {
         if (settings.isFileLoggingControllerSwitchActive())
             monitor.monitorFileLoggerSwitch(fileLoggerQuery.getResponse());
-        final Response response = buildResponse(queryMap.values());
-
-
-        dataUpdater.addResponse(response);
+        dataUpdater.addResponse(buildResponse());
     }
 
-    private Response buildResponse(Collection<Query> queries) {
-        final Response response = new ResponseImpl();
-        for (final Query query : queries) {
-            response.setDataValue(query.getLoggerData(), query.getResponse());
+    private ColumnarResponse buildResponse() {
+        final ColumnarResponse response = responsePool.acquire();
+        final Query[] queries = activeQueries;
+        final int[] slots = activeSlots;
+        for (int i = 0; i < queries.length; i++) {
+            response.setValue(slots[i], queries[i].getResponse());
+        }
+        final int[] derived = derivedSlots;
+        if (derived.length > 0) {
+            final double[] values = derivedGraph.evaluate();
+            for (int i = 0; i < derived.length; i++) {
+                response.setValue(derived[i], values[i]);
+            }
         }
         return response;
     }
@@ -439,8 +486,69 @@ public final class QueryManagerImpl implements QueryManager {
     }
 
     private synchronized void updateQueryList() {
+        if (addList.isEmpty() && removeList.isEmpty()) {
+            return;
+        }
         addQueries();
         removeQueries();
+        bindResponseSlots();
+    }
+
+    /**
+     * Snapshot the active queries together with their response slots and
+     * free the slots of parameters that are no longer queried.  Derived
+     * parameters are evaluated together by the {@link DerivedParameterGraph}.
+     */
+    private void bindResponseSlots() {
+        final Query[] queries;
+        synchronized (queryMap) {
+            queries = queryMap.values().toArray(new Query[queryMap.size()]);
+        }
+        final List<Query> plain = new ArrayList<Query>(queries.length);
+        final List<Integer> plainSlots = new ArrayList<Integer>(queries.length);
+        final List<EcuQuery> plainEcu = new ArrayList<EcuQuery>(queries.length);
+        final List<EcuQuery> derived = new ArrayList<EcuQuery>();
+        final List<Integer> derivedSlotList = new ArrayList<Integer>();
+        final List<LoggerData> live = new ArrayList<LoggerData>(queries.length);
+        for (Query query : queries) {
+            final LoggerData loggerData = query.getLoggerData();
+            final int slot = responseSlots.assign(loggerData);
+            live.add(loggerData);
+            if (loggerData instanceof EcuDerivedParameterImpl) {
+                derived.add((EcuQuery) query);
+                derivedSlotList.add(slot);
+            }
+            else {
+                plain.add(query);
+                plainSlots.add(slot);
+                if (query instanceof EcuQuery) {
+                    plainEcu.add((EcuQuery) query);
+                }
+            }
+        }
+        responseSlots.retainAll(live);
+        derivedGraph.bind(derived.toArray(new EcuQuery[derived.size()]),
+                plainEcu.toArray(new EcuQuery[plainEcu.size()]));
+        activeQueries = plain.toArray(new Query[plain.size()]);
+        activeSlots = toIntArray(plainSlots);
+        derivedSlots = toIntArray(derivedSlotList);
+        logPollRates();
+        pollScheduler.retainAll(Arrays.asList(queries), currentTimeMillis());
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private void logPollRates() {
+        final String report = pollScheduler.buildRateReport(currentTimeMillis());
+        if (report.length() > 0) {
+            LOGGER.info("Achieved poll rates: " + report);
+        }
     }
 
     private void addQueries() {
@@ -477,7 +585,11 @@ public final class QueryManagerImpl implements QueryManager {
                 rb.getString("QUERYSTATS"),
                 state,
                 (count / duration),
-                (duration / count)
+                (duration / count),
+                dataUpdater.getQueueDepth(),
+                dataUpdater.getDropCount(),
+                polledCount,
+                ecuQueryCount
                 );
         return result;
     }
@@ -0,0 +1,188 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.romraider.logger.ecu.comms.query.Response;
+
+/**
+ * A bounded FIFO of responses between the query thread and one consumer
+ * thread.  When full, the {@link DispatchPolicy} decides whether the
+ * oldest entry is dropped, the newest entry is replaced, or the producer
+ * waits.
+ */
+public final class ResponseRingBuffer {
+    private final Response[] ring;
+    private final DispatchPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head;
+    private int count;
+    private long drops;
+    private boolean closed;
+
+    public ResponseRingBuffer(int capacity, DispatchPolicy policy) {
+        checkGreaterThanZero(capacity, "capacity");
+        checkNotNull(policy, "policy");
+        this.ring = new Response[capacity];
+        this.policy = policy;
+    }
+
+    /**
+     * Queue a response.
+     * @return the response that was discarded to honour the policy, the
+     * given response itself if the buffer is closed, otherwise null
+     */
+    public Response put(Response response) throws InterruptedException {
+        checkNotNull(response, "response");
+        lock.lockInterruptibly();
+        try {
+            Response displaced = null;
+            if (count == ring.length && !closed) {
+                switch (policy) {
+                    case BLOCK:
+                        while (count == ring.length && !closed) {
+                            notFull.await();
+                        }
+                        break;
+                    case COALESCE_LATEST:
+                        final int tail = index(count - 1);
+                        displaced = ring[tail];
+                        ring[tail] = response;
+                        drops++;
+                        notEmpty.signal();
+                        return displaced;
+                    default:
+                        displaced = ring[head];
+                        ring[head] = null;
+                        head = index(1);
+                        count--;
+                        drops++;
+                        break;
+                }
+            }
+            if (closed) {
+                return response;
+            }
+            ring[index(count)] = response;
+            count++;
+            notEmpty.signal();
+            return displaced;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move up to <code>batch.length</code> queued responses into the batch,
+     * waiting up to the timeout for the first one.  After {@link #close()}
+     * the remaining responses are still handed out.
+     * @return the number of responses copied into the batch
+     */
+    public int drainTo(Response[] batch, long timeoutMillis)
+            throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (count == 0 && !closed && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            final int n = Math.min(count, batch.length);
+            for (int i = 0; i < n; i++) {
+                batch[i] = ring[head];
+                ring[head] = null;
+                head = index(1);
+            }
+            count -= n;
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refuse further responses and wake up any waiting thread.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int getDepth() {
+        lock.lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDropCount() {
+        lock.lock();
+        try {
+            return drops;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public DispatchPolicy getPolicy() {
+        return policy;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % ring.length;
+    }
+}
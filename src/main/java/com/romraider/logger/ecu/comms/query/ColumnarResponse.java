@@ -0,0 +1,205 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * A {@link Response} that stores one poll cycle in a dense
+ * <code>double[]</code> indexed by the slots of a {@link ResponseSlots}
+ * layout.  Instances come from a {@link ResponsePool} and are reference
+ * counted: each consumer that queues the response calls {@link #retain()}
+ * and the instance returns to the pool when the last {@link #release()}
+ * is made, so a running logger does not allocate per cycle.
+ * <p>
+ * The {@link Response} methods remain available for handlers that work
+ * with parameters; the slot accessors avoid the lookups entirely.
+ */
+public final class ColumnarResponse implements Response {
+    private static final double ZERO = 0.0;
+    private final ResponsePool pool;
+    private final Set<LoggerData> dataView = new DataView();
+    private final AtomicInteger references = new AtomicInteger();
+    private ResponseSlots.Layout layout;
+    private double[] values = new double[0];
+    private int[] stamps = new int[0];
+    private int[] order = new int[0];
+    private int count;
+    private int stamp;
+    private long timestamp;
+
+    ColumnarResponse(ResponsePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Prepare this instance for a new poll cycle with the given layout.
+     */
+    void reset(ResponseSlots.Layout layout) {
+        this.layout = layout;
+        final int size = layout.size();
+        if (values.length < size) {
+            values = new double[size];
+            stamps = new int[size];
+            order = new int[size];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        count = 0;
+        references.set(1);
+        timestamp = System.currentTimeMillis();
+    }
+
+    public ResponseSlots.Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return the number of values in this response
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the slot of the value at the given position, in the order
+     * the values were set
+     */
+    public int getSlotAt(int position) {
+        if (position >= count) {
+            throw new IndexOutOfBoundsException(position + " >= " + count);
+        }
+        return order[position];
+    }
+
+    public boolean hasValue(int slot) {
+        return slot >= 0 && slot < stamps.length && stamps[slot] == stamp;
+    }
+
+    public double getValue(int slot) {
+        return hasValue(slot) ? values[slot] : ZERO;
+    }
+
+    public void setValue(int slot, double value) {
+        if (stamps[slot] != stamp) {
+            stamps[slot] = stamp;
+            order[count++] = slot;
+        }
+        values[slot] = value;
+    }
+
+    @Override
+    public void setDataValue(LoggerData data, double value) {
+        final int slot = layout.getSlot(data);
+        if (slot < 0 || slot >= values.length) {
+            throw new IllegalArgumentException(
+                    "No response slot assigned to " + data.getName());
+        }
+        setValue(slot, value);
+    }
+
+    @Override
+    public Set<LoggerData> getData() {
+        return dataView;
+    }
+
+    @Override
+    public double getDataValue(LoggerData data) {
+        return getValue(layout.getSlot(data));
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Override the capture time, as when replaying a recorded log.
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Add a reference, to be matched by a call to {@link #release()}.
+     */
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Drop a reference and return this instance to its pool when it was
+     * the last one.  The response must not be used after releasing it;
+     * handlers that defer work must copy the values they need.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            pool.recycle(this);
+        }
+    }
+
+    private final class DataView extends AbstractSet<LoggerData> {
+        @Override
+        public Iterator<LoggerData> iterator() {
+            return new Iterator<LoggerData>() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < count;
+                }
+
+                @Override
+                public LoggerData next() {
+                    if (position >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return layout.getLoggerData(order[position++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof LoggerData
+                    && hasValue(layout.getSlot((LoggerData) o));
+        }
+    }
+}
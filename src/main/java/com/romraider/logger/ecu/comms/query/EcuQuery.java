@@ -45,4 +45,10 @@ public interface EcuQuery extends Query {
      * @param bytes
      */
     void setResponse(byte[] bytes);
+
+    /**
+     * Return the bytes of the last response.  The array is reused for the
+     * following responses and must not be modified.
+     */
+    byte[] getResponseBytes();
 }
@@ -28,13 +28,16 @@ public final class EcuQueryImpl implements EcuQuery {
     private final EcuData ecuData;
     private final byte[] bytes;
     private final String hex;
+    private byte[] responseBytes;
     private double response;
+    private boolean converted = true;
 
     public EcuQueryImpl(EcuData ecuData) {
         checkNotNull(ecuData);
         this.ecuData = ecuData;
         bytes = ecuData.getAddress().getBytes();
         hex = asHex(bytes);
+        responseBytes = new byte[bytes.length];
     }
 
     public LoggerData getLoggerData() {
@@ -53,12 +56,29 @@ public final class EcuQueryImpl implements EcuQuery {
         return hex;
     }
 
+    /**
+     * The response bytes are converted on the first call after they were
+     * set, a response nobody reads is never converted.
+     */
     public double getResponse() {
+        if (!converted) {
+            response = ecuData.getSelectedConvertor().convert(responseBytes);
+            converted = true;
+        }
         return response;
     }
 
     public void setResponse(byte[] bytes) {
-        this.response = ecuData.getSelectedConvertor().convert(bytes);
+        // replies are not always as long as the request, as for OBD PIDs
+        if (responseBytes.length != bytes.length) {
+            responseBytes = new byte[bytes.length];
+        }
+        System.arraycopy(bytes, 0, responseBytes, 0, bytes.length);
+        converted = false;
+    }
+
+    public byte[] getResponseBytes() {
+        return responseBytes;
     }
 
     public boolean equals(Object object) {
@@ -0,0 +1,60 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of {@link ColumnarResponse} instances.  Acquiring is done
+ * by the query thread, releasing by the update thread; when the pool is
+ * empty a new instance is created and when it is full a released instance
+ * is left to the garbage collector.
+ */
+public final class ResponsePool {
+    private final ResponseSlots slots;
+    private final BlockingQueue<ColumnarResponse> free;
+
+    public ResponsePool(ResponseSlots slots, int capacity) {
+        checkNotNull(slots, "slots");
+        checkGreaterThanZero(capacity, "capacity");
+        this.slots = slots;
+        this.free = new ArrayBlockingQueue<ColumnarResponse>(capacity);
+    }
+
+    /**
+     * @return an empty response using the current slot layout
+     */
+    public ColumnarResponse acquire() {
+        ColumnarResponse response = free.poll();
+        if (response == null) {
+            response = new ColumnarResponse(this);
+        }
+        response.reset(slots.getLayout());
+        return response;
+    }
+
+    void recycle(ColumnarResponse response) {
+        free.offer(response);
+    }
+}
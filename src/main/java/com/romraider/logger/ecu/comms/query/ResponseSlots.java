@@ -0,0 +1,141 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * Assigns each logged parameter a dense slot number for the lifetime of
+ * a logging session.  Slots of parameters that are no longer queried are
+ * handed out again, so the slot range stays as small as the selection.
+ * <p>
+ * Every change publishes an immutable {@link Layout}; a response keeps the
+ * layout it was filled with, so a slot reused later cannot be confused
+ * with the parameter it held before.
+ */
+public final class ResponseSlots {
+    private static final Layout EMPTY = new Layout(new LoggerData[0],
+            new HashMap<LoggerData, Integer>());
+    private final Map<LoggerData, Integer> slots = new HashMap<LoggerData, Integer>();
+    private final BitSet used = new BitSet();
+    private volatile Layout layout = EMPTY;
+
+    /**
+     * Return the slot of the given parameter, assigning the lowest free slot
+     * if it does not have one yet.
+     */
+    public synchronized int assign(LoggerData loggerData) {
+        checkNotNull(loggerData, "loggerData");
+        Integer slot = slots.get(loggerData);
+        if (slot == null) {
+            slot = used.nextClearBit(0);
+            used.set(slot);
+            slots.put(loggerData, slot);
+            publish();
+        }
+        return slot;
+    }
+
+    /**
+     * Free the slots of all parameters not contained in the given collection.
+     */
+    public synchronized void retainAll(Collection<LoggerData> live) {
+        final Set<LoggerData> keep = new HashSet<LoggerData>(live);
+        boolean changed = false;
+        for (Iterator<Map.Entry<LoggerData, Integer>> it =
+                slots.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<LoggerData, Integer> entry = it.next();
+            if (!keep.contains(entry.getKey())) {
+                used.clear(entry.getValue());
+                it.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * Free every slot, used when a new session starts.
+     */
+    public synchronized void clear() {
+        slots.clear();
+        used.clear();
+        layout = EMPTY;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    private void publish() {
+        final LoggerData[] bySlot = new LoggerData[used.length()];
+        for (Map.Entry<LoggerData, Integer> entry : slots.entrySet()) {
+            bySlot[entry.getValue()] = entry.getKey();
+        }
+        layout = new Layout(bySlot, new HashMap<LoggerData, Integer>(slots));
+    }
+
+    /**
+     * An immutable mapping between slots and parameters.
+     */
+    public static final class Layout {
+        private final LoggerData[] bySlot;
+        private final Map<LoggerData, Integer> index;
+
+        private Layout(LoggerData[] bySlot, Map<LoggerData, Integer> index) {
+            this.bySlot = bySlot;
+            this.index = index;
+        }
+
+        /**
+         * @return one more than the highest slot in use
+         */
+        public int size() {
+            return bySlot.length;
+        }
+
+        /**
+         * @return the slot of the parameter or -1 if it has none
+         */
+        public int getSlot(LoggerData loggerData) {
+            final Integer slot = index.get(loggerData);
+            return slot == null ? -1 : slot;
+        }
+
+        /**
+         * @return the parameter in the slot or null if the slot is free
+         */
+        public LoggerData getLoggerData(int slot) {
+            return bySlot[slot];
+        }
+    }
+}
@@ -20,12 +20,12 @@
 package com.romraider.logger.ecu.definition;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
-import static com.romraider.util.JEPUtil.evaluate;
+import com.romraider.util.CompiledExpression;
+import com.romraider.util.JEPUtil;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static java.util.Collections.synchronizedMap;
 import java.text.DecimalFormat;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParameterConvertor {
@@ -34,8 +34,11 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     private final String expression;
     private final DecimalFormat format;
     private final Map<String, String> replaceMap;
-    private final Map<String, ExpressionInfo> expressionInfoMap = synchronizedMap(new HashMap<String, ExpressionInfo>());
     private final GaugeMinMax gaugeMinMax;
+    private CompiledExpression compiled;
+    private ExpressionInfo[] variableInfos;
+    private int[] inputVariables;
+    private int[] inputOffsets;
 
     public EcuDerivedParameterConvertorImpl(String units, String expression, String format, Map<String, String> replaceMap, GaugeMinMax gaugeMinMax) {
         checkNotNullOrEmpty(units, "units");
@@ -51,22 +54,69 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     }
 
     public double convert(byte[] bytes) {
-        Map<String, Double> valueMap = new HashMap<String, Double>();
-        String exp = expression;
-        int index = 0;
-        for (EcuData ecuData : ecuDatas) {
-            int length = ecuData.getAddress().getLength();
-            byte[] tmp = new byte[length];
-            System.arraycopy(bytes, index, tmp, 0, length);
-            ExpressionInfo expressionInfo = expressionInfoMap.get(ecuData.getId());
-            valueMap.put(expressionInfo.getReplacementKey(), expressionInfo.getConvertor().convert(tmp));
-            exp = exp.replace(buildParameterKey(expressionInfo), expressionInfo.getReplacementKey());
-            index += length;
+        final double[] values = new double[variableInfos.length];
+        for (int i = 0; i < ecuDatas.length; i++) {
+            final int variable = inputVariables[i];
+            if (variable < 0) {
+                continue;
+            }
+            final int length = ecuDatas[i].getAddress().getLength();
+            final byte[] tmp = new byte[length];
+            System.arraycopy(bytes, inputOffsets[i], tmp, 0, length);
+            values[variable] = variableInfos[variable].getConvertor().convert(tmp);
         }
-        double result = evaluate(exp, valueMap);
+        return evaluate(values);
+    }
+
+    /**
+     * Evaluate the expression from already converted input values.
+     * @param values - the converted value of each variable indexed as for
+     * {@link #getVariableData(int)}
+     * @return the result, 0 when it is not a finite number
+     */
+    public double evaluate(double[] values) {
+        final double result = compiled.evaluate(values);
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
+    /**
+     * @return the number of variables of the expression
+     */
+    public int getVariableCount() {
+        return variableInfos.length;
+    }
+
+    /**
+     * @return the parameter bound to the variable or null when the
+     * variable does not name one of the parameters this one depends on
+     */
+    public EcuData getVariableData(int variable) {
+        final ExpressionInfo info = variableInfos[variable];
+        return info == null ? null : info.getEcuData();
+    }
+
+    /**
+     * @return the convertor the value of the variable is converted with or
+     * null when the variable is not bound
+     */
+    public EcuDataConvertor getVariableConvertor(int variable) {
+        final ExpressionInfo info = variableInfos[variable];
+        return info == null ? null : info.getConvertor();
+    }
+
+    /**
+     * @return the position of the bytes of the variable in the combined
+     * response of this parameter or -1 when the variable is not bound
+     */
+    public int getVariableOffset(int variable) {
+        for (int i = 0; i < inputVariables.length; i++) {
+            if (inputVariables[i] == variable) {
+                return inputOffsets[i];
+            }
+        }
+        return -1;
+    }
+
     public String getUnits() {
         return units;
     }
@@ -90,10 +140,32 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
 
     public void setEcuDatas(EcuData[] ecuDatas) {
         checkNotNullOrEmpty(ecuDatas, "ecuDatas");
-        this.ecuDatas = ecuDatas;
-        for (EcuData ecuData : ecuDatas) {
-            addExpressionInfo(ecuData);
+        final ExpressionInfo[] infos = new ExpressionInfo[ecuDatas.length];
+        String exp = expression;
+        for (int i = 0; i < ecuDatas.length; i++) {
+            infos[i] = buildExpressionInfo(ecuDatas[i]);
+            exp = exp.replace(buildParameterKey(infos[i]), infos[i].getReplacementKey());
         }
+        final CompiledExpression compiled = JEPUtil.compile(exp);
+        final ExpressionInfo[] variableInfos =
+                new ExpressionInfo[compiled.getVariables().length];
+        final int[] inputVariables = new int[ecuDatas.length];
+        final int[] inputOffsets = new int[ecuDatas.length];
+        int offset = 0;
+        for (int i = 0; i < ecuDatas.length; i++) {
+            final int variable = compiled.getVariableIndex(infos[i].getReplacementKey());
+            if (variable >= 0) {
+                variableInfos[variable] = infos[i];
+            }
+            inputVariables[i] = variable;
+            inputOffsets[i] = offset;
+            offset += ecuDatas[i].getAddress().getLength();
+        }
+        this.ecuDatas = ecuDatas;
+        this.compiled = compiled;
+        this.variableInfos = variableInfos;
+        this.inputVariables = inputVariables;
+        this.inputOffsets = inputOffsets;
     }
 
     public String toString() {
@@ -104,7 +176,14 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         return expression;
     }
 
-    private void addExpressionInfo(EcuData ecuData) {
+    /**
+     * @return the formatted values that are written as replacement text
+     */
+    public Map<String, String> getReplaceMap() {
+        return Collections.unmodifiableMap(replaceMap);
+    }
+
+    private ExpressionInfo buildExpressionInfo(EcuData ecuData) {
         String id = ecuData.getId();
         String lookup = '[' + id + ':';
         int i = expression.indexOf(lookup);
@@ -119,30 +198,31 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
                     selectedConvertor = convertor;
                 }
             }
-            expressionInfoMap.put(id, new ExpressionInfo(id, selectedConvertor, true));
+            return new ExpressionInfo(ecuData, selectedConvertor, true);
         } else {
-            expressionInfoMap.put(id, new ExpressionInfo(id, ecuData.getSelectedConvertor(), false));
+            return new ExpressionInfo(ecuData, ecuData.getSelectedConvertor(), false);
         }
     }
 
     private String buildParameterKey(ExpressionInfo expressionInfo) {
-        return '[' + expressionInfo.getEcuDataId() + ':' + expressionInfo.getConvertor().getUnits() + ']';
+        return '[' + expressionInfo.getEcuData().getId() + ':' + expressionInfo.getConvertor().getUnits() + ']';
     }
 
     private static final class ExpressionInfo {
-        private final String ecuDataId;
+        private final EcuData ecuData;
         private final EcuDataConvertor convertor;
         private final String replacementKey;
 
-        public ExpressionInfo(String ecuDataId, EcuDataConvertor convertor, boolean compositeKey) {
-            checkNotNull(ecuDataId, convertor);
-            this.ecuDataId = ecuDataId;
+        public ExpressionInfo(EcuData ecuData, EcuDataConvertor convertor, boolean compositeKey) {
+            checkNotNull(ecuData, convertor);
+            this.ecuData = ecuData;
             this.convertor = convertor;
+            final String ecuDataId = ecuData.getId();
             this.replacementKey = compositeKey ? buildCompositeKey(ecuDataId, convertor.getUnits()) : ecuDataId;
         }
 
-        public String getEcuDataId() {
-            return ecuDataId;
+        public EcuData getEcuData() {
+            return ecuData;
         }
 
         public String getReplacementKey() {
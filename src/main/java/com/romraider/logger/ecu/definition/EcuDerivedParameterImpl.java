@@ -34,6 +34,7 @@ public final class EcuDerivedParameterImpl implements EcuParameter {
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
+    private PollRate pollRate = PollRate.HIGH;
 
     public EcuDerivedParameterImpl(String id, String name, String description, EcuData[] ecuDatas,
                                    EcuDerivedParameterConvertor[] convertors) {
@@ -108,6 +109,17 @@ public final class EcuDerivedParameterImpl implements EcuParameter {
         this.selected = selected;
     }
 
+    @Override
+    public PollRate getPollRate() {
+        return pollRate;
+    }
+
+    @Override
+    public void setPollRate(PollRate pollRate) {
+        checkNotNull(pollRate, "pollRate");
+        this.pollRate = pollRate;
+    }
+
     @Override
     public void addConvertorUpdateListener(ConvertorUpdateListener listener) {
         checkNotNull(listener, "listener");
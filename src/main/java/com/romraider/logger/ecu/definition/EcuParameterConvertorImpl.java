@@ -21,19 +21,26 @@ package com.romraider.logger.ecu.definition;
 
 import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
 import static com.romraider.util.ByteUtil.asUnsignedInt;
-import static com.romraider.util.JEPUtil.evaluate;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.BufferUnderflowException;
 import java.text.DecimalFormat;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
-
+import com.romraider.util.CompiledExpression;
+import com.romraider.util.JEPUtil;
+
+/**
+ * Converts the raw bytes of an ECU parameter.  The storage type, bit,
+ * endianness and expression are resolved once into a {@link Decoder} when
+ * the convertor is created, so converting a sample only assembles the
+ * value from the bytes and evaluates the compiled expression.
+ */
 public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     private static final String FLOAT = "float";
     private static final String UINT = "uint";
@@ -45,6 +52,7 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     private final Settings.Endian endian;
     private final Map<String, String> replaceMap;
     private final GaugeMinMax gaugeMinMax;
+    private final Decoder decoder;
 
     public EcuParameterConvertorImpl() {
         this("Raw data", "x", "0", -1, "uint", Settings.Endian.BIG,
@@ -67,50 +75,24 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
         this.endian = endian;
         this.replaceMap = replaceMap;
         this.gaugeMinMax = gaugeMinMax;
+        this.decoder = createDecoder();
     }
 
     public double convert(byte[] bytes) {
-        final ByteBuffer bb = ByteBuffer.wrap(bytes);
-        if (endian == Settings.Endian.LITTLE) {
-            bb.order(ByteOrder.LITTLE_ENDIAN);
-        }
+        return decoder.decode(bytes);
+    }
 
-        double result = 0;
+    private Decoder createDecoder() {
         if (bit >= 0 && bit <= 31) {
-            return (asUnsignedInt(bytes) & (1 << bit)) != 0 ? 1 : 0;
+            return new BitDecoder(bit);
         }
-        else if (dataType.equalsIgnoreCase(FLOAT)) {
-            result = evaluate(expression, bb.getFloat());
-        }
-        else {
-            long value = 0;
-            switch (bb.capacity()) {
-                case 1:
-                    value = bb.get();
-                    break;
-                case 2:
-                    value = bb.getShort();
-                    break;
-                case 4:
-                    value = bb.getInt();
-                    break;
-            }
-            if (dataType.toLowerCase().startsWith(UINT)) {
-                switch (bb.capacity()) {
-                    case 1:
-                        value = value & 0xff;
-                        break;
-                    case 2:
-                        value = value & 0xffff;
-                        break;
-                    case 4:
-                        value = value & 0xffffffffL;
-                        break;
-                }
-            }
-            result = evaluate(expression, value);
+        final CompiledExpression compiled = JEPUtil.compile(expression);
+        final boolean littleEndian = endian == Settings.Endian.LITTLE;
+        if (dataType.equalsIgnoreCase(FLOAT)) {
+            return new FloatDecoder(littleEndian, compiled);
         }
-        return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
+        return new IntegerDecoder(
+                dataType.toLowerCase().startsWith(UINT), littleEndian, compiled);
     }
 
     public String getUnits() {
@@ -127,6 +109,9 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
 
     public String format(double value) {
         String formattedValue = format.format(value);
+        if (replaceMap.isEmpty()) {
+            return formattedValue;
+        }
         if (replaceMap.containsKey(formattedValue)) {
             return replaceMap.get(formattedValue);
         } else {
@@ -142,8 +127,119 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
         return expression;
     }
 
+    /**
+     * @return the formatted values that are written as replacement text
+     */
+    public Map<String, String> getReplaceMap() {
+        return Collections.unmodifiableMap(replaceMap);
+    }
+
     @Override
     public String getDataType() {
         return dataType;
     }
+
+    /**
+     * @return a new formatter writing the text of {@link #format(double)}
+     * into a byte array, for use by a single thread
+     */
+    public ValueFormatter newFormatter() {
+        return new ValueFormatter(format.toPattern(), replaceMap);
+    }
+
+    /**
+     * Turns the raw bytes of a sample into the converted value.
+     */
+    private abstract static class Decoder {
+        abstract double decode(byte[] bytes);
+
+        static double finite(double result) {
+            return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
+        }
+
+        static int assemble(byte[] bytes, int length, boolean littleEndian) {
+            int value = 0;
+            if (littleEndian) {
+                for (int i = length - 1; i >= 0; i--) {
+                    value = (value << 8) | (bytes[i] & 0xff);
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    value = (value << 8) | (bytes[i] & 0xff);
+                }
+            }
+            return value;
+        }
+    }
+
+    /** A single bit of the big endian value, the expression is not used. */
+    private static final class BitDecoder extends Decoder {
+        private final int mask;
+
+        BitDecoder(int bit) {
+            this.mask = 1 << bit;
+        }
+
+        @Override
+        double decode(byte[] bytes) {
+            return (asUnsignedInt(bytes) & mask) != 0 ? 1 : 0;
+        }
+    }
+
+    /** An IEEE 754 single precision value. */
+    private static final class FloatDecoder extends Decoder {
+        private final boolean littleEndian;
+        private final CompiledExpression expression;
+
+        FloatDecoder(boolean littleEndian, CompiledExpression expression) {
+            this.littleEndian = littleEndian;
+            this.expression = expression;
+        }
+
+        @Override
+        double decode(byte[] bytes) {
+            if (bytes.length < 4) {
+                throw new BufferUnderflowException();
+            }
+            final float value = Float.intBitsToFloat(assemble(bytes, 4, littleEndian));
+            return finite(expression.evaluate(value));
+        }
+    }
+
+    /**
+     * A 1, 2 or 4 byte integer, signed unless the storage type is one of
+     * the uint types.  Other lengths read as 0.
+     */
+    private static final class IntegerDecoder extends Decoder {
+        private final boolean unsigned;
+        private final boolean littleEndian;
+        private final CompiledExpression expression;
+
+        IntegerDecoder(boolean unsigned, boolean littleEndian,
+                CompiledExpression expression) {
+            this.unsigned = unsigned;
+            this.littleEndian = littleEndian;
+            this.expression = expression;
+        }
+
+        @Override
+        double decode(byte[] bytes) {
+            long value = 0;
+            switch (bytes.length) {
+                case 1:
+                    value = unsigned ? bytes[0] & 0xff : bytes[0];
+                    break;
+                case 2:
+                    final int word = assemble(bytes, 2, littleEndian);
+                    value = unsigned ? word & 0xffff : (short) word;
+                    break;
+                case 4:
+                    final int dword = assemble(bytes, 4, littleEndian);
+                    value = unsigned ? dword & 0xffffffffL : dword;
+                    break;
+            }
+            return finite(expression.evaluate(value));
+        }
+    }
 }
@@ -38,6 +38,7 @@ public final class EcuParameterImpl implements EcuParameter {
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
+    private PollRate pollRate = PollRate.HIGH;
 
     public EcuParameterImpl(
             String id, String name, String description, EcuAddress address,
@@ -131,6 +132,17 @@ public final class EcuParameterImpl implements EcuParameter {
         this.selected = selected;
     }
 
+    @Override
+    public PollRate getPollRate() {
+        return pollRate;
+    }
+
+    @Override
+    public void setPollRate(PollRate pollRate) {
+        checkNotNull(pollRate, "pollRate");
+        this.pollRate = pollRate;
+    }
+
     @Override
     public void addConvertorUpdateListener(ConvertorUpdateListener listener) {
         checkNotNull(listener, "listener");
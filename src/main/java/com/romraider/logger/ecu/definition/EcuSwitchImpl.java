@@ -35,6 +35,7 @@ public final class EcuSwitchImpl implements EcuSwitch {
     private int selectedConvertorIndex;
     private boolean fileLogController;
     private boolean selected;
+    private PollRate pollRate = PollRate.HIGH;
 
     public EcuSwitchImpl(
             String id, String name, String description, EcuAddress address,
@@ -125,6 +126,17 @@ public final class EcuSwitchImpl implements EcuSwitch {
         this.selected = selected;
     }
 
+    @Override
+    public PollRate getPollRate() {
+        return pollRate;
+    }
+
+    @Override
+    public void setPollRate(PollRate pollRate) {
+        checkNotNull(pollRate, "pollRate");
+        this.pollRate = pollRate;
+    }
+
     public void setFileLogController(boolean fileLogController) {
         this.fileLogController = fileLogController;
     }
@@ -36,6 +36,7 @@ public final class ExternalDataImpl implements ExternalData {
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
+    private PollRate pollRate = PollRate.HIGH;
 
     public ExternalDataImpl(final ExternalDataItem dataItem, ExternalDataSource dataSource) {
         checkNotNull(dataItem, dataSource);
@@ -95,6 +96,15 @@ public final class ExternalDataImpl implements ExternalData {
         updateConnection(selected);
     }
 
+    public PollRate getPollRate() {
+        return pollRate;
+    }
+
+    public void setPollRate(PollRate pollRate) {
+        checkNotNull(pollRate, "pollRate");
+        this.pollRate = pollRate;
+    }
+
     private String createId(ExternalDataItem dataItem) {
         return "X_" + dataItem.getName().replaceAll(" ", "_");
     }
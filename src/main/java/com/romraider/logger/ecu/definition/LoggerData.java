@@ -38,4 +38,8 @@ public interface LoggerData {
     boolean isSelected();
 
     void setSelected(boolean selected);
+
+    PollRate getPollRate();
+
+    void setPollRate(PollRate pollRate);
 }
@@ -0,0 +1,65 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+/**
+ * The polling priority class of a logger parameter.  ECU queries are polled
+ * once every {@link #getDivisor()} query cycles so that slowly changing
+ * parameters leave room in the request frame for the ones that are needed
+ * at the full rate.
+ */
+public enum PollRate {
+    HIGH("high", 1),
+    MEDIUM("medium", 4),
+    LOW("low", 16);
+
+    private final String name;
+    private final int divisor;
+
+    private PollRate(String name, int divisor) {
+        this.name = name;
+        this.divisor = divisor;
+    }
+
+    /**
+     * @return the number of query cycles between polls
+     */
+    public int getDivisor() {
+        return divisor;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * @return the rate with the given profile name, or {@link #HIGH} when
+     * the name is null or unknown
+     */
+    public static PollRate fromString(String name) {
+        for (PollRate rate : values()) {
+            if (rate.name.equalsIgnoreCase(name)) {
+                return rate;
+            }
+        }
+        return HIGH;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.Map;
+
+import com.romraider.util.ByteDecimalFormat;
+
+/**
+ * Formats values into a caller supplied byte array as a convertor's
+ * <code>format(double)</code> does: the DecimalFormat pattern is applied
+ * and a result found in the replacement map is swapped for its text.
+ * No <code>String</code> is created per value.
+ * <p>
+ * Instances keep scratch state and must not be shared between threads.
+ */
+public final class ValueFormatter {
+    private final ByteDecimalFormat format;
+    private final byte[][] keys;
+    private final byte[][] texts;
+
+    public ValueFormatter(String pattern, Map<String, String> replacements) {
+        checkNotNull(pattern, "pattern");
+        checkNotNull(replacements, "replacements");
+        this.format = new ByteDecimalFormat(pattern);
+        keys = new byte[replacements.size()][];
+        texts = new byte[replacements.size()][];
+        int i = 0;
+        for (Map.Entry<String, String> entry : replacements.entrySet()) {
+            keys[i] = entry.getKey().getBytes();
+            texts[i++] = entry.getValue().getBytes();
+        }
+    }
+
+    /**
+     * @return the position after the text or -1 if the buffer is too small
+     */
+    public int format(double value, byte[] buffer, int offset) {
+        final int end = format.format(value, buffer, offset);
+        if (end < 0 || keys.length == 0) {
+            return end;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (matches(keys[i], buffer, offset, end)) {
+                if (buffer.length - offset < texts[i].length) {
+                    return -1;
+                }
+                System.arraycopy(texts[i], 0, buffer, offset, texts[i].length);
+                return offset + texts[i].length;
+            }
+        }
+        return end;
+    }
+
+    private static boolean matches(byte[] key, byte[] buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
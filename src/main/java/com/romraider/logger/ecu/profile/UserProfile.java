@@ -21,6 +21,7 @@ package com.romraider.logger.ecu.profile;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.definition.PollRate;
 
 public interface UserProfile {
 
@@ -34,6 +35,8 @@ public interface UserProfile {
 
     EcuDataConvertor getSelectedConvertor(LoggerData loggerData);
 
+    PollRate getPollRate(LoggerData loggerData);
+
     byte[] getBytes();
 
     String getProtocol();
@@ -25,6 +25,7 @@ import com.romraider.logger.ecu.definition.EcuParameter;
 import com.romraider.logger.ecu.definition.EcuSwitch;
 import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.definition.PollRate;
 import com.romraider.logger.ecu.exception.ConfigurationException;
 import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
@@ -99,6 +100,11 @@ public final class UserProfileImpl implements UserProfile {
         return loggerData.getSelectedConvertor();
     }
 
+    public PollRate getPollRate(LoggerData loggerData) {
+        checkNotNull(loggerData, "loggerData");
+        return contains(loggerData) ? getUserProfileItem(loggerData).getPollRate() : PollRate.HIGH;
+    }
+
     public byte[] getBytes() {
         byte[] profile = null;
         try {
@@ -154,6 +160,8 @@ public final class UserProfileImpl implements UserProfile {
             if (item.isDashSelected()) builder.append(" dash=\"selected\"");
             if (showUnits && !isNullOrEmpty(item.getUnits()))
                 builder.append(" units=\"").append(item.getUnits()).append("\"");
+            if (item.getPollRate() != PollRate.HIGH)
+                builder.append(" rate=\"").append(item.getPollRate()).append("\"");
             builder.append("/>").append(NEW_LINE);
         }
     }
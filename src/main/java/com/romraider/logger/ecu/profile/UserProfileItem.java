@@ -19,6 +19,8 @@
 
 package com.romraider.logger.ecu.profile;
 
+import com.romraider.logger.ecu.definition.PollRate;
+
 public interface UserProfileItem {
 
     boolean isDashSelected();
@@ -29,4 +31,6 @@ public interface UserProfileItem {
 
     String getUnits();
 
+    PollRate getPollRate();
+
 }
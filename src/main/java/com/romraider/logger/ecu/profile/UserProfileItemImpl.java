@@ -19,17 +19,26 @@
 
 package com.romraider.logger.ecu.profile;
 
+import com.romraider.logger.ecu.definition.PollRate;
+
 public final class UserProfileItemImpl implements UserProfileItem {
     private final String units;
     private final boolean liveDataSelected;
     private final boolean graphSelected;
     private final boolean dashSelected;
+    private final PollRate pollRate;
 
     public UserProfileItemImpl(String units, boolean liveDataSelected, boolean graphSelected, boolean dashSelected) {
+        this(units, liveDataSelected, graphSelected, dashSelected, PollRate.HIGH);
+    }
+
+    public UserProfileItemImpl(String units, boolean liveDataSelected, boolean graphSelected, boolean dashSelected,
+            PollRate pollRate) {
         this.units = units;
         this.liveDataSelected = liveDataSelected;
         this.graphSelected = graphSelected;
         this.dashSelected = dashSelected;
+        this.pollRate = pollRate == null ? PollRate.HIGH : pollRate;
     }
 
     public boolean isDashSelected() {
@@ -48,4 +57,8 @@ public final class UserProfileItemImpl implements UserProfileItem {
         return units;
     }
 
+    public PollRate getPollRate() {
+        return pollRate;
+    }
+
 }
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.ecu.profile.xml;
 
+import com.romraider.logger.ecu.definition.PollRate;
 import com.romraider.logger.ecu.profile.UserProfile;
 import com.romraider.logger.ecu.profile.UserProfileImpl;
 import com.romraider.logger.ecu.profile.UserProfileItem;
@@ -40,6 +41,7 @@ public final class UserProfileHandler extends DefaultHandler {
     private static final String ATTR_LIVE_DATA = "livedata";
     private static final String ATTR_GRAPH = "graph";
     private static final String ATTR_DASH = "dash";
+    private static final String ATTR_RATE = "rate";
     private Map<String, UserProfileItem> params;
     private Map<String, UserProfileItem> switches;
     private Map<String, UserProfileItem> external;
@@ -72,7 +74,8 @@ public final class UserProfileHandler extends DefaultHandler {
                 attributes.getValue(ATTR_UNITS),
                 SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_LIVE_DATA)),
                 SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_GRAPH)),
-                SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_DASH))
+                SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_DASH)),
+                PollRate.fromString(attributes.getValue(ATTR_RATE))
         );
     }
 
@@ -23,6 +23,8 @@ public interface MessageListener {
 
     void reportStats(String message);
 
+    void reportPollRates(String report);
+
     void reportMessage(String message);
 
     void reportMessageInTitleBar(String message);
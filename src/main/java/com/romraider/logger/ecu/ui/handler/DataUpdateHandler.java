@@ -26,6 +26,10 @@ public interface DataUpdateHandler {
 
     void registerData(LoggerData loggerData);
 
+    /**
+     * The response may be recycled once this method returns, any values
+     * needed later (e.g. on the event dispatch thread) must be copied.
+     */
     void handleDataUpdate(Response response);
 
     void deregisterData(LoggerData loggerData);
@@ -0,0 +1,214 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler;
+
+import static org.apache.log4j.Logger.getLogger;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.Timer;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.Settings;
+
+/**
+ * Paces display updates from the logger to a fixed frame rate. Handlers
+ * post values from the data update thread and request a frame, once per
+ * frame the scheduler calls every listener that requested one in a single
+ * pass on the event dispatch thread.
+ */
+public final class FrameScheduler {
+    private static final Logger LOGGER = getLogger(FrameScheduler.class);
+    private static final int MAX_FRAME_RATE = 120;
+    // frames between the debug log of the frame metrics
+    private static final int LOG_INTERVAL = 300;
+    private static final FrameScheduler INSTANCE = new FrameScheduler();
+    private final Set<FrameListener> pending = new LinkedHashSet<FrameListener>();
+    private final Timer timer;
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long frames;
+    private long lateFrames;
+    private long maxFrameNanos;
+    private long totalFrameNanos;
+
+    /**
+     * Receives a frame on the event dispatch thread.
+     */
+    public interface FrameListener {
+        void applyFrame();
+    }
+
+    private FrameScheduler() {
+        timer = new Timer(1000 / Settings.DEFAULT_LOGGER_FRAME_RATE, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                runFrame();
+            }
+        });
+        timer.setCoalesce(true);
+    }
+
+    public static FrameScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the number of frames per second, values are limited to 1 to 120.
+     */
+    public void setFrameRate(int fps) {
+        final int rate = Math.max(1, Math.min(MAX_FRAME_RATE, fps));
+        timer.setDelay(1000 / rate);
+    }
+
+    public int getFrameRate() {
+        return 1000 / timer.getDelay();
+    }
+
+    /**
+     * Ask for the listener to be called in the next frame. Any number of
+     * requests before the frame runs result in one call.
+     */
+    public void requestFrame(FrameListener listener) {
+        synchronized (pending) {
+            pending.add(listener);
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Remove a pending request, for listeners going away.
+     */
+    public void cancelFrame(FrameListener listener) {
+        synchronized (pending) {
+            pending.remove(listener);
+        }
+    }
+
+    /**
+     * Run one frame, called by the timer on the event dispatch thread.
+     * The timer is stopped while no listener is waiting.
+     */
+    void runFrame() {
+        final FrameListener[] listeners;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                timer.stop();
+                return;
+            }
+            listeners = pending.toArray(new FrameListener[pending.size()]);
+            pending.clear();
+        }
+        final long start = System.nanoTime();
+        for (FrameListener listener : listeners) {
+            try {
+                listener.applyFrame();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error applying display frame", e);
+            }
+        }
+        recordFrame(System.nanoTime() - start);
+    }
+
+    private synchronized void recordFrame(long nanos) {
+        frames++;
+        totalFrameNanos += nanos;
+        if (nanos > maxFrameNanos) maxFrameNanos = nanos;
+        if (nanos > timer.getDelay() * 1000000L) lateFrames++;
+        if (frames % LOG_INTERVAL == 0 && LOGGER.isDebugEnabled()) {
+            LOGGER.debug(toString());
+        }
+    }
+
+    void countPosted(boolean replaced) {
+        posted.incrementAndGet();
+        if (replaced) dropped.incrementAndGet();
+    }
+
+    void countApplied(int count) {
+        applied.addAndGet(count);
+    }
+
+    /**
+     * @return the number of values posted by the handlers
+     */
+    public long getPostedCount() {
+        return posted.get();
+    }
+
+    /**
+     * @return the number of values shown on a display
+     */
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    /**
+     * @return the number of values replaced by a newer value for the same
+     * parameter before they were shown
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public synchronized long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * @return the number of frames that took longer than the frame period
+     */
+    public synchronized long getLateFrameCount() {
+        return lateFrames;
+    }
+
+    public synchronized long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    public synchronized long getAverageFrameNanos() {
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
+
+    public synchronized void resetMetrics() {
+        posted.set(0);
+        applied.set(0);
+        dropped.set(0);
+        frames = 0;
+        lateFrames = 0;
+        maxFrameNanos = 0;
+        totalFrameNanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "frames=%d late=%d avg=%.2fms max=%.2fms posted=%d applied=%d dropped=%d",
+                frames, lateFrames, getAverageFrameNanos() / 1e6,
+                maxFrameNanos / 1e6, posted.get(), applied.get(), dropped.get());
+    }
+}
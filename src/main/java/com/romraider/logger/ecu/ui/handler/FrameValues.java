@@ -0,0 +1,122 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * Holds the latest value of each parameter until the next frame. A value
+ * replaced before it is shown still counts toward the minimum and maximum
+ * of its sample so peaks are not lost between frames.
+ */
+public final class FrameValues {
+    private final FrameScheduler scheduler;
+    private Map<LoggerData, Sample> pending = new LinkedHashMap<LoggerData, Sample>();
+
+    public static final class Sample {
+        private final LoggerData loggerData;
+        private double value;
+        private double min;
+        private double max;
+
+        private Sample(LoggerData loggerData, double value) {
+            this.loggerData = loggerData;
+            this.value = value;
+            this.min = value;
+            this.max = value;
+        }
+
+        private void update(double value) {
+            this.value = value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        public LoggerData getLoggerData() {
+            return loggerData;
+        }
+
+        /**
+         * @return the latest value
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * @return the lowest value since the last frame
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * @return the highest value since the last frame
+         */
+        public double getMax() {
+            return max;
+        }
+    }
+
+    public FrameValues(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public synchronized void post(LoggerData loggerData, double value) {
+        final Sample sample = pending.get(loggerData);
+        if (sample == null) {
+            pending.put(loggerData, new Sample(loggerData, value));
+        } else {
+            sample.update(value);
+        }
+        scheduler.countPosted(sample != null);
+    }
+
+    /**
+     * Take the samples posted since the last call, in the order their
+     * parameters were first posted.
+     */
+    public List<Sample> drain() {
+        final Map<LoggerData, Sample> samples;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return Collections.emptyList();
+            }
+            samples = pending;
+            pending = new LinkedHashMap<LoggerData, Sample>();
+        }
+        scheduler.countApplied(samples.size());
+        return new ArrayList<Sample>(samples.values());
+    }
+
+    public synchronized void remove(LoggerData loggerData) {
+        pending.remove(loggerData);
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+    }
+}
@@ -23,6 +23,10 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler.FrameListener;
+import com.romraider.logger.ecu.ui.handler.FrameValues;
+import com.romraider.logger.ecu.ui.handler.FrameValues.Sample;
 import static com.romraider.util.ThreadUtil.run;
 import static java.util.Collections.synchronizedMap;
 import javax.swing.JPanel;
@@ -32,10 +36,12 @@ import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Map;
 
-public final class DashboardUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class DashboardUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener, FrameListener {
     private static final Class[] STYLES = {PlainGaugeStyle.class, SmallGaugeStyle.class, NoFrillsGaugeStyle.class, DialGaugeStyle.class, SmallDialGaugeStyle.class};
     private final Map<LoggerData, Gauge> gauges = synchronizedMap(new HashMap<LoggerData, Gauge>());
     private final JPanel dashboardPanel;
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
+    private final FrameValues values = new FrameValues(scheduler);
     public int styleIndex;
 
     public DashboardUpdateHandler(JPanel dashboardPanel, int styleIndex) {
@@ -51,19 +57,28 @@ public final class DashboardUpdateHandler implements DataUpdateHandler, Converto
         repaintDashboardPanel();
     }
 
-    public synchronized void handleDataUpdate(Response response) {
+    public void handleDataUpdate(Response response) {
     	if (dashboardPanel.isShowing()) {
 	        for (LoggerData loggerData : response.getData()) {
-	            Gauge gauge = gauges.get(loggerData);
-	            if (gauge != null) {
-	                double value = response.getDataValue(loggerData);
-	                gauge.updateValue(value);
+	            if (gauges.containsKey(loggerData)) {
+	                values.post(loggerData, response.getDataValue(loggerData));
 	            }
 	        }
+	        scheduler.requestFrame(this);
     	}
     }
 
+    public void applyFrame() {
+        for (Sample sample : values.drain()) {
+            Gauge gauge = gauges.get(sample.getLoggerData());
+            if (gauge != null) {
+                gauge.updateValue(sample.getValue(), sample.getMin(), sample.getMax());
+            }
+        }
+    }
+
     public synchronized void deregisterData(LoggerData loggerData) {
+        values.remove(loggerData);
         dashboardPanel.remove(gauges.get(loggerData));
         gauges.remove(loggerData);
         repaintDashboardPanel();
@@ -73,6 +88,7 @@ public final class DashboardUpdateHandler implements DataUpdateHandler, Converto
     }
 
     public synchronized void reset() {
+        values.clear();
         for (Gauge gauge : gauges.values()) {
             gauge.resetValue();
         }
@@ -81,6 +97,7 @@ public final class DashboardUpdateHandler implements DataUpdateHandler, Converto
     public synchronized void notifyConvertorUpdate(LoggerData updatedLoggerData) {
         Gauge gauge = gauges.get(updatedLoggerData);
         if (gauge != null) {
+            values.remove(updatedLoggerData);
             gauge.resetValue();
             gauge.refreshTitle();
         }
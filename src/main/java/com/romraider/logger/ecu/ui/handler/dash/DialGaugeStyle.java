@@ -92,41 +92,25 @@ public class DialGaugeStyle implements GaugeStyle {
         refreshChart(panel);
     }
 
-    public void updateValue(final double value) {
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                current.setValue(value);
-            }
-        });
-        updateMinMax(value);
-    }
-
-    private void updateMinMax(final double value) {
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                if (value > maxValue) {
-                    maxValue = value;
-                    max.setValue(value);
-                }
-                if (value < minValue) {
-                    minValue = value;
-                    min.setValue(value);
-                }
-            }
-        });
+    public void updateValue(double value, double low, double high) {
+        current.setValue(value);
+        if (high > maxValue) {
+            maxValue = high;
+            max.setValue(high);
+        }
+        if (low < minValue) {
+            minValue = low;
+            min.setValue(low);
+        }
     }
 
     public void resetValue() {
         EcuDataConvertor convertor = loggerData.getSelectedConvertor();
         GaugeMinMax minMax = convertor.getGaugeMinMax();
-        double value = minMax.min;
-        updateValue(value);
-        resetMinMax(value);
-    }
-
-    private void resetMinMax(final double value) {
+        final double value = minMax.min;
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
+                current.setValue(value);
                 maxValue = MAX_VALUE * -1;
                 minValue = MAX_VALUE;
                 max.setValue(value);
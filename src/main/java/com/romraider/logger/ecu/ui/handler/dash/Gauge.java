@@ -37,8 +37,8 @@ public final class Gauge extends JPanel {
         style.refreshTitle();
     }
 
-    public void updateValue(double value) {
-        style.updateValue(value);
+    public void updateValue(double value, double min, double max) {
+        style.updateValue(value, min, max);
     }
 
     public void resetValue() {
@@ -22,7 +22,11 @@ package com.romraider.logger.ecu.ui.handler.dash;
 public interface GaugeUpdateListener {
     void refreshTitle();
 
-    public void updateValue(double value);
+    /**
+     * Show the latest value and the range of the values since the last
+     * update, called on the event dispatch thread.
+     */
+    public void updateValue(double value, double min, double max);
 
     public void resetValue();
 }
@@ -91,13 +91,13 @@ public class PlainGaugeStyle implements GaugeStyle, ActionListener {
         });
     }
 
-    public void updateValue(double value) {
-        refreshValue(value);
+    public void updateValue(double value, double min, double max) {
+        refreshValue(value, min, max);
         if (warnCheckBox.isSelected() && isValidWarnThreshold()) {
             if (warnType.getSelectedItem() == ABOVE) {
-                setWarning(value >= getWarnThreshold());
+                setWarning(max >= getWarnThreshold());
             } else if (warnType.getSelectedItem() == BELOW) {
-                setWarning(value <= getWarnThreshold());
+                setWarning(min <= getWarnThreshold());
             }
         }
     }
@@ -218,25 +218,19 @@ public class PlainGaugeStyle implements GaugeStyle, ActionListener {
         return panel;
     }
 
-    private void refreshValue(final double value) {
-        final String text = format(loggerData, value);
-        final int scaledValue = scaleForProgressBar(value);
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                if (value > max) {
-                    max = value;
-                    maxLabel.setText(text);
-                    progressBar.setMaximum(scaledValue);
-                }
-                if (value < min) {
-                    min = value;
-                    minLabel.setText(text);
-                    progressBar.setMinimum(scaledValue);
-                }
-                liveValueLabel.setText(text);
-                progressBar.setValue(scaledValue);
-            }
-        });
+    private void refreshValue(double value, double low, double high) {
+        if (high > max) {
+            max = high;
+            maxLabel.setText(format(loggerData, high));
+            progressBar.setMaximum(scaleForProgressBar(high));
+        }
+        if (low < min) {
+            min = low;
+            minLabel.setText(format(loggerData, low));
+            progressBar.setMinimum(scaleForProgressBar(low));
+        }
+        liveValueLabel.setText(format(loggerData, value));
+        progressBar.setValue(scaleForProgressBar(value));
     }
 
     private boolean isValidWarnThreshold() {
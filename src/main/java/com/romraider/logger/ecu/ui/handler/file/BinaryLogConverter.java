@@ -0,0 +1,105 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Converts a binary log into the CSV layout written during normal logging.
+ * <p>
+ * Usage: <code>BinaryLogConverter &lt;log.rrlog&gt; [log.csv]</code>
+ */
+public final class BinaryLogConverter {
+
+    private BinaryLogConverter() {
+    }
+
+    /**
+     * @return the number of records converted
+     */
+    public static long convert(File binaryLog, File csvLog) throws IOException {
+        final BinaryLogReader reader =
+                new BinaryLogReader(new FileInputStream(binaryLog));
+        try {
+            final FileOutputStream out = new FileOutputStream(csvLog);
+            return convert(reader, out.getChannel());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Streams all blocks of the reader into a CSV writer on the output.
+     * The output is closed when done.
+     * @return the number of records converted
+     */
+    public static long convert(BinaryLogReader reader, WritableByteChannel out)
+            throws IOException {
+        LogWriter writer = null;
+        long records = 0;
+        try {
+            int block;
+            while ((block = reader.next()) != BinaryLogReader.END) {
+                if (block == BinaryLogWriter.HEADER) {
+                    if (writer == null) {
+                        writer = new CsvLogWriter(out,
+                                reader.getDelimiter(), reader.isAbsoluteTimestamp());
+                    }
+                    writer.writeHeaders(reader.getColumns());
+                } else if (writer != null) {
+                    writer.writeRecord(reader.getTimestamp(), reader.getValues());
+                    records++;
+                }
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            } else {
+                out.close();
+            }
+        }
+        return records;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BinaryLogConverter <binary log> [csv log]");
+            System.exit(1);
+        }
+        final File in = new File(args[0]);
+        final File out;
+        if (args.length == 2) {
+            out = new File(args[1]);
+        } else {
+            String name = in.getPath();
+            final int dot = name.lastIndexOf('.');
+            if (dot > name.lastIndexOf(File.separatorChar)) {
+                name = name.substring(0, dot);
+            }
+            out = new File(name + ".csv");
+        }
+        final long records = convert(in, out);
+        System.out.println("Converted " + records + " records to " + out.getPath());
+    }
+}
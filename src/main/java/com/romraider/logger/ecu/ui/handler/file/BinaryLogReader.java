@@ -0,0 +1,149 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a log written by {@link BinaryLogWriter} one block at a time.
+ * The values array is reused between records.
+ */
+public final class BinaryLogReader implements Closeable {
+    /** {@link #next()} result when the end of the log is reached. */
+    public static final int END = -1;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private final DataInputStream in;
+    private LogColumn[] columns = new LogColumn[0];
+    private double[] values = new double[0];
+    private String delimiter;
+    private boolean absoluteTimestamp;
+    private long timestamp;
+
+    public BinaryLogReader(InputStream input) throws IOException {
+        checkNotNull(input, "input");
+        in = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE));
+        final byte[] magic = new byte[BinaryLogWriter.MAGIC.length];
+        try {
+            in.readFully(magic);
+        } catch (EOFException e) {
+            throw new IOException("Not a binary log file");
+        }
+        if (!Arrays.equals(magic, BinaryLogWriter.MAGIC)) {
+            throw new IOException("Not a binary log file");
+        }
+        final int version = in.readUnsignedShort();
+        if (version > BinaryLogWriter.VERSION) {
+            throw new IOException("Unsupported binary log version: " + version);
+        }
+    }
+
+    /**
+     * Reads the next block.
+     * @return {@link BinaryLogWriter#HEADER}, {@link BinaryLogWriter#RECORD}
+     * or {@link #END}
+     */
+    public int next() throws IOException {
+        final int tag = in.read();
+        if (tag < 0) {
+            return END;
+        }
+        try {
+            if (tag == BinaryLogWriter.HEADER) {
+                readHeaders();
+            } else if (tag == BinaryLogWriter.RECORD) {
+                timestamp = in.readLong();
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readDouble();
+                }
+            } else {
+                throw new IOException("Corrupt binary log, unknown block: " + tag);
+            }
+        } catch (EOFException e) {
+            // a log cut short by a crash ends with a partial block
+            return END;
+        }
+        return tag;
+    }
+
+    public LogColumn[] getColumns() {
+        return columns;
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    public boolean isAbsoluteTimestamp() {
+        return absoluteTimestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the values of the last record read, overwritten by the
+     * next record
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readHeaders() throws IOException {
+        in.readInt(); // block length, lets other readers skip the block
+        delimiter = in.readUTF();
+        absoluteTimestamp = in.readBoolean();
+        final LogColumn.Kind[] kinds = LogColumn.Kind.values();
+        final LogColumn[] read = new LogColumn[in.readInt()];
+        for (int i = 0; i < read.length; i++) {
+            final String id = in.readUTF();
+            final String name = in.readUTF();
+            final String units = in.readUTF();
+            final String expression = in.readUTF();
+            final String format = in.readUTF();
+            final int kind = in.readUnsignedByte();
+            final int count = in.readUnsignedShort();
+            final Map<String, String> replacements = new LinkedHashMap<String, String>();
+            for (int j = 0; j < count; j++) {
+                replacements.put(in.readUTF(), in.readUTF());
+            }
+            read[i] = new LogColumn(id, name, units, expression, format,
+                    kind < kinds.length ? kinds[kind] : LogColumn.Kind.CUSTOM,
+                    replacements);
+        }
+        columns = read;
+        values = new double[read.length];
+    }
+}
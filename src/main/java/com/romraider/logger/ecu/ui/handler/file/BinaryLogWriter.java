@@ -0,0 +1,147 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ * Writes logs in the compact binary format.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by
+ * blocks that each begin with a tag byte:
+ * <ul>
+ * <li>{@link #HEADER}: the byte length of the block, the CSV delimiter and
+ * timestamp mode, then per column its id, name, units, expression, format
+ * pattern, kind and replacements.  Strings are written as by
+ * {@link DataOutputStream#writeUTF}.</li>
+ * <li>{@link #RECORD}: the absolute timestamp as a long followed by one
+ * double per column of the preceding header.</li>
+ * </ul>
+ * All numbers are big endian.  Records have a fixed width for a given
+ * header and are collected in a large direct buffer.
+ */
+public final class BinaryLogWriter implements LogWriter {
+    public static final byte[] MAGIC = {'R', 'R', 'L', 'O', 'G'};
+    public static final int VERSION = 1;
+    public static final byte HEADER = 'H';
+    public static final byte RECORD = 'R';
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private final WritableByteChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final String delimiter;
+    private final boolean absoluteTimestamp;
+    private int columnCount;
+
+    public BinaryLogWriter(WritableByteChannel channel, String delimiter,
+            boolean absoluteTimestamp) {
+        checkNotNull(channel, "channel");
+        checkNotNull(delimiter, "delimiter");
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.absoluteTimestamp = absoluteTimestamp;
+        out.put(MAGIC);
+        out.putShort((short) VERSION);
+    }
+
+    @Override
+    public void writeHeaders(LogColumn[] columns) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(bytes);
+        data.writeUTF(delimiter);
+        data.writeBoolean(absoluteTimestamp);
+        data.writeInt(columns.length);
+        for (LogColumn column : columns) {
+            data.writeUTF(column.getId());
+            data.writeUTF(column.getName());
+            data.writeUTF(column.getUnits());
+            data.writeUTF(column.getExpression());
+            data.writeUTF(column.getFormat());
+            data.writeByte(column.getKind().ordinal());
+            data.writeShort(column.getReplacements().size());
+            for (Map.Entry<String, String> entry : column.getReplacements().entrySet()) {
+                data.writeUTF(entry.getKey());
+                data.writeUTF(entry.getValue());
+            }
+        }
+        data.flush();
+
+        final byte[] block = bytes.toByteArray();
+        ensure(5);
+        out.put(HEADER);
+        out.putInt(block.length);
+        if (block.length > out.capacity()) {
+            flush();
+            final ByteBuffer large = ByteBuffer.wrap(block);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+        } else {
+            ensure(block.length);
+            out.put(block);
+        }
+        columnCount = columns.length;
+    }
+
+    @Override
+    public void writeRecord(long timestamp, double[] values) throws IOException {
+        if (values.length != columnCount) {
+            throw new IllegalArgumentException("Record has " + values.length
+                    + " values but the headers have " + columnCount);
+        }
+        ensure(1 + 8 + 8 * values.length);
+        out.put(RECORD);
+        out.putLong(timestamp);
+        for (int i = 0; i < values.length; i++) {
+            out.putDouble(values[i]);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (out.remaining() < length) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.TimeZone;
+
+/**
+ * Writes the CSV log layout: a time column followed by one column per
+ * parameter, with the header line repeated whenever the columns change.
+ * <p>
+ * Rows are formatted into a reusable byte array and collected in a large
+ * buffer before reaching the channel, no <code>String</code> is created
+ * per row.
+ */
+public final class CsvLogWriter implements LogWriter {
+    private static final byte[] NEW_LINE = System.getProperty("line.separator").getBytes();
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MSEC_PER_DAY = 24 * 60 * 60 * 1000;
+    private final WritableByteChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final String delimiter;
+    private final byte[] delimiterBytes;
+    private final boolean absoluteTimestamp;
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private LogColumn.Formatter[] formatters = new LogColumn.Formatter[0];
+    private byte[] row = new byte[1024];
+    private long startTimestamp;
+
+    public CsvLogWriter(WritableByteChannel channel, String delimiter,
+            boolean absoluteTimestamp) {
+        checkNotNull(channel, "channel");
+        checkNotNull(delimiter, "delimiter");
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.delimiterBytes = delimiter.getBytes();
+        this.absoluteTimestamp = absoluteTimestamp;
+    }
+
+    @Override
+    public void writeHeaders(LogColumn[] columns) throws IOException {
+        final StringBuilder headers = new StringBuilder("Time");
+        if (!absoluteTimestamp) {
+            headers.append(" (msec)");
+        }
+        formatters = new LogColumn.Formatter[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            headers.append(delimiter).append(columns[i].getHeader());
+            formatters[i] = columns[i].newFormatter();
+        }
+        final byte[] text = headers.toString().getBytes();
+        put(text, text.length);
+        put(NEW_LINE, NEW_LINE.length);
+    }
+
+    @Override
+    public void writeRecord(long timestamp, double[] values) throws IOException {
+        if (values.length != formatters.length) {
+            throw new IllegalArgumentException("Record has " + values.length
+                    + " values but the headers have " + formatters.length);
+        }
+        int pos;
+        while ((pos = formatRow(timestamp, values)) < 0) {
+            row = new byte[row.length * 2];
+        }
+        put(row, pos);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the length of the row or -1 if it does not fit the row buffer
+     */
+    private int formatRow(long timestamp, double[] values) {
+        final byte[] buffer = row;
+        int pos = formatTimestamp(timestamp, buffer);
+        for (int i = 0; i < values.length; i++) {
+            if (buffer.length - pos < delimiterBytes.length) {
+                return -1;
+            }
+            System.arraycopy(delimiterBytes, 0, buffer, pos, delimiterBytes.length);
+            pos = formatters[i].format(values[i], buffer, pos + delimiterBytes.length);
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        if (buffer.length - pos < NEW_LINE.length) {
+            return -1;
+        }
+        System.arraycopy(NEW_LINE, 0, buffer, pos, NEW_LINE.length);
+        return pos + NEW_LINE.length;
+    }
+
+    private int formatTimestamp(long timestamp, byte[] buffer) {
+        if (absoluteTimestamp) {
+            // HH:mm:ss.SSS in the local time zone
+            final long local = timestamp + timeZone.getOffset(timestamp);
+            int msec = (int) (((local % MSEC_PER_DAY) + MSEC_PER_DAY) % MSEC_PER_DAY);
+            int pos = 0;
+            pos = digits(msec / 3600000, 2, buffer, pos);
+            buffer[pos++] = ':';
+            pos = digits(msec / 60000 % 60, 2, buffer, pos);
+            buffer[pos++] = ':';
+            pos = digits(msec / 1000 % 60, 2, buffer, pos);
+            buffer[pos++] = '.';
+            return digits(msec % 1000, 3, buffer, pos);
+        }
+        if (startTimestamp == 0) {
+            startTimestamp = timestamp;
+        }
+        long elapsed = timestamp - startTimestamp;
+        int pos = 0;
+        if (elapsed < 0) {
+            buffer[pos++] = '-';
+            elapsed = -elapsed;
+        }
+        int length = 1;
+        for (long n = elapsed; n >= 10; n /= 10) {
+            length++;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[pos + i] = (byte) ('0' + elapsed % 10);
+            elapsed /= 10;
+        }
+        return pos + length;
+    }
+
+    private static int digits(int value, int width, byte[] buffer, int pos) {
+        for (int i = width - 1; i >= 0; i--) {
+            buffer[pos + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    private void put(byte[] bytes, int length) throws IOException {
+        if (out.remaining() < length) {
+            flush();
+        }
+        if (length > out.capacity()) {
+            final ByteBuffer large = ByteBuffer.wrap(bytes, 0, length);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+        } else {
+            out.put(bytes, 0, length);
+        }
+    }
+}
@@ -24,9 +24,13 @@ public interface FileLogger {
 
     void stop();
 
-    void writeHeaders(String headers);
+    void writeHeaders(LogColumn[] columns);
 
-    void writeLine(String line, long timestamp);
+    /**
+     * @param timestamp - the absolute time of the record in milliseconds
+     * @param values - one value per column of the last headers written
+     */
+    void writeRecord(long timestamp, double[] values);
 
     boolean isStarted();
 }
@@ -21,10 +21,10 @@ package com.romraider.logger.ecu.ui.handler.file;
 
 import static com.romraider.util.ParamChecker.checkNotNull;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -38,47 +38,69 @@ import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
 
 public final class FileLoggerImpl implements FileLogger {
-    private static final String NEW_LINE = System.getProperty("line.separator");
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             FileLoggerImpl.class.getName());
+    // msec of records the writers may hold before they reach the file
+    private static final long FLUSH_INTERVAL = 1000L;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
-    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm:ss.SSS");
     private final MessageListener messageListener;
+    private final String delimiter;
     private boolean started;
-    private OutputStream os;
-    private long startTimestamp;
-    //private boolean zero;
+    private LogWriter writer;
+    private long lastFlush;
 
-    public FileLoggerImpl(MessageListener messageListener) {
-        checkNotNull(messageListener);
+    public FileLoggerImpl(MessageListener messageListener, String delimiter) {
+        checkNotNull(messageListener, "messageListener");
+        checkNotNull(delimiter, "delimiter");
         this.messageListener = messageListener;
+        this.delimiter = delimiter;
     }
 
     @Override
     public void start() {
         if (!started) {
             stop();
+            FileChannel channel = null;
             try {
-                String filePath = buildFilePath();
-                os = new BufferedOutputStream(new FileOutputStream(filePath));
+                final Settings settings = SettingsManager.getSettings();
+                final boolean binary = settings.isFileLoggingBinary();
+                final String filePath = buildFilePath(binary ? ".rrlog" : ".csv");
+                channel = new FileOutputStream(filePath).getChannel();
+                if (binary) {
+                    writer = new BinaryLogWriter(channel, delimiter,
+                            settings.isFileLoggingAbsoluteTimestamp());
+                } else {
+                    writer = new CsvLogWriter(channel, delimiter,
+                            settings.isFileLoggingAbsoluteTimestamp());
+                }
+                lastFlush = System.currentTimeMillis();
                 messageListener.reportMessageInTitleBar(MessageFormat.format(
                         rb.getString("STARTLOG"),
                         FormatFilename.getShortName(filePath)));
             } catch (Exception e) {
+                // the writer owns the channel once it is built
+                if (writer == null && channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                    }
+                }
                 stop();
                 throw new FileLoggerException(e);
             }
             
             started = true;
-            startTimestamp = 0;
         }
     }
 
     @Override
     public void stop() {
-        if (os != null) {
+        if (writer != null) {
+            final LogWriter closing = writer;
+            writer = null;
+            started = false;
             try {
-                os.close();
+                closing.close();
                 messageListener.reportMessageInTitleBar(rb.getString("STOPLOG"));
             } catch (Exception e) {
                 throw new FileLoggerException(e);
@@ -93,24 +115,25 @@ public final class FileLoggerImpl implements FileLogger {
     }
 
     @Override
-    public void writeHeaders(String headers) {
-        String timeHeader = "Time";
-        if (!SettingsManager.getSettings().isFileLoggingAbsoluteTimestamp()) {
-            timeHeader = timeHeader  + " (msec)";
+    public void writeHeaders(LogColumn[] columns) {
+        try {
+            writer.writeHeaders(columns);
+        } catch (Exception e) {
+            stop();
+            throw new FileLoggerException(e);
         }
-        writeText(timeHeader + headers);
     }
 
     @Override
-    public void writeLine(String line, long timestamp) {
-        writeText(prependTimestamp(line, timestamp));
-    }
-
-    private void writeText(String text) {
+    public void writeRecord(long timestamp, double[] values) {
         try {
-            os.write(text.getBytes());
-            if (!text.endsWith(NEW_LINE)) {
-                os.write(NEW_LINE.getBytes());
+            writer.writeRecord(timestamp, values);
+            // the writers buffer a lot, keep a crash from losing more
+            // than a second and let the file be followed while logging
+            final long now = System.currentTimeMillis();
+            if (now - lastFlush >= FLUSH_INTERVAL) {
+                writer.flush();
+                lastFlush = now;
             }
         } catch (Exception e) {
             stop();
@@ -118,18 +141,7 @@ public final class FileLoggerImpl implements FileLogger {
         }
     }
 
-    private String prependTimestamp(String line, long timestamp) {
-        String formattedTimestamp;
-        if (SettingsManager.getSettings().isFileLoggingAbsoluteTimestamp()) {
-            formattedTimestamp = timestampFormat.format(new Date(timestamp));
-        } else {
-        	if(startTimestamp == 0) startTimestamp = timestamp;
-        	formattedTimestamp = String.valueOf(timestamp - startTimestamp);          
-        }
-        return new StringBuilder(formattedTimestamp).append(line).toString();
-    }
-
-    private String buildFilePath() {
+    private String buildFilePath(String extension) {
         String logDir = SettingsManager.getSettings().getLoggerOutputDirPath();
         if (!logDir.endsWith(File.separator)) {
             logDir += File.separator;
@@ -140,7 +152,7 @@ public final class FileLoggerImpl implements FileLogger {
                 && !settings.getLogfileNameText().isEmpty()) {
             logDir += settings.getLogfileNameText() + "_";
         }
-        logDir += dateFormat.format(new Date()) + ".csv";
+        logDir += dateFormat.format(new Date()) + extension;
         return logDir;
     }
 
@@ -27,6 +27,7 @@ import static java.util.Collections.synchronizedMap;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -65,7 +66,7 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
     private Line currentLine = new Line(loggerDatas.keySet());
 
     public FileUpdateHandlerImpl(MessageListener messageListener) {
-        fileLogger = new FileLoggerImpl(messageListener);
+        fileLogger = new FileLoggerImpl(messageListener, delimiter);
     }
 
     @Override
@@ -89,11 +90,11 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
     public synchronized void handleDataUpdate(Response response) {
         if (fileLogger.isStarted()) {
             for (LoggerData loggerData : response.getData()) {
-                currentLine.updateParamValue(loggerData, loggerData.getSelectedConvertor().format(response.getDataValue(loggerData)));
+                currentLine.updateParamValue(loggerData, response.getDataValue(loggerData));
             }
             if (currentLine.isFull()) {
-                fileLogger.writeLine(currentLine.values(), response.getTimestamp());
-                resetLine();
+                fileLogger.writeRecord(response.getTimestamp(), currentLine.values());
+                currentLine.clear();
             }
         }
     }
@@ -149,7 +150,7 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     private void writeHeaders() {
         if (fileLogger.isStarted()) {
-            fileLogger.writeHeaders(currentLine.headers());
+            fileLogger.writeHeaders(currentLine.columns());
         }
     }
 
@@ -163,47 +164,55 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
         }
     }
 
-    private final class Line {
-        private final Map<LoggerData, String> loggerDataValues;
+    /**
+     * Collects the latest value of each logged parameter until every column
+     * has one.  Values are kept unformatted, the log writer formats them.
+     */
+    private static final class Line {
+        private final LogColumn[] columns;
+        private final Map<LoggerData, Integer> indexes;
+        private final double[] values;
+        private final boolean[] updated;
+        private int count;
 
         public Line(Set<LoggerData> loggerDatas) {
-            this.loggerDataValues = new LinkedHashMap<LoggerData, String>();
+            columns = new LogColumn[loggerDatas.size()];
+            indexes = new HashMap<LoggerData, Integer>();
+            int i = 0;
             for (LoggerData loggerData : loggerDatas) {
-                loggerDataValues.put(loggerData, null);
+                columns[i] = LogColumn.of(loggerData);
+                indexes.put(loggerData, i++);
             }
+            values = new double[columns.length];
+            updated = new boolean[columns.length];
         }
 
-        public synchronized void updateParamValue(LoggerData loggerData, String value) {
-            if (loggerDataValues.containsKey(loggerData)) {
-                loggerDataValues.put(loggerData, value);
+        public void updateParamValue(LoggerData loggerData, double value) {
+            final Integer index = indexes.get(loggerData);
+            if (index != null) {
+                values[index] = value;
+                if (!updated[index]) {
+                    updated[index] = true;
+                    count++;
+                }
             }
         }
 
-        public synchronized boolean isFull() {
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
-                if (loggerDataValues.get(loggerData) == null) {
-                    return false;
-                }
-            }
-            return true;
+        public boolean isFull() {
+            return count == values.length;
         }
 
-        public synchronized String headers() {
-            final StringBuilder buffer = new StringBuilder();
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
-                buffer.append(delimiter).append(loggerData.getName()).append(" (")
-                .append(loggerData.getSelectedConvertor().getUnits()).append(')');
-            }
-            return buffer.toString();
+        public void clear() {
+            Arrays.fill(updated, false);
+            count = 0;
         }
 
-        public synchronized String values() {
-            final StringBuilder buffer = new StringBuilder();
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
-                String value = loggerDataValues.get(loggerData);
-                buffer.append(delimiter).append(value);
-            }
-            return buffer.toString();
+        public LogColumn[] columns() {
+            return columns;
+        }
+
+        public double[] values() {
+            return values;
         }
     }
 }
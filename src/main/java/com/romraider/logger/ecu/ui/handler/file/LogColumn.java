@@ -0,0 +1,214 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuDtcConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuSwitchConvertorImpl;
+import com.romraider.logger.ecu.definition.ExternalDataConvertorImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.definition.ValueFormatter;
+
+/**
+ * Describes one logged column: what the parameter is and how its values
+ * are formatted in a CSV log.  A column taken from a live parameter keeps
+ * its convertor; a column read back from a binary log only has the
+ * recorded format pattern and replacements.
+ */
+public final class LogColumn {
+    /** How the values of a column are turned into text. */
+    public enum Kind {
+        /** DecimalFormat pattern followed by optional text replacements. */
+        DECIMAL,
+        /** 1 when the value is above zero, otherwise 0. */
+        SWITCH,
+        /** Convertor specific, formatted by the convertor itself. */
+        CUSTOM
+    }
+
+    private static final String DEFAULT_FORMAT = "0";
+    private final String id;
+    private final String name;
+    private final String units;
+    private final String expression;
+    private final String format;
+    private final Kind kind;
+    private final Map<String, String> replacements;
+    private final EcuDataConvertor convertor;
+
+    public LogColumn(String id, String name, String units, String expression,
+            String format, Kind kind, Map<String, String> replacements) {
+        this(id, name, units, expression, format, kind, replacements, null);
+    }
+
+    private LogColumn(String id, String name, String units, String expression,
+            String format, Kind kind, Map<String, String> replacements,
+            EcuDataConvertor convertor) {
+        checkNotNull(id, "id");
+        checkNotNull(name, "name");
+        checkNotNull(kind, "kind");
+        this.id = id;
+        this.name = name;
+        this.units = units == null ? "" : units;
+        this.expression = expression == null ? "" : expression;
+        this.format = format == null || format.length() == 0 ? DEFAULT_FORMAT : format;
+        this.kind = kind;
+        this.replacements = replacements == null || replacements.isEmpty()
+                ? Collections.<String, String>emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<String, String>(replacements));
+        this.convertor = convertor;
+    }
+
+    /**
+     * @return a column for the parameter using its selected convertor
+     */
+    public static LogColumn of(LoggerData loggerData) {
+        final EcuDataConvertor convertor = loggerData.getSelectedConvertor();
+        Kind kind = Kind.CUSTOM;
+        Map<String, String> replacements = null;
+        if (convertor instanceof EcuSwitchConvertorImpl
+                || convertor instanceof EcuDtcConvertorImpl) {
+            kind = Kind.SWITCH;
+        } else if (convertor instanceof EcuParameterConvertorImpl) {
+            kind = Kind.DECIMAL;
+            replacements = ((EcuParameterConvertorImpl) convertor).getReplaceMap();
+        } else if (convertor instanceof EcuDerivedParameterConvertorImpl) {
+            kind = Kind.DECIMAL;
+            replacements = ((EcuDerivedParameterConvertorImpl) convertor).getReplaceMap();
+        } else if (convertor instanceof ExternalDataConvertorImpl) {
+            kind = Kind.DECIMAL;
+        }
+        return new LogColumn(loggerData.getId(), loggerData.getName(),
+                convertor.getUnits(), convertor.getExpression(),
+                convertor.getFormat(), kind, replacements, convertor);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Map<String, String> getReplacements() {
+        return replacements;
+    }
+
+    /**
+     * @return the CSV column header, name followed by the units
+     */
+    public String getHeader() {
+        return name + " (" + units + ")";
+    }
+
+    /**
+     * @return a new formatter for the values of this column, formatters
+     * keep scratch state and must not be shared between threads
+     */
+    Formatter newFormatter() {
+        if (kind == Kind.SWITCH) {
+            return new SwitchFormatter();
+        }
+        if (kind == Kind.CUSTOM && convertor != null) {
+            return new ConvertorFormatter(convertor);
+        }
+        return new DecimalFormatter(new ValueFormatter(format, replacements));
+    }
+
+    /**
+     * Writes the text of a value into a byte array.
+     */
+    abstract static class Formatter {
+        /**
+         * @return the position after the text or -1 if the buffer is too small
+         */
+        abstract int format(double value, byte[] buffer, int offset);
+
+        static int write(byte[] text, byte[] buffer, int offset) {
+            if (buffer.length - offset < text.length) {
+                return -1;
+            }
+            System.arraycopy(text, 0, buffer, offset, text.length);
+            return offset + text.length;
+        }
+    }
+
+    private static final class SwitchFormatter extends Formatter {
+        @Override
+        int format(double value, byte[] buffer, int offset) {
+            if (offset >= buffer.length) {
+                return -1;
+            }
+            buffer[offset] = (byte) (value > 0 ? '1' : '0');
+            return offset + 1;
+        }
+    }
+
+    private static final class ConvertorFormatter extends Formatter {
+        private final EcuDataConvertor convertor;
+
+        ConvertorFormatter(EcuDataConvertor convertor) {
+            this.convertor = convertor;
+        }
+
+        @Override
+        int format(double value, byte[] buffer, int offset) {
+            return write(convertor.format(value).getBytes(), buffer, offset);
+        }
+    }
+
+    private static final class DecimalFormatter extends Formatter {
+        private final ValueFormatter formatter;
+
+        DecimalFormatter(ValueFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        int format(double value, byte[] buffer, int offset) {
+            return formatter.format(value, buffer, offset);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes log records in a particular file format.  The columns may change
+ * during a log, every change is announced with {@link #writeHeaders}.
+ */
+public interface LogWriter extends Closeable {
+
+    void writeHeaders(LogColumn[] columns) throws IOException;
+
+    /**
+     * @param timestamp - the absolute time of the record in milliseconds
+     * @param values - one value per column of the last headers written
+     */
+    void writeRecord(long timestamp, double[] values) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,115 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * Presents the recent part of a {@link TimeSeriesBuffer} to a chart as
+ * a single series.  The chart only sees the decimated snapshot taken by
+ * the last {@link #refresh(int)}, so painting never waits for the logger
+ * and costs the same whatever the length of the history.
+ * <p>
+ * Refresh and paint both run on the event dispatch thread.
+ */
+public final class DecimatedXYDataset extends AbstractXYDataset {
+    private static final long serialVersionUID = -2214381705287150427L;
+    private final TimeSeriesBuffer buffer;
+    private final Comparable<?> key;
+    private final double window;
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int count;
+
+    /**
+     * @param window - the length of history shown, in the same unit as
+     * the sample times
+     */
+    public DecimatedXYDataset(TimeSeriesBuffer buffer, Comparable<?> key, double window) {
+        checkNotNull(buffer, "buffer");
+        checkNotNull(key, "key");
+        this.buffer = buffer;
+        this.key = key;
+        this.window = window;
+    }
+
+    public TimeSeriesBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Take a new snapshot of the buffer and notify the chart.
+     * @param buckets - the number of buckets to reduce the history to,
+     * normally the width of the plot in pixels
+     */
+    public void refresh(int buckets) {
+        buckets = Math.max(1, buckets);
+        if (xs.length < 4 * buckets) {
+            xs = new double[4 * buckets];
+            ys = new double[4 * buckets];
+        }
+        count = buffer.decimate(buffer.getLastX() - window, buckets, xs, ys);
+        fireDatasetChanged();
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return key;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return count;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return xs[item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return ys[item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return xs[item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return ys[item];
+    }
+}
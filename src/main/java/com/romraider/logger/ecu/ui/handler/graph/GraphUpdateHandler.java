@@ -23,7 +23,10 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler.FrameListener;
 import com.romraider.util.ResourceUtil;
+import com.romraider.util.SettingsManager;
 
 import static com.romraider.logger.ecu.ui.handler.graph.SpringUtilities.makeCompactGrid;
 import static java.awt.BorderLayout.CENTER;
@@ -41,14 +44,11 @@ import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.StandardXYItemRenderer;
 import org.jfree.chart.title.LegendTitle;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import javax.swing.AbstractAction;
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
 import javax.swing.JToggleButton;
 import javax.swing.SpringLayout;
-import javax.swing.SwingUtilities;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
@@ -57,13 +57,17 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
 
-public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener, FrameListener {
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             GraphUpdateHandler.class.getName());
     private static final Color DARK_GREY = new Color(80, 80, 80);
     private static final Color LIGHT_GREY = new Color(110, 110, 110);
+    // samples per second the history is sized for, faster logging
+    // shortens the history shown
+    private static final int HISTORY_RATE = 64;
+    private static final int DEFAULT_WIDTH = 600;
     private final Map<LoggerData, ChartPanel> chartMap = synchronizedMap(new HashMap<LoggerData, ChartPanel>());
-    private final Map<LoggerData, XYSeries> seriesMap = synchronizedMap(new HashMap<LoggerData, XYSeries>());
+    private final Map<LoggerData, DecimatedXYDataset> seriesMap = synchronizedMap(new HashMap<LoggerData, DecimatedXYDataset>());
     private final Map<LoggerData, Integer> datasetIndexes = synchronizedMap(new HashMap<LoggerData, Integer>());
     private final JPanel graphPanel;
     private long startTime = System.currentTimeMillis();
@@ -72,6 +76,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
     private long pauseStartTime = System.currentTimeMillis();
     private ChartPanel combinedChartPanel = null;
     private int counter = 0;
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
 
 
     public GraphUpdateHandler(final JPanel panel) {
@@ -119,8 +124,8 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
     }
 
     private synchronized void addToPanel(LoggerData loggerData) {
-        XYSeries series = seriesMap.get(loggerData);
-        ChartPanel chartPanel = new ChartPanel(createXYLineChart(loggerData, new XYSeriesCollection(series), false), false, true, true, true, true);
+        DecimatedXYDataset dataset = seriesMap.get(loggerData);
+        ChartPanel chartPanel = new ChartPanel(createXYLineChart(loggerData, dataset, false), false, true, true, true, true);
         chartPanel.setMinimumSize(new Dimension(600, 200));
         chartPanel.setMaximumSize(new Dimension(10000, 200));
         chartPanel.setPreferredSize(new Dimension(600, 200));
@@ -143,7 +148,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
             graphPanel.add(combinedChartPanel);
         }
         XYPlot plot = combinedChartPanel.getChart().getXYPlot();
-        plot.setDataset(counter, new XYSeriesCollection(seriesMap.get(loggerData)));
+        plot.setDataset(counter, seriesMap.get(loggerData));
         plot.setRenderer(counter, new StandardXYItemRenderer());
         datasetIndexes.put(loggerData, counter++);
     }
@@ -154,16 +159,15 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
 
     public synchronized void handleDataUpdate(final Response response) {
     	if(!paused) {
-	        SwingUtilities.invokeLater(new Runnable() {
-	            public void run() {
-	                for (final LoggerData loggerData : response.getData()) {
-	                    final XYSeries series = seriesMap.get(loggerData);
-	                    if (series != null) {
-	                    	series.add((response.getTimestamp() - startTime) / 1000.0, response.getDataValue(loggerData));
-	                    }
-	                }
+	        // samples go straight into the history, the charts catch up on the next frame
+	        final double x = (response.getTimestamp() - startTime) / 1000.0;
+	        for (final LoggerData loggerData : response.getData()) {
+	            final DecimatedXYDataset dataset = seriesMap.get(loggerData);
+	            if (dataset != null) {
+	                dataset.getBuffer().add(x, response.getDataValue(loggerData));
 	            }
-	        });
+	        }
+	        scheduler.requestFrame(this);
     	}
     }
 
@@ -202,23 +206,44 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
     }
 
     public synchronized void reset() {
-        for (XYSeries series : seriesMap.values()) {
-            series.clear();
+        for (DecimatedXYDataset dataset : seriesMap.values()) {
+            dataset.getBuffer().clear();
         }
+        scheduler.requestFrame(this);
     }
 
     public synchronized void notifyConvertorUpdate(LoggerData updatedLoggerData) {
         if (chartMap.containsKey(updatedLoggerData)) {
-            seriesMap.get(updatedLoggerData).clear();
+            seriesMap.get(updatedLoggerData).getBuffer().clear();
+            scheduler.requestFrame(this);
             JFreeChart chart = chartMap.get(updatedLoggerData).getChart();
             chart.getXYPlot().getRangeAxis().setLabel(buildRangeAxisTitle(updatedLoggerData));
         }
     }
 
     private void registerSeries(LoggerData loggerData) {
-        final XYSeries series = new XYSeries(loggerData.getName());
-        series.setMaximumItemCount(200);
-        seriesMap.put(loggerData, series);
+        final int history = SettingsManager.getSettings().getLoggerGraphHistory();
+        final TimeSeriesBuffer buffer = new TimeSeriesBuffer(history * HISTORY_RATE);
+        seriesMap.put(loggerData, new DecimatedXYDataset(buffer, loggerData.getName(), history));
+    }
+
+    /**
+     * Called on the event dispatch thread in the frame after data arrived,
+     * takes new snapshots of the datasets.
+     */
+    public void applyFrame() {
+        final DecimatedXYDataset[] datasets;
+        synchronized (seriesMap) {
+            datasets = seriesMap.values().toArray(new DecimatedXYDataset[seriesMap.size()]);
+        }
+        for (DecimatedXYDataset dataset : datasets) {
+            dataset.refresh(plotWidth());
+        }
+    }
+
+    private int plotWidth() {
+        final int width = graphPanel.getWidth();
+        return width > 0 ? width : DEFAULT_WIDTH;
     }
 
     private JFreeChart createXYLineChart(LoggerData loggerData, XYDataset dataset, boolean combined) {
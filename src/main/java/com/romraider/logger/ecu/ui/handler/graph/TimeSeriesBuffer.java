@@ -0,0 +1,220 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+
+/**
+ * A fixed capacity ring of (time, value) samples of one parameter.  Times
+ * must not decrease.  Once full the oldest sample is overwritten, so
+ * memory use is fixed however long the logger runs.
+ * <p>
+ * Alongside the samples the minimum and maximum of every block of
+ * {@link #BLOCK} samples is kept.  {@link #decimate} can then reduce any
+ * range to a few points per bucket by reading whole blocks, the cost
+ * depends on the number of buckets and not on the number of samples.
+ */
+public final class TimeSeriesBuffer {
+    static final int BLOCK = 64;
+    private final int capacity;
+    private final double[] xs;
+    private final double[] ys;
+    private final int blocks;
+    private final double[] blockMin;
+    private final double[] blockMax;
+    private final long[] blockMinAt;
+    private final long[] blockMaxAt;
+    private long total;
+
+    /**
+     * @param capacity - the number of samples kept, rounded up to a
+     * multiple of {@link #BLOCK}
+     */
+    public TimeSeriesBuffer(int capacity) {
+        checkGreaterThanZero(capacity, "capacity");
+        this.capacity = (capacity + BLOCK - 1) / BLOCK * BLOCK;
+        xs = new double[this.capacity];
+        ys = new double[this.capacity];
+        // one spare block so the oldest, partly overwritten block is intact
+        blocks = this.capacity / BLOCK + 1;
+        blockMin = new double[blocks];
+        blockMax = new double[blocks];
+        blockMinAt = new long[blocks];
+        blockMaxAt = new long[blocks];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void add(double x, double y) {
+        final long i = total++;
+        final int position = (int) (i % capacity);
+        xs[position] = x;
+        ys[position] = y;
+        final int block = (int) (i / BLOCK % blocks);
+        if (i % BLOCK == 0 || y < blockMin[block]) {
+            blockMin[block] = y;
+            blockMinAt[block] = i;
+        }
+        if (i % BLOCK == 0 || y > blockMax[block]) {
+            blockMax[block] = y;
+            blockMaxAt[block] = i;
+        }
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(total, capacity);
+    }
+
+    public synchronized void clear() {
+        total = 0;
+    }
+
+    /**
+     * @return the time of the newest sample or NaN when empty
+     */
+    public synchronized double getLastX() {
+        return total == 0 ? Double.NaN : x(total - 1);
+    }
+
+    /**
+     * Reduce the samples from the given time onwards to at most four points
+     * per bucket: the first, minimum, maximum and last sample of each, in
+     * time order.  Buckets divide the time range evenly, so with one bucket
+     * per pixel a line drawn through the points covers the same pixels as
+     * one drawn through every sample.
+     * @param xs - receives the times, at least 4 * buckets long
+     * @param ys - receives the values, at least 4 * buckets long
+     * @return the number of points written
+     */
+    public synchronized int decimate(double from, int buckets, double[] xs, double[] ys) {
+        final long end = total;
+        final long start = indexAtOrAfter(from);
+        if (start >= end) {
+            return 0;
+        }
+        int count = 0;
+        if (end - start <= 4L * buckets) {
+            for (long i = start; i < end; i++) {
+                xs[count] = x(i);
+                ys[count++] = y(i);
+            }
+            return count;
+        }
+        final double first = x(start);
+        final double width = (x(end - 1) - first) / buckets;
+        final long[] points = new long[4];
+        long bucketStart = start;
+        for (int b = 1; b <= buckets && bucketStart < end; b++) {
+            final long bucketEnd = b == buckets
+                    ? end : indexAtOrAfter(first + width * b, bucketStart, end);
+            if (bucketEnd <= bucketStart) {
+                continue;
+            }
+            points[0] = bucketStart;
+            rangeMinMax(bucketStart, bucketEnd, points);
+            points[3] = bucketEnd - 1;
+            sort(points);
+            for (int p = 0; p < 4; p++) {
+                if (p == 0 || points[p] != points[p - 1]) {
+                    xs[count] = x(points[p]);
+                    ys[count++] = y(points[p]);
+                }
+            }
+            bucketStart = bucketEnd;
+        }
+        return count;
+    }
+
+    /**
+     * Find the minimum and maximum in [start, end) and store their indexes
+     * in points[1] and points[2].
+     */
+    private void rangeMinMax(long start, long end, long[] points) {
+        long minAt = start;
+        long maxAt = start;
+        double min = y(start);
+        double max = min;
+        long i = start + 1;
+        while (i < end) {
+            if (i % BLOCK == 0 && i + BLOCK <= end) {
+                final int block = (int) (i / BLOCK % blocks);
+                if (blockMin[block] < min) {
+                    min = blockMin[block];
+                    minAt = blockMinAt[block];
+                }
+                if (blockMax[block] > max) {
+                    max = blockMax[block];
+                    maxAt = blockMaxAt[block];
+                }
+                i += BLOCK;
+            } else {
+                final double y = y(i);
+                if (y < min) {
+                    min = y;
+                    minAt = i;
+                }
+                if (y > max) {
+                    max = y;
+                    maxAt = i;
+                }
+                i++;
+            }
+        }
+        points[1] = minAt;
+        points[2] = maxAt;
+    }
+
+    private long indexAtOrAfter(double x) {
+        return indexAtOrAfter(x, Math.max(0, total - capacity), total);
+    }
+
+    private long indexAtOrAfter(double x, long low, long high) {
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (x(mid) < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double x(long i) {
+        return xs[(int) (i % capacity)];
+    }
+
+    private double y(long i) {
+        return ys[(int) (i % capacity)];
+    }
+
+    private static void sort(long[] points) {
+        for (int i = 1; i < points.length; i++) {
+            final long point = points[i];
+            int j = i - 1;
+            while (j >= 0 && points[j] > point) {
+                points[j + 1] = points[j--];
+            }
+            points[j + 1] = point;
+        }
+    }
+}
@@ -70,6 +70,20 @@ public final class LiveDataRow {
         updated = true;
     }
 
+    /**
+     * Update with the latest value and the range of the values it replaced.
+     */
+    public void updateValue(double value, double min, double max) {
+        if (min < minValue || !updated) {
+            minValue = min;
+        }
+        if (max > maxValue || !updated) {
+            maxValue = max;
+        }
+        currentValue = value;
+        updated = true;
+    }
+
     public void reset() {
         minValue = ZERO;
         maxValue = ZERO;
@@ -100,6 +100,15 @@ public final class LiveDataTableModel extends AbstractTableModel {
         }
     }
 
+    public synchronized void updateParam(LoggerData loggerData, double value, double min, double max) {
+        LiveDataRow dataRow = dataRowMap.get(loggerData);
+        if (dataRow != null) {
+            dataRow.updateValue(value, min, max);
+            int index = registeredLoggerData.indexOf(loggerData);
+            fireTableRowsUpdated(index, index);
+        }
+    }
+
     public synchronized void reset() {
         for (LiveDataRow liveDataRow : dataRowMap.values()) {
             liveDataRow.reset();
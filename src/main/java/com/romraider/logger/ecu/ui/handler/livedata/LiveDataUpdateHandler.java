@@ -23,10 +23,15 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
-import javax.swing.SwingUtilities;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler.FrameListener;
+import com.romraider.logger.ecu.ui.handler.FrameValues;
+import com.romraider.logger.ecu.ui.handler.FrameValues.Sample;
 
-public final class LiveDataUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class LiveDataUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener, FrameListener {
     private final LiveDataTableModel dataTableModel;
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
+    private final FrameValues values = new FrameValues(scheduler);
 
     public LiveDataUpdateHandler(LiveDataTableModel dataTableModel) {
         this.dataTableModel = dataTableModel;
@@ -37,17 +42,23 @@ public final class LiveDataUpdateHandler implements DataUpdateHandler, Convertor
         dataTableModel.addParam(loggerData);
     }
 
-    public synchronized void handleDataUpdate(final Response response) {
-        for (final LoggerData loggerData : response.getData()) {
-            SwingUtilities.invokeLater(new Runnable() {
-                public void run() {
-                    dataTableModel.updateParam(loggerData, response.getDataValue(loggerData));
-                }
-            });
+    public void handleDataUpdate(final Response response) {
+        // copy out the values, the response is recycled once all handlers have run
+        for (LoggerData loggerData : response.getData()) {
+            values.post(loggerData, response.getDataValue(loggerData));
+        }
+        scheduler.requestFrame(this);
+    }
+
+    public void applyFrame() {
+        for (Sample sample : values.drain()) {
+            dataTableModel.updateParam(sample.getLoggerData(),
+                    sample.getValue(), sample.getMin(), sample.getMax());
         }
     }
 
     public synchronized void deregisterData(LoggerData loggerData) {
+        values.remove(loggerData);
         // remove from datatable
         dataTableModel.removeParam(loggerData);
     }
@@ -56,6 +67,7 @@ public final class LiveDataUpdateHandler implements DataUpdateHandler, Convertor
     }
 
     public synchronized void reset() {
+        values.clear();
         dataTableModel.reset();
     }
 
@@ -23,22 +23,31 @@ import static com.romraider.util.ParamChecker.isNullOrEmpty;
 import static java.util.Collections.synchronizedMap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Set;
 
 import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler.FrameListener;
+import com.romraider.logger.ecu.ui.handler.FrameValues;
+import com.romraider.logger.ecu.ui.handler.FrameValues.Sample;
 import com.romraider.maps.Table;
 import com.romraider.maps.Table2D;
 import com.romraider.maps.Table3D;
 import com.romraider.maps.TableView;
 
-public final class TableUpdateHandler implements DataUpdateHandler {
+public final class TableUpdateHandler implements DataUpdateHandler, FrameListener {
     private static final TableUpdateHandler INSTANCE = new TableUpdateHandler();
     private final Map<String, List<Table>> tableMap = synchronizedMap(new HashMap<String, List<Table>>());
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
+    private final FrameValues values = new FrameValues(scheduler);
 
     private TableUpdateHandler() {
         tableMap.clear();
@@ -52,26 +61,48 @@ public final class TableUpdateHandler implements DataUpdateHandler {
     public void handleDataUpdate(Response response) {
     	if(!tableMap.isEmpty()) {
 	        for (LoggerData loggerData : response.getData()) {
-	        	synchronized(tableMap) {
-		            List<Table> tables = tableMap.get(loggerData.getId());
-		            if (tables != null && !tables.isEmpty()) {
-		                String formattedValue = loggerData.getSelectedConvertor().format(response.getDataValue(loggerData));
-		                for(ListIterator<Table> item = tables.listIterator(); item.hasNext();) {
-		                	TableView v = item.next().getTableView();
-		                	if(v!= null) v.highlightLiveData(formattedValue);
-		                }
-		            }
-		        }
+	            if (tableMap.containsKey(loggerData.getId())) {
+	                values.post(loggerData, response.getDataValue(loggerData));
+	            }
 	    	}
+	        scheduler.requestFrame(this);
 	    }
     }
 
+    @Override
+    public void applyFrame() {
+        final Set<TableView> traced = Collections.newSetFromMap(new IdentityHashMap<TableView, Boolean>());
+        for (Sample sample : values.drain()) {
+            LoggerData loggerData = sample.getLoggerData();
+            synchronized(tableMap) {
+                List<Table> tables = tableMap.get(loggerData.getId());
+                if (tables != null && !tables.isEmpty()) {
+                    String formattedValue = loggerData.getSelectedConvertor().format(sample.getValue());
+                    for(ListIterator<Table> item = tables.listIterator(); item.hasNext();) {
+                    	TableView v = item.next().getTableView();
+                    	if(v!= null) {
+                    	    v.highlightLiveData(sample.getValue(), formattedValue);
+                    	    traced.add(v);
+                    	    if (v.getAxisParent() != null) traced.add(v.getAxisParent());
+                    	}
+                    }
+                }
+            }
+        }
+        // one histogram sample per table per frame, after all axes have moved
+        final long now = System.nanoTime();
+        for (TableView v : traced) {
+            v.recordLiveDataSample(now);
+        }
+    }
+
     @Override
     public void deregisterData(LoggerData loggerData) {
     }
 
     @Override
     public void cleanUp() {
+    	values.clear();
     	for(List<Table> t: tableMap.values())t.clear();
     	tableMap.clear();
     }
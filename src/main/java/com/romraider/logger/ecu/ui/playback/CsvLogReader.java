@@ -0,0 +1,271 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a CSV log one line at a time, tracking the file offset of every
+ * line so it can be found again through a {@link LogIndex}.  Only one
+ * buffer and one line are held in memory whatever the size of the log.
+ * <p>
+ * Record lines are parsed in place, a value only becomes a
+ * <code>String</code> when it is not a plain number.
+ */
+final class CsvLogReader implements Closeable {
+    static final long MSEC_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private final FileInputStream input;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long bufferOffset;
+    private byte[] line = new byte[1024];
+    private int length;
+    private long lineOffset;
+    private int cursor;
+    private int fieldStart;
+    private int fieldEnd;
+    private byte delimiter = ',';
+
+    CsvLogReader(File file) throws IOException {
+        input = new FileInputStream(file);
+        channel = input.getChannel();
+        buffer.flip();
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Continue reading at the given file offset, which must be the start
+     * of a line.
+     */
+    void seek(long offset) throws IOException {
+        channel.position(offset);
+        bufferOffset = offset;
+        buffer.clear();
+        buffer.flip();
+    }
+
+    /**
+     * @return false at the end of the file
+     */
+    boolean readLine() throws IOException {
+        lineOffset = bufferOffset + buffer.position();
+        length = 0;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                if (length == 0) {
+                    return false;
+                }
+                break;
+            }
+            final byte b = buffer.get();
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                final byte[] larger = new byte[length * 2];
+                System.arraycopy(line, 0, larger, 0, length);
+                line = larger;
+            }
+            line[length++] = b;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return true;
+    }
+
+    long getLineOffset() {
+        return lineOffset;
+    }
+
+    byte[] getLine() {
+        return line;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    String getLineText() {
+        return new String(line, 0, length);
+    }
+
+    void setDelimiter(char delimiter) {
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Parse the time field of the current line, relative time in
+     * milliseconds or the absolute time of day as milliseconds since
+     * midnight.
+     * @return the time or -1 if the line is not a record
+     */
+    long parseTime(boolean absolute) {
+        cursor = 0;
+        final int end = findFieldEnd();
+        long time = -1;
+        if (absolute) {
+            // HH:mm:ss.SSS
+            if (end == 12 && line[2] == ':' && line[5] == ':' && line[8] == '.') {
+                final long hours = digits(0, 2);
+                final long minutes = digits(3, 2);
+                final long seconds = digits(6, 2);
+                final long msec = digits(9, 3);
+                if (hours >= 0 && minutes >= 0 && seconds >= 0 && msec >= 0) {
+                    time = ((hours * 60 + minutes) * 60 + seconds) * 1000 + msec;
+                }
+            }
+        } else if (end > 0) {
+            time = digits(0, end);
+        }
+        cursor = end + 1;
+        return time;
+    }
+
+    /**
+     * @return true if the current line has another field after the ones
+     * already parsed
+     */
+    boolean hasField() {
+        return cursor <= length;
+    }
+
+    /**
+     * Parse the next field as a number.
+     * @return the value or NaN if the field is not a plain number
+     */
+    double parseField() {
+        fieldStart = cursor;
+        fieldEnd = findFieldEnd();
+        cursor = fieldEnd + 1;
+        return parseNumber(fieldStart, fieldEnd);
+    }
+
+    /**
+     * @return the text of the field last parsed by {@link #parseField()}
+     */
+    String lastFieldText() {
+        return new String(line, fieldStart, fieldEnd - fieldStart).trim();
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private boolean fill() throws IOException {
+        bufferOffset += buffer.limit();
+        buffer.clear();
+        final int read = channel.read(buffer);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private int findFieldEnd() {
+        int end = cursor;
+        while (end < length && line[end] != delimiter) {
+            end++;
+        }
+        return end;
+    }
+
+    private long digits(int start, int count) {
+        long value = 0;
+        for (int i = start; i < start + count; i++) {
+            final int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private double parseNumber(int start, int end) {
+        while (start < end && line[start] == ' ') {
+            start++;
+        }
+        while (end > start && line[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        int i = start;
+        boolean negative = false;
+        if (line[i] == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            final byte b = line[i];
+            if (b >= '0' && b <= '9') {
+                // beyond 15 digits the mantissa may not be exact
+                if (++digits > 15) {
+                    return parseSlow(start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if ((b == '.' || (b == ',' && delimiter != ',')) && scale < 0) {
+                scale = 0;
+            } else {
+                return parseSlow(start, end);
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double value = mantissa;
+        if (scale > 0) {
+            value = value / POW10[scale];
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start, int end) {
+        String text = new String(line, start, end - start).replace(" ", "");
+        if (delimiter != ',') {
+            // decimal comma locales group digits with '.'
+            text = text.replace(".", "").replace(',', '.');
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
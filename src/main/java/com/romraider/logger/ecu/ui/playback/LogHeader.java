@@ -0,0 +1,205 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.file.LogColumn;
+
+/**
+ * The columns of one header line of a CSV log, mapped back to the logger
+ * parameters they were recorded from.  A log repeats its header whenever
+ * the selection changes, so a file can have several.
+ */
+final class LogHeader {
+    private static final String TIME = "Time";
+    private static final String RELATIVE_TIME = "Time (msec)";
+    private final boolean absoluteTimestamp;
+    private final LoggerData[] loggerDatas;
+    private final List<Map<String, Double>> replacements;
+    private final List<String> unmapped;
+
+    private LogHeader(boolean absoluteTimestamp, LoggerData[] loggerDatas,
+            List<String> unmapped) {
+        this.absoluteTimestamp = absoluteTimestamp;
+        this.loggerDatas = loggerDatas;
+        this.unmapped = unmapped;
+        this.replacements = new ArrayList<Map<String, Double>>(loggerDatas.length);
+        for (LoggerData loggerData : loggerDatas) {
+            replacements.add(loggerData == null ? null
+                    : reverse(LogColumn.of(loggerData).getReplacements()));
+        }
+    }
+
+    static boolean isHeader(byte[] line, int length) {
+        if (length < TIME.length()) {
+            return false;
+        }
+        for (int i = 0; i < TIME.length(); i++) {
+            if (line[i] != TIME.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Map each column header, written as "name (units)" or as the
+     * parameter id, to a parameter.  When several parameters share a name
+     * the one whose selected units match is preferred.
+     */
+    static LogHeader parse(String line, char delimiter, LoggerDataLookup lookup) {
+        final String[] names = split(line, delimiter);
+        final boolean absolute = !names[0].trim().equals(RELATIVE_TIME);
+        final LoggerData[] loggerDatas = new LoggerData[names.length - 1];
+        final List<String> unmapped = new ArrayList<String>();
+        for (int i = 1; i < names.length; i++) {
+            loggerDatas[i - 1] = lookup.find(names[i].trim());
+            if (loggerDatas[i - 1] == null) {
+                unmapped.add(names[i]);
+            }
+        }
+        return new LogHeader(absolute, loggerDatas, unmapped);
+    }
+
+    boolean isAbsoluteTimestamp() {
+        return absoluteTimestamp;
+    }
+
+    /**
+     * @return the number of value columns, not counting the time
+     */
+    int size() {
+        return loggerDatas.length;
+    }
+
+    /**
+     * @return the parameter of a value column or null if it is unknown
+     */
+    LoggerData getLoggerData(int column) {
+        return loggerDatas[column];
+    }
+
+    /**
+     * @return the value of a replacement text written in place of a
+     * number, or null
+     */
+    Double getReplacedValue(int column, String text) {
+        final Map<String, Double> reverse = replacements.get(column);
+        return reverse == null ? null : reverse.get(text);
+    }
+
+    List<String> getUnmapped() {
+        return unmapped;
+    }
+
+    private static Map<String, Double> reverse(Map<String, String> replaceMap) {
+        if (replaceMap.isEmpty()) {
+            return null;
+        }
+        final Map<String, Double> reverse = new HashMap<String, Double>();
+        for (Map.Entry<String, String> entry : replaceMap.entrySet()) {
+            try {
+                reverse.put(entry.getValue(),
+                        Double.valueOf(entry.getKey().replace(',', '.')));
+            } catch (NumberFormatException e) {
+                // not a number, cannot be played back
+            }
+        }
+        return reverse;
+    }
+
+    private static String[] split(String line, char delimiter) {
+        final List<String> fields = new ArrayList<String>();
+        int start = 0;
+        int end;
+        while ((end = line.indexOf(delimiter, start)) >= 0) {
+            fields.add(line.substring(start, end));
+            start = end + 1;
+        }
+        fields.add(line.substring(start));
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    /**
+     * Finds parameters by column header.
+     */
+    static final class LoggerDataLookup {
+        private final Map<String, LoggerData> byId = new HashMap<String, LoggerData>();
+        private final Map<String, List<LoggerData>> byName =
+                new HashMap<String, List<LoggerData>>();
+
+        LoggerDataLookup(Collection<? extends LoggerData> loggerDatas) {
+            for (LoggerData loggerData : loggerDatas) {
+                byId.put(loggerData.getId(), loggerData);
+                List<LoggerData> named = byName.get(loggerData.getName());
+                if (named == null) {
+                    named = new ArrayList<LoggerData>(1);
+                    byName.put(loggerData.getName(), named);
+                }
+                named.add(loggerData);
+            }
+        }
+
+        LoggerData find(String header) {
+            final LoggerData byIdMatch = byId.get(header);
+            if (byIdMatch != null) {
+                return byIdMatch;
+            }
+            String name = header;
+            String units = null;
+            final int open = header.lastIndexOf(" (");
+            if (open > 0 && header.endsWith(")")) {
+                name = header.substring(0, open);
+                units = header.substring(open + 2, header.length() - 1);
+            }
+            List<LoggerData> named = byName.get(name);
+            if (named == null) {
+                // the name itself may end with a parenthesis
+                named = byName.get(header);
+                units = null;
+            }
+            if (named == null) {
+                return null;
+            }
+            if (units != null) {
+                for (LoggerData loggerData : named) {
+                    if (units.equals(loggerData.getSelectedConvertor().getUnits())) {
+                        return loggerData;
+                    }
+                }
+                for (LoggerData loggerData : named) {
+                    for (EcuDataConvertor convertor : loggerData.getConvertors()) {
+                        if (units.equals(convertor.getUnits())) {
+                            return loggerData;
+                        }
+                    }
+                }
+            }
+            return named.get(0);
+        }
+    }
+}
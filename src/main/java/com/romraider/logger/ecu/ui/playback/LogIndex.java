@@ -0,0 +1,103 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import java.util.Arrays;
+
+/**
+ * A sparse index of a log file: every {@link #INTERVAL}th record is
+ * recorded with its file offset, time and the header in force, so a seek
+ * is a binary search followed by reading at most one interval of lines.
+ */
+final class LogIndex {
+    static final int INTERVAL = 128;
+    private long[] offsets = new long[64];
+    private long[] times = new long[64];
+    private long[] records = new long[64];
+    private int[] headers = new int[64];
+    private int size;
+
+    void add(long offset, long time, long record, int header) {
+        if (size == offsets.length) {
+            final int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            times = Arrays.copyOf(times, capacity);
+            records = Arrays.copyOf(records, capacity);
+            headers = Arrays.copyOf(headers, capacity);
+        }
+        // keep the times sorted even if the log clock stepped backwards
+        times[size] = size > 0 ? Math.max(time, times[size - 1]) : time;
+        offsets[size] = offset;
+        records[size] = record;
+        headers[size++] = header;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the last entry at or before the given time, 0 if the time
+     * precedes the first entry or -1 when the index is empty
+     */
+    int floorByTime(long time) {
+        return floor(times, time);
+    }
+
+    /**
+     * @return the last entry at or before the given record number
+     */
+    int floorByRecord(long record) {
+        return floor(records, record);
+    }
+
+    long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    long getTime(int entry) {
+        return times[entry];
+    }
+
+    long getRecord(int entry) {
+        return records[entry];
+    }
+
+    int getHeader(int entry) {
+        return headers[entry];
+    }
+
+    private int floor(long[] keys, long key) {
+        if (size == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
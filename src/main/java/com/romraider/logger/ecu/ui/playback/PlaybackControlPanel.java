@@ -0,0 +1,284 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static javax.swing.JOptionPane.ERROR_MESSAGE;
+import static javax.swing.JOptionPane.showMessageDialog;
+
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.swing.GenericFileFilter;
+import com.romraider.util.ResourceUtil;
+
+/**
+ * Toolbar controls to open a CSV log and replay it through the logger
+ * displays.  Live logging and playback feed the same handlers, so live
+ * logging is stopped when a log is opened.
+ */
+public final class PlaybackControlPanel extends JPanel {
+    private static final long serialVersionUID = -2830451774652519338L;
+    private static final Logger LOGGER = Logger.getLogger(PlaybackControlPanel.class);
+    private static final ResourceBundle rb = new ResourceUtil().getBundle(
+            PlaybackControlPanel.class.getName());
+    private static final int REFRESH_INTERVAL = 250;
+    private static final int[] SPEEDS = {1, 2, 4, 8, 0};
+
+    /**
+     * The logger window the controls play back into.
+     */
+    public interface Host {
+        /**
+         * @return a playback manager for the parameters currently loaded,
+         * or null if there are none
+         */
+        PlaybackManager createPlaybackManager();
+
+        boolean isLogging();
+
+        void stopLogging();
+
+        /**
+         * @return the directory to open logs from
+         */
+        File getLogDirectory();
+    }
+
+    private final Host host;
+    private final JButton openButton = new JButton(rb.getString("OPEN"));
+    private final JButton playButton = new JButton(rb.getString("PLAY"));
+    private final JButton stopButton = new JButton(rb.getString("STOP"));
+    private final JButton backButton = new JButton("<");
+    private final JButton forwardButton = new JButton(">");
+    private final JComboBox speedBox = new JComboBox();
+    private final JSlider positionSlider = new JSlider(0, 0, 0);
+    private final JLabel positionLabel = new JLabel();
+    private final Timer refreshTimer;
+    private PlaybackManager manager;
+    private boolean loading;
+
+    public PlaybackControlPanel(Host host) {
+        super(new FlowLayout(FlowLayout.LEFT, 2, 0));
+        this.host = host;
+
+        openButton.setToolTipText(rb.getString("TTOPEN"));
+        openButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openLog();
+            }
+        });
+        playButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (manager.isPlaying()) {
+                    manager.pause();
+                } else {
+                    manager.play(getSpeed());
+                }
+                refresh();
+            }
+        });
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                manager.stop();
+                refresh();
+            }
+        });
+        backButton.setToolTipText(rb.getString("TTBACK"));
+        backButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                manager.step(-1);
+                refresh();
+            }
+        });
+        forwardButton.setToolTipText(rb.getString("TTFORWARD"));
+        forwardButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                manager.step(1);
+                refresh();
+            }
+        });
+
+        for (int speed : SPEEDS) {
+            speedBox.addItem(speed > 0
+                    ? MessageFormat.format(rb.getString("SPEED"), speed)
+                    : rb.getString("MAXSPEED"));
+        }
+        speedBox.setToolTipText(rb.getString("TTSPEED"));
+        speedBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (manager != null && manager.isPlaying()) {
+                    manager.play(getSpeed());
+                }
+            }
+        });
+
+        // seek once the knob is released, not for every pixel dragged
+        positionSlider.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (manager != null && positionSlider.isEnabled()) {
+                    manager.seek(positionSlider.getValue());
+                    refresh();
+                }
+            }
+        });
+
+        add(openButton);
+        add(playButton);
+        add(stopButton);
+        add(backButton);
+        add(forwardButton);
+        add(speedBox);
+        add(positionSlider);
+        add(positionLabel);
+
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        refresh();
+    }
+
+    /**
+     * Release the log, for when live logging starts or the logger closes.
+     */
+    public void close() {
+        if (manager != null) {
+            manager.reset();
+            manager = null;
+        }
+        setToolTipText(null);
+        refresh();
+    }
+
+    private int getSpeed() {
+        return SPEEDS[Math.max(0, speedBox.getSelectedIndex())];
+    }
+
+    private void openLog() {
+        final JFileChooser chooser = new JFileChooser(host.getLogDirectory());
+        chooser.setFileFilter(new GenericFileFilter(rb.getString("LOGFILES"), "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final PlaybackManager next = host.createPlaybackManager();
+        if (next == null) {
+            showMessageDialog(this, rb.getString("NOPARAMS"),
+                    rb.getString("ERROR"), ERROR_MESSAGE);
+            return;
+        }
+        if (host.isLogging()) {
+            host.stopLogging();
+        }
+        close();
+
+        final File file = chooser.getSelectedFile();
+        loading = true;
+        refresh();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                next.load(file);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                try {
+                    get();
+                    manager = next;
+                    setToolTipText(file.getName());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Error loading log for playback: " + file, e.getCause());
+                    showMessageDialog(PlaybackControlPanel.this,
+                            MessageFormat.format(rb.getString("LOADERROR"),
+                                    file.getName(), e.getCause().getMessage()),
+                            rb.getString("ERROR"), ERROR_MESSAGE);
+                }
+                refresh();
+            }
+        }.execute();
+    }
+
+    private void refresh() {
+        final boolean loaded = manager != null && !loading;
+        final boolean playing = loaded && manager.isPlaying();
+        openButton.setEnabled(!loading);
+        playButton.setEnabled(loaded);
+        playButton.setText(rb.getString(playing ? "PAUSE" : "PLAY"));
+        stopButton.setEnabled(loaded);
+        backButton.setEnabled(loaded);
+        forwardButton.setEnabled(loaded);
+        speedBox.setEnabled(loaded);
+        positionSlider.setEnabled(loaded);
+
+        final long duration = loaded ? manager.getDuration() : 0;
+        final long position = loaded ? manager.getPosition() : 0;
+        if (!positionSlider.getValueIsAdjusting()) {
+            positionSlider.setMaximum((int) Math.min(duration, Integer.MAX_VALUE));
+            positionSlider.setValue((int) Math.min(position, Integer.MAX_VALUE));
+        }
+        positionLabel.setText(loaded
+                ? MessageFormat.format(rb.getString("POSITION"),
+                        formatTime(position), formatTime(duration))
+                : " ");
+
+        // only poll the position while the log is playing
+        if (playing) {
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+    }
+
+    private static String formatTime(long millis) {
+        final long seconds = millis / 1000;
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
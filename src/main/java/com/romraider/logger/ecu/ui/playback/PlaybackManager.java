@@ -21,18 +21,47 @@ package com.romraider.logger.ecu.ui.playback;
 
 import java.io.File;
 
+/**
+ * Replays a recorded log through the logger display handlers.  Positions
+ * and durations are in milliseconds from the first record of the log.
+ */
 public interface PlaybackManager {
     void load(File file);
 
     void play();
 
+    /**
+     * Start or continue playback.
+     * @param speed - a multiple of real time, zero or less replays as fast
+     * as the handlers accept the records
+     */
     void play(int speed);
 
+    /**
+     * Pause and move by a number of records, backwards when negative.
+     */
     void step(int increment);
 
+    /**
+     * Move to the first record at or after the given position.
+     */
+    void seek(long position);
+
+    long getPosition();
+
+    long getDuration();
+
+    boolean isPlaying();
+
     void pause();
 
+    /**
+     * Pause and return to the start of the log.
+     */
     void stop();
 
+    /**
+     * Stop playback, release the log and deregister its parameters.
+     */
     void reset();
 }
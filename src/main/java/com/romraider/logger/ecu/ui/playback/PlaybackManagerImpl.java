@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,65 +19,425 @@
 
 package com.romraider.logger.ecu.ui.playback;
 
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
-import com.romraider.logger.ecu.definition.LoggerData;
-import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ThreadUtil.sleep;
+
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
+import com.romraider.logger.ecu.comms.query.ResponsePool;
+import com.romraider.logger.ecu.comms.query.ResponseSlots;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.exception.PlaybackException;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 
-//TODO: Finish me.
+/**
+ * Plays back a CSV log written by the file logger.
+ * <p>
+ * Loading scans the file once to map the column headers to parameters and
+ * to build a sparse {@link LogIndex}; playback then streams the file from
+ * the index entry nearest the requested position, so memory use does not
+ * grow with the length of the log.  Records are delivered to the handlers
+ * as pooled {@link ColumnarResponse}s, timed by the log timestamps scaled
+ * by the playback speed.
+ */
 public final class PlaybackManagerImpl implements PlaybackManager {
-    private final List<? extends LoggerData> loggerDatas;
+    private static final Logger LOGGER = Logger.getLogger(PlaybackManagerImpl.class);
+    private static final int UNTHROTTLED_BATCH = 256;
+    private final LogHeader.LoggerDataLookup lookup;
     private final DataUpdateHandler[] dataUpdateHandlers;
+    private final ResponseSlots slots = new ResponseSlots();
+    private final ResponsePool pool = new ResponsePool(slots, 4);
+    private final List<LogHeader> headers = new ArrayList<LogHeader>();
+    private final Set<LoggerData> registered = new LinkedHashSet<LoggerData>();
+    private int[][] headerSlots = new int[0][];
+    private LogIndex index;
+    private CsvLogReader reader;
+    private char delimiter;
+    private int header;
+    private long nextRecord;
+    private long position;
+    private long dayBase;
+    private long startTime;
+    private long endTime;
+    private long recordCount;
+    private long wallBase;
+    private volatile Thread player;
+    private volatile int speed = 1;
+    private volatile int generation;
 
-    public PlaybackManagerImpl(List<? extends LoggerData> loggerDatas, DataUpdateHandler... dataUpdateHandlers) {
-        this.loggerDatas = loggerDatas;
+    public PlaybackManagerImpl(List<? extends LoggerData> loggerDatas,
+            DataUpdateHandler... dataUpdateHandlers) {
+        checkNotNull(loggerDatas, "loggerDatas");
+        checkNotNull(dataUpdateHandlers, "dataUpdateHandlers");
+        this.lookup = new LogHeader.LoggerDataLookup(loggerDatas);
         this.dataUpdateHandlers = dataUpdateHandlers;
     }
 
+    @Override
     public void load(File file) {
-        // TODO: Finish me!
-        for (DataUpdateHandler handler : dataUpdateHandlers) {
-            handler.registerData(loggerDatas.get(10));
-            handler.registerData(loggerDatas.get(20));
-            handler.registerData(loggerDatas.get(30));
+        checkNotNull(file, "file");
+        reset();
+        synchronized (this) {
+            try {
+                reader = new CsvLogReader(file);
+                index = new LogIndex();
+                scan();
+                if (recordCount == 0) {
+                    throw new PlaybackException("No log records found in " + file.getName());
+                }
+                registerData();
+                wallBase = System.currentTimeMillis();
+                seekEntry(0);
+            } catch (IOException e) {
+                reset();
+                throw new PlaybackException(e);
+            } catch (RuntimeException e) {
+                reset();
+                throw e;
+            }
+            LOGGER.info("Playback loaded " + file.getName() + ": " + recordCount
+                    + " records, " + (endTime - startTime) + " ms, "
+                    + registered.size() + " parameters");
         }
     }
 
+    @Override
     public void play() {
-        double d = 0.0;
-        while (true) {
-            for (DataUpdateHandler handler : dataUpdateHandlers) {
-                Response response = new ResponseImpl();
-                response.setDataValue(loggerDatas.get(10), d);
-                response.setDataValue(loggerDatas.get(20), d);
-                response.setDataValue(loggerDatas.get(30), d);
-                handler.handleDataUpdate(response);
-                d += 100.0;
+        play(1);
+    }
+
+    @Override
+    public synchronized void play(int speed) {
+        checkLoaded();
+        this.speed = speed;
+        generation++;
+        if (player == null) {
+            if (nextRecord >= recordCount) {
+                seekEntry(0);
+                resetHandlers();
             }
-            sleep(100L);
+            final Thread thread = new Thread(new Player(), "PlaybackManager");
+            thread.setDaemon(true);
+            player = thread;
+            thread.start();
         }
     }
 
-    public void play(int speed) {
-        throw new UnsupportedOperationException();
+    @Override
+    public void step(int increment) {
+        pause();
+        synchronized (this) {
+            checkLoaded();
+            if (increment > 0) {
+                for (int i = 0; i < increment && readRecord(Long.MIN_VALUE); i++);
+            } else if (increment < 0) {
+                // the record on display is the one before nextRecord
+                moveToRecord(Math.max(0, nextRecord - 1 + increment));
+            }
+        }
     }
 
-    public void step(int increment) {
-        throw new UnsupportedOperationException();
+    @Override
+    public synchronized void seek(long position) {
+        checkLoaded();
+        final long target = startTime + Math.max(0, position);
+        seekEntry(Math.max(0, index.floorByTime(target)));
+        resetHandlers();
+        while (readRecord(target) && this.position < target);
+        generation++;
+    }
+
+    @Override
+    public synchronized long getPosition() {
+        return position - startTime;
     }
 
+    @Override
+    public synchronized long getDuration() {
+        return endTime - startTime;
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return player != null;
+    }
+
+    @Override
     public void pause() {
-        throw new UnsupportedOperationException();
+        final Thread thread = player;
+        player = null;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
+    @Override
     public void stop() {
-        throw new UnsupportedOperationException();
+        pause();
+        synchronized (this) {
+            if (reader != null) {
+                seekEntry(0);
+                resetHandlers();
+            }
+        }
     }
 
+    @Override
     public void reset() {
-        throw new UnsupportedOperationException();
+        pause();
+        synchronized (this) {
+            for (LoggerData loggerData : registered) {
+                for (DataUpdateHandler handler : dataUpdateHandlers) {
+                    handler.deregisterData(loggerData);
+                }
+            }
+            if (!registered.isEmpty()) {
+                resetHandlers();
+            }
+            registered.clear();
+            slots.clear();
+            headers.clear();
+            headerSlots = new int[0][];
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Error closing playback log", e);
+                }
+            }
+            reader = null;
+            index = null;
+            recordCount = 0;
+            nextRecord = 0;
+            position = startTime = endTime = 0;
+        }
+    }
+
+    /**
+     * Read the whole file once, collecting the headers, the time range and
+     * an index entry every {@link LogIndex#INTERVAL} records.
+     */
+    private void scan() throws IOException {
+        header = -1;
+        position = 0;
+        dayBase = 0;
+        while (reader.readLine()) {
+            if (LogHeader.isHeader(reader.getLine(), reader.getLength())) {
+                final String text = reader.getLineText();
+                if (headers.isEmpty()) {
+                    // decimal comma locales are logged with semicolons
+                    delimiter = text.indexOf(';') >= 0 ? ';' : ',';
+                    reader.setDelimiter(delimiter);
+                }
+                headers.add(LogHeader.parse(text, delimiter, lookup));
+                header = headers.size() - 1;
+                if (!headers.get(header).getUnmapped().isEmpty()) {
+                    LOGGER.info("Playback columns without a parameter: "
+                            + headers.get(header).getUnmapped());
+                }
+                continue;
+            }
+            final long time = parseTime();
+            if (time < 0) {
+                continue;
+            }
+            if (recordCount % LogIndex.INTERVAL == 0) {
+                index.add(reader.getLineOffset(), time, recordCount, header);
+            }
+            if (recordCount == 0) {
+                startTime = time;
+            }
+            endTime = Math.max(endTime, time);
+            position = time;
+            recordCount++;
+        }
+    }
+
+    private void registerData() {
+        headerSlots = new int[headers.size()][];
+        for (int h = 0; h < headers.size(); h++) {
+            final LogHeader logHeader = headers.get(h);
+            headerSlots[h] = new int[logHeader.size()];
+            for (int column = 0; column < logHeader.size(); column++) {
+                final LoggerData loggerData = logHeader.getLoggerData(column);
+                headerSlots[h][column] = loggerData == null ? -1 : slots.assign(loggerData);
+                if (loggerData != null && registered.add(loggerData)) {
+                    for (DataUpdateHandler handler : dataUpdateHandlers) {
+                        handler.registerData(loggerData);
+                    }
+                }
+            }
+        }
+    }
+
+    private void seekEntry(int entry) {
+        try {
+            reader.seek(index.getOffset(entry));
+        } catch (IOException e) {
+            throw new PlaybackException(e);
+        }
+        header = index.getHeader(entry);
+        nextRecord = index.getRecord(entry);
+        position = index.getTime(entry);
+        dayBase = position - position % CsvLogReader.MSEC_PER_DAY;
+    }
+
+    private void moveToRecord(long record) {
+        seekEntry(Math.max(0, index.floorByRecord(record)));
+        while (nextRecord < record && readRecord(Long.MAX_VALUE));
+        readRecord(Long.MIN_VALUE);
+    }
+
+    /**
+     * Read the next record, delivering it to the handlers if its time is
+     * at or after the given time.
+     * @return false at the end of the log
+     */
+    private boolean readRecord(long dispatchFrom) {
+        try {
+            while (reader.readLine()) {
+                if (LogHeader.isHeader(reader.getLine(), reader.getLength())) {
+                    header++;
+                    continue;
+                }
+                final long time = parseTime();
+                if (time < 0) {
+                    continue;
+                }
+                position = time;
+                nextRecord++;
+                if (time >= dispatchFrom) {
+                    dispatch();
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            throw new PlaybackException(e);
+        }
+        return false;
+    }
+
+    /**
+     * @return the log time of the current line or -1 if it is not a
+     * record, absolute times continue past midnight
+     */
+    private long parseTime() {
+        if (header < 0) {
+            return -1;
+        }
+        final boolean absolute = headers.get(header).isAbsoluteTimestamp();
+        long time = reader.parseTime(absolute);
+        if (time >= 0 && absolute) {
+            time += dayBase;
+            if (time < position - CsvLogReader.MSEC_PER_DAY / 2) {
+                dayBase += CsvLogReader.MSEC_PER_DAY;
+                time += CsvLogReader.MSEC_PER_DAY;
+            }
+        }
+        return time;
+    }
+
+    private void dispatch() {
+        final LogHeader logHeader = headers.get(header);
+        final int[] columnSlots = headerSlots[header];
+        final ColumnarResponse response = pool.acquire();
+        response.setTimestamp(wallBase + position - startTime);
+        for (int column = 0; column < columnSlots.length && reader.hasField(); column++) {
+            double value = reader.parseField();
+            if (columnSlots[column] < 0) {
+                continue;
+            }
+            if (Double.isNaN(value)) {
+                final Double replaced = logHeader.getReplacedValue(
+                        column, reader.lastFieldText());
+                if (replaced == null) {
+                    continue;
+                }
+                value = replaced;
+            }
+            response.setValue(columnSlots[column], value);
+        }
+        try {
+            for (DataUpdateHandler handler : dataUpdateHandlers) {
+                try {
+                    handler.handleDataUpdate(response);
+                } catch (Exception e) {
+                    LOGGER.error("Error playing back to " + handler.getClass().getSimpleName(), e);
+                }
+            }
+        } finally {
+            response.release();
+        }
+    }
+
+    private void resetHandlers() {
+        for (DataUpdateHandler handler : dataUpdateHandlers) {
+            handler.reset();
+        }
+    }
+
+    private void checkLoaded() {
+        if (reader == null) {
+            throw new IllegalStateException("No log loaded for playback");
+        }
+    }
+
+    /**
+     * Delivers records until paused or the end of the log.  Each record
+     * is due when the wall clock has advanced by its distance from the
+     * starting record divided by the speed; the start is taken again when
+     * the speed or position changes.
+     */
+    private final class Player implements Runnable {
+        @Override
+        public void run() {
+            final Thread self = Thread.currentThread();
+            int pace = 0;
+            int seen = -1;
+            long wallStart = 0;
+            long logStart = 0;
+            long count = 0;
+            while (player == self) {
+                final long due;
+                synchronized (PlaybackManagerImpl.this) {
+                    if (player != self) {
+                        break;
+                    }
+                    if (seen != generation) {
+                        seen = generation;
+                        pace = speed;
+                        wallStart = System.currentTimeMillis();
+                        logStart = position;
+                    }
+                    if (!readRecord(Long.MIN_VALUE)) {
+                        player = null;
+                        break;
+                    }
+                    due = position;
+                }
+                if (pace > 0) {
+                    final long wait = wallStart + (due - logStart) / pace
+                            - System.currentTimeMillis();
+                    if (wait > 0) {
+                        sleep(wait);
+                    }
+                } else if (++count % UNTHROTTLED_BATCH == 0) {
+                    Thread.yield();
+                }
+            }
+        }
     }
 }
@@ -45,6 +45,7 @@ import static java.awt.event.KeyEvent.VK_T;
 import static java.awt.event.KeyEvent.VK_U;
 import static java.awt.event.KeyEvent.VK_V;
 import static java.awt.event.KeyEvent.VK_X;
+import static java.awt.event.KeyEvent.VK_Y;
 import static javax.swing.KeyStroke.getKeyStroke;
 
 import java.text.MessageFormat;
@@ -71,6 +72,7 @@ import com.romraider.logger.ecu.ui.swing.menubar.action.LoadProfileAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileAbsoluteTimestampAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileControllerSwitchAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileLocationAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileBinaryFormatAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileNumberFormatAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LoggerDebugLocationAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LoggerDebuggingLevelAction;
@@ -144,6 +146,9 @@ public class EcuLoggerMenuBar extends JMenuBar {
         logger.getComponentList().put("fastPoll", fastPoll);
         settingsMenu.add(new JSeparator());
         settingsMenu.add(new RadioButtonMenuItem(rb.getString("ABSTIMESTAMP"), VK_T, getKeyStroke(VK_T, CTRL_MASK), new LogFileAbsoluteTimestampAction(logger), logger.getSettings().isFileLoggingAbsoluteTimestamp()));
+        final RadioButtonMenuItem binaryLog = new RadioButtonMenuItem(rb.getString("BINARYLOG"), VK_Y, null, new LogFileBinaryFormatAction(logger), logger.getSettings().isFileLoggingBinary());
+        binaryLog.setToolTipText(rb.getString("BINARYLOGTT"));
+        settingsMenu.add(binaryLog);
         final RadioButtonMenuItem numFormat = new RadioButtonMenuItem(rb.getString("USNUMBERS"), VK_B, getKeyStroke(VK_B, CTRL_MASK), new LogFileNumberFormatAction(logger), logger.getSettings().isUsNumberFormat());
         numFormat.setToolTipText(rb.getString("USNUMBERSTT"));
         settingsMenu.add(numFormat);
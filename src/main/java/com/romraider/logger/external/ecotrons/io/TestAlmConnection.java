@@ -19,6 +19,7 @@
 
 package com.romraider.logger.external.ecotrons.io;
 
+import com.romraider.io.serial.connection.FrameCompletion;
 import com.romraider.io.serial.connection.SerialConnection;
 import static com.romraider.util.ThreadUtil.sleep;
 
@@ -74,6 +75,14 @@ public final class TestAlmConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        throw new UnsupportedOperationException();
+    }
+
     public String readLine() {
         throw new UnsupportedOperationException();
     }
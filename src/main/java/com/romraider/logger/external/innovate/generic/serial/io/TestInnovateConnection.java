@@ -19,6 +19,7 @@
 
 package com.romraider.logger.external.innovate.generic.serial.io;
 
+import com.romraider.io.serial.connection.FrameCompletion;
 import com.romraider.io.serial.connection.SerialConnection;
 import static com.romraider.util.HexUtil.asBytes;
 
@@ -56,6 +57,14 @@ public final class TestInnovateConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        throw new UnsupportedOperationException();
+    }
+
     public void close() {
     }
 
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.external.plx.io;
 
+import com.romraider.io.serial.connection.FrameCompletion;
 import com.romraider.io.serial.connection.SerialConnection;
 import static com.romraider.util.ThreadUtil.sleep;
 
@@ -72,6 +73,14 @@ public final class TestPlxConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        throw new UnsupportedOperationException();
+    }
+
     public String readLine() {
         throw new UnsupportedOperationException();
     }
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.external.te.io;
 
+import com.romraider.io.serial.connection.FrameCompletion;
 import com.romraider.io.serial.connection.SerialConnection;
 import static com.romraider.util.ThreadUtil.sleep;
 
@@ -385,6 +386,14 @@ public final class TestTEConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean awaitAvailable(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int awaitReply(byte[] request, FrameCompletion completion, long quietTime) {
+        throw new UnsupportedOperationException();
+    }
+
     public String readLine() {
         throw new UnsupportedOperationException();
     }
@@ -0,0 +1,137 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the cells stored in a range of ROM bytes.
+ * <p>
+ * Cells are kept in parallel arrays of start address, end address and
+ * cell.  They are sorted by start address on the first lookup after cells
+ * were added, together with the highest end address seen up to each
+ * position, so a lookup is a binary search followed by a short walk back
+ * over the cells which can still reach the range.
+ */
+final class ByteCellIndex implements Serializable {
+    private static final long serialVersionUID = 4128873196421795125L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private DataCell[] cells = new DataCell[INITIAL_CAPACITY];
+    //Highest end address of the cells up to each position, once sorted
+    private int[] maxEnds = new int[0];
+    private boolean sorted = true;
+
+    /**
+     * Add a cell covering length bytes from start.  Tables are populated
+     * in parallel, so cells can be added from any thread.
+     */
+    synchronized void add(DataCell cell, int start, int length) {
+        if (size == starts.length) {
+            final int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+        }
+        starts[size] = start;
+        ends[size] = start + Math.max(length, 1);
+        cells[size] = cell;
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * @return the cells with at least one byte from start to end exclusive,
+     * by start address and then in the order they were added
+     */
+    synchronized List<DataCell> getCells(int start, int end) {
+        sort();
+        int low = 0;
+        int high = size;
+        // first cell starting at or after end
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] < end) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        final List<DataCell> result = new ArrayList<DataCell>(2);
+        for (int i = low - 1; i >= 0 && maxEnds[i] > start; i--) {
+            if (ends[i] > start) {
+                result.add(cells[i]);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        size = 0;
+        starts = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+        cells = new DataCell[INITIAL_CAPACITY];
+        maxEnds = new int[0];
+        sorted = true;
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        // start in the high half and position in the low half, so equal
+        // starts keep the order the cells were added in
+        final long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) starts[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        final int[] sortedStarts = new int[size];
+        final int[] sortedEnds = new int[size];
+        final DataCell[] sortedCells = new DataCell[size];
+        maxEnds = new int[size];
+        for (int i = 0; i < size; i++) {
+            final int from = (int) keys[i];
+            sortedStarts[i] = starts[from];
+            sortedEnds[i] = ends[from];
+            sortedCells[i] = cells[from];
+            maxEnds[i] = i == 0 ? sortedEnds[i] : Math.max(maxEnds[i - 1], sortedEnds[i]);
+        }
+        starts = sortedStarts;
+        ends = sortedEnds;
+        cells = sortedCells;
+        sorted = true;
+    }
+}
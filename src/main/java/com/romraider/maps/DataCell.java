@@ -21,7 +21,6 @@ package com.romraider.maps;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.util.LinkedList;
 import java.util.StringTokenizer;
 
 import org.apache.log4j.Logger;
@@ -35,12 +34,12 @@ import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
 import com.romraider.xml.RomAttributeParser;
 
-public class DataCell implements Serializable  {
+public class DataCell implements Serializable, Cloneable  {
     private static final long serialVersionUID = 1111479947434817639L;
     private static final Logger LOGGER = Logger.getLogger(DataCell.class);
 
     //View we need to keep up to date
-    private DataCellView view = null;
+    private CellView view = null;
     private Table table;
 
     //This sounds like a View property, but the manipulation
@@ -60,6 +59,9 @@ public class DataCell implements Serializable  {
     //Index within table
     private int index;
 
+    //Index within the real value cache of the table
+    private int realValueIndex = -1;
+
     public DataCell(Table table, Rom rom) {
         this.table = table;
         this.rom = rom;
@@ -83,6 +85,36 @@ public class DataCell implements Serializable  {
         registerDataCell(this);
     }
 
+    /**
+     * Create a cell for a bin value the table has already read.
+     */
+    DataCell(Table table, int index, Rom rom, double binValue) {
+        this(table, rom);
+        this.index = index;
+        calcValueRange();
+        this.binValue = binValue;
+        this.originalValue = binValue;
+        registerDataCell(this);
+    }
+
+    /**
+     * @return a copy of this cell belonging to another table, the copy has
+     * no view and is not selected
+     */
+    public DataCell copy(Table t) {
+        try {
+            final DataCell copy = (DataCell) super.clone();
+            copy.table = t;
+            copy.view = null;
+            copy.isSelected = false;
+            copy.realValueIndex = -1;
+            return copy;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public void setTable(Table t) {
         this.table = t;
     }
@@ -149,45 +181,28 @@ public class DataCell implements Serializable  {
     }
 
     private double getValueFromMemory(int index) {
-        double dataValue = 0.0;
-        byte[] input = getBinary();
-        int storageType = table.getStorageType();
-        Endian endian = table.getEndian();
-        int ramOffset = table.getRamOffset();
-        int storageAddress = table.getStorageAddress();
-        boolean signed = table.isSignedData();
+        final RomImage image = rom.getImage();
+        final int storageType = table.getStorageType();
+        final int address = table.getStorageAddress() - table.getRamOffset();
 
         // populate data cells
         if (storageType == Settings.STORAGE_TYPE_FLOAT) { //float storage type
-            byte[] byteValue = new byte[4];
-            byteValue[0] = input[storageAddress + index * 4 - table.getRamOffset()];
-            byteValue[1] = input[storageAddress + index * 4 - table.getRamOffset() + 1];
-            byteValue[2] = input[storageAddress + index * 4 - table.getRamOffset() + 2];
-            byteValue[3] = input[storageAddress + index * 4 - table.getRamOffset() + 3];
-            dataValue = RomAttributeParser.byteToFloat(byteValue, table.getEndian(), table.getMemModelEndian());
+            return image.getFloat(address + index * 4,
+                    RomImage.floatEndian(table.getEndian(), table.getMemModelEndian()));
 
         } else if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
                 storageType == Settings.STORAGE_TYPE_MOVI20S) { // when data is in MOVI20 instruction
-            dataValue = RomAttributeParser.parseByteValue(input,
-                    endian,
-                    storageAddress + index * 3 - ramOffset,
-                    storageType,
-                    signed);
+            return image.getValue(address + index * 3, table.getEndian(),
+                    storageType, table.isSignedData());
 
         } else { // integer storage type
+            final long value = image.getValue(address + index * storageType,
+                    table.getEndian(), storageType, table.isSignedData());
             if (bitMask == 0) {
-                dataValue = RomAttributeParser.parseByteValue(input,
-                        endian, storageAddress + index * storageType - ramOffset,
-                        storageType, signed);
-                }
-                else {
-                    dataValue = RomAttributeParser.parseByteValueMasked(input, endian,
-                            storageAddress + index * storageType - ramOffset,
-                            storageType, signed, bitMask);
-                }
+                return value;
+            }
+            return (value & bitMask) >> ByteUtil.firstOneOfMask(bitMask);
         }
-
-        return dataValue;
     }
 
     private double getValueFromMemory() {
@@ -210,28 +225,72 @@ public class DataCell implements Serializable  {
     public void saveBinValueInFile() {
         if (table.getName().contains("Checksum Fix")) return;
 
-        byte[] binData = getBinary();
-        int userLevel = table.getUserLevel();
-        int storageType = table.getStorageType();
-        Endian endian = table.getEndian();
-        int ramOffset = table.getRamOffset();
-        int storageAddress = table.getStorageAddress();
-        boolean isBoschSubtract = table.getDataLayout() == Table.DataLayout.BOSCH_SUBTRACT;
+        if (table.getDataLayout() == Table.DataLayout.BOSCH_SUBTRACT) {
+            saveBoschSubtract();
+            return;
+        }
+
+        if (!writeBinValue(getBinValue())) return;
 
+        checkForDataUpdates();
+    }
+
+    /**
+     * On the Bosch subtract model every cell holds the difference to the
+     * cell after it, so the cells before this one are written again too,
+     * last to first.  The value of the following cell is kept as a running
+     * total rather than summed up again from the end of the table for
+     * every cell written.
+     */
+    private void saveBoschSubtract() {
+        final DataCell[] cells = table.data;
+        final int last = cells.length - 1;
+        final double dataValue = Math.pow(2, 8 * table.getStorageType());
+
+        // value of the cell after the one being written, from memory
         double crossedValue = 0;
+        if (index < last) {
+            crossedValue = dataValue - getValueFromMemory(last);
+            for (int i = last - 1; i > index; i--) {
+                crossedValue -= getValueFromMemory(i);
+            }
+        }
 
-        //Do reverse cross referencing in for Bosch Subtract Axis array
-        if (isBoschSubtract) {
-            for (int i = table.data.length - 1; i >=index ; i--) {
-                if (i == index)
-                    crossedValue -= table.data[i].getBinValue();
-                else if (i == table.data.length - 1)
-                    crossedValue = Math.pow(2, 8 * storageType) - getValueFromMemory(i);
-                else {
-                    crossedValue -= getValueFromMemory(i);
+        for (int i = index; i >= 0; i--) {
+            if (!cells[i].writeBinValue(crossedValue - cells[i].getBinValue())) return;
+            crossedValue = (i == last ? dataValue : crossedValue) - getValueFromMemory(i);
+        }
+
+        // refresh the rewritten cells and any cell of another table sharing their bytes
+        final double[] values = new double[cells.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValueFromMemory(i);
+        }
+        Table.decodeBoschSubtract(values, table.getStorageType());
+
+        for (int i = 0; i <= index; i++) {
+            int memoryIndex = getMemoryStartAddress(cells[i]);
+            for(DataCell c : rom.byteCellMapping.getCells(memoryIndex, memoryIndex + getMemoryLength(cells[i]))) {
+                if (c == cells[i]) {
+                    c.updateBinValue(values[i]);
+                } else {
+                    c.updateBinValueFromMemory();
                 }
             }
         }
+    }
+
+    /**
+     * Write a bin value of this cell to the ROM.
+     * @return false if the table does not keep its values in the ROM
+     */
+    private boolean writeBinValue(double value) {
+        byte[] binData = getBinary();
+        int userLevel = table.getUserLevel();
+        int storageType = table.getStorageType();
+        Endian endian = table.getEndian();
+        int ramOffset = table.getRamOffset();
+        int storageAddress = table.getStorageAddress();
 
         if (userLevel <= getSettings().getUserLevel() && (userLevel < 5 || getSettings().isSaveDebugTables()) ) {
                 // determine output byte values
@@ -250,15 +309,15 @@ public class DataCell implements Serializable  {
                         } catch (NumberFormatException ex) {
                             LOGGER.error("Error parsing static data table value: " + getStaticText(), ex);
                             LOGGER.error("Validate the table definition storageType and data value.");
-                            return;
+                            return false;
                         }
                     } else if (table.isStaticDataTable() && storageType < 1) {
                         // Do not save the value.
                         //if (LOGGER.isDebugEnabled())
                         //    LOGGER.debug("The static data table value will not be saved.");
-                        return;
+                        return false;
                     }  else {
-                        finalValue = (int) (isBoschSubtract ? crossedValue : getBinValue());
+                        finalValue = (int) value;
                     }
 
                     if (mask != 0) {
@@ -274,6 +333,8 @@ public class DataCell implements Serializable  {
                         byteLength = 3;
                     }
 
+                    rom.markDirty(index * byteLength + storageAddress - ramOffset, byteLength);
+
                     //If mask enabled, only change bits within the mask
                     if (mask != 0) {
                         int tempBitMask = 0;
@@ -301,48 +362,49 @@ public class DataCell implements Serializable  {
 
                 } else { // float
                     // convert byte values
-                    output = RomAttributeParser.floatToByte((float) getBinValue(), endian, table.getMemModelEndian());
+                    output = RomAttributeParser.floatToByte((float) value, endian, table.getMemModelEndian());
+                    rom.markDirty(index * 4 + storageAddress - ramOffset, 4);
 
                     for (int z = 0; z < 4; z++) { // insert in to file
                         binData[index * 4 + z + storageAddress - ramOffset] = output[z];
                     }
                 }
         }
-
-        //On the Bosch substract model, we need to update all previous cells, because they depend on our value
-        if (isBoschSubtract && index > 0) table.data[index-1].saveBinValueInFile();
-
-        checkForDataUpdates();
+        return true;
     }
 
     public void registerDataCell(DataCell cell) {
-
-        int memoryIndex = getMemoryStartAddress(cell);
-
-        if (rom.byteCellMapping.containsKey(memoryIndex))
-            {
-            rom.byteCellMapping.get(memoryIndex).add(cell);
-            }
-        else {
-            LinkedList<DataCell> l = new LinkedList<DataCell>();
-            l.add(cell);
-            rom.byteCellMapping.put(memoryIndex, l);
-        }
+        rom.byteCellMapping.add(cell, getMemoryStartAddress(cell), getMemoryLength(cell));
     }
 
     public void checkForDataUpdates() {
         int memoryIndex = getMemoryStartAddress(this);
 
-        if (rom.byteCellMapping.containsKey(memoryIndex)){
-            for(DataCell c : rom.byteCellMapping.get(memoryIndex)) {
-                c.updateBinValueFromMemory();
-            }
+        // Every cell sharing a byte with this one, including partial overlaps
+        for(DataCell c : rom.byteCellMapping.getCells(memoryIndex, memoryIndex + getMemoryLength(this))) {
+            c.updateBinValueFromMemory();
         }
     }
 
     public static int getMemoryStartAddress(DataCell cell) {
         Table t = cell.getTable();
-        return t.getStorageAddress() + cell.getIndexInTable() * t.getStorageType() - t.getRamOffset();
+        return t.getStorageAddress() + cell.getIndexInTable() * getMemoryLength(cell) - t.getRamOffset();
+    }
+
+    /**
+     * @return the number of bytes the value of the cell takes in the ROM
+     */
+    public static int getMemoryLength(DataCell cell) {
+        int storageType = cell.getTable().getStorageType();
+
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) {
+            return 4;
+        } else if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
+                storageType == Settings.STORAGE_TYPE_MOVI20S) {
+            return 3;
+        } else {
+            return storageType;
+        }
     }
 
     public Settings getSettings()
@@ -366,15 +428,20 @@ public class DataCell implements Serializable  {
     }
 
     public void updateBinValueFromMemory() {
+        updateBinValue(getValueFromMemory());
+    }
+
+    private void updateBinValue(double binValue) {
         //We do this here because once we start populating all settings should be set
         if (minAllowedBin == 0 && maxAllowedBin == 0)
             calcValueRange();
 
-        this.binValue = getValueFromMemory();
+        this.binValue = binValue;
+        table.updateRealValue(this);
         updateView();
     }
 
-    public void setDataView(DataCellView v) {
+    public void setDataView(CellView v) {
         view = v;
     }
 
@@ -382,6 +449,14 @@ public class DataCell implements Serializable  {
         return index;
     }
 
+    int getRealValueIndex() {
+        return realValueIndex;
+    }
+
+    void setRealValueIndex(int realValueIndex) {
+        this.realValueIndex = realValueIndex;
+    }
+
     private void updateView() {
         if (view != null) {
             view.drawCell();
@@ -420,9 +495,7 @@ public class DataCell implements Serializable  {
     }
 
     public double getRealValue() {
-        if (table.getCurrentScale() == null) return binValue;
-
-        return JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue);
+        return table.getRealValue(this);
     }
 
     public void setRealValue(String input) throws UserLevelException {
@@ -503,6 +576,7 @@ public class DataCell implements Serializable  {
 
         // set bin.
         binValue = checkedValue;
+        table.updateRealValue(this);
         saveBinValueInFile();
         updateView();
     }
@@ -38,7 +38,7 @@ import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.util.JEPUtil;
 import com.romraider.util.SettingsManager;
 
-public class DataCellView extends JLabel implements MouseListener, Serializable {
+public class DataCellView extends JLabel implements CellView, MouseListener, Serializable {
 	private static final long serialVersionUID = 1L;
 	static final Font DEFAULT_FONT = new Font("Arial", Font.BOLD, 12);
     static final String ST_DELIMITER = "\t\n\r\f";
@@ -113,15 +113,15 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         //this.invalidate();
         setFont(getSettings().getTableFont());
         setText(getCellText());
-        setToolTipText(getCellToolTip());
-        setBackground(getCellBackgroundColor());
-        setForeground(getCellTextColor());
-        setBorder(getCellBorder());
+        setToolTipText(getCellToolTip(tableView, dataCell, traced));
+        setBackground(getCellBackgroundColor(tableView, dataCell, highlighted));
+        setForeground(getCellTextColor(tableView, dataCell, highlighted, traced));
+        setBorder(getCellBorder(tableView, dataCell, traced, tracedStale));
         //this.validate();   
         //super.repaint();
     }
 
-    private Color getCellBackgroundColor() {
+    static Color getCellBackgroundColor(TableView tableView, DataCell dataCell, boolean highlighted) {
         Settings settings = getSettings();
         Color backgroundColor;
 
@@ -130,15 +130,19 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         } else if(dataCell.isSelected()) {
             backgroundColor = settings.getSelectColor();
         } else if(null == tableView.getTable().getCompareTable()) {
-            backgroundColor = getBinColor();
+            backgroundColor = getBinColor(tableView, dataCell);
         }else {
-            backgroundColor = getCompareColor();
+            backgroundColor = getCompareColor(tableView, dataCell);
         }
         
         return backgroundColor;
     }
     
     public Color getCompareColor() {
+        return getCompareColor(tableView, dataCell);
+    }
+
+    static Color getCompareColor(TableView tableView, DataCell dataCell) {
     	Table t = tableView.getTable();
     	
         if(tableView instanceof Table1DView) {;
@@ -159,6 +163,10 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     }
 
     public Color getBinColor() {
+        return getBinColor(tableView, dataCell);
+    }
+
+    static Color getBinColor(TableView tableView, DataCell dataCell) {
     	Table t = tableView.getTable();
     	
         if(tableView instanceof Table1DView) {;
@@ -224,7 +232,8 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     public void mouseExited(MouseEvent e) {
     }
     
-    private Color getCellTextColor() {
+    static Color getCellTextColor(TableView tableView, DataCell dataCell,
+            boolean highlighted, boolean traced) {
         Color textColor;
 
         if(traced) {
@@ -248,7 +257,8 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         return textColor;
     }
 
-    private Border getCellBorder() {
+    static Border getCellBorder(TableView tableView, DataCell dataCell,
+            boolean traced, boolean tracedStale) {
         Border border;
         if(traced) {
             border = CURLIVE_BORDER;
@@ -276,9 +286,13 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         return border;
     }
 
-    public String getCellText() {        
+    public String getCellText() {
+        return getCellText(tableView, dataCell, traced);
+    }
+
+    static String getCellText(TableView tableView, DataCell dataCell, boolean traced) {
     	if(tableView.getTable().isStaticDataTable()) {
-            return getStaticText();
+            return getStaticText(tableView, dataCell);
         }
                
         FORMATTER.applyPattern(tableView.getTable().getCurrentScale().getFormat());
@@ -299,15 +313,15 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
 
         if(traced) {
             if(!(tableView.getTable() instanceof Table1D)) {
-                displayString = getLiveValueString(displayString);
+                displayString = getLiveValueString(dataCell, displayString);
             }
         }
         return displayString;
     }
 
-    private String getCellToolTip() {
+    static String getCellToolTip(TableView tableView, DataCell dataCell, boolean traced) {
         if(tableView.getTable().isStaticDataTable()) {
-            return getStaticText();
+            return getStaticText(tableView, dataCell);
         }
         String ttString = null;
         FORMATTER.applyPattern(TT_FORMAT);
@@ -325,7 +339,7 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         }
         if(traced) {
             if(!(tableView.getTable() instanceof Table1D)) {
-                ttString = getLiveValueString(ttString);
+                ttString = getLiveValueString(dataCell, ttString);
             }
         }
         return ttString;
@@ -376,11 +390,15 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         }
     }
     
-    private String getLiveValueString(String currentValue) {
+    private static String getLiveValueString(DataCell dataCell, String currentValue) {
         return currentValue + (isNullOrEmpty(dataCell.getLiveValue()) ? Settings.BLANK : (':' + dataCell.getLiveValue()));
     }
     
     public String getStaticText() {
+        return getStaticText(tableView, dataCell);
+    }
+
+    static String getStaticText(TableView tableView, DataCell dataCell) {
         String displayString = null;
         try {
             FORMATTER.applyPattern(tableView.getTable().getCurrentScale().getFormat());
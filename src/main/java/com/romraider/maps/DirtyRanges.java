@@ -0,0 +1,198 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records which parts of a ROM binary changed since a checksum was last
+ * calculated, together with the bytes they held before.
+ * <p>
+ * Changes are kept per page of {@link #PAGE_SIZE} bytes.  The first time
+ * a page is marked its content is copied, so {@link #mark} has to be called
+ * before the bytes are written.  Once more than a quarter of the binary
+ * has changed the copies are dropped and the ranges report an
+ * {@link #isOverflow() overflow}, a full calculation is then cheaper than
+ * working through the changes.
+ */
+public final class DirtyRanges {
+    public static final int PAGE_SIZE = 4096;
+    private static final int PAGE_SHIFT = 12;
+    /** Unchanged bytes kept around a span so words crossing its edges can be read. */
+    private static final int PADDING = 3;
+    private final TreeMap<Integer, byte[]> pages = new TreeMap<Integer, byte[]>();
+    private boolean overflow;
+
+    /**
+     * Record that bytes are about to be written.
+     * @param binary - the binary before the write
+     */
+    public void mark(byte[] binary, int address, int length) {
+        if (overflow || length <= 0) {
+            return;
+        }
+        final int first = Math.max(address, 0) >> PAGE_SHIFT;
+        final int last = Math.min(address + length - 1, binary.length - 1) >> PAGE_SHIFT;
+        for (int page = first; page <= last; page++) {
+            if (!pages.containsKey(page)) {
+                final int start = page << PAGE_SHIFT;
+                final byte[] copy = new byte[Math.min(PAGE_SIZE, binary.length - start)];
+                System.arraycopy(binary, start, copy, 0, copy.length);
+                pages.put(page, copy);
+            }
+        }
+        if ((long) pages.size() * PAGE_SIZE * 4 > binary.length) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Forget the recorded changes, as after a full calculation.
+     */
+    public void clear() {
+        pages.clear();
+        overflow = false;
+    }
+
+    /**
+     * Give up recording, the next calculation has to cover everything.
+     */
+    public void invalidate() {
+        pages.clear();
+        overflow = true;
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    public boolean isEmpty() {
+        return !overflow && pages.isEmpty();
+    }
+
+    /**
+     * @return true if a byte in the range from start to end exclusive has
+     * changed, always true after an overflow
+     */
+    public boolean intersects(int start, int end) {
+        if (overflow) {
+            return true;
+        }
+        if (end <= start) {
+            return false;
+        }
+        final Integer page = pages.floorKey((end - 1) >> PAGE_SHIFT);
+        return page != null && page >= start >> PAGE_SHIFT;
+    }
+
+    /**
+     * @param binary - the binary after the changes
+     * @return the changed areas, adjacent pages merged, in address order
+     */
+    public List<Span> getSpans(byte[] binary) {
+        if (pages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Span> spans = new ArrayList<Span>();
+        int first = -1;
+        int previous = -1;
+        for (Integer page : pages.keySet()) {
+            if (first >= 0 && page != previous + 1) {
+                spans.add(buildSpan(binary, first, previous));
+                first = -1;
+            }
+            if (first < 0) {
+                first = page;
+            }
+            previous = page;
+        }
+        spans.add(buildSpan(binary, first, previous));
+        return spans;
+    }
+
+    private Span buildSpan(byte[] binary, int firstPage, int lastPage) {
+        final int start = firstPage << PAGE_SHIFT;
+        final int end = Math.min((lastPage + 1) << PAGE_SHIFT, binary.length);
+        final int paddedStart = Math.max(start - PADDING, 0);
+        final int paddedEnd = Math.min(end + PADDING, binary.length);
+        final byte[] old = new byte[paddedEnd - paddedStart];
+        System.arraycopy(binary, paddedStart, old, 0, start - paddedStart);
+        for (Map.Entry<Integer, byte[]> entry
+                : pages.subMap(firstPage, true, lastPage, true).entrySet()) {
+            final byte[] page = entry.getValue();
+            System.arraycopy(page, 0, old,
+                    (entry.getKey() << PAGE_SHIFT) - paddedStart, page.length);
+        }
+        System.arraycopy(binary, end, old, end - paddedStart, paddedEnd - end);
+        return new Span(start, end, paddedStart, old);
+    }
+
+    /**
+     * A run of changed bytes and what the binary held there before.
+     */
+    public static final class Span {
+        private final int start;
+        private final int end;
+        private final int oldStart;
+        private final RomImage old;
+
+        Span(int start, int end, int oldStart, byte[] old) {
+            this.start = start;
+            this.end = end;
+            this.oldStart = oldStart;
+            this.old = RomImage.wrap(old);
+        }
+
+        /**
+         * @return the first changed address
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return the address after the last changed one
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @return the address of the first byte of {@link #getOld()}, the
+         * old bytes start a few unchanged bytes before {@link #getStart()}
+         * and end a few after {@link #getEnd()} so a 32 bit word that
+         * overlaps the span can be read from them whole
+         */
+        public int getOldStart() {
+            return oldStart;
+        }
+
+        /**
+         * @return the bytes as they were, indexed from {@link #getOldStart()}
+         */
+        public RomImage getOld() {
+            return old;
+        }
+    }
+}
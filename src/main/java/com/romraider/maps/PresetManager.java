@@ -32,6 +32,22 @@ public class PresetManager {
 		table = t;
 	}
 
+	/**
+	 * @return a copy of the presets of this manager bound to another table
+	 */
+	public PresetManager copy(Table t) {
+		PresetManager copy = new PresetManager(t);
+		for (PresetEntry entry : presets) {
+			PresetEntry c = copy.new PresetEntry();
+			c.dataCellOffset = entry.dataCellOffset;
+			c.name = entry.name;
+			c.isBitMask = entry.isBitMask;
+			c.data = entry.data == null ? null : new LinkedList<Integer>(entry.data);
+			copy.presets.add(c);
+		}
+		return copy;
+	}
+
 	public class PresetEntry {
 		int dataCellOffset = 0;
 		String name;
@@ -37,11 +37,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -56,12 +60,14 @@ import com.romraider.dataflowSimulation.DataflowSimulation;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 import com.romraider.maps.checksum.ChecksumManager;
+import com.romraider.maps.checksum.IncrementalChecksumManager;
 import com.romraider.swing.CategoryTreeNode;
 import com.romraider.swing.JProgressPane;
 import com.romraider.swing.TableFrame;
 import com.romraider.swing.TableTreeNode;
 import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
+import com.romraider.util.ThreadUtil;
 
 public class Rom extends DefaultMutableTreeNode implements Serializable  {
     private static final long serialVersionUID = 7865405179738828128L;
@@ -74,6 +80,7 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     private String fileName = "";
     private File fullFileName = new File(".");
     private byte[] binData;
+    private RomImage image;
     private Document doc;
     
     // This is currently only used for unit testing
@@ -83,11 +90,14 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
     //This keeps track of DataCells on a byte level
     //This might also be possible to achieve by using the same Data Tables
-    protected HashMap<Integer, LinkedList<DataCell>> byteCellMapping = new HashMap<Integer, LinkedList<DataCell>>();
+    protected ByteCellIndex byteCellMapping = new ByteCellIndex();
     
     private final LinkedHashMap<String, TableTreeNode> tableNodes = new LinkedHashMap<String, TableTreeNode>();
     private final LinkedList<DataflowSimulation> simulations = new LinkedList<DataflowSimulation>();
     private LinkedList<ChecksumManager> checksumManagers = new LinkedList<ChecksumManager>();
+    //Bytes changed since each checksum manager last saw the binary
+    private final Map<ChecksumManager, DirtyRanges> checksumChanges =
+            new IdentityHashMap<ChecksumManager, DirtyRanges>();
 
     private final Settings settings = SettingsManager.getSettings();
 
@@ -254,41 +264,60 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     
     public void populateTables(byte[] binData, JProgressPane progress) {
         this.binData = binData;
-        int size = tableNodes.size();
-        int i = 0;
+        this.image = RomImage.wrap(binData);
         faultyTables.clear();
 
-        for(String name: tableNodes.keySet()) {
-            // update progress
-            int currProgress = (int) (i / (double) size * 100);
-            progress.update(rb.getString("POPTABLES"), currProgress);
-
-            Table table = tableNodes.get(name.toLowerCase()).getTable();
-            try {
-                if (table.getStorageAddress() >= 0) {
-                    try {
-                        table.populateTable(this);
-                        TableUpdateHandler.getInstance().registerTable(table);
+        final List<Table> tables = new ArrayList<Table>(tableNodes.size());
+        for (TableTreeNode node : new ArrayList<TableTreeNode>(tableNodes.values())) {
+            Table table = node.getTable();
+            if (table.getStorageAddress() >= 0) {
+                tables.add(table);
+            } else {
+                tableNodes.remove(table.getName().toLowerCase());
+            }
+        }
 
-                        if (null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix")){
-                            setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
+        // Cells only read binData, so tables populate in parallel.  Failures
+        // are kept per table and handled below in definition order.
+        final Exception[] failures = new Exception[tables.size()];
+        final TableProgress tableProgress = new TableProgress(progress, tables.size());
+        final int chunk = Math.max(1, tables.size() / (ThreadUtil.getParallelism() * 4));
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < tables.size(); start += chunk) {
+            final int from = start;
+            final int to = Math.min(start + chunk, tables.size());
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = from; i < to; i++) {
+                        // switches validate checksums with popups, keep them in order
+                        if (!(tables.get(i) instanceof TableSwitch)) {
+                            failures[i] = populateTable(tables.get(i));
+                            tableProgress.tablePopulated();
                         }
-                        i++;
-                    } catch (ArrayIndexOutOfBoundsException ex) {
-                    	handleException(table, ex, true);
-                        size--;
-                    } catch (IndexOutOfBoundsException iex) {
-                    	handleException(table, iex, true);
-                        size--;
                     }
-                } else {
-                    tableNodes.remove(table.getName().toLowerCase());
-                    size--;
+                    return null;
                 }
+            });
+        }
+        ThreadUtil.invokeAll(tasks);
+
+        for (int i = 0; i < tables.size(); i++) {
+            Table table = tables.get(i);
+            if (table instanceof TableSwitch) {
+                failures[i] = populateTable(table);
+                tableProgress.tablePopulated();
+            }
+
+            if (failures[i] == null) {
+                TableUpdateHandler.getInstance().registerTable(table);
 
-            } catch (NullPointerException ex) {
-            	handleException(table, ex, false);
-                size--;
+                if (null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix")){
+                    setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
+                }
+            } else {
+                handleException(table, failures[i],
+                        failures[i] instanceof IndexOutOfBoundsException);
             }
         }
 
@@ -297,6 +326,45 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         }
     }
 
+    /**
+     * @return the exception which stopped the table being populated, or
+     * null if it was populated
+     */
+    private Exception populateTable(Table table) {
+        try {
+            table.populateTable(this);
+            return null;
+        } catch (IndexOutOfBoundsException ex) {
+            return ex;
+        } catch (NullPointerException ex) {
+            return ex;
+        }
+    }
+
+    /**
+     * Reports table population progress from any thread, only when the
+     * percentage changes.
+     */
+    private static final class TableProgress {
+        private final JProgressPane progress;
+        private final int size;
+        private final AtomicInteger populated = new AtomicInteger();
+        private final AtomicInteger reported = new AtomicInteger(-1);
+
+        TableProgress(JProgressPane progress, int size) {
+            this.progress = progress;
+            this.size = size;
+        }
+
+        void tablePopulated() {
+            int currProgress = (int) (populated.incrementAndGet() / (double) size * 100);
+            int last = reported.get();
+            if (currProgress > last && reported.compareAndSet(last, currProgress)) {
+                progress.updateLater(rb.getString("POPTABLES"), currProgress);
+            }
+        }
+    }
+
     private void setEditStamp(byte[] binData, int address) {
         byte[] stampData = new byte[4];
         System.arraycopy(binData, address+204, stampData, 0, stampData.length);
@@ -331,6 +399,13 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         return binData;
     }
 
+    /**
+     * @return the typed view of the binary
+     */
+    public RomImage getImage() {
+        return image;
+    }
+
     public void setDocument(Document d) {
         this.doc = d;
     }
@@ -394,6 +469,7 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
                  options[0]);
          if (answer == 0) {
              //TODO: Move to Subaru checksum
+             markDirty(checksum.getTable());
              calculateRomChecksum(
                      binData,
                      checksum.getTable()
@@ -427,6 +503,7 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
             String currentDate = new SimpleDateFormat("yyMMdd").format(new Date());
             String stamp = String.format("%s%02x", currentDate, count);
             byte[] romStamp = asBytes(stamp);
+            markDirty(binDataPos + 204, 4);
             System.arraycopy(
                     romStamp,
                     0,
@@ -439,6 +516,7 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         for (TableTreeNode checksum : checksumTables) {
             if (!checksum.getTable().isLocked()) {
                 //TODO: Move to Subaru checksum
+                markDirty(checksum.getTable());
                 calculateRomChecksum(
                         binData,
                         checksum.getTable()
@@ -489,14 +567,14 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
         clearByteMapping();
         checksumManagers.clear();
+        checksumChanges.clear();
         tableNodes.clear();
         binData = null;
+        image = null;
         doc = null;
     }
 
     public void clearByteMapping() {
-        for(List<?> l: byteCellMapping.values())l.clear();
-
         byteCellMapping.clear();
         byteCellMapping = null;
     }
@@ -521,6 +599,22 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
     public void addChecksumManager(ChecksumManager checksumManager) {
         this.checksumManagers.add(checksumManager);
+        this.checksumChanges.put(checksumManager, new DirtyRanges());
+    }
+
+    /**
+     * Record that bytes of the binary are about to be written, so the
+     * checksums only need to be worked out again where it changed.
+     */
+    public void markDirty(int address, int length) {
+        for (DirtyRanges changes : checksumChanges.values()) {
+            changes.mark(binData, address, length);
+        }
+    }
+
+    private void markDirty(Table checksumTable) {
+        markDirty(checksumTable.getStorageAddress() - checksumTable.getRamOffset(),
+                checksumTable.getDataSize());
     }
 
     public int getNumChecksumsManagers() {
@@ -532,8 +626,22 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         boolean valid = true;
 
         if (!checksumManagers.isEmpty()) {
+            // Managers only read binData, so they validate in parallel
+            final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+            for(final ChecksumManager cm: checksumManagers) {
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return cm.validate(binData);
+                    }
+                });
+            }
+            final List<Integer> results = ThreadUtil.invokeAll(tasks);
+
+            int i = 0;
             for(ChecksumManager cm: checksumManagers) {
-                int localCorrectCs = cm.validate(binData);
+                int localCorrectCs = results.get(i++);
+                checksumChanges.get(cm).clear();
 
                 if (cm == null || cm.getNumberOfChecksums() != localCorrectCs) {
                     valid = false;
@@ -556,7 +664,26 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         int updatedCs = 0;
 
         for(ChecksumManager cm: checksumManagers) {
-            updatedCs += cm.update(binData);
+            // Other managers may cover the bytes this one writes
+            for(ChecksumManager other: checksumManagers) {
+                if (other == cm) continue;
+                if (cm instanceof IncrementalChecksumManager) {
+                    ((IncrementalChecksumManager) cm).markChecksumLocations(
+                            binData, checksumChanges.get(other));
+                }
+                else {
+                    checksumChanges.get(other).invalidate();
+                }
+            }
+
+            DirtyRanges changes = checksumChanges.get(cm);
+            if (cm instanceof IncrementalChecksumManager) {
+                updatedCs += ((IncrementalChecksumManager) cm).update(binData, changes);
+            }
+            else {
+                updatedCs += cm.update(binData);
+            }
+            changes.clear();
         }
 
         ECUEditorManager.getECUEditor().getStatusPanel().setStatus(
@@ -19,9 +19,6 @@
 
 package com.romraider.maps;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-import static com.romraider.xml.RomAttributeParser.parseIntegerValue;
-
 import com.romraider.Settings;
 
 public class RomChecksum {
@@ -47,31 +44,32 @@ public class RomChecksum {
     }
 
     private static void calculateRomChecksum(byte[] input, int storageAddress, int dataSize, int offset) {
+        final RomImage image = RomImage.wrap(input);
         storageAddress = storageAddress - offset;
         for (int i = storageAddress; i < storageAddress + dataSize; i+=12) {
-            int startAddr = (int)parseByteValue(input, Settings.Endian.BIG, i  , 4, true);
-            int endAddr   = (int)parseByteValue(input, Settings.Endian.BIG, i+4, 4, true);
+            int startAddr = image.getInt(i  , Settings.Endian.BIG);
+            int endAddr   = image.getInt(i+4, Settings.Endian.BIG);
             int off = offset;
             //0 means checksum is disabled, keep it
             if (startAddr == 0 && endAddr == 0) {
                 off = 0;
             }
-            byte[] newSum = calculateChecksum(input,
+            image.putInt(i + 8, calculateChecksum(image,
                     startAddr - off,
-                    endAddr   - off);
-            System.arraycopy(newSum, 0, input, i + 8, 4);
+                    endAddr   - off), Settings.Endian.BIG);
         }
     }
 
     private static int validateRomChecksum(byte[] input, int storageAddress, int dataSize, int offset) {
+        final RomImage image = RomImage.wrap(input);
         storageAddress = storageAddress - offset;
         int result = 0;
         int[] results = new int[dataSize / 12];
         int j = 0;
         for (int i = storageAddress; i < storageAddress + dataSize; i+=12) {
-            int startAddr = (int)parseByteValue(input, Settings.Endian.BIG, i  , 4, true);
-            int endAddr   = (int)parseByteValue(input, Settings.Endian.BIG, i+4, 4, true);
-            int diff      = (int)parseByteValue(input, Settings.Endian.BIG, i+8, 4, true);
+            int startAddr = image.getInt(i  , Settings.Endian.BIG);
+            int endAddr   = image.getInt(i+4, Settings.Endian.BIG);
+            int diff      = image.getInt(i+8, Settings.Endian.BIG);
             int off = offset;
             //0 means checksum is disabled, keep it
             if (startAddr == 0 && endAddr == 0) {
@@ -86,7 +84,7 @@ public class RomChecksum {
                 return result = -1; // -1, all checksums disabled if the first one is disabled
             }
             else {
-                results[j] = validateChecksum(input, startAddr, endAddr, diff);
+                results[j] = validateChecksum(image, startAddr, endAddr, diff);
             }
             j++;
         }
@@ -98,20 +96,21 @@ public class RomChecksum {
         return result; // 0, all checksums are valid
     }
 
-    private static int validateChecksum(byte[] input, int startAddr, int endAddr, int diff) {
-        int byteSum = 0;
-        for (int i=startAddr; i<endAddr; i+=4) {
-            byteSum += (int)parseByteValue(input, Settings.Endian.BIG, i, 4, true);
-        }
+    private static int validateChecksum(RomImage image, int startAddr, int endAddr, int diff) {
+        final int byteSum = sumWords(image, startAddr, endAddr);
         int result = (Settings.CHECK_TOTAL - diff - byteSum);
         return result;
     }
 
-    private static byte[] calculateChecksum(byte[] input, int startAddr, int endAddr) {
+    private static int calculateChecksum(RomImage image, int startAddr, int endAddr) {
+        return Settings.CHECK_TOTAL - sumWords(image, startAddr, endAddr);
+    }
+
+    private static int sumWords(RomImage image, int startAddr, int endAddr) {
         int byteSum = 0;
         for (int i=startAddr; i<endAddr; i+=4) {
-            byteSum += (int)parseByteValue(input, Settings.Endian.BIG, i, 4, true);
+            byteSum += image.getInt(i, Settings.Endian.BIG);
         }
-        return parseIntegerValue((Settings.CHECK_TOTAL - byteSum), Settings.Endian.BIG, 4);
+        return byteSum;
     }
 }
\ No newline at end of file
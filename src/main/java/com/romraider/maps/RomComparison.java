@@ -0,0 +1,504 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.romraider.swing.TableTreeNode;
+import com.romraider.util.ThreadUtil;
+
+/**
+ * The differences between two ROM images.
+ * <p>
+ * Tables are matched by normalized name.  A pair of tables whose bytes
+ * hash the same is equal without looking at the cells, other pairs are
+ * compared cell by cell.  Bytes which differ outside of every table of
+ * either image are reported as raw regions.  Table pairs are compared in
+ * parallel, so this should be run off the event dispatch thread.
+ */
+public final class RomComparison {
+    public enum Status {
+        EQUAL, DIFFERENT, MISSING
+    }
+
+    /**
+     * The comparison of one table present in either image.
+     */
+    public static final class TableDiff {
+        private final String name;
+        private final Status status;
+        private final int changedCells;
+        private final double maxDelta;
+        private final boolean axesChanged;
+        private final int firstX;
+        private final int lastX;
+        private final int firstY;
+        private final int lastY;
+
+        TableDiff(String name, Status status) {
+            this(name, status, 0, 0.0, false, -1, -1, -1, -1);
+        }
+
+        TableDiff(String name, Status status, int changedCells, double maxDelta,
+                boolean axesChanged, int firstX, int lastX, int firstY, int lastY) {
+            this.name = name;
+            this.status = status;
+            this.changedCells = changedCells;
+            this.maxDelta = maxDelta;
+            this.axesChanged = axesChanged;
+            this.firstX = firstX;
+            this.lastX = lastX;
+            this.firstY = firstY;
+            this.lastY = lastY;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the number of data cells with a different value
+         */
+        public int getChangedCells() {
+            return changedCells;
+        }
+
+        /**
+         * @return the largest difference of a data cell in real values
+         */
+        public double getMaxDelta() {
+            return maxDelta;
+        }
+
+        public boolean isAxesChanged() {
+            return axesChanged;
+        }
+
+        /**
+         * The changed region is the smallest rectangle of data cells
+         * holding every changed cell, -1 when no data cell changed.
+         */
+        public int getFirstX() {
+            return firstX;
+        }
+
+        public int getLastX() {
+            return lastX;
+        }
+
+        public int getFirstY() {
+            return firstY;
+        }
+
+        public int getLastY() {
+            return lastY;
+        }
+    }
+
+    /**
+     * A range of differing bytes not covered by any table, end exclusive.
+     */
+    public static final class ByteRegion {
+        private final int start;
+        private final int end;
+
+        ByteRegion(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * The tables of one image by normalized name with the hash of their
+     * bytes, and the bytes covered by them.  An index can be reused to
+     * compare a baseline image against many others.
+     */
+    public static final class Index {
+        private final Rom rom;
+        private final Map<String, Table> tables = new HashMap<String, Table>();
+        private final Map<Table, Long> hashes = new IdentityHashMap<Table, Long>();
+        private final BitSet coverage = new BitSet();
+
+        public Index(Rom rom) {
+            this.rom = rom;
+            final List<Table> all = new ArrayList<Table>();
+            for (TableTreeNode node : rom.getTableNodes().values()) {
+                final Table table = node.getTable();
+                tables.put(normalize(table.getName()), table);
+                all.add(table);
+            }
+
+            final List<Callable<Map<Table, Long>>> tasks = new ArrayList<Callable<Map<Table, Long>>>();
+            for (final List<Table> chunk : chunks(all)) {
+                tasks.add(new Callable<Map<Table, Long>>() {
+                    @Override
+                    public Map<Table, Long> call() {
+                        final Map<Table, Long> result = new IdentityHashMap<Table, Long>();
+                        for (Table table : chunk) {
+                            result.put(table, hash(table, Index.this.rom.getBinary()));
+                        }
+                        return result;
+                    }
+                });
+            }
+            for (Map<Table, Long> result : ThreadUtil.invokeAll(tasks)) {
+                hashes.putAll(result);
+            }
+
+            final int length = rom.getBinary().length;
+            for (Table table : all) {
+                for (DataCell cell : getCells(table)) {
+                    if (isStored(cell)) {
+                        final int start = DataCell.getMemoryStartAddress(cell);
+                        final int end = Math.min(start + DataCell.getMemoryLength(cell), length);
+                        if (start >= 0 && start < end) {
+                            coverage.set(start, end);
+                        }
+                    }
+                }
+            }
+        }
+
+        public Rom getRom() {
+            return rom;
+        }
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<TableDiff> tables;
+    private final List<ByteRegion> uncoveredRegions;
+    private final int equal;
+    private final int different;
+    private final int missing;
+
+    private RomComparison(List<TableDiff> tables, List<ByteRegion> uncoveredRegions) {
+        this.tables = Collections.unmodifiableList(tables);
+        this.uncoveredRegions = Collections.unmodifiableList(uncoveredRegions);
+        int equal = 0;
+        int different = 0;
+        int missing = 0;
+        for (TableDiff diff : tables) {
+            switch (diff.getStatus()) {
+            case EQUAL:
+                equal++;
+                break;
+            case DIFFERENT:
+                different++;
+                break;
+            default:
+                missing++;
+                break;
+            }
+        }
+        this.equal = equal;
+        this.different = different;
+        this.missing = missing;
+    }
+
+    public static RomComparison compare(Rom left, Rom right) {
+        return compare(new Index(left), new Index(right));
+    }
+
+    /**
+     * Compare a baseline image against each of the others, the baseline is
+     * indexed once.
+     * @return the comparisons in the order of the images
+     */
+    public static List<RomComparison> compareAll(Rom baseline, List<Rom> roms) {
+        final Index index = new Index(baseline);
+        final List<Callable<RomComparison>> tasks = new ArrayList<Callable<RomComparison>>();
+        for (final Rom rom : roms) {
+            tasks.add(new Callable<RomComparison>() {
+                @Override
+                public RomComparison call() {
+                    return compare(index, new Index(rom));
+                }
+            });
+        }
+        return ThreadUtil.invokeAll(tasks);
+    }
+
+    public static RomComparison compare(final Index left, final Index right) {
+        final List<String> names = new ArrayList<String>(left.tables.keySet());
+        for (String name : right.tables.keySet()) {
+            if (!left.tables.containsKey(name)) {
+                names.add(name);
+            }
+        }
+        Collections.sort(names);
+
+        final List<Callable<List<TableDiff>>> tasks = new ArrayList<Callable<List<TableDiff>>>();
+        for (final List<String> chunk : chunks(names)) {
+            tasks.add(new Callable<List<TableDiff>>() {
+                @Override
+                public List<TableDiff> call() {
+                    final List<TableDiff> result = new ArrayList<TableDiff>(chunk.size());
+                    for (String name : chunk) {
+                        result.add(compareTables(left, right, name));
+                    }
+                    return result;
+                }
+            });
+        }
+
+        final List<TableDiff> diffs = new ArrayList<TableDiff>(names.size());
+        for (List<TableDiff> result : ThreadUtil.invokeAll(tasks)) {
+            diffs.addAll(result);
+        }
+        return new RomComparison(diffs, compareUncovered(left, right));
+    }
+
+    /**
+     * @return the tables of both images by name
+     */
+    public List<TableDiff> getTables() {
+        return tables;
+    }
+
+    /**
+     * @return the regions of differing bytes outside of all tables
+     */
+    public List<ByteRegion> getUncoveredRegions() {
+        return uncoveredRegions;
+    }
+
+    public int getEqualCount() {
+        return equal;
+    }
+
+    public int getDifferentCount() {
+        return different;
+    }
+
+    public int getMissingCount() {
+        return missing;
+    }
+
+    public boolean isEqual() {
+        return different == 0 && missing == 0 && uncoveredRegions.isEmpty();
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        final int count = Math.max(1, Math.min(items.size(), ThreadUtil.getParallelism() * 4));
+        final int size = (items.size() + count - 1) / count;
+        final List<List<T>> chunks = new ArrayList<List<T>>(count);
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return chunks;
+    }
+
+    private static DataCell[][] getAxes(Table table) {
+        if (table instanceof Table3D) {
+            final Table3D table3D = (Table3D) table;
+            return new DataCell[][] {table3D.getXAxis().getData(), table3D.getYAxis().getData()};
+        }
+        if (table instanceof Table2D) {
+            return new DataCell[][] {((Table2D) table).getAxis().getData()};
+        }
+        return new DataCell[0][];
+    }
+
+    /**
+     * @return the data cells, a 3D table by X then Y
+     */
+    private static DataCell[] getValues(Table table) {
+        if (table instanceof Table3D) {
+            final DataCell[][] data = ((Table3D) table).get3dData();
+            final List<DataCell> cells = new ArrayList<DataCell>();
+            for (DataCell[] column : data) {
+                Collections.addAll(cells, column);
+            }
+            return cells.toArray(new DataCell[cells.size()]);
+        }
+        final DataCell[] data = table.getData();
+        return data == null ? new DataCell[0] : data;
+    }
+
+    private static List<DataCell> getCells(Table table) {
+        final List<DataCell> cells = new ArrayList<DataCell>();
+        for (DataCell[] axis : getAxes(table)) {
+            if (axis != null) {
+                Collections.addAll(cells, axis);
+            }
+        }
+        Collections.addAll(cells, getValues(table));
+        return cells;
+    }
+
+    private static boolean isStored(DataCell cell) {
+        return cell != null && cell.getStaticText() == null && DataCell.getMemoryLength(cell) > 0;
+    }
+
+    /**
+     * FNV-1a of the bytes of every cell of the table with its axes and of
+     * the text of static cells, along with the layout the bytes are read in.
+     */
+    static long hash(Table table, byte[] binary) {
+        long hash = FNV_OFFSET;
+        hash = (hash ^ table.getStorageType()) * FNV_PRIME;
+        hash = (hash ^ (table.isSignedData() ? 1 : 0)) * FNV_PRIME;
+        hash = (hash ^ String.valueOf(table.getEndian()).hashCode()) * FNV_PRIME;
+        for (DataCell cell : getCells(table)) {
+            if (cell == null) {
+                hash = (hash ^ 0xff) * FNV_PRIME;
+            } else if (cell.getStaticText() != null) {
+                hash = (hash ^ cell.getStaticText().hashCode()) * FNV_PRIME;
+            } else {
+                final int start = DataCell.getMemoryStartAddress(cell);
+                final int end = start + DataCell.getMemoryLength(cell);
+                for (int i = start; i < end; i++) {
+                    final int value = i >= 0 && i < binary.length ? binary[i] & 0xff : 0x100;
+                    hash = (hash ^ value) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static boolean sameValue(DataCell left, DataCell right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left.getStaticText() != null || right.getStaticText() != null) {
+            return left.getStaticText() != null && left.getStaticText().equals(right.getStaticText());
+        }
+        return left.getBinValue() == right.getBinValue();
+    }
+
+    static TableDiff compareTables(Index left, Index right, String name) {
+        final Table leftTable = left.tables.get(name);
+        final Table rightTable = right.tables.get(name);
+        if (leftTable == null || rightTable == null) {
+            return new TableDiff((leftTable == null ? rightTable : leftTable).getName(), Status.MISSING);
+        }
+        if (left.hashes.get(leftTable).equals(right.hashes.get(rightTable))) {
+            return new TableDiff(leftTable.getName(), Status.EQUAL);
+        }
+
+        final DataCell[][] leftAxes = getAxes(leftTable);
+        final DataCell[][] rightAxes = getAxes(rightTable);
+        boolean axesChanged = leftAxes.length != rightAxes.length;
+        for (int a = 0; a < leftAxes.length && !axesChanged; a++) {
+            final DataCell[] leftAxis = leftAxes[a];
+            final DataCell[] rightAxis = rightAxes[a];
+            axesChanged = leftAxis == null || rightAxis == null
+                    ? leftAxis != rightAxis : leftAxis.length != rightAxis.length;
+            for (int i = 0; !axesChanged && leftAxis != null && i < leftAxis.length; i++) {
+                axesChanged = !sameValue(leftAxis[i], rightAxis[i]);
+            }
+        }
+
+        final DataCell[] leftValues = getValues(leftTable);
+        final DataCell[] rightValues = getValues(rightTable);
+        final int sizeY = leftTable instanceof Table3D ? ((Table3D) leftTable).getSizeY() : 1;
+        if (leftValues.length != rightValues.length
+                || (rightTable instanceof Table3D) != (leftTable instanceof Table3D)
+                || (leftTable instanceof Table3D && sizeY != ((Table3D) rightTable).getSizeY())) {
+            // different shapes, the whole table changed
+            final int size = Math.max(leftValues.length, rightValues.length);
+            return new TableDiff(leftTable.getName(), Status.DIFFERENT, size, 0.0, axesChanged,
+                    0, leftValues.length / sizeY - 1, 0, sizeY - 1);
+        }
+
+        int changed = 0;
+        double maxDelta = 0.0;
+        int firstX = -1;
+        int lastX = -1;
+        int firstY = -1;
+        int lastY = -1;
+        for (int i = 0; i < leftValues.length; i++) {
+            if (sameValue(leftValues[i], rightValues[i])) {
+                continue;
+            }
+            changed++;
+            if (leftValues[i] != null && rightValues[i] != null) {
+                final double delta = Math.abs(leftValues[i].getRealValue() - rightValues[i].getRealValue());
+                if (delta > maxDelta) {
+                    maxDelta = delta;
+                }
+            }
+            final int x = i / sizeY;
+            final int y = i % sizeY;
+            firstX = firstX < 0 ? x : Math.min(firstX, x);
+            lastX = Math.max(lastX, x);
+            firstY = firstY < 0 ? y : Math.min(firstY, y);
+            lastY = Math.max(lastY, y);
+        }
+
+        // bytes can differ in bits the cells do not use
+        final Status status = changed > 0 || axesChanged ? Status.DIFFERENT : Status.EQUAL;
+        return new TableDiff(leftTable.getName(), status, changed, maxDelta, axesChanged,
+                firstX, lastX, firstY, lastY);
+    }
+
+    static List<ByteRegion> compareUncovered(Index left, Index right) {
+        final byte[] leftBinary = left.rom.getBinary();
+        final byte[] rightBinary = right.rom.getBinary();
+        final BitSet covered = (BitSet) left.coverage.clone();
+        covered.or(right.coverage);
+
+        final List<ByteRegion> regions = new ArrayList<ByteRegion>();
+        final int common = Math.min(leftBinary.length, rightBinary.length);
+        int start = -1;
+        for (int i = 0; i < common; i++) {
+            final boolean differs = leftBinary[i] != rightBinary[i] && !covered.get(i);
+            if (differs && start < 0) {
+                start = i;
+            } else if (!differs && start >= 0) {
+                regions.add(new ByteRegion(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            regions.add(new ByteRegion(start, common));
+        }
+        final int length = Math.max(leftBinary.length, rightBinary.length);
+        if (length > common) {
+            regions.add(new ByteRegion(common, length));
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+
+import com.romraider.Settings;
+import com.romraider.Settings.Endian;
+
+/**
+ * A typed view of a ROM binary.
+ * <p>
+ * Values are assembled from the bytes in place, reading a value allocates
+ * nothing.  The image is either a view of the byte array the ROM was read
+ * into, which sees every later change of the array, or a read-only memory
+ * mapping of a file which lets a large image be checked or compared
+ * without reading all of it onto the heap.
+ * <p>
+ * Addresses are file offsets.  Reads outside the image throw an
+ * {@link IndexOutOfBoundsException}.
+ */
+public final class RomImage {
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private RomImage(byte[] array, ByteBuffer buffer, int size) {
+        this.array = array;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * @return a view of the array, changes of the array are seen by the view
+     */
+    public static RomImage wrap(byte[] binary) {
+        checkNotNull(binary, "binary");
+        return new RomImage(binary, null, binary.length);
+    }
+
+    /**
+     * @return a read-only view of the file backed by a memory mapping
+     */
+    public static RomImage map(File file) throws IOException {
+        checkNotNull(file, "file");
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer mapped = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RomImage(null, mapped, mapped.capacity());
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return the byte order floats are stored in.  Legacy definitions
+     * without a memory model endian store floats big endian whatever the
+     * endian of the table.
+     */
+    public static Endian floatEndian(Endian endian, Endian memModelEndian) {
+        return memModelEndian == Endian.LITTLE ? Endian.LITTLE : Endian.BIG;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isReadOnly() {
+        return array == null;
+    }
+
+    public byte getByte(int address) {
+        return array != null ? array[address] : buffer.get(address);
+    }
+
+    public int getUnsignedByte(int address) {
+        return getByte(address) & 0xff;
+    }
+
+    public short getShort(int address, Endian endian) {
+        final int b0 = getUnsignedByte(address);
+        final int b1 = getUnsignedByte(address + 1);
+        return (short) (endian == Endian.LITTLE ? b1 << 8 | b0 : b0 << 8 | b1);
+    }
+
+    public int getUnsignedShort(int address, Endian endian) {
+        return getShort(address, endian) & 0xffff;
+    }
+
+    public int getInt(int address, Endian endian) {
+        checkRange(address, 4);
+        if (array != null) {
+            return getInt(array, address, endian);
+        }
+        final int b0 = buffer.get(address) & 0xff;
+        final int b1 = buffer.get(address + 1) & 0xff;
+        final int b2 = buffer.get(address + 2) & 0xff;
+        final int b3 = buffer.get(address + 3) & 0xff;
+        return endian == Endian.LITTLE
+                ? b3 << 24 | b2 << 16 | b1 << 8 | b0
+                : b0 << 24 | b1 << 16 | b2 << 8 | b3;
+    }
+
+    public long getUnsignedInt(int address, Endian endian) {
+        return getInt(address, endian) & 0xffffffffL;
+    }
+
+    public float getFloat(int address, Endian endian) {
+        return Float.intBitsToFloat(getInt(address, endian));
+    }
+
+    /**
+     * Read an integer value in one of the table storage types.
+     * @param storageType - 1, 2 or 4 bytes or one of the MOVI20 types
+     * @param signed - false to read 1, 2 and 4 byte values unsigned
+     */
+    public long getValue(int address, Endian endian, int storageType, boolean signed) {
+        switch (storageType) {
+        case 1:
+            return signed ? getByte(address) : getUnsignedByte(address);
+        case 2:
+            return signed ? getShort(address, endian) : getUnsignedShort(address, endian);
+        case 4:
+            return signed ? getInt(address, endian) : getUnsignedInt(address, endian);
+        case Settings.STORAGE_TYPE_MOVI20:
+        case Settings.STORAGE_TYPE_MOVI20S:
+            return getMovi20(address, endian);
+        default:
+            checkRange(address, storageType);
+            return 0L;
+        }
+    }
+
+    /**
+     * Read consecutive values of a table storage type, floats included.
+     * @param endian - the byte order, for floats as returned by
+     * {@link #floatEndian(Endian, Endian)}
+     * @param values - receives one value per element of the array
+     */
+    public void getValues(int address, Endian endian, int storageType,
+            boolean signed, double[] values) {
+
+        final int count = values.length;
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) {
+            checkRange(address, count * 4);
+            for (int i = 0; i < count; i++) {
+                values[i] = getFloat(address + i * 4, endian);
+            }
+        }
+        else if (storageType == Settings.STORAGE_TYPE_MOVI20
+                || storageType == Settings.STORAGE_TYPE_MOVI20S) {
+            for (int i = 0; i < count; i++) {
+                values[i] = getMovi20(address + i * 3, endian);
+            }
+        }
+        else if (array != null && storageType == 4) {
+            checkRange(address, count * 4);
+            final byte[] array = this.array;
+            for (int i = 0; i < count; i++) {
+                final int value = getInt(array, address + i * 4, endian);
+                values[i] = signed ? value : value & 0xffffffffL;
+            }
+        }
+        else {
+            checkRange(address, count * storageType);
+            for (int i = 0; i < count; i++) {
+                values[i] = getValue(address + i * storageType, endian, storageType, signed);
+            }
+        }
+    }
+
+    /**
+     * Read consecutive 32 bit words.
+     * @param words - receives one word per element of the array
+     */
+    public void getInts(int address, Endian endian, int[] words) {
+        final int count = words.length;
+        checkRange(address, count * 4);
+        if (array != null) {
+            final byte[] array = this.array;
+            for (int i = 0; i < count; i++) {
+                words[i] = getInt(array, address + i * 4, endian);
+            }
+        }
+        else {
+            for (int i = 0; i < count; i++) {
+                words[i] = getInt(address + i * 4, endian);
+            }
+        }
+    }
+
+    public void putShort(int address, short value, Endian endian) {
+        checkWritable();
+        checkRange(address, 2);
+        if (endian == Endian.LITTLE) {
+            array[address] = (byte) value;
+            array[address + 1] = (byte) (value >> 8);
+        }
+        else {
+            array[address] = (byte) (value >> 8);
+            array[address + 1] = (byte) value;
+        }
+    }
+
+    public void putInt(int address, int value, Endian endian) {
+        checkWritable();
+        checkRange(address, 4);
+        if (endian == Endian.LITTLE) {
+            array[address] = (byte) value;
+            array[address + 1] = (byte) (value >> 8);
+            array[address + 2] = (byte) (value >> 16);
+            array[address + 3] = (byte) (value >> 24);
+        }
+        else {
+            array[address] = (byte) (value >> 24);
+            array[address + 1] = (byte) (value >> 16);
+            array[address + 2] = (byte) (value >> 8);
+            array[address + 3] = (byte) value;
+        }
+    }
+
+    private static int getInt(byte[] array, int address, Endian endian) {
+        if (endian == Endian.LITTLE) {
+            return (array[address + 3] & 0xff) << 24
+                    | (array[address + 2] & 0xff) << 16
+                    | (array[address + 1] & 0xff) << 8
+                    | (array[address] & 0xff);
+        }
+        return (array[address] & 0xff) << 24
+                | (array[address + 1] & 0xff) << 16
+                | (array[address + 2] & 0xff) << 8
+                | (array[address + 3] & 0xff);
+    }
+
+    /**
+     * The 20 bit immediate of a SH-2A MOVI20 or MOVI20S instruction.
+     */
+    private long getMovi20(int address, Endian endian) {
+        // the instruction is the low three bytes of the word ending with it
+        final int word = getInt(address - 1, endian);
+        final int shift = word & 0x00010000;
+        int value = ((word & 0x00f00000) >>> 4) + (word & 0x0000ffff);
+        if ((value & 0x00080000) > 0) {
+            value = value | 0xfff00000;
+        }
+        if (shift > 0) {
+            return value << 8;
+        }
+        return value;
+    }
+
+    private void checkRange(int address, int length) {
+        if (address < 0 || length < 0 || address > size - length) {
+            throw new IndexOutOfBoundsException(
+                    "Address " + address + " length " + length + " outside image of " + size);
+        }
+    }
+
+    private void checkWritable() {
+        if (array == null) {
+            throw new ReadOnlyBufferException();
+        }
+    }
+}
@@ -26,7 +26,7 @@ import java.util.HashMap;
 
 import com.romraider.util.JEPUtil;
 
-public class Scale implements Serializable {
+public class Scale implements Serializable, Cloneable {
 
     private static final long serialVersionUID = 5836610685159474795L;
 
@@ -44,6 +44,20 @@ public class Scale implements Serializable {
     HashMap<Double, Double> cachedValues = new HashMap<Double,Double>();
     int maxCacheSize = 100;
 
+    /**
+     * @return an independent copy of this scale
+     */
+    public Scale copy() {
+        try {
+            final Scale copy = (Scale) super.clone();
+            copy.cachedValues = new HashMap<Double, Double>(cachedValues);
+            return copy;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public String toString() {
         return  "\n    ---- Scale ----" +
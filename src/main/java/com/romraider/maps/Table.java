@@ -29,11 +29,12 @@ import org.apache.log4j.Logger;
 import com.romraider.Settings;
 import com.romraider.swing.TableFrame;
 import com.romraider.util.ByteUtil;
+import com.romraider.util.CompiledExpression;
 import com.romraider.util.JEPUtil;
 import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
 
-public abstract class Table implements Serializable, Comparable<Table> {
+public abstract class Table implements Serializable, Comparable<Table>, Cloneable {
     private static final long serialVersionUID = 6559256489995552645L;
     protected static final Logger LOGGER = Logger.getLogger(Table.class);
     protected static final String ST_DELIMITER = "\t\n\r\f";
@@ -77,11 +78,101 @@ public abstract class Table implements Serializable, Comparable<Table> {
     private Table compareTable = null;
     protected Settings.DataType compareValueType = Settings.DataType.BIN;
 
+    // Real values of all cells in the current scale, built on first use and
+    // kept up to date as cells are read from or written to the binary. The
+    // cache is published as a whole so it may be read off the EDT.
+    private transient volatile RealValues realValues;
+    // changes whenever any cached real value may have changed
+    private transient volatile int realValuesVersion;
+
+    /**
+     * The real values of a table's cells for one scale expression. Only the
+     * value of a single cell is ever written in place, everything else is
+     * fixed when the cache is built.
+     */
+    private static final class RealValues {
+        final String source;
+        final CompiledExpression compiled;
+        final DataCell[] cells;
+        final double[] values;
+
+        RealValues(String source, CompiledExpression compiled, DataCell[] cells, double[] values) {
+            this.source = source;
+            this.compiled = compiled;
+            this.cells = cells;
+            this.values = values;
+        }
+
+        /**
+         * @return the index of the cell's value, or -1 if it is not cached
+         */
+        int indexOf(DataCell cell) {
+            final int index = cell.getRealValueIndex();
+            if (index >= 0 && index < values.length && cells[index] == cell) {
+                return index;
+            }
+            return -1;
+        }
+    }
+
     public enum DataLayout {
         DEFAULT,
         BOSCH_SUBTRACT
     }
 
+    /**
+     * Create a copy of this table for a definition that inherits it.
+     * Scales, presets and cells are copied, the copy has no view and shares
+     * the ROM and compare table references of this table.
+     * @return the copy
+     */
+    public Table copy() {
+        final Table copy;
+        try {
+            copy = (Table) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        copy.tableView = null;
+        copy.tableFrame = null;
+        copy.invalidateRealValues();
+
+        copy.scales = new Vector<Scale>(scales.size());
+        copy.curScale = null;
+        for (Scale scale : scales) {
+            final Scale scaleCopy = scale.copy();
+            copy.scales.add(scaleCopy);
+            if (scale == curScale) {
+                copy.curScale = scaleCopy;
+            }
+        }
+        if (curScale != null && copy.curScale == null) {
+            copy.curScale = curScale.copy();
+        }
+
+        if (presetManager != null) {
+            copy.presetManager = presetManager.copy(copy);
+        }
+        copy.data = copyCells(data, copy);
+        return copy;
+    }
+
+    protected static DataCell[] copyCells(DataCell[] cells, Table table) {
+        if (cells == null) {
+            return null;
+        }
+
+        final DataCell[] copy = new DataCell[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != null) {
+                copy[i] = cells[i].copy(table);
+            }
+        }
+        return copy;
+    }
+
     public void setTableView(TableView v) {
         this.tableView = v;
     }
@@ -128,10 +219,12 @@ public abstract class Table implements Serializable, Comparable<Table> {
             data = null;
         }
         rom = null;
+        invalidateRealValues();
     }
 
     public void setData(DataCell[] data) {
         this.data = data;
+        invalidateRealValues();
     }
 
     public int getRamOffset() {
@@ -158,8 +251,24 @@ public abstract class Table implements Serializable, Comparable<Table> {
             this.ramOffset = rom.getRomID().getRamOffset();
         }
 
-        for (int i = 0; i < data.length; i++) {
-            data[i] = new DataCell(this, i, rom);
+        if (getBitMask() == 0) {
+            // read the whole table in one pass
+            final double[] values = new double[data.length];
+            final Settings.Endian valueEndian = storageType == Settings.STORAGE_TYPE_FLOAT
+                    ? RomImage.floatEndian(endian, getMemModelEndian()) : endian;
+            rom.getImage().getValues(getStorageAddress() - ramOffset,
+                    valueEndian, storageType, signed, values);
+            if (dataLayout == DataLayout.BOSCH_SUBTRACT) {
+                decodeBoschSubtract(values, storageType);
+            }
+            for (int i = 0; i < data.length; i++) {
+                data[i] = new DataCell(this, i, rom, values[i]);
+            }
+        }
+        else {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = new DataCell(this, i, rom);
+            }
         }
 
         // reset locked status
@@ -170,6 +279,20 @@ public abstract class Table implements Serializable, Comparable<Table> {
         addScale(new Scale());
     }
 
+    /**
+     * Turn the stored values of a Bosch subtract table into cell values.
+     * Each cell is 2^(8*storageType) less the stored values from its own
+     * to the last, which one pass from the end of the table accumulates.
+     * @param values - the stored values, replaced by the cell values
+     */
+    static void decodeBoschSubtract(double[] values, int storageType) {
+        double dataValue = Math.pow(2, 8 * storageType);
+        for (int i = values.length - 1; i >= 0; i--) {
+            dataValue -= values[i];
+            values[i] = dataValue;
+        }
+    }
+
     public abstract TableType getType();
 
     public DataCell getDataCell(int location) {
@@ -237,6 +360,87 @@ public abstract class Table implements Serializable, Comparable<Table> {
         else if("Default".equalsIgnoreCase(scale.getCategory())) {
             this.curScale = scale;
         }
+        invalidateRealValues();
+    }
+
+    /**
+     * @return every cell of this table, in a fixed order
+     */
+    protected DataCell[] getAllCells() {
+        return data;
+    }
+
+    /**
+     * Get the real value of a cell of this table in the current scale.
+     * The values of all cells are computed together into a cache which is
+     * kept until the scale or the table data changes.
+     */
+    double getRealValue(DataCell cell) {
+        final Scale scale = getCurrentScale();
+        if (scale == null) {
+            return cell.getBinValue();
+        }
+
+        final String expression = scale.getExpression();
+        RealValues cache = realValues;
+        if (cache == null || !expression.equals(cache.source)) {
+            final DataCell[] cells = getAllCells();
+            if (cells == null) {
+                return JEPUtil.evaluate(expression, cell.getBinValue());
+            }
+            cache = buildRealValues(expression, cells);
+        }
+
+        final int index = cache.indexOf(cell);
+        if (index >= 0) {
+            return cache.values[index];
+        }
+        return JEPUtil.evaluate(expression, cell.getBinValue());
+    }
+
+    private RealValues buildRealValues(String expression, DataCell[] cells) {
+        final CompiledExpression compiled = JEPUtil.compile(expression);
+        final double[] values = new double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != null) {
+                cells[i].setRealValueIndex(i);
+                values[i] = compiled.evaluate(cells[i].getBinValue());
+            }
+        }
+        final RealValues cache = new RealValues(expression, compiled, cells, values);
+        realValues = cache;
+        realValuesVersion++;
+        return cache;
+    }
+
+    /**
+     * Refresh the cached real value of a cell after its bin value changed.
+     */
+    void updateRealValue(DataCell cell) {
+        final RealValues cache = realValues;
+        if (cache != null) {
+            final int index = cache.indexOf(cell);
+            if (index >= 0) {
+                cache.values[index] = cache.compiled.evaluate(cell.getBinValue());
+            }
+        }
+        realValuesVersion++;
+    }
+
+    /**
+     * Discard the cached real values, they are rebuilt on next use.
+     */
+    public void invalidateRealValues() {
+        realValues = null;
+        realValuesVersion++;
+    }
+
+    /**
+     * @return a number that changes whenever the real value of any cell
+     * may have changed, for caches derived from the real values
+     */
+    int getRealValuesVersion() {
+        return realValuesVersion;
     }
 
     public int getStorageAddress() {
@@ -273,6 +477,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     public void setDataSize(int size) {
         data = new DataCell[size];
+        invalidateRealValues();
     }
 
     public int getDataSize() {
@@ -699,6 +904,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     public void setCurrentScale(Scale curScale) {
         this.curScale = curScale;
+        invalidateRealValues();
 
         if(tableView!=null) {
             tableView.drawTable();
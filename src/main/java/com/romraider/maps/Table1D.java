@@ -29,6 +29,11 @@ public class Table1D extends Table {
         return TableType.TABLE_1D;
     }
     
+    @Override
+    public Table1D copy() {
+        return (Table1D) super.copy();
+    }
+
     public void setAxisParent(Table axisParent) {
         this.axisParent = axisParent;
     }
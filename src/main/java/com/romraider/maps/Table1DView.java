@@ -23,7 +23,6 @@ import java.awt.BorderLayout;
 
 import javax.swing.JLabel;
 import javax.swing.border.EmptyBorder;
-import com.romraider.util.NumberUtil;
 
 public class Table1DView extends TableView {
 
@@ -268,39 +267,14 @@ public class Table1DView extends TableView {
     }
 
     @Override
-    public void highlightLiveData(String liveVal) {
+    public void highlightLiveData(double liveValue, String liveVal) {
         if (getOverlayLog()) {
-            double liveValue = 0.0;
-            try {
-                liveValue = NumberUtil.doubleValue(liveVal);
-            } catch (Exception ex) {
-            	LOGGER.error("Table1D - live data highlight parsing error for value: " + liveVal);
+            final int index = findLiveDataIndex(liveValue);
+            if (index < 0) {
                 return;
             }
 
-            int startIdx = data.length;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = 0.0;
-                if(table.isStaticDataTable() && null != data[i].getStaticText()) {
-                    try {
-                        currentValue = Double.parseDouble(data[i].getStaticText());
-                    } catch(NumberFormatException nex) {
-                        return;
-                    }
-                } else {
-                    currentValue = data[i].getDataCell().getRealValue();
-                }
-
-                if (liveValue == currentValue) {
-                    startIdx = i;
-                    break;
-                } else if (liveValue < currentValue){
-                    startIdx = i-1;
-                    break;
-                }
-            }
-
-            setLiveDataIndex(startIdx);
+            setLiveDataIndex(index);
             DataCellView cellp = data[getPreviousLiveDataIndex()];
             cellp.setPreviousLiveDataTrace(true);
             DataCellView cell = data[getLiveDataIndex()];
@@ -310,7 +284,17 @@ public class Table1DView extends TableView {
             getToolbar().setLiveDataValue(liveVal);
         }
         
-        getAxisParent().updateLiveDataHighlight();
+        if (getAxisParent() != null) {
+            getAxisParent().updateLiveDataHighlight();
+        }
+    }
+
+    @Override
+    protected double getLiveAxisValue(int index) {
+        if(table.isStaticDataTable() && null != data[index].getStaticText()) {
+            return Double.parseDouble(data[index].getStaticText());
+        }
+        return super.getLiveAxisValue(index);
     }
 
     public boolean isAxis() {
@@ -27,12 +27,23 @@ import com.romraider.util.SettingsManager;
 public class Table2D extends Table {
     private static final long serialVersionUID = -7684570967109324784L;
     private Table1D axis = new Table1D();
+    private transient volatile TableLookup lookup;
 
     @Override
     public TableType getType() {
         return TableType.TABLE_2D;
     }
 
+    @Override
+    public Table2D copy() {
+        final Table2D copy = (Table2D) super.copy();
+        if (axis != null) {
+            copy.setAxis(axis.copy());
+        }
+        copy.lookup = null;
+        return copy;
+    }
+
     public Table1D getAxis() {
         return axis;
     }
@@ -136,6 +147,7 @@ public class Table2D extends Table {
             }
         }
         this.curScale = curScale;
+        invalidateRealValues();
 
         if(tableView != null) tableView.drawTable();
     }
@@ -208,29 +220,27 @@ public class Table2D extends Table {
     }
     
     @Override
-	public double queryTable(Double input_x, Double input_y) {
-		double input = input_x == null ? input_y : input_x;
-		DataCell[] tableData = getData();
-		DataCell[] axisData = getAxis().getData();
-
-		int start = 0;
-		int end = tableData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < tableData.length && i < axisData.length; i++) {
-			DataCell c = axisData[i];
-			if (c.getRealValue() <= input) {
-				start = i;
-			}
-			if (c.getRealValue() >= input && !foundEnd) {
-				end = i;
-				foundEnd = true;
-			}
-		}
-		
-		return linearInterpolation(input, axisData[start].getRealValue(), axisData[end].getRealValue(),
-				tableData[start].getRealValue(), tableData[end].getRealValue());
-	}
+    public double queryTable(Double input_x, Double input_y) {
+        final double input = input_x == null ? input_y : input_x;
+        return getLookup().lookup(input, 0.0);
+    }
+
+    /**
+     * Interpolate the table at each of the axis values, such as all
+     * samples of a logged parameter.
+     */
+    public double[] queryTable(double[] input) {
+        return getLookup().lookup(input, null);
+    }
+
+    private TableLookup getLookup() {
+        TableLookup current = lookup;
+        if (current == null || !current.isCurrent(this, axis)) {
+            current = TableLookup.of(this);
+            lookup = current;
+        }
+        return current;
+    }
 
     @Override
     public StringBuffer getTableAsString() {
@@ -266,6 +266,11 @@ public class Table2DView extends TableView {
         }
     }
 
+    @Override
+    protected int getLiveDataCell() {
+        return axis.getLiveDataIndex();
+    }
+
     @Override
     public void setOverlayLog(boolean overlayLog) {
         super.setOverlayLog(overlayLog);
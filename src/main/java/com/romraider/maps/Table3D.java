@@ -40,12 +40,32 @@ public class Table3D extends Table {
     
     // Skip cells after row/column ends before next row/column starts
     private int skipCells = 0;
+    private transient volatile TableLookup lookup;
 
     @Override
     public TableType getType() {
         return Table.TableType.TABLE_3D;
     }
 
+    @Override
+    public Table3D copy() {
+        final Table3D copy = (Table3D) super.copy();
+        if (data != null) {
+            copy.data = new DataCell[data.length][];
+            for (int x = 0; x < data.length; x++) {
+                copy.data[x] = copyCells(data[x], copy);
+            }
+        }
+        if (xAxis != null) {
+            copy.setXAxis(xAxis.copy());
+        }
+        if (yAxis != null) {
+            copy.setYAxis(yAxis.copy());
+        }
+        copy.lookup = null;
+        return copy;
+    }
+
     public Table3DView getTableView() {
         return (Table3DView) tableView;
     }
@@ -94,6 +114,7 @@ public class Table3D extends Table {
 
     public void setSizeX(int size) {
         data = new DataCell[size][data[0].length];
+        invalidateRealValues();
     }
 
     public int getSizeX() {
@@ -102,6 +123,7 @@ public class Table3D extends Table {
 
     public void setSizeY(int size) {
         data = new DataCell[data.length][size];
+        invalidateRealValues();
     }
 
     public int getSizeY() {
@@ -132,6 +154,23 @@ public class Table3D extends Table {
         data = null;
         xAxis=null;
         yAxis=null;
+        invalidateRealValues();
+    }
+
+    @Override
+    protected DataCell[] getAllCells() {
+        if (data == null) {
+            return null;
+        }
+
+        final DataCell[] cells = new DataCell[getSizeX() * getSizeY()];
+        int i = 0;
+        for (DataCell[] column : data) {
+            for (DataCell cell : column) {
+                cells[i++] = cell;
+            }
+        }
+        return cells;
     }
 
     @Override
@@ -377,6 +416,7 @@ public class Table3D extends Table {
         }
 
         this.curScale = curScale;
+        invalidateRealValues();
         if(tableView!=null) tableView.drawTable();
     }
 
@@ -536,53 +576,30 @@ public class Table3D extends Table {
         horizontalInterpolate();
     }
 
-	@Override
-	public double queryTable(Double input_x, Double input_y) {
-		DataCell[][] tableData = get3dData();
-		DataCell[] axisXData = getXAxis().getData();
-		DataCell[] axisYData = getYAxis().getData();
-
-		int startX = 0;
-		int endX = axisXData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < axisXData.length; i++) {
-			DataCell c = axisXData[i];
-			if (c.getRealValue() <= input_x) {
-				startX = i;
-			}
-			if (c.getRealValue() >= input_x && !foundEnd) {
-				foundEnd = true;
-				endX = i;
-			}
-		}
-
-		int startY = 0;
-		int endY = axisYData.length - 1;
-		foundEnd = false;
-
-		for (int i = 0; i < axisYData.length; i++) {
-			DataCell c = axisYData[i];
-			if (c.getRealValue() <= input_y) {
-				startY = i;
-			}
-			if (c.getRealValue() >= input_y && !foundEnd) {
-				endY = i;
-				foundEnd = true;
-			}
-		}
-
-		double valueX1 = linearInterpolation(input_x, axisXData[startX].getRealValue(),
-				axisXData[endX].getRealValue(), tableData[startX][startY].getRealValue(),
-				tableData[endX][startY].getRealValue());
-
-		double valueX2 = linearInterpolation(input_x, axisXData[startX].getRealValue(),
-				axisXData[endX].getRealValue(), tableData[endX][startY].getRealValue(),
-				tableData[endX][startY].getRealValue());
-
-		return linearInterpolation(input_y, axisYData[startY].getRealValue(), axisYData[endY].getRealValue(),
-				valueX1, valueX2);
-	}
+    @Override
+    public double queryTable(Double input_x, Double input_y) {
+        return getLookup().lookup(input_x, input_y);
+    }
+
+    /**
+     * Interpolate the table at each pair of axis values, such as all
+     * samples of a log.
+     */
+    public double[] queryTable(double[] inputX, double[] inputY) {
+        if (inputX.length != inputY.length) {
+            throw new IllegalArgumentException("X and Y inputs differ in length");
+        }
+        return getLookup().lookup(inputX, inputY);
+    }
+
+    private TableLookup getLookup() {
+        TableLookup current = lookup;
+        if (current == null || !current.isCurrent(this, xAxis, yAxis)) {
+            current = TableLookup.of(this);
+            lookup = current;
+        }
+        return current;
+    }
 
     @Override
     public String getLogParamString() {
@@ -0,0 +1,503 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.LayoutManager;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
+import javax.swing.border.Border;
+
+import com.romraider.editor.ecu.ECUEditorManager;
+
+/**
+ * A 3D table view which paints all data cells in a single component
+ * instead of one DataCellView per cell. The state of each cell is kept in
+ * arrays indexed x * sizeY + y, the text, colors and border of a cell are
+ * worked out with the same rules as DataCellView and cached until the cell
+ * changes. Only the cells that changed are repainted.
+ */
+public class Table3DGridView extends Table3DView {
+    private static final long serialVersionUID = -2315340741185213307L;
+
+    private DataCell[][] cells;
+    private int sizeX;
+    private int sizeY;
+    private boolean[] highlighted;
+    private boolean[] traced;
+    private boolean[] tracedStale;
+
+    // presentation of each cell, valid until the cell is drawn again
+    private boolean[] valid;
+    private String[] text;
+    private int[] textWidth;
+    private Color[] background;
+    private Color[] foreground;
+    private Border[] border;
+    private Font cachedFont;
+
+    private CellGrid grid;
+    private JLabel corner;
+
+    public Table3DGridView(Table3D table) {
+        super(table);
+    }
+
+    /**
+     * Redraw callback for a single cell, registered with its DataCell.
+     */
+    private final class GridCell implements CellView {
+        private final int x;
+        private final int y;
+
+        private GridCell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void drawCell() {
+            invalidateCell(x, y);
+        }
+    }
+
+    @Override
+    protected void populateCells() {
+        // temporarily remove lock
+        boolean tempLock = getTable().locked;
+        getTable().locked = false;
+
+        getXAxis().populateTableVisual();
+        getYAxis().populateTableVisual();
+
+        final Table3D table3d = getTable();
+        sizeX = table3d.getSizeX();
+        sizeY = table3d.getSizeY();
+        final int count = sizeX * sizeY;
+        cells = new DataCell[sizeX][sizeY];
+        highlighted = new boolean[count];
+        traced = new boolean[count];
+        tracedStale = new boolean[count];
+        valid = new boolean[count];
+        text = new String[count];
+        textWidth = new int[count];
+        background = new Color[count];
+        foreground = new Color[count];
+        border = new Border[count];
+
+        for (int x = 0; x < sizeX; x++) {
+            for (int y = 0; y < sizeY; y++) {
+                cells[x][y] = table3d.get3dData()[x][y];
+                cells[x][y].setDataView(new GridCell(x, y));
+            }
+        }
+
+        grid = new CellGrid();
+        corner = new JLabel();
+        centerPanel.setLayout(new GridTableLayout());
+        centerPanel.add(corner);
+        for (int x = 0; x < getXAxis().getTable().getDataSize(); x++) {
+            centerPanel.add(getXAxis().getDataCell(x));
+        }
+        for (int y = 0; y < getYAxis().getTable().getDataSize(); y++) {
+            centerPanel.add(getYAxis().getDataCell(y));
+        }
+        centerPanel.add(grid);
+
+        // reset locked status
+        getTable().locked = tempLock;
+    }
+
+    @Override
+    protected void drawCells() {
+        if (cells == null || isHidden()) {
+            return;
+        }
+        updatePresetPanel();
+        for (int i = 0; i < valid.length; i++) {
+            valid[i] = false;
+        }
+        grid.repaint();
+    }
+
+    private void invalidateCell(int x, int y) {
+        if (isHidden()) {
+            return;
+        }
+        updatePresetPanel();
+        valid[x * sizeY + y] = false;
+        grid.repaintCell(x, y);
+    }
+
+    private void validateCell(int x, int y, FontMetrics metrics) {
+        final int i = x * sizeY + y;
+        if (valid[i]) {
+            return;
+        }
+        final DataCell cell = cells[x][y];
+        text[i] = DataCellView.getCellText(this, cell, traced[i]);
+        textWidth[i] = metrics.stringWidth(text[i]);
+        background[i] = DataCellView.getCellBackgroundColor(this, cell, highlighted[i]);
+        foreground[i] = DataCellView.getCellTextColor(this, cell, highlighted[i], traced[i]);
+        border[i] = DataCellView.getCellBorder(this, cell, traced[i], tracedStale[i]);
+        valid[i] = true;
+    }
+
+    @Override
+    protected void addCellKeyListener(KeyListener listener) {
+        grid.addKeyListener(listener);
+    }
+
+    @Override
+    protected DataCell getCellData(int x, int y) {
+        return cells[x][y];
+    }
+
+    @Override
+    protected boolean isCellHighlighted(int x, int y) {
+        return highlighted[x * sizeY + y];
+    }
+
+    @Override
+    protected void setCellHighlighted(int x, int y, boolean highlight) {
+        final int i = x * sizeY + y;
+        if (!getTable().isStaticDataTable() && highlighted[i] != highlight) {
+            highlighted[i] = highlight;
+            invalidateCell(x, y);
+        }
+    }
+
+    @Override
+    protected void setCellLiveDataTrace(int x, int y, boolean trace) {
+        final int i = x * sizeY + y;
+        if (traced[i] != trace) {
+            traced[i] = trace;
+            invalidateCell(x, y);
+        }
+    }
+
+    @Override
+    protected void setCellPreviousLiveDataTrace(int x, int y, boolean trace) {
+        final int i = x * sizeY + y;
+        if (tracedStale[i] != trace) {
+            tracedStale[i] = trace;
+            invalidateCell(x, y);
+        }
+    }
+
+    @Override
+    protected String getCellText(int x, int y) {
+        return DataCellView.getCellText(this, cells[x][y], traced[x * sizeY + y]);
+    }
+
+    private void clearCell(int x, int y) {
+        if (isCellHighlighted(x, y)) {
+            setCellHighlighted(x, y, false);
+        }
+        if (cells[x][y].isSelected()) {
+            cells[x][y].setSelected(false);
+        }
+    }
+
+    /**
+     * Paints the data cells and turns mouse events into cell events the
+     * same way DataCellView does for a single cell.
+     */
+    private final class CellGrid extends JComponent {
+        private static final long serialVersionUID = 4720188453128127466L;
+        private final Rectangle viewRect = new Rectangle();
+        private final Rectangle iconRect = new Rectangle();
+        private final Rectangle textRect = new Rectangle();
+        private int hoverX = -1;
+        private int hoverY = -1;
+
+        private CellGrid() {
+            setOpaque(true);
+            setFocusable(true);
+            ToolTipManager.sharedInstance().registerComponent(this);
+            final MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    hover(e);
+                }
+
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    hover(e);
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    hover(e);
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    hoverX = -1;
+                    hoverY = -1;
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    final int x = cellX(e.getX());
+                    final int y = cellY(e.getY());
+                    if (x < 0 || y < 0) {
+                        return;
+                    }
+                    if (!e.isControlDown()) {
+                        getTable().clearSelection();
+                    }
+
+                    if (e.isControlDown() && e.isAltDown()) {
+                        clearCell(x, y);
+                    } else {
+                        startHighlight(x, y);
+                    }
+                    requestFocus();
+                    ECUEditorManager.getECUEditor().getTableToolBar().updateTableToolBar(getTable());
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    stopHighlight();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+        }
+
+        private void hover(MouseEvent e) {
+            final int x = cellX(e.getX());
+            final int y = cellY(e.getY());
+            if (x < 0 || y < 0 || (x == hoverX && y == hoverY)) {
+                return;
+            }
+            hoverX = x;
+            hoverY = y;
+
+            // a new cell was entered
+            if (DataCellView.UNSELECT_MASK1 == (e.getModifiersEx() & DataCellView.UNSELECT_MASK1)) {
+                clearCell(x, y);
+            } else if (DataCellView.UNSELECT_MASK2 == (e.getModifiersEx() & DataCellView.UNSELECT_MASK2)) {
+                clearCell(x, y);
+            } else {
+                highlight(x, y);
+            }
+        }
+
+        private int cellWidth() {
+            return Math.max(1, getWidth() / sizeX);
+        }
+
+        private int cellHeight() {
+            return Math.max(1, getHeight() / sizeY);
+        }
+
+        private int cellX(int px) {
+            final int x = px / cellWidth();
+            return px < 0 || x >= sizeX ? -1 : x;
+        }
+
+        private int cellY(int py) {
+            final int y = py / cellHeight();
+            return py < 0 || y >= sizeY ? -1 : y;
+        }
+
+        private void repaintCell(int x, int y) {
+            final int w = cellWidth();
+            final int h = cellHeight();
+            repaint(x * w, y * h, w, h);
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            final int x = cellX(e.getX());
+            final int y = cellY(e.getY());
+            if (x < 0 || y < 0) {
+                return null;
+            }
+            return DataCellView.getCellToolTip(Table3DGridView.this, cells[x][y],
+                    traced[x * sizeY + y]);
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            final Dimension cell = getSettings().getCellSize();
+            return new Dimension(cell.width * sizeX, cell.height * sizeY);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            final Font font = getSettings().getTableFont();
+            if (!font.equals(cachedFont)) {
+                cachedFont = font;
+                for (int i = 0; i < valid.length; i++) {
+                    valid[i] = false;
+                }
+            }
+
+            final Graphics2D g2 = (Graphics2D) g;
+            final Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit()
+                    .getDesktopProperty("awt.font.desktophints");
+            if (hints != null) {
+                g2.addRenderingHints(hints);
+            }
+            g2.setFont(font);
+            final FontMetrics metrics = g2.getFontMetrics();
+
+            final int w = cellWidth();
+            final int h = cellHeight();
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            final int x0 = Math.max(0, clip.x / w);
+            final int y0 = Math.max(0, clip.y / h);
+            final int x1 = Math.min(sizeX - 1, (clip.x + clip.width - 1) / w);
+            final int y1 = Math.min(sizeY - 1, (clip.y + clip.height - 1) / h);
+
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    validateCell(x, y, metrics);
+                    paintCell(g2, metrics, x * sizeY + y, x * w, y * h, w, h);
+                }
+            }
+        }
+
+        private void paintCell(Graphics2D g, FontMetrics metrics, int i,
+                int px, int py, int w, int h) {
+            g.setColor(background[i]);
+            g.fillRect(px, py, w, h);
+            border[i].paintBorder(this, g, px, py, w, h);
+
+            final Insets insets = border[i].getBorderInsets(this);
+            viewRect.setBounds(px + insets.left, py + insets.top,
+                    w - insets.left - insets.right, h - insets.top - insets.bottom);
+            String shown = text[i];
+            int textX;
+            if (textWidth[i] <= viewRect.width) {
+                textX = viewRect.x + (viewRect.width - textWidth[i]) / 2;
+            } else {
+                // too wide, clip with an ellipsis as a JLabel would
+                iconRect.setBounds(0, 0, 0, 0);
+                textRect.setBounds(0, 0, 0, 0);
+                shown = SwingUtilities.layoutCompoundLabel(this, metrics, text[i], null,
+                        SwingConstants.CENTER, SwingConstants.CENTER,
+                        SwingConstants.CENTER, SwingConstants.TRAILING,
+                        viewRect, iconRect, textRect, 0);
+                textX = textRect.x;
+            }
+            final int textY = viewRect.y + (viewRect.height - metrics.getHeight()) / 2
+                    + metrics.getAscent();
+            g.setColor(foreground[i]);
+            g.drawString(shown, textX, textY);
+        }
+    }
+
+    /**
+     * Lays out the axis cells and the grid with the same cell sizes a
+     * GridLayout of sizeX + 1 columns and sizeY + 1 rows would use, the
+     * grid covers all but the first row and column.
+     */
+    private final class GridTableLayout implements LayoutManager {
+        @Override
+        public void addLayoutComponent(String name, Component comp) {
+        }
+
+        @Override
+        public void removeLayoutComponent(Component comp) {
+        }
+
+        @Override
+        public Dimension preferredLayoutSize(Container parent) {
+            final Dimension cell = largestCell(false);
+            return size(parent, cell);
+        }
+
+        @Override
+        public Dimension minimumLayoutSize(Container parent) {
+            final Dimension cell = largestCell(true);
+            return size(parent, cell);
+        }
+
+        private Dimension size(Container parent, Dimension cell) {
+            final Insets insets = parent.getInsets();
+            return new Dimension(insets.left + insets.right + cell.width * (sizeX + 1),
+                    insets.top + insets.bottom + cell.height * (sizeY + 1));
+        }
+
+        private Dimension largestCell(boolean minimum) {
+            final Dimension largest = minimum ? new Dimension() : getSettings().getCellSize();
+            int width = largest.width;
+            int height = largest.height;
+            final int count = centerPanel.getComponentCount();
+            for (int i = 0; i < count; i++) {
+                final Component c = centerPanel.getComponent(i);
+                if (c == grid) {
+                    continue;
+                }
+                final Dimension d = minimum ? c.getMinimumSize() : c.getPreferredSize();
+                width = Math.max(width, d.width);
+                height = Math.max(height, d.height);
+            }
+            return new Dimension(width, height);
+        }
+
+        @Override
+        public void layoutContainer(Container parent) {
+            final Insets insets = parent.getInsets();
+            final int cols = sizeX + 1;
+            final int rows = sizeY + 1;
+            final int width = parent.getWidth() - insets.left - insets.right;
+            final int height = parent.getHeight() - insets.top - insets.bottom;
+            final int w = width / cols;
+            final int h = height / rows;
+            final int left = insets.left + (width - w * cols) / 2;
+            final int top = insets.top + (height - h * rows) / 2;
+
+            corner.setBounds(left, top, w, h);
+            for (int x = 0; x < getXAxis().getTable().getDataSize(); x++) {
+                getXAxis().getDataCell(x).setBounds(left + (x + 1) * w, top, w, h);
+            }
+            for (int y = 0; y < getYAxis().getTable().getDataSize(); y++) {
+                getYAxis().getDataCell(y).setBounds(left, top + (y + 1) * h, w, h);
+            }
+            grid.setBounds(left + w, top + h, w * sizeX, h * sizeY);
+        }
+    }
+}
@@ -75,6 +75,21 @@ public class Table3DView extends TableView {
     
     @Override
     public void drawTable() {
+    	drawCells();
+    	
+    	if(xAxis!=null)
+    		xAxis.drawTable();
+    	
+    	if(yAxis!=null)
+    		yAxis.drawTable();
+    	
+    	updateTableLabel();
+    }
+
+    /**
+     * Redraw every cell of the table data.
+     */
+    protected void drawCells() {
     	if(data!=null) {
 	        for(DataCellView[] column : data) {
 	            for(DataCellView cell : column) {
@@ -84,18 +99,12 @@ public class Table3DView extends TableView {
 	            }
 	        }
     	}
-    	
-    	if(xAxis!=null)
-    		xAxis.drawTable();
-    	
-    	if(yAxis!=null)
-    		yAxis.drawTable();
-    	
-    	updateTableLabel();
     }
 
-    @Override
-    public void populateTableVisual() {	
+    /**
+     * Add the axis and data cells to the center panel.
+     */
+    protected void populateCells() {
     	// fill first empty cell
         centerPanel.add(new JLabel());
         centerLayout.setColumns(table.getSizeX()+1);
@@ -144,6 +153,11 @@ public class Table3DView extends TableView {
         
         // reset locked status
         table.locked = tempLock;
+    }
+
+    @Override
+    public void populateTableVisual() {	
+        populateCells();
 
         GridLayout topLayout = new GridLayout(2, 1);
         JPanel topPanel = new JPanel(topLayout);
@@ -211,8 +225,8 @@ public class Table3DView extends TableView {
 
     @Override
     public Dimension getFrameSize() {
-        int height = verticalOverhead + cellHeight * data[0].length;
-        int width = horizontalOverhead + data.length * cellWidth;
+        int height = verticalOverhead + cellHeight * table.getSizeY();
+        int width = horizontalOverhead + table.getSizeX() * cellWidth;
         if (height < minHeight) {
             height = minHeight;
         }
@@ -245,9 +259,9 @@ public class Table3DView extends TableView {
                             (y <= highlightBeginY && y >= yCoord)) &&
                             ((x >= highlightBeginX && x <= xCoord) ||
                                     (x <= highlightBeginX && x >= xCoord))) {
-                        data[x][y].setHighlighted(true);
+                        setCellHighlighted(x, y, true);
                     } else {
-                        data[x][y].setHighlighted(false);
+                        setCellHighlighted(x, y, false);
                     }
                 }
             }
@@ -260,9 +274,9 @@ public class Table3DView extends TableView {
         // loop through, selected and un-highlight
         for (int x = 0; x < table.getSizeX(); x++) {
             for (int y = 0; y < table.getSizeY(); y++) {
-                if (data[x][y].isHighlighted()) {
-                    data[x][y].getDataCell().setSelected(true);
-                    data[x][y].setHighlighted(false);
+                if (isCellHighlighted(x, y)) {
+                    getCellData(x, y).setSelected(true);
+                    setCellHighlighted(x, y, false);
                 }
             }
         }
@@ -273,8 +287,8 @@ public class Table3DView extends TableView {
         clearLiveDataTrace();
         for (int x = 0; x < table.getSizeX(); x++) {
             for (int y = 0; y < table.getSizeY(); y++) {
-                if (data[x][y].isSelected()) {
-                    data[x][y].getDataCell().undo();
+                if (isCellSelected(x, y)) {
+                    getCellData(x, y).undo();
                 }
             }
         }
@@ -284,6 +298,10 @@ public class Table3DView extends TableView {
     public void addKeyListener(KeyListener listener) {
         xAxis.addKeyListener(listener);
         yAxis.addKeyListener(listener);
+        addCellKeyListener(listener);
+    }
+
+    protected void addCellKeyListener(KeyListener listener) {
         for (int x = 0; x < table.getSizeX(); x++) {
             for (int y = 0; y < table.getSizeY(); y++) {
                 data[x][y].addKeyListener(listener);
@@ -302,9 +320,9 @@ public class Table3DView extends TableView {
 
     @Override
     public void cursorUp() {
-        if (highlightBeginY > 0 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginY > 0 && isCellSelected(highlightBeginX, highlightBeginY)) {
             table.selectCellAt(highlightBeginX, highlightBeginY - 1);
-        } else if (data[highlightBeginX][highlightBeginY].isSelected()) {
+        } else if (isCellSelected(highlightBeginX, highlightBeginY)) {
             xAxis.getTable().selectCellAt(highlightBeginX);
         } else {
             xAxis.cursorUp();
@@ -314,7 +332,7 @@ public class Table3DView extends TableView {
 
     @Override
     public void cursorDown() {
-        if (highlightBeginY < table.getSizeY() - 1 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginY < table.getSizeY() - 1 && isCellSelected(highlightBeginX, highlightBeginY)) {
             table.selectCellAt(highlightBeginX, highlightBeginY + 1);
         } else {
             xAxis.cursorDown();
@@ -324,9 +342,9 @@ public class Table3DView extends TableView {
 
     @Override
     public void cursorLeft() {
-        if (highlightBeginX > 0 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginX > 0 && isCellSelected(highlightBeginX, highlightBeginY)) {
             table.selectCellAt(highlightBeginX - 1, highlightBeginY);
-        } else if (data[highlightBeginX][highlightBeginY].isSelected()) {
+        } else if (isCellSelected(highlightBeginX, highlightBeginY)) {
             yAxis.getTable().selectCellAt(highlightBeginY);
         } else {
             xAxis.cursorLeft();
@@ -336,7 +354,7 @@ public class Table3DView extends TableView {
 
     @Override
     public void cursorRight() {
-        if (highlightBeginX < table.getSizeX() - 1 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginX < table.getSizeX() - 1 && isCellSelected(highlightBeginX, highlightBeginY)) {
             table.selectCellAt(highlightBeginX + 1, highlightBeginY);
         } else {
             xAxis.cursorRight();
@@ -346,10 +364,10 @@ public class Table3DView extends TableView {
 
 	@Override
 	public void shiftCursorUp() {
-        if (highlightBeginY > 0 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginY > 0 && isCellSelected(highlightBeginX, highlightBeginY)) {
         	table.selectCellAtWithoutClear(highlightBeginX, highlightBeginY - 1);
-        } else if (data[highlightBeginX][highlightBeginY].isSelected()) {
-        	data[highlightBeginX][highlightBeginY].getDataCell().setSelected(false);
+        } else if (isCellSelected(highlightBeginX, highlightBeginY)) {
+        	getCellData(highlightBeginX, highlightBeginY).setSelected(false);
         	xAxis.getTable().selectCellAt(highlightBeginX);
         } else {
         	xAxis.cursorUp();
@@ -359,7 +377,7 @@ public class Table3DView extends TableView {
 
 	@Override
 	public void shiftCursorDown() {
-        if (highlightBeginY < table.getSizeY() - 1 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginY < table.getSizeY() - 1 && isCellSelected(highlightBeginX, highlightBeginY)) {
         	table.selectCellAtWithoutClear(highlightBeginX, highlightBeginY + 1);
         } else {
             xAxis.shiftCursorDown();
@@ -369,9 +387,9 @@ public class Table3DView extends TableView {
 
 	@Override
 	public void shiftCursorLeft() {
-        if (highlightBeginX > 0 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginX > 0 && isCellSelected(highlightBeginX, highlightBeginY)) {
         	table.selectCellAtWithoutClear(highlightBeginX - 1, highlightBeginY);
-        } else if (data[highlightBeginX][highlightBeginY].isSelected()) {
+        } else if (isCellSelected(highlightBeginX, highlightBeginY)) {
             yAxis.getTable().selectCellAt(highlightBeginY);
         } else {
             xAxis.shiftCursorLeft();
@@ -381,7 +399,7 @@ public class Table3DView extends TableView {
 
 	@Override
 	public void shiftCursorRight() {
-        if (highlightBeginX < table.getSizeX() - 1 && data[highlightBeginX][highlightBeginY].isSelected()) {
+        if (highlightBeginX < table.getSizeX() - 1 && isCellSelected(highlightBeginX, highlightBeginY)) {
         	table.selectCellAtWithoutClear(highlightBeginX + 1, highlightBeginY);
         } else {
             xAxis.shiftCursorRight();
@@ -407,7 +425,7 @@ public class Table3DView extends TableView {
 
         for (int x = 0; x < getTable().getSizeX(); x++) {
             for (int y = 0; y < getTable().getSizeY(); y++) {
-                if (get3dData()[x][y].isSelected()) {
+                if (isCellSelected(x, y)) {
                     if (x < coords[0]) {
                         coords[0] = x;
                         copy = true;
@@ -432,8 +450,8 @@ public class Table3DView extends TableView {
             StringBuffer output = new StringBuffer("[Selection3D]" + Settings.NEW_LINE);
             for (int y = coords[1]; y <= coords[3]; y++) {
                 for (int x = coords[0]; x <= coords[2]; x++) {
-                    if (get3dData()[x][y].isSelected()) {
-                        output.append(NumberUtil.stringValue(get3dData()[x][y].getDataCell().getRealValue()));
+                    if (isCellSelected(x, y)) {
+                        output.append(NumberUtil.stringValue(getCellData(x, y).getRealValue()));
                     } else {
                         output.append("x"); // x represents non-selected cell
                     }
@@ -508,7 +526,7 @@ public class Table3DView extends TableView {
         	
             for (int x = getTable().getSizeX() - 1; x >=0 ; x--) {
                 for (int y = 0; y < getTable().getSizeY(); y++) {
-                	if(data[x][y].isSelected()) {
+                	if(isCellSelected(x, y)) {
                 		startX = x;
                 		startY = y;
                 		somethingSelected = true;
@@ -531,8 +549,8 @@ public class Table3DView extends TableView {
                 String currentToken = currentLine.nextToken();
 
                 try {
-                    if (!data[x][y].getText().equalsIgnoreCase(currentToken)) {
-                        data[x][y].getDataCell().setRealValue(currentToken);
+                    if (!getCellText(x, y).equalsIgnoreCase(currentToken)) {
+                        getCellData(x, y).setRealValue(currentToken);
                     }
                 } catch (ArrayIndexOutOfBoundsException ex) { /* copied table is larger than current table*/ }
             }
@@ -541,12 +559,16 @@ public class Table3DView extends TableView {
 
     @Override
     public void highlightLiveData(String liveValue) {
+        highlightLiveData(0.0, liveValue);
+    }
+
+    @Override
+    public void highlightLiveData(double value, String liveValue) {
         if (getOverlayLog()) {
             int x = xAxis.getLiveDataIndex();
             int y = yAxis.getLiveDataIndex();
-            DataCellView cell = data[x][y];
-            cell.setLiveDataTrace(true);
-            cell.getDataCell().setLiveDataTraceValue(liveValue);
+            setCellLiveDataTrace(x, y, true);
+            getCellData(x, y).setLiveDataTraceValue(liveValue);
             getToolbar().setLiveDataValue(liveValue);
         }
     }
@@ -558,9 +580,40 @@ public class Table3DView extends TableView {
             int y = yAxis.getLiveDataIndex();
             int xp = xAxis.getPreviousLiveDataIndex();
             int yp = yAxis.getPreviousLiveDataIndex();
-            data[xp][yp].setPreviousLiveDataTrace(true);
-            data[x][y].setPreviousLiveDataTrace(false);
-            data[x][y].setLiveDataTrace(true);
+            setCellPreviousLiveDataTrace(xp, yp, true);
+            setCellPreviousLiveDataTrace(x, y, false);
+            setCellLiveDataTrace(x, y, true);
+        }
+    }
+
+    @Override
+    protected int getLiveDataCellCount() {
+        return table.getSizeX() * table.getSizeY();
+    }
+
+    /**
+     * @return the histogram cell of the current live data trace, cells
+     * are counted along Y first, x * sizeY + y
+     */
+    @Override
+    protected int getLiveDataCell() {
+        return xAxis.getLiveDataIndex() * table.getSizeY() + yAxis.getLiveDataIndex();
+    }
+
+    @Override
+    protected void appendLiveDataHistogram(StringBuilder output, long[] values) {
+        final int sizeX = table.getSizeX();
+        final int sizeY = table.getSizeY();
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                output.append(values[x * sizeY + y]);
+                if (x < sizeX - 1) {
+                    output.append(Settings.TAB);
+                }
+            }
+            if (y < sizeY - 1) {
+                output.append(Settings.NEW_LINE);
+            }
         }
     }
 
@@ -570,8 +623,8 @@ public class Table3DView extends TableView {
         yAxis.clearLiveDataTrace();
         for (int x = 0; x < table.getSizeX(); x++) {
             for (int y = 0; y < table.getSizeY(); y++) {
-                data[x][y].setLiveDataTrace(false);
-                data[x][y].setPreviousLiveDataTrace(false);
+                setCellLiveDataTrace(x, y, false);
+                setCellPreviousLiveDataTrace(x, y, false);
             }
         }
     }
@@ -580,6 +633,40 @@ public class Table3DView extends TableView {
         return data;
     }
 
+    // Access to the state of a single data cell, views that do not keep a
+    // DataCellView per cell override these
+
+    protected DataCell getCellData(int x, int y) {
+        return data[x][y].getDataCell();
+    }
+
+    protected boolean isCellSelected(int x, int y) {
+        return getCellData(x, y).isSelected();
+    }
+
+    protected boolean isCellHighlighted(int x, int y) {
+        return data[x][y].isHighlighted();
+    }
+
+    protected void setCellHighlighted(int x, int y, boolean highlighted) {
+        data[x][y].setHighlighted(highlighted);
+    }
+
+    protected void setCellLiveDataTrace(int x, int y, boolean trace) {
+        data[x][y].setLiveDataTrace(trace);
+    }
+
+    protected void setCellPreviousLiveDataTrace(int x, int y, boolean trace) {
+        data[x][y].setPreviousLiveDataTrace(trace);
+    }
+
+    /**
+     * @return the text shown in a cell
+     */
+    protected String getCellText(int x, int y) {
+        return data[x][y].getText();
+    }
+
     @Override
     public void setCompareDisplay(Settings.CompareDisplay compareDisplay) {
         super.setCompareDisplay(compareDisplay);
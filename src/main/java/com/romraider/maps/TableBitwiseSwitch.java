@@ -30,6 +30,13 @@ public class TableBitwiseSwitch extends TableSwitch {
 		storageType = 1;		
 	}
 
+	@Override
+	public TableBitwiseSwitch copy() {
+		TableBitwiseSwitch copy = (TableBitwiseSwitch) super.copy();
+		copy.bits = new LinkedList<Integer>(bits);
+		return copy;
+	}
+
 	@Override
     public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {      
     	if(isStaticDataTable()) return;       
@@ -0,0 +1,259 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A snapshot of the real values of a 2D or 3D table and its axes for
+ * fast queries. Axis values are kept in ascending order, descending and
+ * unordered axes are sorted along with the data. A query finds the
+ * surrounding axis cells by binary search and interpolates between them,
+ * values outside an axis are clamped to its first or last cell.
+ * The snapshot is rebuilt by the table once any of the source tables
+ * report a change to their real values.
+ */
+public final class TableLookup {
+    private final double[] xAxis;
+    private final double[] yAxis;
+    // data values, index x * sizeY + y in sorted axis order
+    private final double[] values;
+    private final int sizeY;
+    private final Table[] sources;
+    private final int[] versions;
+
+    private TableLookup(double[] xAxis, double[] yAxis, double[][] data, Table... sources) {
+        final int[] xOrder = ascendingOrder(xAxis);
+        final int[] yOrder = ascendingOrder(yAxis);
+        this.xAxis = reorder(xAxis, xOrder);
+        this.yAxis = reorder(yAxis, yOrder);
+        this.sizeY = yAxis.length;
+        this.values = new double[xAxis.length * sizeY];
+        for (int x = 0; x < xAxis.length; x++) {
+            for (int y = 0; y < sizeY; y++) {
+                values[x * sizeY + y] = data[xOrder[x]][yOrder[y]];
+            }
+        }
+        // taken after reading the values, reading may have built them
+        this.sources = sources;
+        this.versions = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            versions[i] = sources[i].getRealValuesVersion();
+        }
+    }
+
+    static TableLookup of(Table2D table) {
+        final DataCell[] data = table.getData();
+        final DataCell[] axis = table.getAxis().getData();
+        final int size = Math.min(data.length, axis.length);
+        final double[] xAxis = new double[size];
+        final double[][] values = new double[size][1];
+        for (int i = 0; i < size; i++) {
+            xAxis[i] = axisValue(axis[i]);
+            values[i][0] = data[i].getRealValue();
+        }
+        return new TableLookup(xAxis, new double[] {0.0}, values, table, table.getAxis());
+    }
+
+    static TableLookup of(Table3D table) {
+        final DataCell[][] data = table.get3dData();
+        final DataCell[] xCells = table.getXAxis().getData();
+        final DataCell[] yCells = table.getYAxis().getData();
+        final double[] xAxis = new double[xCells.length];
+        final double[] yAxis = new double[yCells.length];
+        for (int i = 0; i < xAxis.length; i++) {
+            xAxis[i] = axisValue(xCells[i]);
+        }
+        for (int i = 0; i < yAxis.length; i++) {
+            yAxis[i] = axisValue(yCells[i]);
+        }
+        final double[][] values = new double[xAxis.length][yAxis.length];
+        for (int x = 0; x < xAxis.length; x++) {
+            for (int y = 0; y < yAxis.length; y++) {
+                values[x][y] = data[x][y].getRealValue();
+            }
+        }
+        return new TableLookup(xAxis, yAxis, values, table, table.getXAxis(), table.getYAxis());
+    }
+
+    private static double axisValue(DataCell cell) {
+        if (cell.getStaticText() != null) {
+            try {
+                return Double.parseDouble(cell.getStaticText());
+            } catch (NumberFormatException e) {
+                // not a number, use the cell value
+            }
+        }
+        return cell.getRealValue();
+    }
+
+    /**
+     * @return true if this snapshot was built from these tables and none
+     * of them changed since
+     */
+    boolean isCurrent(Table... tables) {
+        if (tables.length != sources.length) {
+            return false;
+        }
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i] != sources[i] || tables[i].getRealValuesVersion() != versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] ascendingOrder(final double[] axis) {
+        final int size = axis.length;
+        final int[] order = new int[size];
+        boolean ascending = true;
+        boolean descending = true;
+        for (int i = 1; i < size; i++) {
+            ascending &= axis[i - 1] <= axis[i];
+            descending &= axis[i - 1] >= axis[i];
+        }
+        if (ascending || !descending) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                order[i] = size - 1 - i;
+            }
+        }
+        if (!ascending && !descending) {
+            final Integer[] sorted = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(axis[a], axis[b]);
+                }
+            });
+            for (int i = 0; i < size; i++) {
+                order[i] = sorted[i];
+            }
+        }
+        return order;
+    }
+
+    private static double[] reorder(double[] axis, int[] order) {
+        final double[] sorted = new double[axis.length];
+        for (int i = 0; i < axis.length; i++) {
+            sorted[i] = axis[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the index of the lower cell of the axis interval containing
+     * the value, from 0 to length - 2
+     */
+    private static int bin(double[] axis, double value) {
+        int low = 1;
+        int high = axis.length - 1;
+        // first index above the value, searched within 1 .. length - 1
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (axis[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.max(0, low - 1);
+    }
+
+    /**
+     * Same as bin but checks the interval found for the previous value
+     * first, consecutive log samples mostly stay in one interval.
+     */
+    private static int bin(double[] axis, double value, int hint) {
+        if (hint + 1 < axis.length && axis[hint] <= value && value < axis[hint + 1]) {
+            return hint;
+        }
+        return bin(axis, value);
+    }
+
+    private static double fraction(double[] axis, int index, double value) {
+        if (index + 1 >= axis.length) {
+            return 0.0;
+        }
+        final double low = axis[index];
+        final double high = axis[index + 1];
+        if (value <= low || high == low) {
+            return 0.0;
+        }
+        if (value >= high) {
+            return 1.0;
+        }
+        return (value - low) / (high - low);
+    }
+
+    private double interpolate(int x, double fx, int y, double fy) {
+        final int x1 = Math.min(x + 1, xAxis.length - 1);
+        final int y1 = Math.min(y + 1, sizeY - 1);
+        final double v00 = values[x * sizeY + y];
+        final double v10 = values[x1 * sizeY + y];
+        final double v01 = values[x * sizeY + y1];
+        final double v11 = values[x1 * sizeY + y1];
+        final double low = v00 + (v10 - v00) * fx;
+        final double high = v01 + (v11 - v01) * fx;
+        return low + (high - low) * fy;
+    }
+
+    /**
+     * Interpolate the table at one point, the Y value is ignored for a 2D
+     * table.
+     */
+    public double lookup(double x, double y) {
+        if (values.length == 0) {
+            return 0.0;
+        }
+        final int i = bin(xAxis, x);
+        final int j = bin(yAxis, y);
+        return interpolate(i, fraction(xAxis, i, x), j, fraction(yAxis, j, y));
+    }
+
+    /**
+     * Interpolate the table at many points, such as every sample of a log.
+     * @param x - the X value of each point
+     * @param y - the Y value of each point, or null for a 2D table
+     * @return the table value of each point
+     */
+    public double[] lookup(double[] x, double[] y) {
+        final double[] result = new double[x.length];
+        if (values.length == 0) {
+            return result;
+        }
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < x.length; k++) {
+            final double yValue = y == null ? 0.0 : y[k];
+            i = bin(xAxis, x[k], i);
+            j = bin(yAxis, yValue, j);
+            result[k] = interpolate(i, fraction(xAxis, i, x[k]), j, fraction(yAxis, j, yValue));
+        }
+        return result;
+    }
+}
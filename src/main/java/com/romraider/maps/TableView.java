@@ -33,6 +33,8 @@ import java.awt.event.KeyListener;
 import java.io.IOException;
 import java.io.Serializable;
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.ResourceBundle;
 import java.util.StringTokenizer;
 
@@ -85,6 +87,20 @@ public abstract class TableView extends JPanel implements Serializable {
     protected String liveAxisValue = Settings.BLANK;
     protected int liveDataIndex = 0;
     protected int previousLiveDataIndex = 0;
+
+    // cell values sorted ascending for live data lookups, with the index
+    // of the cell each value came from
+    private transient double[] liveAxisValues;
+    private transient int[] liveAxisCells;
+    private transient int liveAxisVersion;
+
+    // a live data sample that stays in one cell longer than this is
+    // counted as a pause in logging, not as time spent in the cell
+    private static final long MAX_DWELL_NANOS = 1000000000L;
+    private transient int[] liveDataHits;
+    private transient long[] liveDataDwell;
+    private transient int liveDataCell = -1;
+    private transient long liveDataTime;
   
     protected Settings.CompareDisplay compareDisplay = Settings.CompareDisplay.ABSOLUTE;
 
@@ -831,6 +847,9 @@ public abstract class TableView extends JPanel implements Serializable {
     }
 
     public void setOverlayLog(boolean overlayLog) {
+        if (overlayLog && !this.overlayLog) {
+            clearLiveDataHistogram();
+        }
         this.overlayLog = overlayLog;
         
         if(!overlayLog)
@@ -881,20 +900,23 @@ public abstract class TableView extends JPanel implements Serializable {
             	LOGGER.error("Table - live data highlight parsing error for value: " + liveVal);
             	return;
             }
+            highlightLiveData(liveValue, liveVal);
+        }
+    }
 
-            int startIdx = data.length;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = data[i].getDataCell().getRealValue();
-                if (liveValue == currentValue) {
-                    startIdx = i;
-                    break;
-                } else if (liveValue < currentValue){
-                    startIdx = i-1;
-                    break;
-                }
+    /**
+     * Trace a live data value in this table.
+     * @param liveValue - the value to locate
+     * @param liveVal - the value formatted for display
+     */
+    public void highlightLiveData(double liveValue, String liveVal) {
+        if (getOverlayLog()) {
+            final int index = findLiveDataIndex(liveValue);
+            if (index < 0) {
+                return;
             }
 
-            setLiveDataIndex(startIdx);
+            setLiveDataIndex(index);
             DataCellView cell = data[getLiveDataIndex()];
             cell.setPreviousLiveDataTrace(false);
             cell.setLiveDataTrace(true);
@@ -903,6 +925,197 @@ public abstract class TableView extends JPanel implements Serializable {
         }
     }
 
+    /**
+     * Find the cell a live value falls in, the cell with the largest value
+     * not above the live value or the first cell if the value is below all
+     * cells.
+     * @return the cell index or -1 if the cell values are not numeric
+     */
+    protected int findLiveDataIndex(double liveValue) {
+        if (!buildLiveAxis()) {
+            return -1;
+        }
+
+        final double[] values = liveAxisValues;
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < liveValue) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int i = low < values.length && values[low] == liveValue ? low : low - 1;
+        if (i < 0) {
+            i = 0;
+        }
+        return liveAxisCells[i];
+    }
+
+    /**
+     * @return the value of a cell used to locate live data
+     * @throws NumberFormatException if the cell has no numeric value
+     */
+    protected double getLiveAxisValue(int index) {
+        return data[index].getDataCell().getRealValue();
+    }
+
+    private boolean buildLiveAxis() {
+        final int version = table.getRealValuesVersion();
+        if (liveAxisValues != null && liveAxisValues.length == data.length
+                && liveAxisVersion == version) {
+            return true;
+        }
+
+        final int size = data.length;
+        if (size == 0) {
+            return false;
+        }
+        final double[] values = new double[size];
+        boolean ascending = true;
+        try {
+            for (int i = 0; i < size; i++) {
+                values[i] = getLiveAxisValue(i);
+                if (i > 0 && values[i] < values[i - 1]) {
+                    ascending = false;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+
+        final int[] cells = new int[size];
+        if (ascending) {
+            for (int i = 0; i < size; i++) {
+                cells[i] = i;
+            }
+        } else {
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // stable, equal values keep the lowest cell index first
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(values[a], values[b]);
+                }
+            });
+            final double[] sorted = new double[size];
+            for (int i = 0; i < size; i++) {
+                cells[i] = order[i];
+                sorted[i] = values[order[i]];
+            }
+            System.arraycopy(sorted, 0, values, 0, size);
+        }
+
+        liveAxisValues = values;
+        liveAxisCells = cells;
+        // values may have been built by this call, take the version after
+        liveAxisVersion = table.getRealValuesVersion();
+        return true;
+    }
+
+    /**
+     * @return the number of cells in the live data histogram
+     */
+    protected int getLiveDataCellCount() {
+        return data == null ? 0 : data.length;
+    }
+
+    /**
+     * @return the histogram cell of the current live data trace
+     */
+    protected int getLiveDataCell() {
+        return getLiveDataIndex();
+    }
+
+    /**
+     * Count the current live data cell in the histogram, called once per
+     * display frame. The time since the last sample is added to the dwell
+     * of the cell the previous sample was in.
+     * @param nanos - the time of the sample from System.nanoTime()
+     */
+    public void recordLiveDataSample(long nanos) {
+        if (!getOverlayLog()) {
+            return;
+        }
+        final int count = getLiveDataCellCount();
+        if (liveDataHits == null || liveDataHits.length != count) {
+            liveDataHits = new int[count];
+            liveDataDwell = new long[count];
+            liveDataCell = -1;
+        }
+        final int cell = getLiveDataCell();
+        if (cell < 0 || cell >= count) {
+            return;
+        }
+        if (liveDataCell >= 0) {
+            liveDataDwell[liveDataCell] += Math.min(nanos - liveDataTime, MAX_DWELL_NANOS);
+        }
+        liveDataHits[cell]++;
+        liveDataCell = cell;
+        liveDataTime = nanos;
+    }
+
+    /**
+     * @return the number of display frames the live data was in each cell
+     */
+    public int[] getLiveDataHits() {
+        final int[] hits = liveDataHits;
+        return hits == null ? new int[getLiveDataCellCount()] : hits.clone();
+    }
+
+    /**
+     * @return the milliseconds the live data spent in each cell
+     */
+    public long[] getLiveDataDwellMillis() {
+        final long[] dwell = liveDataDwell;
+        final long[] millis = new long[dwell == null ? getLiveDataCellCount() : dwell.length];
+        for (int i = 0; dwell != null && i < dwell.length; i++) {
+            millis[i] = dwell[i] / 1000000L;
+        }
+        return millis;
+    }
+
+    public void copyLiveDataHistogram() {
+        setClipboard(getLiveDataHistogramAsString());
+    }
+
+    /**
+     * @return the live data histogram as text, the frames and then the
+     * milliseconds spent in each cell, laid out like the table
+     */
+    public String getLiveDataHistogramAsString() {
+        final int[] hits = getLiveDataHits();
+        final long[] frames = new long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            frames[i] = hits[i];
+        }
+        final StringBuilder output = new StringBuilder("[LiveDataHits]" + Settings.NEW_LINE);
+        appendLiveDataHistogram(output, frames);
+        output.append(Settings.NEW_LINE).append("[LiveDataDwellMillis]").append(Settings.NEW_LINE);
+        appendLiveDataHistogram(output, getLiveDataDwellMillis());
+        return output.toString();
+    }
+
+    protected void appendLiveDataHistogram(StringBuilder output, long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            output.append(values[i]);
+            if (i < values.length - 1) {
+                output.append(Settings.TAB);
+            }
+        }
+    }
+
+    public void clearLiveDataHistogram() {
+        liveDataHits = null;
+        liveDataDwell = null;
+        liveDataCell = -1;
+    }
+
     public void updateLiveDataHighlight() {
         if (getOverlayLog()) {
             data[getPreviousLiveDataIndex()].setPreviousLiveDataTrace(true);
@@ -936,7 +1149,8 @@ public abstract class TableView extends JPanel implements Serializable {
     	return table.getName();
     }
     
-    public static void showBadScalePopup(Table table, Scale scale) {
+    // Tables are populated in parallel, show one popup at a time
+    public static synchronized void showBadScalePopup(Table table, Scale scale) {
         JPanel panel = new JPanel();
         panel.setLayout(new GridLayout(4, 1));
         panel.add(new JLabel(MessageFormat.format(
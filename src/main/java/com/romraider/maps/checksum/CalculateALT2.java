@@ -26,11 +26,13 @@ import static com.romraider.maps.checksum.NissanChecksum.SUMLOC;
 import static com.romraider.maps.checksum.NissanChecksum.SUMT;
 import static com.romraider.maps.checksum.NissanChecksum.XORLOC;
 import static com.romraider.maps.checksum.NissanChecksum.XORT;
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
 
+import java.util.List;
 import java.util.Map;
 
 import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 
 public final class CalculateALT2 implements Calculator {
 
@@ -39,18 +41,23 @@ public final class CalculateALT2 implements Calculator {
 
     public final void calculate(
             Map<String, Integer> range,
-            byte[] binData,
+            RomImage image,
             Map<String, Integer> results) {
 
         // 32bit checksum calculation 
         int sumt = 0;
         int xort = 0;
         int dw = 0;
-        for (int i = range.get(START) + 4; i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC))
-                    || (i == range.get(XORLOC)
-                    || (i == range.get(SKIPLOC)))) continue;
-            dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
+        final int start = range.get(START);
+        final int end = range.get(END);
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        final int skiploc = range.get(SKIPLOC);
+        for (int i = start + 4; i < end; i += 4) {
+            if ((i == sumloc)
+                    || (i == xorloc
+                    || (i == skiploc))) continue;
+            dw = image.getInt(i, Settings.Endian.BIG);
             sumt += dw;
             xort ^= dw;
         }
@@ -59,29 +66,40 @@ public final class CalculateALT2 implements Calculator {
 
         // 16bit calibration checksum calculation
         short sum = 0;
-        for (int i = range.get(START) + 2; i < range.get(SKIPLOC); i += 2) {
-            if (i == range.get(SUMLOC)) {    // include 32bit sumt
+        for (int i = start + 2; i < skiploc; i += 2) {
+            if (i == sumloc) {    // include 32bit sumt
                 dw = results.get(SUMT);
                 sum += (short)((dw >> 16) & 0xffff);
                 sum += (short)(dw & 0xffff);
                 i += 2; // advance 2 bytes as sumt is 32bits
                 continue;
             }
-            if (i == range.get(XORLOC)) {    // include 32bit xort
+            if (i == xorloc) {    // include 32bit xort
                 dw = results.get(XORT);
                 sum += (short)((dw >> 16) & 0xffff);
                 sum += (short)(dw & 0xffff);
                 i += 2; // advance 2 bytes as xort is 32bits
                 continue;
             }        
-            sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false); 
+            sum += image.getShort(i, Settings.Endian.BIG);
         }
         results.put(START, (int)sum);
         // 16bit code checksum calculation
         sum = 0;
-        for (int i = range.get(SKIPLOC) + 2; i < range.get(END); i += 2) {
-            sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false);
+        for (int i = skiploc + 2; i < end; i += 2) {
+            sum += image.getShort(i, Settings.Endian.BIG);
         }
         results.put(SKIPLOC, (int)sum);
     }
+
+    public final boolean adjust(
+            Map<String, Integer> range,
+            List<DirtyRanges.Span> spans,
+            RomImage image,
+            Map<String, Integer> results) {
+
+        // the 16bit calibration checksum covers sumt and xort, which makes
+        // every change reach the whole calibration area
+        return false;
+    }
 }
@@ -25,11 +25,13 @@ import static com.romraider.maps.checksum.NissanChecksum.SUMLOC;
 import static com.romraider.maps.checksum.NissanChecksum.SUMT;
 import static com.romraider.maps.checksum.NissanChecksum.XORLOC;
 import static com.romraider.maps.checksum.NissanChecksum.XORT;
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
 
+import java.util.List;
 import java.util.Map;
 
 import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 
 public final class CalculateSTD implements Calculator {
 
@@ -38,19 +40,58 @@ public final class CalculateSTD implements Calculator {
 
     public final void calculate(
             Map<String, Integer> range,
-            byte[] binData,
+            RomImage image,
             Map<String, Integer> results) {
 
         int sumt = 0;
         int xort = 0;
         int dw = 0;
-        for (int i = range.get(START); i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC)) || (i == range.get(XORLOC))) continue;
-            dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
+        final int end = range.get(END);
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        for (int i = range.get(START); i < end; i += 4) {
+            if ((i == sumloc) || (i == xorloc)) continue;
+            dw = image.getInt(i, Settings.Endian.BIG);
             sumt += dw;
             xort ^= dw;
         }
         results.put(SUMT, sumt);
         results.put(XORT, xort);
     }
+
+    public final boolean adjust(
+            Map<String, Integer> range,
+            List<DirtyRanges.Span> spans,
+            RomImage image,
+            Map<String, Integer> results) {
+
+        // the sum and xor of 32bit words only need the changed words
+        // taken out at their old value and put back at the new one
+        int sumt = results.get(SUMT);
+        int xort = results.get(XORT);
+        int dw = 0;
+        int old = 0;
+        final int start = range.get(START);
+        final int end = range.get(END);
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        for (DirtyRanges.Span span : spans) {
+            final RomImage before = span.getOld();
+            final int last = Math.min(end, span.getEnd());
+            int i = start;
+            if (span.getStart() - 3 > start) {
+                i += (span.getStart() - 3 - start + 3) & ~3;
+            }
+            for (; i < last; i += 4) {
+                if ((i == sumloc) || (i == xorloc)) continue;
+                dw = image.getInt(i, Settings.Endian.BIG);
+                old = before.getInt(i - span.getOldStart(), Settings.Endian.BIG);
+                sumt += dw - old;
+                xort ^= dw ^ old;
+            }
+        }
+        results.put(SUMT, sumt);
+        results.put(XORT, xort);
+        return true;
+    }
 }
@@ -19,8 +19,12 @@
 
 package com.romraider.maps.checksum;
 
+import java.util.List;
 import java.util.Map;
 
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
+
 /**
  * The Calculator interface is implemented by CalculateXXX classes
  * which perform the actual checksum calculation.
@@ -30,9 +34,23 @@ public interface Calculator {
     /**
      * Calculate the sum and xor total over the address range provided.
      * @param	range	- a map of with the address ranges use.
-     * @param   binData - the binary data t calculate over.
+     * @param   image - the binary data to calculate over.
      * @param   results - a map containing the keys for sumt and xort
      */
     void calculate(
-            Map<String, Integer> range, byte[] binData, Map<String, Integer> results);
+            Map<String, Integer> range, RomImage image, Map<String, Integer> results);
+
+    /**
+     * Bring the results of an earlier calculation up to date with the
+     * bytes changed since.
+     * @param	range	- a map of with the address ranges use.
+     * @param   spans - the changed bytes and what they held before.
+     * @param   image - the binary data after the changes.
+     * @param   results - the results of the earlier calculation.
+     * @return  false if the results can not be adjusted and calculate
+     *          has to be used instead
+     */
+    boolean adjust(
+            Map<String, Integer> range, List<DirtyRanges.Span> spans,
+            RomImage image, Map<String, Integer> results);
 }
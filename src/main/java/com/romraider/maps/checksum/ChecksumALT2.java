@@ -19,12 +19,11 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-import static com.romraider.xml.RomAttributeParser.parseIntegerValue;
-
 import java.util.Map;
 
 import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 import com.romraider.util.HexUtil;
 
 /**
@@ -56,22 +55,23 @@ public final class ChecksumALT2 extends NissanChecksum {
 
     @Override
     public int validate(byte[] binData) {
-        calculator.calculate(range, binData, results);
+        final RomImage image = RomImage.wrap(binData);
+        calculator.calculate(range, image, results);
         int valid = 0;
 
-        if(results.get(SUMT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(SUMLOC), 4, true)) {
+        if(results.get(SUMT) == image.getInt(range.get(SUMLOC), Settings.Endian.BIG)) {
         	valid++;
         }
 
-        if(results.get(XORT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(XORLOC), 4, true)) {
+        if(results.get(XORT) == image.getInt(range.get(XORLOC), Settings.Endian.BIG)) {
         	valid++;
         }
 
-        if(results.get(START) == (short)parseByteValue(binData, Settings.Endian.BIG, range.get(START), 2, false)) {
+        if(results.get(START) == image.getShort(range.get(START), Settings.Endian.BIG)) {
         	valid++;
         }
 
-        if(results.get(SKIPLOC) == (short)parseByteValue(binData, Settings.Endian.BIG, range.get(SKIPLOC), 2, false)) {
+        if(results.get(SKIPLOC) == image.getShort(range.get(SKIPLOC), Settings.Endian.BIG)) {
         	valid++;
         }
 
@@ -82,8 +82,16 @@ public final class ChecksumALT2 extends NissanChecksum {
     public int update(byte[] binData) {
         // SUMT & XORT are updated in super before START and SKIPLOC
         super.update(binData);
-        System.arraycopy(parseIntegerValue(results.get(START), Settings.Endian.BIG, 2), 0, binData, range.get(START), 2);
-        System.arraycopy(parseIntegerValue(results.get(SKIPLOC), Settings.Endian.BIG, 2), 0, binData, range.get(SKIPLOC), 2);
+        final RomImage image = RomImage.wrap(binData);
+        image.putShort(range.get(START), results.get(START).shortValue(), Settings.Endian.BIG);
+        image.putShort(range.get(SKIPLOC), results.get(SKIPLOC).shortValue(), Settings.Endian.BIG);
         return getNumberOfChecksums();
     }
+
+    @Override
+    public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+        super.markChecksumLocations(binData, changes);
+        changes.mark(binData, range.get(START), 2);
+        changes.mark(binData, range.get(SKIPLOC), 2);
+    }
 }
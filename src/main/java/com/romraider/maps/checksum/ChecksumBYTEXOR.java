@@ -19,18 +19,17 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-
 import java.util.Map;
 
-import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 import com.romraider.util.HexUtil;
 
 /**
  * This class implements the XOR single byte checksum validation and calculations
  * for some BMW non-engine ECU ROMs.
  */
-    public final class ChecksumBYTEXOR implements ChecksumManager {
+    public final class ChecksumBYTEXOR implements IncrementalChecksumManager {
     private static final String START = "start";
     private static final String END = "end";
     private static final String XORLOC = "xorloc";
@@ -38,6 +37,7 @@ import com.romraider.util.HexUtil;
     private int end;
     private int xorloc;
     private byte xort;  
+    private byte[] calculatedData;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -53,10 +53,12 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        calculate(binData);
+        final RomImage image = RomImage.wrap(binData);
+        calculate(image);
+        calculatedData = binData;
         int valid = 0;
         
-        if(xort == (byte)parseByteValue(binData, Settings.Endian.BIG, xorloc, 1, false))
+        if(xort == image.getByte(xorloc))
         	valid++;
         	
         return valid;  	
@@ -65,7 +67,8 @@ import com.romraider.util.HexUtil;
     @Override
     public int update(byte[] binData) {
     	int updateNeeded = 0;
-		calculate(binData);
+		calculate(RomImage.wrap(binData));
+		calculatedData = binData;
 		
 		if(binData[xorloc] != xort) updateNeeded++;
 		
@@ -74,12 +77,40 @@ import com.romraider.util.HexUtil;
     	return updateNeeded;
     }
 
-    private void calculate(byte[] binData) {
+    @Override
+    public int update(byte[] binData, DirtyRanges changes) {
+        if (binData != calculatedData || changes.isOverflow()) {
+            return update(binData);
+        }
+        final RomImage image = RomImage.wrap(binData);
+        for (DirtyRanges.Span span : changes.getSpans(binData)) {
+            final RomImage before = span.getOld();
+            final int last = Math.min(end, span.getEnd());
+            for (int i = Math.max(start, span.getStart()); i < last; i++) {
+                if ((i == xorloc)) continue;
+                xort ^= image.getByte(i) ^ before.getByte(i - span.getOldStart());
+            }
+        }
+
+        int updateNeeded = 0;
+        if(binData[xorloc] != xort) updateNeeded++;
+
+        binData[xorloc] = xort;
+
+        return updateNeeded;
+    }
+
+    @Override
+    public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+        changes.mark(binData, xorloc, 1);
+    }
+
+    private void calculate(RomImage image) {
         xort = 0;
         int dw = 0;
         for (int i = start; i < end; i += 1) {
             if ((i == xorloc)) continue;
-            dw = (byte)parseByteValue(binData, Settings.Endian.BIG, i, 1, false);
+            dw = image.getByte(i);
             xort ^= dw;
         }
     }
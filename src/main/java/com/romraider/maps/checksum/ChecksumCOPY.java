@@ -20,6 +20,8 @@
 package com.romraider.maps.checksum;
 
 import java.util.Map;
+
+import com.romraider.maps.DirtyRanges;
 import com.romraider.util.HexUtil;
 
 /**
@@ -27,13 +29,14 @@ import com.romraider.util.HexUtil;
  * ECUs. It simply checks if an array of data is identical to a specified
  * location and copies it over if necessary
  */
-public final class ChecksumCOPY implements ChecksumManager {
+public final class ChecksumCOPY implements IncrementalChecksumManager {
 	private static final String START = "start";
 	private static final String END = "end";
 	private static final String LOC = "loc";
 	private int start; // Start of checksum area
 	private int end; // End of area (inclusive)
 	private int loc; // Start of location where data is copied
+	private byte[] copiedData; // Last data known to hold an identical copy
 
 	@Override
 	public void configure(Map<String, String> vars) {
@@ -53,9 +56,11 @@ public final class ChecksumCOPY implements ChecksumManager {
 	public int validate(byte[] binData) {
 		for (int i = 0; i <= end - start; i++) {
 			if (binData[start + i] != binData[loc + i]) {
+				copiedData = null;
 				return 0;
 			}
 		}
+		copiedData = binData;
 		return 1;
 	}
 
@@ -65,7 +70,22 @@ public final class ChecksumCOPY implements ChecksumManager {
 
 		if (updateNeeded > 0) {
 			System.arraycopy(binData, start, binData, loc, end - start + 1);
+			copiedData = binData;
 		}
 		return updateNeeded;
 	}
+
+	@Override
+	public int update(byte[] binData, DirtyRanges changes) {
+		if (binData == copiedData && !changes.intersects(start, end + 1)
+				&& !changes.intersects(loc, loc + end - start + 1)) {
+			return 0;
+		}
+		return update(binData);
+	}
+
+	@Override
+	public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+		changes.mark(binData, loc, end - start + 1);
+	}
 }
\ No newline at end of file
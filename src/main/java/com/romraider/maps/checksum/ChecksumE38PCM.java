@@ -19,17 +19,25 @@
 
 package com.romraider.maps.checksum;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.romraider.Settings.Endian;
-import com.romraider.xml.RomAttributeParser;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
+import com.romraider.util.ThreadUtil;
 
 /**
  * This class implements the E38 (GM) PCM checksum algorithm Implementation
  * ported from: https://github.com/antuspcm/E38-Sum-Tool
  */
-public final class ChecksumE38PCM implements ChecksumManager {
+public final class ChecksumE38PCM implements IncrementalChecksumManager {
+	private static final int INDEX = 0x10000;
+	private static final int INDEX_SIZE = 0xdc;
 	segment[] seg = new segment[7];
+	private byte[] calculatedData;
 
 	class segment {
 		public int start;
@@ -53,6 +61,7 @@ public final class ChecksumE38PCM implements ChecksumManager {
 	@Override
 	public int validate(byte[] binData) {
 		calculate(binData);
+		calculatedData = seg[1].calculated ? binData : null;
 
 		int correctChecksums = 0;
 		for (int i = 1; i <= 6; i++) {
@@ -70,85 +79,171 @@ public final class ChecksumE38PCM implements ChecksumManager {
 
 	@Override
 	public int update(byte[] binData) {
-		int correctedChecksums = 0;
-		
-		// Seems like some checksums depend on each other?
-		// Need to do it twice
-		for (int k = 0; k < 2; k++) {
-			calculate(binData);
+		return updateSegments(binData, null);
+	}
+
+	/**
+	 * Only the segments holding changed bytes are summed again, the CRC
+	 * can not be adjusted for a change in the middle of a segment.
+	 */
+	@Override
+	public int update(byte[] binData, DirtyRanges changes) {
+		if (binData != calculatedData || changes.isOverflow()
+				|| changes.intersects(INDEX, INDEX + INDEX_SIZE)) {
+			return updateSegments(binData, null);
+		}
+		return updateSegments(binData, changes);
+	}
 
+	@Override
+	public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+		final segment[] index = new segment[7];
+		if (loadIndex(RomImage.wrap(binData), index)) {
 			for (int i = 1; i <= 6; i++) {
-				if (seg[i].ccvn != seg[i].lcvn) {
-					correctedChecksums++;
+				changes.mark(binData, index[i].start, 2);
+				changes.mark(binData, index[i].start + 0x1E, 2);
+			}
+		}
+	}
 
-					binData[seg[i].start + 0x1E] = (byte) ((seg[i].ccvn >>> 8) & 0xFF);
-					binData[seg[i].start + 0x1E + 1] = (byte) ((seg[i].ccvn) & 0xFF);
+	private int updateSegments(byte[] binData, DirtyRanges changes) {
+		if (changes == null) {
+			calculate(binData);
+			if (!seg[1].calculated) {
+				return 0;
+			}
+		}
+		final RomImage image = RomImage.wrap(binData);
+		final boolean[] stale = new boolean[7];
+		for (int i = 1; i <= 6; i++) {
+			stale[i] = changes != null && changes.intersects(seg[i].start, seg[i].end + 1);
+		}
 
+		// Seems like some checksums depend on each other?
+		// Need to do it twice, summing again what the first writes touched
+		int correctedChecksums = 0;
+		for (int k = 0; k < 3; k++) {
+			for (int i = 1; i <= 6; i++) {
+				if (stale[i]) {
+					calculateSegment(image, binData, seg[i]);
+					stale[i] = false;
 				}
-				if (seg[i].lsum != seg[i].csum) {
-					correctedChecksums++;
-
-					binData[seg[i].start] = (byte) ((seg[i].csum >>> 8) & 0xFF);
-					binData[seg[i].start + 1] = (byte) ((seg[i].csum) & 0xFF);
+			}
+			if (k == 2) {
+				break;
+			}
+			for (int i = 1; i <= 6; i++) {
+				final int written = write(binData, seg[i]);
+				if (written > 0) {
+					correctedChecksums += written;
+					for (int j = 1; j <= 6; j++) {
+						stale[j] |= covers(seg[j], seg[i].start)
+								|| covers(seg[j], seg[i].start + 0x1E);
+					}
 				}
 			}
 		}
+		calculatedData = binData;
+		return correctedChecksums;
+	}
+
+	private static boolean covers(segment s, int address) {
+		return address + 1 >= s.start && address <= s.end;
+	}
+
+	private static int write(byte[] binData, segment s) {
+		int correctedChecksums = 0;
+		if (s.ccvn != s.lcvn) {
+			correctedChecksums++;
+
+			binData[s.start + 0x1E] = (byte) ((s.ccvn >>> 8) & 0xFF);
+			binData[s.start + 0x1E + 1] = (byte) ((s.ccvn) & 0xFF);
+			s.lcvn = s.ccvn;
+		}
+		if (s.lsum != s.csum) {
+			correctedChecksums++;
+
+			binData[s.start] = (byte) ((s.csum >>> 8) & 0xFF);
+			binData[s.start + 1] = (byte) ((s.csum) & 0xFF);
+			s.lsum = s.csum;
+		}
 		return correctedChecksums;
 	}
 
-	private void calculate(byte[] bin) {
+	private void calculate(final byte[] bin) {
+		final RomImage image = RomImage.wrap(bin);
+		if (!loadIndex(image, seg)) {
+			return;
+		}
+
+		// load data, log, the segments are independent
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 1; i <= 6; i++) {
+			final segment s = seg[i];
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					calculateSegment(image, bin, s);
+					return null;
+				}
+			});
+		}
+		ThreadUtil.invokeAll(tasks);
+	}
+
+	private void calculateSegment(RomImage image, byte[] bin, segment s) {
+		s.lsum = image.getShort(s.start, Endian.BIG);
+		s.lcvn = image.getShort(s.start + 0x1E, Endian.BIG);
+		s.csum = segmentsum(image, s.start, s.end);
+		s.ccvn = segmentcvn(bin, s.start, s.end);
+		s.calculated = true;
+	}
+
+	private boolean loadIndex(RomImage image, segment[] seg) {
 		// load index
-		int index = 0x10000;
+		int index = INDEX;
 		for (int i = 1; i <= 6; i++) {
 			seg[i] = new segment();
 		}
 
-		seg[1].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x24, 4, false);
-		seg[1].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x28, 4, false);
-		seg[2].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x48, 4, false);
-		seg[2].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x4c, 4, false);
-		seg[3].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x6b, 4, false);
-		seg[3].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x6f, 4, false);
-		seg[4].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x8e, 4, false);
-		seg[4].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0x92, 4, false);
-		seg[5].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0xb1, 4, false);
-		seg[5].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0xb5, 4, false);
-		seg[6].start = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0xd4, 4, false);
-		seg[6].end = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, index + 0xd8, 4, false);
+		seg[1].start = image.getInt(index + 0x24, Endian.BIG);
+		seg[1].end = image.getInt(index + 0x28, Endian.BIG);
+		seg[2].start = image.getInt(index + 0x48, Endian.BIG);
+		seg[2].end = image.getInt(index + 0x4c, Endian.BIG);
+		seg[3].start = image.getInt(index + 0x6b, Endian.BIG);
+		seg[3].end = image.getInt(index + 0x6f, Endian.BIG);
+		seg[4].start = image.getInt(index + 0x8e, Endian.BIG);
+		seg[4].end = image.getInt(index + 0x92, Endian.BIG);
+		seg[5].start = image.getInt(index + 0xb1, Endian.BIG);
+		seg[5].end = image.getInt(index + 0xb5, Endian.BIG);
+		seg[6].start = image.getInt(index + 0xd4, Endian.BIG);
+		seg[6].end = image.getInt(index + 0xd8, Endian.BIG);
 
 		for (int a = 1; a <= 6; a++) {
 			if (seg[a].start > 0x200000) {
 				// log.AppendText("Segment " + a + " start is out of range" +
-				return;
+				return false;
 			}
 
 			if (seg[a].end > 0x200000) {
 				// log.AppendText("Segment " + a + " end is out of range" +
-				return;
+				return false;
 			}
 
 			if (seg[a].start % 2 != 0) {
 				// log.AppendText("Segment " + a + " does not start on a word boundry" +
-				return;
+				return false;
 			}
 			if (seg[a].end % 2 == 0) {
 				// log.AppendText("Segment " + a + " does not end on a word boundry" +
-				return;
+				return false;
 			}
 			if (seg[a].end - seg[a].start < 0x24) {
 				// log.AppendText("Segment " + a + " is impossibly short" +
-				return;
+				return false;
 			}
 		}
-
-		// load data, log
-		for (int i = 1; i <= 6; i++) {
-			seg[i].lsum = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start, 2, false);
-			seg[i].lcvn = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start + 0x1E, 2, false);
-			seg[i].csum = segmentsum(bin, seg[i].start, seg[i].end);
-			seg[i].ccvn = segmentcvn(bin, seg[i].start, seg[i].end);
-			seg[i].calculated = true;
-		}
+		return true;
 	}
 
 	private int gmcrc16(byte[] bin, long init, int s, int e) {
@@ -210,10 +305,10 @@ public final class ChecksumE38PCM implements ChecksumManager {
 		return 0;
 	}
 
-	public short segmentsum(byte[] bin, int s, int e) {
+	public short segmentsum(RomImage image, int s, int e) {
 		int sum = 0;
 		for (int i = s + 2; i <= e; i += 2) {
-			int combined = (int) RomAttributeParser.parseByteValue(bin, Endian.BIG, i, 2, false);
+			int combined = image.getUnsignedShort(i, Endian.BIG);
 			sum += combined;
 		}
 		sum = (((sum & 0xFFFF) ^ 0xFFFF) + 1) & 0xFFFF;
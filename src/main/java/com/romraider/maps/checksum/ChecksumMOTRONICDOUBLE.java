@@ -19,11 +19,10 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-
 import java.util.Map;
 
-import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 import com.romraider.util.HexUtil;
 
 /**
@@ -49,34 +48,19 @@ import com.romraider.util.HexUtil;
 	}
 
     @Override
-    public int validate(byte[] binData) {
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-        int valid = 0;
-        
-        if(checksum == checksumInBin)
-        	valid++;
-        	
-        return valid;  	
+    protected short calculate(RomImage image) {
+		short checksum = calculate(initial, image, start, end);
+		return calculate(checksum, image, start2, end2);
     }
-    
+
+    @Override
+    protected short adjust(short value, RomImage image, DirtyRanges.Span span) {
+		short checksum = adjust(value, image, span, start, end);
+		return adjust(checksum, image, span, start2, end2);
+    }
+
     @Override
-    public int update(byte[] binData) {
-    	int updateNeeded = 0;
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-		
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		
-		if(checksumInBin != checksum)
-		{
-			updateNeeded++;
-		
-	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
-	    	binData[loc+1] = (byte)((checksum) & 0xFF);
-		}
-    	
-    	return updateNeeded;
+    protected boolean covers(int address) {
+        return super.covers(address) || (address >= start2 && address <= end2);
     }
-}
\ No newline at end of file
+}
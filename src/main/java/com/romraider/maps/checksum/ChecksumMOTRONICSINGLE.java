@@ -19,17 +19,17 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-
 import java.util.Map;
 
 import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 import com.romraider.util.HexUtil;
 
 /**
  * This class implements the Single Checksum for some older Motronic Ecus
  */
-    public class ChecksumMOTRONICSINGLE implements ChecksumManager {
+    public class ChecksumMOTRONICSINGLE implements IncrementalChecksumManager {
     protected static final String START = "start";
     protected static final String END = "end";
     protected static final String LOC = "loc";
@@ -39,6 +39,8 @@ import com.romraider.util.HexUtil;
     protected int end;
     protected int loc;
     protected short initial = 0;
+    private short checksum;
+    private byte[] calculatedData;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -57,8 +59,10 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        short checksum = calculate(initial, binData, start, end);
-        short checksumInBin = (short) parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
+        final RomImage image = RomImage.wrap(binData);
+        short checksum = calculate(image);
+        short checksumInBin = image.getShort(loc, Settings.Endian.BIG);
+        cache(binData, checksum);
         int valid = 0;
         
         if(checksum == checksumInBin)
@@ -69,26 +73,90 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int update(byte[] binData) {
+		return update(binData, calculate(RomImage.wrap(binData)));
+    }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges changes) {
+        if (binData != calculatedData || changes.isOverflow()) {
+            return update(binData);
+        }
+        final RomImage image = RomImage.wrap(binData);
+        short checksum = this.checksum;
+        for (DirtyRanges.Span span : changes.getSpans(binData)) {
+            checksum = adjust(checksum, image, span);
+        }
+        return update(binData, checksum);
+    }
+
+    @Override
+    public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+        changes.mark(binData, loc, 2);
+    }
+
+    private int update(byte[] binData, short checksum) {
     	int updateNeeded = 0;
-		short checksum = calculate(initial, binData, start, end);
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
+		short checksumInBin = RomImage.wrap(binData).getShort(loc, Settings.Endian.BIG);
+		cache(binData, checksum);
 		
 		if(checksumInBin != checksum) {
 			updateNeeded++;
 			
 	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
 	    	binData[loc+1] = (byte)((checksum) & 0xFF);
+
+	    	// a checksum stored inside its own range changes its own sum
+	    	if (covers(loc) || covers(loc + 1)) {
+	    	    calculatedData = null;
+	    	}
 		}
 		 	
     	return updateNeeded;
     }
-    
-    public static short calculate(short initalValue, byte[] binData, int startAddress, int endAddress) {
+
+    private void cache(byte[] binData, short checksum) {
+        this.checksum = checksum;
+        this.calculatedData = binData;
+    }
+
+    /**
+     * Calculate the checksum over all ranges of the ROM file.
+     */
+    protected short calculate(RomImage image) {
+        return calculate(initial, image, start, end);
+    }
+
+    /**
+     * Bring a checksum calculated earlier up to date with changed bytes.
+     */
+    protected short adjust(short value, RomImage image, DirtyRanges.Span span) {
+        return adjust(value, image, span, start, end);
+    }
+
+    /**
+     * @return true if the address is summed into the checksum
+     */
+    protected boolean covers(int address) {
+        return address >= start && address <= end;
+    }
+
+    public static short calculate(short initalValue, RomImage image, int startAddress, int endAddress) {
         short value = initalValue;
         for (int i = startAddress; i <= endAddress; i++) {
-        	value += parseByteValue(binData, Settings.Endian.BIG, i, 1, false);
+        	value += image.getUnsignedByte(i);
         }
         
         return value;
     }
-}
\ No newline at end of file
+
+    public static short adjust(short value, RomImage image, DirtyRanges.Span span,
+            int startAddress, int endAddress) {
+        final RomImage before = span.getOld();
+        final int last = Math.min(endAddress + 1, span.getEnd());
+        for (int i = Math.max(startAddress, span.getStart()); i < last; i++) {
+            value += image.getUnsignedByte(i) - before.getUnsignedByte(i - span.getOldStart());
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import com.romraider.maps.DirtyRanges;
+
+/**
+ * A Checksum Manager which can bring its checksums up to date from the
+ * bytes changed since it last saw the ROM file, instead of working
+ * through the whole file on every save.
+ */
+public interface IncrementalChecksumManager extends ChecksumManager {
+
+    /**
+     * Update the checksum upon saving the ROM file.  If data is the array
+     * last passed to validate or update the checksums are only worked out
+     * again where changes says the file differs, otherwise this is the same
+     * as {@link #update(byte[])}.
+     * @param	data - the ROM file to update
+     * @param	changes - every change made to data since it was last
+     * 					validated or updated by this manager
+     * @return Number of checksums which needed to be updated
+     */
+    int update(byte[] data, DirtyRanges changes);
+
+    /**
+     * Mark the bytes an update of the ROM file may write, before it
+     * writes them, so other managers covering those bytes see the change.
+     * @param	data - the ROM file about to be updated
+     * @param	changes - the changes to add the checksum locations to
+     */
+    void markChecksumLocations(byte[] data, DirtyRanges changes);
+}
@@ -19,20 +19,19 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-import static com.romraider.xml.RomAttributeParser.parseIntegerValue;
-
 import java.util.HashMap;
 import java.util.Map;
 
 import com.romraider.Settings;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
 import com.romraider.util.HexUtil;
 
 /**
  * This class provides common methods implemented by different
  * checksum calculation type classes.
  */
-    abstract class NissanChecksum implements ChecksumManager {
+    abstract class NissanChecksum implements IncrementalChecksumManager {
         public static final String START = "start";
         public static final String END = "end";
         public static final String SUMLOC = "sumloc";
@@ -42,6 +41,7 @@ import com.romraider.util.HexUtil;
         protected final Map<String, Integer> range = new HashMap<String, Integer>();
         protected final Map<String, Integer> results = new HashMap<String, Integer>();
         protected Calculator calculator;
+        private byte[] calculatedData;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -58,14 +58,16 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        calculator.calculate(range, binData, results);
+        final RomImage image = RomImage.wrap(binData);
+        calculator.calculate(range, image, results);
+        calculatedData = binData;
         int valid = 0;
 
-        if(results.get(SUMT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(SUMLOC), 4, true)) {
+        if(results.get(SUMT) == image.getInt(range.get(SUMLOC), Settings.Endian.BIG)) {
         	valid++;
         }
 
-        if((results.get(XORT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(XORLOC), 4, true))) {
+        if((results.get(XORT) == image.getInt(range.get(XORLOC), Settings.Endian.BIG))) {
         	valid++;
         }
 
@@ -74,9 +76,29 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int update(byte[] binData) {
-        calculator.calculate(range, binData, results);
-        System.arraycopy(parseIntegerValue(results.get(SUMT), Settings.Endian.BIG, 4), 0, binData, range.get(SUMLOC), 4);
-        System.arraycopy(parseIntegerValue(results.get(XORT), Settings.Endian.BIG, 4), 0, binData, range.get(XORLOC), 4);
+        final RomImage image = RomImage.wrap(binData);
+        calculator.calculate(range, image, results);
+        calculatedData = binData;
+        image.putInt(range.get(SUMLOC), results.get(SUMT), Settings.Endian.BIG);
+        image.putInt(range.get(XORLOC), results.get(XORT), Settings.Endian.BIG);
         return getNumberOfChecksums();
     }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges changes) {
+        final RomImage image = RomImage.wrap(binData);
+        if (binData != calculatedData || changes.isOverflow() ||
+                !calculator.adjust(range, changes.getSpans(binData), image, results)) {
+            return update(binData);
+        }
+        image.putInt(range.get(SUMLOC), results.get(SUMT), Settings.Endian.BIG);
+        image.putInt(range.get(XORLOC), results.get(XORT), Settings.Endian.BIG);
+        return getNumberOfChecksums();
+    }
+
+    @Override
+    public void markChecksumLocations(byte[] binData, DirtyRanges changes) {
+        changes.mark(binData, range.get(SUMLOC), 4);
+        changes.mark(binData, range.get(XORLOC), 4);
+    }
 }
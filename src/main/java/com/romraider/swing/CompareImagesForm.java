@@ -28,6 +28,7 @@ import java.awt.event.ActionListener;
 import java.text.MessageFormat;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
@@ -40,19 +41,24 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import org.apache.log4j.Logger;
+
 import com.romraider.Settings;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.maps.Rom;
-import com.romraider.maps.Table;
+import com.romraider.maps.RomComparison;
+import com.romraider.util.NumberUtil;
 import com.romraider.util.ResourceUtil;
 
 public class CompareImagesForm extends JFrame implements ActionListener {
     private static final long serialVersionUID = -8937472127815934398L;
+    private static final Logger LOGGER = Logger.getLogger(CompareImagesForm.class);
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             CompareImagesForm.class.getName());
     private final Vector<Rom> roms;
@@ -127,6 +133,11 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             public void valueChanged(ListSelectionEvent arg0) {
                 if (!arg0.getValueIsAdjusting()) {
                     ListItem selectedTableName = (ListItem) listChanges.getSelectedValue();
+                    // only table entries open tables
+                    if (selectedTableName == null || selectedTableName.getType() < 1
+                            || selectedTableName.getType() > 3) {
+                        return;
+                    }
                     String tableName = selectedTableName.getValue();
                     Rom leftRom = (Rom) comboBoxImageLeft.getSelectedItem();
                     Rom rightRom = (Rom) comboBoxImageRight.getSelectedItem();
@@ -169,72 +180,84 @@ public class CompareImagesForm extends JFrame implements ActionListener {
         }
     }
 
-    public void compareTables(Rom left, Rom right)
+    /**
+     * Compare the images in the background and list the results when done.
+     */
+    public void compareTables(final Rom left, final Rom right)
     {
         listModelChanges.clear();
+        btnCompare.setEnabled(false);
+        lblImageResultString.setText(rb.getString("COMPARING"));
+        lblImageResultString.setForeground(Color.BLACK);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-        int equal = 0;
-        int different = 0;
-        int missing = 0;
-
-        //TODO: Utilize map correctly!
-        for(TableTreeNode leftNode : left.getTableNodes().values())
-        {
-            Boolean found = false;
-            Table leftTable = leftNode.getTable();
-            for(TableTreeNode rightNode : right.getTableNodes().values())
-            {
-                Table rightTable = rightNode.getTable();
+        new SwingWorker<RomComparison, Void>() {
+            @Override
+            protected RomComparison doInBackground() {
+                return RomComparison.compare(left, right);
+            }
 
-                if(leftTable.getName().equalsIgnoreCase(rightTable.getName()))
-                {
-                    if(leftTable.equals(rightTable)) {
-                        equal++;
-                        listModelChanges.addElement(new ListItem(1, leftTable.getName()));
-                    }
-                    else {
-                        different++;
-                        listModelChanges.add(0, new ListItem(2, leftTable.getName()));
-                    }
-                    found = true;
-                    break;
+            @Override
+            protected void done() {
+                try {
+                    showResults(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Unable to compare images", e.getCause());
+                    listModelChanges.clear();
+                    lblImageResultString.setText(rb.getString("NOCOMPARE"));
+                    lblImageResultString.setForeground(Color.RED);
+                } finally {
+                    btnCompare.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
                 }
             }
+        }.execute();
+    }
 
-            if(!found) {
-                missing++;
-                listModelChanges.add(0, new ListItem(3, leftTable.getName()));
-            }
-        }
+    private void showResults(RomComparison comparison)
+    {
+        listModelChanges.clear();
 
-        // Check if rightTables has tables that do not exist in left table.
-        for(TableTreeNode rightFrame : right.getTableNodes().values()) {
-            Boolean found = false;
-            for(TableTreeNode leftFrame : left.getTableNodes().values()) {
-                if(leftFrame.getTable().getName().equalsIgnoreCase(rightFrame.getTable().getName()))
-                {
-                    found = true;
-                    break;
-                }
-            }
+        final int equal = comparison.getEqualCount();
+        final int different = comparison.getDifferentCount();
+        final int missing = comparison.getMissingCount();
+        final int regions = comparison.getUncoveredRegions().size();
 
-            if(!found) {
-                missing++;
-                listModelChanges.add(0, new ListItem(3, rightFrame.getTable().getName()));
+        for (RomComparison.TableDiff diff : comparison.getTables()) {
+            switch (diff.getStatus()) {
+            case EQUAL:
+                listModelChanges.addElement(new ListItem(1, diff.getName()));
+                break;
+            case DIFFERENT:
+                listModelChanges.add(0, new ListItem(2, diff.getName(), getDetail(diff)));
+                break;
+            default:
+                listModelChanges.add(0, new ListItem(3, diff.getName()));
+                break;
             }
         }
 
+        for (RomComparison.ByteRegion region : comparison.getUncoveredRegions()) {
+            listModelChanges.addElement(new ListItem(4, MessageFormat.format(
+                    rb.getString("RAWBYTES"),
+                    Integer.toHexString(region.getStart()).toUpperCase(),
+                    Integer.toHexString(region.getEnd() - 1).toUpperCase(),
+                    region.getEnd() - region.getStart())));
+        }
+
         // Fill out the result string.
-        if(equal > 0 && different == 0 && missing == 0) {
+        if(equal > 0 && comparison.isEqual()) {
             lblImageResultString.setText(rb.getString("LBLEQUALS"));
             lblImageResultString.setForeground(Settings.TABLE_EQUAL_COLOR);
-        } else if(different > 0) {
+        } else if(different > 0 || regions > 0) {
             lblImageResultString.setText(MessageFormat.format(
-                    rb.getString("LBLNOTEQUAL"), equal, different, missing));
+                    rb.getString("LBLNOTEQUAL"), equal, different, missing, regions));
             lblImageResultString.setForeground(Settings.TABLE_DIFFERENT_COLOR);
         } else {
             lblImageResultString.setText(MessageFormat.format(
-                    rb.getString("LBLNOTEQUAL"), equal, different, missing));
+                    rb.getString("LBLNOTEQUAL"), equal, different, missing, regions));
             lblImageResultString.setForeground(Settings.TABLE_MISSING_COLOR);
         }
 
@@ -265,9 +288,19 @@ public class CompareImagesForm extends JFrame implements ActionListener {
 
     }
 
+    private static String getDetail(RomComparison.TableDiff diff) {
+        if (diff.getChangedCells() == 0) {
+            return rb.getString("AXISCHANGED");
+        }
+        final String detail = MessageFormat.format(rb.getString("CELLSCHANGED"),
+                diff.getChangedCells(), NumberUtil.stringValue(diff.getMaxDelta()),
+                diff.getFirstX() + 1, diff.getLastX() + 1,
+                diff.getFirstY() + 1, diff.getLastY() + 1);
+        return diff.isAxesChanged() ? detail + ", " + rb.getString("AXISCHANGED") : detail;
+    }
+
     @Override
     public void actionPerformed(ActionEvent e) {
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         if (e.getSource() == this.btnCompare) {
             if(this.comboBoxImageLeft.getItemCount() > 0 && this.comboBoxImageRight.getItemCount() > 0)
             {
@@ -279,7 +312,6 @@ public class CompareImagesForm extends JFrame implements ActionListener {
                 }
             }
         }
-        this.setCursor(Cursor.getDefaultCursor());
     }
 
     class ComboBoxRenderer extends JLabel implements ListCellRenderer
@@ -350,8 +382,13 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             case 2:
                 // different - default red
                 setForeground(Settings.TABLE_DIFFERENT_COLOR);
-                setText(MessageFormat.format(
-                        rb.getString("MODIFIED"), item.getValue()));
+                if (item.getDetail() == null) {
+                    setText(MessageFormat.format(
+                            rb.getString("MODIFIED"), item.getValue()));
+                } else {
+                    setText(MessageFormat.format(
+                            rb.getString("MODIFIEDDETAIL"), item.getValue(), item.getDetail()));
+                }
                 break;
             case 3:
                 // missing - default yellow
@@ -359,6 +396,11 @@ public class CompareImagesForm extends JFrame implements ActionListener {
                 setText(MessageFormat.format(
                         rb.getString("MISSING"), item.getValue()));
                 break;
+            case 4:
+                // raw bytes outside of tables
+                setForeground(Settings.TABLE_DIFFERENT_COLOR);
+                setText(item.getValue());
+                break;
             default:
                 setForeground(paramList.getForeground());
                 setText(item.getValue());
@@ -372,10 +414,16 @@ public class CompareImagesForm extends JFrame implements ActionListener {
 
         private int type;
         private String value;
+        private String detail;
 
         public ListItem(int type, String value) {
+            this(type, value, null);
+        }
+
+        public ListItem(int type, String value, String detail) {
             this.type = type;
             this.value = value;
+            this.detail = detail;
         }
 
         public int getType() {
@@ -394,5 +442,9 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             this.value = value;
         }
 
+        public String getDetail() {
+            return detail;
+        }
+
     }
 }
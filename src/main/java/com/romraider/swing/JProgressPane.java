@@ -29,6 +29,7 @@ import java.util.ResourceBundle;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 
 import com.romraider.util.ResourceUtil;
 
@@ -41,6 +42,10 @@ public class JProgressPane extends JPanel implements PropertyChangeListener{
     JProgressBar progressBar = new JProgressBar(JProgressBar.HORIZONTAL, 0, 100);
     String status = "ready";
     int percent = 0;
+    private final Object pendingLock = new Object();
+    private String pendingStatus;
+    private int pendingPercent;
+    private boolean updatePending;
 
     public JProgressPane() {
 
@@ -63,7 +68,40 @@ public class JProgressPane extends JPanel implements PropertyChangeListener{
         progressBar.setValue(percent);
     }
 
+    /**
+     * Update the status from any thread.  Calls made while an earlier one is
+     * still waiting for the event dispatch thread only replace its values,
+     * so a busy loader costs at most one repaint per event.
+     */
+    public void updateLater(String status, int percent) {
+        synchronized (pendingLock) {
+            pendingStatus = status;
+            pendingPercent = percent;
+            if (updatePending) {
+                return;
+            }
+            updatePending = true;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                final String status;
+                final int percent;
+                synchronized (pendingLock) {
+                    status = pendingStatus;
+                    percent = pendingPercent;
+                    updatePending = false;
+                }
+                update(status, percent);
+            }
+        });
+    }
+
     public void setStatus(String status) {
+        synchronized (pendingLock) {
+            // a later status wins over one still waiting in updateLater
+            pendingStatus = status;
+        }
         this.status = status;
         label.setText(" " + status);  
     }
@@ -164,6 +164,9 @@ public class TableFrame extends JInternalFrame implements InternalFrameListener,
         } else if (e.getSource() == menu.getCopyTable()) {
             getTableView().copyTable();
 
+        } else if (e.getSource() == menu.getCopyHistogram()) {
+            getTableView().copyLiveDataHistogram();
+
         } else if (e.getSource() == menu.getPaste()) {
             getTableView().paste();
 
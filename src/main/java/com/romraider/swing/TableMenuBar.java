@@ -60,6 +60,7 @@ public class TableMenuBar extends JMenuBar {
     private JMenuItem revert = new JMenuItem(rb.getString("SETREVERT"));
     private JMenuItem copySel = new JMenuItem(rb.getString("COPYSEL"));
     private JMenuItem copyTable = new JMenuItem(rb.getString("COPYTBL"));
+    private JMenuItem copyHistogram = new JMenuItem(rb.getString("COPYHIST"));
     private JMenuItem paste = new JMenuItem(rb.getString("PASTE"));
     private JMenuItem interp = new JMenuItem(rb.getString("INTERP"));
     private JMenuItem vertInterp = new JMenuItem(rb.getString("VINTERP"));
@@ -107,6 +108,7 @@ public class TableMenuBar extends JMenuBar {
         editMenu.add(new JSeparator());
         editMenu.add(getCopySel());
         editMenu.add(getCopyTable());
+        editMenu.add(getCopyHistogram());
         editMenu.add(new JSeparator());
         editMenu.add(getPaste());
         editMenu.add(new JSeparator());
@@ -122,6 +124,8 @@ public class TableMenuBar extends JMenuBar {
         getRevert().setMnemonic('R');
         getCopySel().setMnemonic('C');
         getCopyTable().setMnemonic('T');
+        getCopyHistogram().setMnemonic('L');
+        getCopyHistogram().setToolTipText(rb.getString("COPYHISTTT"));
         getPaste().setMnemonic('P');
         getInterp().setMnemonic('I');
         getVertInterp().setMnemonic('V');
@@ -132,6 +136,7 @@ public class TableMenuBar extends JMenuBar {
         getRevert().addActionListener(frame);
         getCopySel().addActionListener(frame);
         getCopyTable().addActionListener(frame);
+        getCopyHistogram().addActionListener(frame);
         getPaste().addActionListener(frame);
         getInterp().addActionListener(frame);
         getVertInterp().addActionListener(frame);
@@ -260,6 +265,10 @@ public class TableMenuBar extends JMenuBar {
         return copyTable;
     }
 
+    public JMenuItem getCopyHistogram() {
+        return copyHistogram;
+    }
+
     public JMenuItem getPaste() {
         return paste;
     }
@@ -0,0 +1,192 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Formats doubles straight into a byte array, producing the same text as
+ * {@link DecimalFormat} for the plain patterns used by logger definitions
+ * (<code>0</code>, <code>#0.00</code>, <code>0.###</code>, ...) without
+ * creating a <code>String</code> per value.
+ * <p>
+ * Patterns with grouping, exponents, percent, affixes or quoting, as well
+ * as locales with non ASCII digits or separators, fall back to a
+ * <code>DecimalFormat</code> and still produce identical output.
+ * Like <code>DecimalFormat</code>, instances are not thread safe.
+ */
+public final class ByteDecimalFormat {
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L
+    };
+    private static final double MAX_EXACT = 9.0e15;
+    // sign, 16 integer digits, separator and 15 fraction digits
+    private static final int MAX_SIMPLE_LENGTH = 33;
+    private final DecimalFormat fallback;
+    private final String pattern;
+    private final boolean simple;
+    private final int minInt;
+    private final int minFrac;
+    private final int maxFrac;
+    private final byte zero;
+    private final byte decimal;
+    private final byte minus;
+    private final byte[] digits = new byte[20];
+
+    public ByteDecimalFormat(String pattern) {
+        this.pattern = pattern;
+        this.fallback = new DecimalFormat(pattern);
+        final DecimalFormatSymbols symbols = fallback.getDecimalFormatSymbols();
+        zero = (byte) symbols.getZeroDigit();
+        decimal = (byte) symbols.getDecimalSeparator();
+        minus = (byte) symbols.getMinusSign();
+
+        int intZeros = 0;
+        int fracZeros = 0;
+        int fracDigits = 0;
+        boolean inFraction = false;
+        boolean valid = pattern.length() > 0
+                && isAscii(symbols.getZeroDigit())
+                && isAscii(symbols.getDecimalSeparator())
+                && isAscii(symbols.getMinusSign());
+        for (int i = 0; valid && i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '#') {
+                if (inFraction) {
+                    fracDigits++;
+                } else {
+                    valid = intZeros == 0;
+                }
+            } else if (c == '0') {
+                if (inFraction) {
+                    valid = fracZeros == fracDigits;
+                    fracZeros++;
+                    fracDigits++;
+                } else {
+                    intZeros++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                valid = false;
+            }
+        }
+        simple = valid && fracDigits < POW10.length
+                && fallback.getMinimumIntegerDigits() == intZeros
+                && fallback.getMaximumFractionDigits() == fracDigits
+                && fallback.getMinimumFractionDigits() == fracZeros
+                && !fallback.isDecimalSeparatorAlwaysShown();
+        minInt = intZeros;
+        minFrac = fracZeros;
+        maxFrac = fracDigits;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Format the value into the buffer.
+     * @return the position after the last byte written or -1 if the buffer
+     * is too small, in which case nothing was written
+     */
+    public int format(double value, byte[] buffer, int offset) {
+        if (!simple || Double.isNaN(value) || Double.isInfinite(value)
+                || buffer.length - offset < MAX_SIMPLE_LENGTH) {
+            return write(fallback.format(value), buffer, offset);
+        }
+        final boolean negative = value < 0.0
+                || (value == 0.0 && 1.0 / value < 0.0);
+        final double abs = Math.abs(value);
+        final long scale = POW10[maxFrac];
+        final double scaled = abs * scale;
+        if (scaled >= MAX_EXACT) {
+            return write(fallback.format(value), buffer, offset);
+        }
+        final double fraction = scaled - Math.floor(scaled);
+        final double tolerance = Math.max(1e-9, Math.ulp(scaled) * 4);
+        if (Math.abs(fraction - 0.5) <= tolerance) {
+            // DecimalFormat resolves ties on its shortest decimal digits,
+            // leave these rare values to it
+            return write(fallback.format(value), buffer, offset);
+        }
+        final long rounded = (long) Math.rint(scaled);
+        long integer = rounded / scale;
+        long fractional = rounded % scale;
+
+        int pos = offset;
+        if (negative) {
+            buffer[pos++] = minus;
+        }
+
+        // fraction digits printed, dropping trailing zeros down to minFrac
+        int fracCount = maxFrac;
+        while (fracCount > minFrac && fractional % 10 == 0) {
+            fractional /= 10;
+            fracCount--;
+        }
+
+        int n = 0;
+        while (integer > 0) {
+            digits[n++] = (byte) (zero + (int) (integer % 10));
+            integer /= 10;
+        }
+        int intCount = Math.max(n, minInt);
+        if (intCount == 0 && fracCount == 0) {
+            intCount = 1;
+        }
+        for (int i = intCount - 1; i >= 0; i--) {
+            buffer[pos++] = i < n ? digits[i] : zero;
+        }
+        if (fracCount > 0) {
+            buffer[pos++] = decimal;
+            for (int i = fracCount - 1; i >= 0; i--) {
+                buffer[pos + i] = (byte) (zero + (int) (fractional % 10));
+                fractional /= 10;
+            }
+            pos += fracCount;
+        }
+        return pos;
+    }
+
+    /**
+     * Format through the fallback <code>DecimalFormat</code>.
+     */
+    public String format(double value) {
+        return fallback.format(value);
+    }
+
+    private static int write(String text, byte[] buffer, int offset) {
+        final byte[] bytes = text.getBytes();
+        if (buffer.length - offset < bytes.length) {
+            return -1;
+        }
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static boolean isAscii(char c) {
+        return c < 0x80;
+    }
+}
@@ -0,0 +1,714 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTStart;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.function.PostfixMathCommandI;
+
+/**
+ * An immutable, thread safe form of a JEP expression.
+ * <p>
+ * The expression is parsed once by JEP and the resulting parse tree is
+ * translated into a tree of primitive <code>double</code> operations.
+ * Sub-expressions that do not reference a variable are folded into
+ * constants and the common scaling forms <code>x*a+b</code> and
+ * <code>(x+b)*a</code> (with <code>/</code> and <code>-</code> as well)
+ * are evaluated by a single node that performs the same operations in
+ * the same order, so results are unchanged.
+ * Evaluation does not lock and does not allocate.
+ * <p>
+ * The variable <code>x</code> is passed directly to
+ * {@link #evaluate(double)}, any other variables are bound by index,
+ * see {@link #getVariables()} and {@link #evaluate(double[])}.
+ * <p>
+ * Expressions using functions that have no primitive form here
+ * (such as <code>rand</code> or <code>str</code>) are evaluated by a
+ * private JEP instance which is locked per expression.
+ * An expression that cannot be parsed evaluates to 0, as JEP does.
+ */
+public final class CompiledExpression {
+    private static final Logger LOGGER = Logger.getLogger(CompiledExpression.class);
+    private static final String X = "x";
+
+    private final String expression;
+    private final String[] variables;
+    private final int xIndex;
+    private final ExpressionNode root;
+    private final boolean valid;
+
+    private CompiledExpression(
+            String expression,
+            String[] variables,
+            ExpressionNode root,
+            boolean valid) {
+
+        this.expression = expression;
+        this.variables = variables;
+        this.root = root;
+        this.valid = valid;
+        int index = -1;
+        for (int i = 0; i < variables.length; i++) {
+            if (X.equals(variables[i])) {
+                index = i;
+                break;
+            }
+        }
+        this.xIndex = index;
+    }
+
+    /**
+     * Parse and compile an expression.  Callers should normally use
+     * {@link JEPUtil#compile(String)} which caches the result.
+     * @param expression - the expression text
+     * @return the compiled expression, never null
+     */
+    public static CompiledExpression compile(String expression) {
+        final JEP parser = newParser();
+        parser.parseExpression(expression);
+        final Node top = parser.getTopNode();
+        if (parser.hasError() || top == null) {
+            LOGGER.debug("Unable to parse expression: " + expression +
+                    " - " + parser.getErrorInfo());
+            return new CompiledExpression(
+                    expression, new String[0], new Constant(0.0), false);
+        }
+
+        final List<String> names = new ArrayList<String>();
+        collectVariables(top, names);
+        final String[] variables = names.toArray(new String[names.size()]);
+        ExpressionNode root;
+        try {
+            root = linearize(translate(top, names));
+        }
+        catch (UnsupportedOperationException e) {
+            root = new JepFallback(expression, variables);
+        }
+        return new CompiledExpression(expression, variables, root, true);
+    }
+
+    static JEP newParser() {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab(); // clear the contents of the symbol table
+        parser.setAllowUndeclared(true);
+        return parser;
+    }
+
+    /**
+     * @return the source text of this expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return true if the expression is a linear scaling of <code>x</code>
+     * evaluated by the fast path
+     */
+    public boolean isLinear() {
+        return root instanceof Linear;
+    }
+
+    /**
+     * @return false if the expression could not be parsed
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the names of the variables referenced by the expression,
+     * the array index of a name is the index to use in
+     * {@link #evaluate(double[])}.  The returned array must not be modified.
+     */
+    public String[] getVariables() {
+        return variables;
+    }
+
+    /**
+     * @param name - a variable name
+     * @return the index of the named variable or -1 if it is not referenced
+     */
+    public int getVariableIndex(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the expression references no variable other than
+     * <code>x</code>
+     */
+    public boolean isSingleVariable() {
+        return variables.length == 0
+                || (variables.length == 1 && xIndex == 0);
+    }
+
+    /**
+     * Evaluate an expression of the single variable <code>x</code>.
+     * An expression referencing any other variable evaluates to 0.
+     * @param x - the value of x
+     * @return the result
+     */
+    public double evaluate(double x) {
+        if (!isSingleVariable()) {
+            return 0.0;
+        }
+        return root.eval(x, null);
+    }
+
+    /**
+     * Evaluate the expression with its variables bound by index.
+     * @param values - the variable values in {@link #getVariables()} order
+     * @return the result
+     */
+    public double evaluate(double[] values) {
+        final double x = xIndex < 0 ? 0.0 : values[xIndex];
+        return root.eval(x, values);
+    }
+
+    /**
+     * Evaluate the expression with its variables bound by name.
+     * An expression referencing a variable missing from the map evaluates
+     * to 0.
+     * @param valueMap - the variable values keyed by name
+     * @return the result
+     */
+    public double evaluate(Map<String, Double> valueMap) {
+        final double[] values = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            final Double value = valueMap.get(variables[i]);
+            if (value == null) {
+                return 0.0;
+            }
+            values[i] = value;
+        }
+        return evaluate(values);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static void collectVariables(Node node, List<String> names) {
+        if (node instanceof ASTVarNode) {
+            final String name = ((ASTVarNode) node).getName();
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            collectVariables(node.jjtGetChild(i), names);
+        }
+    }
+
+    private static ExpressionNode translate(Node node, List<String> names) {
+        if (node instanceof ASTStart) {
+            return translate(node.jjtGetChild(0), names);
+        }
+        if (node instanceof ASTConstant) {
+            final Object value = ((ASTConstant) node).getValue();
+            if (value instanceof Number) {
+                return new Constant(((Number) value).doubleValue());
+            }
+            throw new UnsupportedOperationException();
+        }
+        if (node instanceof ASTVarNode) {
+            final String name = ((ASTVarNode) node).getName();
+            if (X.equals(name)) {
+                return new XVariable();
+            }
+            return new IndexedVariable(names.indexOf(name));
+        }
+        if (node instanceof ASTFunNode) {
+            final ASTFunNode fun = (ASTFunNode) node;
+            final int count = fun.jjtGetNumChildren();
+            final ExpressionNode[] args = new ExpressionNode[count];
+            boolean constant = true;
+            for (int i = 0; i < count; i++) {
+                args[i] = translate(fun.jjtGetChild(i), names);
+                constant &= args[i] instanceof Constant;
+            }
+            final String op = fun.isOperator()
+                    ? fun.getOperator().getSymbol() : fun.getName();
+            final ExpressionNode result = operation(
+                    op, fun.isOperator(), fun.getPFMC(), args);
+            if (constant && !(result instanceof Random)) {
+                return new Constant(result.eval(0.0, null));
+            }
+            return result;
+        }
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return a {@link Linear} node equivalent to the tree, or the tree
+     * itself when it is not one of the linear forms
+     */
+    private static ExpressionNode linearize(ExpressionNode node) {
+        final Linear scaled = scaled(node);
+        if (scaled != null) {
+            return scaled;
+        }
+        if (!(node instanceof Binary)) {
+            return node;
+        }
+        final Binary binary = (Binary) node;
+        if (binary.code == Binary.ADD || binary.code == Binary.SUB) {
+            // x*a+b, b+x*a, x*a-b
+            if (binary.right instanceof Constant) {
+                final Linear left = scaled(binary.left);
+                final double offset = ((Constant) binary.right).value;
+                if (left != null) {
+                    return new Linear(false, left.divide, left.scale,
+                            binary.code == Binary.ADD ? offset : -offset);
+                }
+            }
+            if (binary.code == Binary.ADD && binary.left instanceof Constant) {
+                final Linear right = scaled(binary.right);
+                if (right != null) {
+                    return new Linear(false, right.divide, right.scale,
+                            ((Constant) binary.left).value);
+                }
+            }
+        }
+        if (binary.code == Binary.MUL || binary.code == Binary.DIV) {
+            // (x+b)*a, a*(x+b), (x-b)/a
+            ExpressionNode shifted = null;
+            Constant scale = null;
+            if (binary.right instanceof Constant) {
+                shifted = binary.left;
+                scale = (Constant) binary.right;
+            }
+            else if (binary.code == Binary.MUL && binary.left instanceof Constant) {
+                shifted = binary.right;
+                scale = (Constant) binary.left;
+            }
+            if (shifted instanceof Binary) {
+                final Binary shift = (Binary) shifted;
+                Double offset = null;
+                if (shift.left instanceof XVariable && shift.right instanceof Constant) {
+                    final double value = ((Constant) shift.right).value;
+                    if (shift.code == Binary.ADD) offset = value;
+                    if (shift.code == Binary.SUB) offset = -value;
+                }
+                else if (shift.code == Binary.ADD
+                        && shift.left instanceof Constant && shift.right instanceof XVariable) {
+                    offset = ((Constant) shift.left).value;
+                }
+                if (offset != null) {
+                    return new Linear(true, binary.code == Binary.DIV,
+                            scale.value, offset);
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return x, x*a, a*x or x/a as a {@link Linear} node without offset,
+     * or null
+     */
+    private static Linear scaled(ExpressionNode node) {
+        if (node instanceof XVariable) {
+            return new Linear(false, false, 1.0, Linear.NO_OFFSET);
+        }
+        if (!(node instanceof Binary)) {
+            return null;
+        }
+        final Binary binary = (Binary) node;
+        if (binary.code == Binary.MUL || binary.code == Binary.DIV) {
+            if (binary.left instanceof XVariable && binary.right instanceof Constant) {
+                return new Linear(false, binary.code == Binary.DIV,
+                        ((Constant) binary.right).value, Linear.NO_OFFSET);
+            }
+            if (binary.code == Binary.MUL
+                    && binary.left instanceof Constant && binary.right instanceof XVariable) {
+                return new Linear(false, false,
+                        ((Constant) binary.left).value, Linear.NO_OFFSET);
+            }
+        }
+        return null;
+    }
+
+    private static ExpressionNode operation(
+            String op,
+            boolean operator,
+            PostfixMathCommandI pfmc,
+            ExpressionNode[] args) {
+
+        if (operator) {
+            if (args.length == 1) {
+                if ("-".equals(op))  return new Unary(Unary.NEG, args[0]);
+                if ("!".equals(op))  return new Unary(Unary.NOT, args[0]);
+                throw new UnsupportedOperationException();
+            }
+            if (args.length != 2) {
+                throw new UnsupportedOperationException();
+            }
+            final int code = Binary.code(op);
+            if (code < 0) {
+                throw new UnsupportedOperationException();
+            }
+            return new Binary(code, args[0], args[1]);
+        }
+
+        if (pfmc instanceof BitWise && args.length == 3) {
+            return new BitWiseNode(args[0], args[1], args[2]);
+        }
+        if ("if".equals(op) && (args.length == 3 || args.length == 4)) {
+            return new Conditional(args);
+        }
+        if ("sum".equals(op)) {
+            return new Sum(args);
+        }
+        if ("rand".equals(op) && args.length == 0) {
+            return new Random();
+        }
+        if (args.length == 1) {
+            final int code = Unary.code(op);
+            if (code >= 0) {
+                return new Unary(code, args[0]);
+            }
+        }
+        if (args.length == 2) {
+            if ("atan2".equals(op)) return new Binary(Binary.ATAN2, args[0], args[1]);
+            if ("pow".equals(op))   return new Binary(Binary.POW, args[0], args[1]);
+            if ("mod".equals(op))   return new Binary(Binary.MOD, args[0], args[1]);
+        }
+        throw new UnsupportedOperationException();
+    }
+
+    private static double bool(boolean value) {
+        return value ? 1.0 : 0.0;
+    }
+
+    private abstract static class ExpressionNode {
+        /**
+         * @param x - the value of the variable x
+         * @param values - the indexed variable values, null when the
+         *                 expression has no variable but x
+         */
+        abstract double eval(double x, double[] values);
+    }
+
+    private static final class Constant extends ExpressionNode {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return value;
+        }
+    }
+
+    private static final class XVariable extends ExpressionNode {
+        @Override
+        double eval(double x, double[] values) {
+            return x;
+        }
+    }
+
+    private static final class IndexedVariable extends ExpressionNode {
+        private final int index;
+
+        IndexedVariable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return values[index];
+        }
+    }
+
+    private static final class Unary extends ExpressionNode {
+        static final int NEG = 0;
+        static final int NOT = 1;
+        static final String[] FUNCTIONS = {
+            null, null, "sin", "cos", "tan", "asin", "acos", "atan",
+            "sinh", "cosh", "tanh", "asinh", "acosh", "atanh",
+            "log", "ln", "exp", "sqrt", "abs"
+        };
+
+        private final int code;
+        private final ExpressionNode arg;
+
+        Unary(int code, ExpressionNode arg) {
+            this.code = code;
+            this.arg = arg;
+        }
+
+        static int code(String name) {
+            for (int i = 2; i < FUNCTIONS.length; i++) {
+                if (FUNCTIONS[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final double a = arg.eval(x, values);
+            switch (code) {
+                case NEG: return -a;
+                case NOT: return bool(a == 0.0);
+                case 2:   return Math.sin(a);
+                case 3:   return Math.cos(a);
+                case 4:   return Math.tan(a);
+                case 5:   return Math.asin(a);
+                case 6:   return Math.acos(a);
+                case 7:   return Math.atan(a);
+                case 8:   return Math.sinh(a);
+                case 9:   return Math.cosh(a);
+                case 10:  return Math.tanh(a);
+                case 11:  return Math.log(a + Math.sqrt(a * a + 1.0));
+                case 12:  return Math.log(a + Math.sqrt(a * a - 1.0));
+                case 13:  return 0.5 * Math.log((1.0 + a) / (1.0 - a));
+                case 14:  return Math.log10(a);
+                case 15:  return Math.log(a);
+                case 16:  return Math.exp(a);
+                case 17:  return Math.sqrt(a);
+                case 18:  return Math.abs(a);
+                default:  return 0.0;
+            }
+        }
+    }
+
+    private static final class Binary extends ExpressionNode {
+        static final String[] OPERATORS = {
+            "+", "-", "*", "/", "%", "^",
+            "<", ">", "<=", ">=", "==", "!=", "&&", "||"
+        };
+        static final int ADD = 0;
+        static final int SUB = 1;
+        static final int MUL = 2;
+        static final int DIV = 3;
+        static final int MOD = 4;
+        static final int POW = 5;
+        static final int ATAN2 = 14;
+
+        private final int code;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Binary(int code, ExpressionNode left, ExpressionNode right) {
+            this.code = code;
+            this.left = left;
+            this.right = right;
+        }
+
+        static int code(String symbol) {
+            for (int i = 0; i < OPERATORS.length; i++) {
+                if (OPERATORS[i].equals(symbol)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final double a = left.eval(x, values);
+            final double b = right.eval(x, values);
+            switch (code) {
+                case 0:     return a + b;
+                case 1:     return a - b;
+                case 2:     return a * b;
+                case 3:     return a / b;
+                case MOD:   return a % b;
+                case POW:   return Math.pow(a, b);
+                case 6:     return bool(a < b);
+                case 7:     return bool(a > b);
+                case 8:     return bool(a <= b);
+                case 9:     return bool(a >= b);
+                case 10:    return bool(a == b);
+                case 11:    return bool(a != b);
+                case 12:    return bool(a != 0.0 && b != 0.0);
+                case 13:    return bool(a != 0.0 || b != 0.0);
+                case ATAN2: return Math.atan2(a, b);
+                default:    return 0.0;
+            }
+        }
+    }
+
+    /**
+     * x*scale+offset or (x+offset)*scale, division in place of the
+     * multiplication when the source divides.  Multiplying by 1 and adding
+     * -0 leave every value unchanged, so they stand in for a missing scale
+     * or offset.
+     */
+    private static final class Linear extends ExpressionNode {
+        static final double NO_OFFSET = -0.0;
+
+        private final boolean offsetFirst;
+        private final boolean divide;
+        private final double scale;
+        private final double offset;
+
+        Linear(boolean offsetFirst, boolean divide, double scale, double offset) {
+            this.offsetFirst = offsetFirst;
+            this.divide = divide;
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            if (offsetFirst) {
+                final double shifted = x + offset;
+                return divide ? shifted / scale : shifted * scale;
+            }
+            return (divide ? x / scale : x * scale) + offset;
+        }
+    }
+
+    private static final class Sum extends ExpressionNode {
+        private final ExpressionNode[] args;
+
+        Sum(ExpressionNode[] args) {
+            this.args = args;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            double result = 0.0;
+            for (ExpressionNode arg : args) {
+                result += arg.eval(x, values);
+            }
+            return result;
+        }
+    }
+
+    private static final class Random extends ExpressionNode {
+        @Override
+        double eval(double x, double[] values) {
+            return Math.random();
+        }
+    }
+
+    /**
+     * if(condition, positive, negative[, zero]) as defined by JEP,
+     * only the selected branch is evaluated.
+     */
+    private static final class Conditional extends ExpressionNode {
+        private final ExpressionNode[] args;
+
+        Conditional(ExpressionNode[] args) {
+            this.args = args;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final double condition = args[0].eval(x, values);
+            if (condition > 0.0) {
+                return args[1].eval(x, values);
+            }
+            if (args.length == 3 || condition < 0.0) {
+                return args[2].eval(x, values);
+            }
+            return args[3].eval(x, values);
+        }
+    }
+
+    /**
+     * Primitive form of {@link BitWise}.
+     */
+    private static final class BitWiseNode extends ExpressionNode {
+        private final ExpressionNode mask;
+        private final ExpressionNode variable;
+        private final ExpressionNode operation;
+
+        BitWiseNode(
+                ExpressionNode mask,
+                ExpressionNode variable,
+                ExpressionNode operation) {
+
+            this.mask = mask;
+            this.variable = variable;
+            this.operation = operation;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final int m = (int) mask.eval(x, values);
+            final int v = (int) variable.eval(x, values);
+            switch ((int) operation.eval(x, values)) {
+                case 1:  return v & m;
+                case 2:  return v | m;
+                case 3:  return v ^ m;
+                case 4:  return v << m;
+                case 5:  return v >> m;
+                case 6:  return v >>> m;
+                case 7:  return ~v;
+                default: return 0.0;
+            }
+        }
+    }
+
+    /**
+     * Evaluates through a private JEP parser for expressions that have no
+     * primitive form.
+     */
+    private static final class JepFallback extends ExpressionNode {
+        private final JEP parser;
+        private final String[] variables;
+
+        JepFallback(String expression, String[] variables) {
+            this.variables = variables;
+            parser = newParser();
+            parser.setAllowUndeclared(false);
+            for (String name : variables) {
+                parser.addVariable(name, 0.0);
+            }
+            parser.parseExpression(expression);
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            synchronized (parser) {
+                for (int i = 0; i < variables.length; i++) {
+                    parser.addVariable(variables[i],
+                            X.equals(variables[i]) ? x : values[i]);
+                }
+                return parser.getValue();
+            }
+        }
+    }
+}
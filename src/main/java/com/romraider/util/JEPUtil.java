@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2016 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,65 +19,44 @@
 
 package com.romraider.util;
 
-import org.nfunk.jep.JEP;
-
-import java.util.Collections;
 import java.util.Map;
-import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Evaluates JEP expressions through a shared cache of
+ * {@link CompiledExpression}s.  Each distinct expression string is compiled
+ * once, evaluation takes no lock.
+ */
 public final class JEPUtil {
-	@SuppressWarnings("serial")
-	static class LRUCache<K, V> extends LinkedHashMap<K, V> {
-		private int cacheSize;
-
-		public LRUCache(int cacheSize) {
-			super(32, 0.75f, true);
-			this.cacheSize = cacheSize;
-		}
-
-		@Override
-		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-			return size() >= cacheSize;
-		}
-	};
-
-	private static final Map<String, JEP> parserCache = Collections.synchronizedMap(new LRUCache<String, JEP>(32));
+	private static final ConcurrentMap<String, CompiledExpression> expressionCache =
+			new ConcurrentHashMap<String, CompiledExpression>(256);
 
-	public static synchronized double evaluate(String expression, double value) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.addStandardFunctions();
-			parser.addFunction("BitWise", new BitWise());
-			parser.initSymTab(); // clear the contents of the symbol table
-			parser.addVariable("x", value);
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
-			parser.setVarValue("x", value);
-		}
-		return parser.getValue();
+	private JEPUtil() {
 	}
 
-	public static synchronized double evaluate(String expression, Map<String, Double> valueMap) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.initSymTab(); // clear the contents of the symbol table
-			for (String id : valueMap.keySet()) {
-				parser.addVariable(id, valueMap.get(id));
+	/**
+	 * Get the compiled form of an expression, compiling it on first use.
+	 * @param expression - the expression text
+	 * @return the shared compiled expression
+	 */
+	public static CompiledExpression compile(String expression) {
+		CompiledExpression compiled = expressionCache.get(expression);
+		if (compiled == null) {
+			compiled = CompiledExpression.compile(expression);
+			final CompiledExpression existing = expressionCache.putIfAbsent(expression, compiled);
+			if (existing != null) {
+				compiled = existing;
 			}
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
+		}
+		return compiled;
+	}
 
-			for (String id : valueMap.keySet()) {
-				if (parser.getSymbolTable().containsKey(id)) {
-					parser.setVarValue(id, valueMap.get(id));
-				}
-			}
+	public static double evaluate(String expression, double value) {
+		return compile(expression).evaluate(value);
+	}
 
-		}
-		return parser.getValue();
+	public static double evaluate(String expression, Map<String, Double> valueMap) {
+		return compile(expression).evaluate(valueMap);
 	}
 }
@@ -20,10 +20,22 @@
 package com.romraider.util;
 
 import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ThreadUtil {
     private static final Logger LOGGER = Logger.getLogger(ThreadUtil.class);
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService workers;
 
     private ThreadUtil() {
         throw new UnsupportedOperationException();
@@ -48,4 +60,78 @@ public final class ThreadUtil {
         thread.start();
     }
 
+    /**
+     * @return the number of tasks {@link #invokeAll} runs at once
+     */
+    public static int getParallelism() {
+        return PARALLELISM;
+    }
+
+    /**
+     * Run independent tasks on a shared pool of daemon threads, one per
+     * processor, and wait for all of them.  Tasks started from a pool
+     * thread run inline, so nested calls can not starve the pool.
+     * @return the results in task order
+     * @throws RuntimeException the exception of the first failed task in
+     * task order, a checked exception wrapped in an IllegalStateException
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        final List<T> results = new ArrayList<T>(tasks.size());
+        if (tasks.size() < 2 || PARALLELISM < 2 || Thread.currentThread() instanceof Worker) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return results;
+        }
+
+        final List<Future<T>> futures;
+        try {
+            futures = getWorkers().invokeAll(tasks);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Worker(runnable,
+                            "ThreadUtil worker " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return workers;
+    }
+
+    private static final class Worker extends Thread {
+        Worker(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
 }
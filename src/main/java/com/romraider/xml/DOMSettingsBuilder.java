@@ -211,6 +211,11 @@ public final class DOMSettingsBuilder {
         colorAxis.setAttribute("value", String.valueOf(settings.isColorAxis()));
         options.appendChild(colorAxis);
 
+        // grid view of large tables
+        IIOMetadataNode gridView = new IIOMetadataNode("gridview");
+        gridView.setAttribute("cells", String.valueOf(settings.getGridViewCells()));
+        options.appendChild(gridView);
+
         // show table toolbar border
         IIOMetadataNode showTableToolbarBorder = new IIOMetadataNode("showtabletoolbarborder");
         showTableToolbarBorder.setAttribute("value", String.valueOf(settings.isShowTableToolbarBorder()));
@@ -387,8 +392,25 @@ public final class DOMSettingsBuilder {
         filelogging.setAttribute("switchid", settings.getFileLoggingControllerSwitchId());
         filelogging.setAttribute("active", String.valueOf(settings.isFileLoggingControllerSwitchActive()));
         filelogging.setAttribute("absolutetimestamp", String.valueOf(settings.isFileLoggingAbsoluteTimestamp()));
+        filelogging.setAttribute("binary", String.valueOf(settings.isFileLoggingBinary()));
         loggerSettings.appendChild(filelogging);
 
+        // response dispatch to the display handlers
+        IIOMetadataNode dispatch = new IIOMetadataNode("dispatch");
+        dispatch.setAttribute("policy", settings.getLoggerDispatchPolicy().name());
+        dispatch.setAttribute("queue", String.valueOf(settings.getLoggerDispatchQueueSize()));
+        loggerSettings.appendChild(dispatch);
+
+        // graph history
+        IIOMetadataNode graph = new IIOMetadataNode("graph");
+        graph.setAttribute("history", String.valueOf(settings.getLoggerGraphHistory()));
+        loggerSettings.appendChild(graph);
+
+        // display update rate
+        IIOMetadataNode display = new IIOMetadataNode("display");
+        display.setAttribute("framerate", String.valueOf(settings.getLoggerFrameRate()));
+        loggerSettings.appendChild(display);
+
         // debug level
         IIOMetadataNode debug = new IIOMetadataNode("debug");
         debug.setAttribute("level", settings.getLoggerDebuggingLevel());
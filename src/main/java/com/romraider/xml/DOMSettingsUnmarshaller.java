@@ -35,6 +35,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.manager.DispatchPolicy;
 import com.romraider.logger.external.phidget.interfacekit.io.IntfKitSensor;
 
 public final class DOMSettingsUnmarshaller {
@@ -164,6 +165,10 @@ public final class DOMSettingsUnmarshaller {
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("coloraxis")) {
                 settings.setColorAxis(Boolean.parseBoolean(unmarshallAttribute(n, "value", "false")));
 
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("gridview")) {
+                settings.setGridViewCells(unmarshallAttribute(n, "cells",
+                        Settings.DEFAULT_GRID_VIEW_CELLS));
+
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("showtabletoolbarborder")) {
                 settings.setShowTableToolbarBorder(Boolean.parseBoolean(unmarshallAttribute(n, "value", "false")));
 
@@ -299,6 +304,21 @@ public final class DOMSettingsUnmarshaller {
                 settings.setFileLoggingControllerSwitchId(unmarshallAttribute(n, "switchid", settings.getFileLoggingControllerSwitchId()));
                 settings.setFileLoggingControllerSwitchActive(unmarshallAttribute(n, "active", true));
                 settings.setFileLoggingAbsoluteTimestamp(unmarshallAttribute(n, "absolutetimestamp", false));
+                settings.setFileLoggingBinary(unmarshallAttribute(n, "binary", false));
+
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("dispatch")) {
+                settings.setLoggerDispatchPolicy(DispatchPolicy.fromString(
+                        unmarshallAttribute(n, "policy", null), DispatchPolicy.DROP_OLDEST));
+                settings.setLoggerDispatchQueueSize(unmarshallAttribute(n, "queue",
+                        Settings.DEFAULT_LOGGER_DISPATCH_QUEUE_SIZE));
+
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("graph")) {
+                settings.setLoggerGraphHistory(unmarshallAttribute(n, "history",
+                        Settings.DEFAULT_LOGGER_GRAPH_HISTORY));
+
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("display")) {
+                settings.setLoggerFrameRate(unmarshallAttribute(n, "framerate",
+                        Settings.DEFAULT_LOGGER_FRAME_RATE));
 
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("debug")) {
                 settings.setLoggerDebuggingLevel(unmarshallAttribute(n, "level", "info"));
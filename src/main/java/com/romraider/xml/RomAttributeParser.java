@@ -26,6 +26,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import com.romraider.Settings;
+import com.romraider.maps.RomImage;
 import com.romraider.maps.Table;
 import com.romraider.maps.Table1DView;
 import com.romraider.util.ByteUtil;
@@ -138,65 +139,9 @@ public final class RomAttributeParser {
     }
     
     public static long parseByteValue(byte[] input, Settings.Endian endian, int address, int length, boolean signed) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
-        try {
-            long output = 0L;
-            int llength = length;
-            if (length == Settings.STORAGE_TYPE_MOVI20 ||
-            		length == Settings.STORAGE_TYPE_MOVI20S) {
-            	llength = 3;
-            }
-            final ByteBuffer bb = ByteBuffer.wrap(input, address, llength);
-            if (endian == Settings.Endian.LITTLE) {
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-            }
-            switch (length) {
-            case 1:
-                output = bb.get();
-                break;
-            case 2:
-                output = bb.getShort();
-                break;
-            case 4:
-                output = bb.getInt();
-                break;
-            case Settings.STORAGE_TYPE_MOVI20:
-            case Settings.STORAGE_TYPE_MOVI20S:
-            	bb.position(bb.position()-1);
-                output = getMovi20(bb.getInt());
-                break;
-            }
-            if (!signed) {
-                switch (length) {
-                case 1:
-                    output = output & 0xff;
-                    break;
-                case 2:
-                    output = output & 0xffff;
-                    break;
-                case 4:
-                    output = output & 0xffffffffL;
-                    break;
-                }
-            }
-            return output;
-        } catch (IndexOutOfBoundsException ex) {
-            throw new IndexOutOfBoundsException();
-        }
+        return RomImage.wrap(input).getValue(address, endian, length, signed);
     }
 
-    // when data is in MOVI20 instruction
-    private static int getMovi20(int value) {
-    	final int shift = value & 0x00010000;
-    	value = ((value & 0x00f00000) >>> 4) + (value & 0x0000FFFF);
-    	if ((value & 0x00080000) > 0) {
-    		value = (value | 0xfff00000);
-    	}
-		if (shift > 0) { //MOVI20S
-			return (value << 8);
-		}
-    	return value;
-	}
-
 	public static byte[] parseIntegerValue(int input, Settings.Endian endian, int length) {
         try {
         	int llength = length;
@@ -276,19 +221,6 @@ public final class RomAttributeParser {
     }
 
     public static float byteToFloat(byte[] input, Settings.Endian endian, Settings.Endian memModelEndian) {
-        ByteBuffer bb = ByteBuffer.wrap(input, 0, 4);
-        if (memModelEndian == Settings.Endian.LITTLE) {
-            bb.order(ByteOrder.LITTLE_ENDIAN);
-        }
-        else if (memModelEndian == Settings.Endian.BIG) {
-            bb.order(ByteOrder.BIG_ENDIAN);
-        }
-        else {
-            // this case corrects improperly defined float table endian in legacy definition files
-            if (endian == Settings.Endian.LITTLE) {
-                bb.order(ByteOrder.BIG_ENDIAN);
-            }
-        }
-        return bb.getFloat();
+        return RomImage.wrap(input).getFloat(0, RomImage.floatEndian(endian, memModelEndian));
     }
-}
\ No newline at end of file
+}
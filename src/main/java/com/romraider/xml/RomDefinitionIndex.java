@@ -0,0 +1,756 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import static com.romraider.util.HexUtil.asBytes;
+import static com.romraider.util.HexUtil.asHex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import com.romraider.util.MD5Checksum;
+import com.romraider.xml.ConversionLayer.ConversionLayerFactory;
+
+/**
+ * A persistent index of the &lt;rom&gt; elements of the ECU definition files.
+ * <p>
+ * Each definition file is scanned once with SAX to record, for every
+ * top level rom element, its position in the file, xmlid, base and the
+ * internalidaddress/internalidstring pair.  The files it pulls in through
+ * XInclude are recorded with it.  The scan is repeated only when the length
+ * or modification time of the file or of one of its included files changes
+ * and the MD5 hash of that file no longer matches.  A binary image is then identified by probing the image at each
+ * distinct id address of a file and looking the bytes found there up in a
+ * hash table, following the same rules as {@link com.romraider.maps.RomID#checkMatch(byte[])}.
+ * <p>
+ * Once a match is found only the root element's non-rom children (such as
+ * scalingbase) plus the matching rom and its base chain are built into a DOM
+ * document by {@link #parseRomDocument(File, Match)}.
+ * <p>
+ * Definitions that require a conversion layer are not indexed.
+ */
+public final class RomDefinitionIndex {
+    private static final Logger LOGGER = Logger.getLogger(RomDefinitionIndex.class);
+    private static final int VERSION = 2;
+    private static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+    private static final String ROM = "rom";
+    private static final String FORCE = "force";
+
+    private final File indexFile;
+    private final Map<String, FileEntry> files = new LinkedHashMap<String, FileEntry>();
+    private boolean modified;
+
+    /**
+     * Create an index persisted to the given file, existing content is read.
+     * @param indexFile - the file the index is stored in
+     */
+    public RomDefinitionIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    /**
+     * @param definition - an ECU definition file
+     * @return true if the definition can be identified through the index,
+     * false if it requires a conversion layer
+     */
+    public static boolean isIndexable(File definition) {
+        return !ConversionLayerFactory.requiresConversionLayer(definition);
+    }
+
+    /**
+     * Find the rom element of a definition file that identifies the image.
+     * The file is (re)scanned first if it changed since it was indexed.
+     * @param definition - an indexable ECU definition file
+     * @param input - the binary image
+     * @return the match, or null if no rom element of this file matches
+     * @throws Exception if the definition can not be read
+     */
+    public synchronized Match findMatch(File definition, byte[] input) throws Exception {
+        final FileEntry entry = getEntry(definition);
+        final int ordinal = entry.lookup(input);
+        if (ordinal < 0) {
+            return null;
+        }
+        return new Match(entry.roms.get(ordinal), entry.baseChain(ordinal));
+    }
+
+    /**
+     * Write the index to disk if anything changed since it was loaded.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+
+        DataOutputStream out = null;
+        try {
+            final File dir = indexFile.getParentFile();
+            if (dir != null) {
+                dir.mkdirs();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(indexFile)));
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            for (FileEntry entry : files.values()) {
+                entry.write(out);
+            }
+            modified = false;
+        }
+        catch (IOException e) {
+            LOGGER.warn("Unable to write definition index: " + indexFile, e);
+        }
+        finally {
+            close(out);
+        }
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(indexFile)));
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final FileEntry entry = FileEntry.read(in);
+                files.put(entry.path, entry);
+            }
+        }
+        catch (IOException e) {
+            LOGGER.warn("Discarding unreadable definition index: " + indexFile, e);
+            files.clear();
+        }
+        finally {
+            close(in);
+        }
+    }
+
+    private FileEntry getEntry(File definition) throws Exception {
+        final String path = definition.getAbsolutePath();
+        FileEntry entry = files.get(path);
+        if (entry != null && entry.isCurrent()) {
+            return entry;
+        }
+        if (entry != null && entry.refresh()) {
+            modified = true;
+            return entry;
+        }
+
+        LOGGER.info("Indexing definition file: " + path);
+        final List<RomEntry> roms = scan(definition);
+        final List<Stamp> includes = new ArrayList<Stamp>();
+        for (File include : findIncludes(definition)) {
+            includes.add(new Stamp(include.getAbsolutePath()));
+        }
+        entry = new FileEntry(new Stamp(path), roms, includes);
+        files.put(path, entry);
+        modified = true;
+        return entry;
+    }
+
+    private static List<RomEntry> scan(File definition) throws Exception {
+        final ScanHandler handler = new ScanHandler();
+        newSaxParser().parse(definition, handler);
+        return handler.roms;
+    }
+
+    /**
+     * @return the files included by a definition file through XInclude,
+     * directly or by one of its included files
+     */
+    static List<File> findIncludes(File definition) throws Exception {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final SAXParser parser = factory.newSAXParser();
+
+        final Set<File> seen = new HashSet<File>();
+        final List<File> includes = new ArrayList<File>();
+        final List<File> pending = new ArrayList<File>();
+        seen.add(definition.getAbsoluteFile());
+        pending.add(definition.getAbsoluteFile());
+        while (!pending.isEmpty()) {
+            final File file = pending.remove(pending.size() - 1);
+            if (!file.isFile()) {
+                // a missing include is still tracked, creating it is a change
+                continue;
+            }
+            final IncludeHandler handler = new IncludeHandler();
+            parser.reset();
+            parser.parse(file, handler);
+            for (String href : handler.hrefs) {
+                final URI uri = file.toURI().resolve(href);
+                if (!"file".equalsIgnoreCase(uri.getScheme())) {
+                    continue;
+                }
+                final File include = new File(uri).getAbsoluteFile();
+                if (seen.add(include)) {
+                    includes.add(include);
+                    pending.add(include);
+                }
+            }
+        }
+        return includes;
+    }
+
+    /**
+     * Build a DOM document of a definition file containing only the root
+     * element's children that are not rom elements, and the rom elements
+     * of the match's base chain.
+     * @param definition - the definition file of the match
+     * @param match - the result of {@link #findMatch(File, byte[])}
+     * @return the partial document
+     * @throws Exception if the definition can not be read
+     */
+    public static Document parseRomDocument(File definition, Match match) throws Exception {
+        final RomFilter filter = new RomFilter(match.ordinals);
+        filter.setParent(newSaxParser().getXMLReader());
+
+        final InputSource source = new InputSource(definition.toURI().toString());
+        final DOMResult result = new DOMResult();
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new SAXSource(filter, source), result);
+        return (Document) result.getNode();
+    }
+
+    private static SAXParser newSaxParser() throws Exception {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(true);
+        return factory.newSAXParser();
+    }
+
+    private static void close(java.io.Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            }
+            catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    /**
+     * The rom element identifying an image.
+     */
+    public static final class Match {
+        private final RomEntry rom;
+        private final Set<Integer> ordinals;
+
+        private Match(RomEntry rom, Set<Integer> ordinals) {
+            this.rom = rom;
+            this.ordinals = ordinals;
+        }
+
+        /**
+         * @return the xmlid of the matching rom element
+         */
+        public String getXmlId() {
+            return rom.xmlid;
+        }
+
+        /**
+         * @return the position of the matching rom element among the
+         * rom elements of the definition file
+         */
+        public int getOrdinal() {
+            return rom.ordinal;
+        }
+    }
+
+    private static final class RomEntry {
+        final int ordinal;
+        String xmlid;
+        String base;
+        String address;
+        String idString;
+
+        RomEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     * Image bytes of one length read at one address, and the rom elements
+     * identified by them.
+     */
+    private static final class Probe {
+        final int address;
+        final int length;
+        final boolean hex;
+        final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        Probe(int address, int length, boolean hex) {
+            this.address = address;
+            this.length = length;
+            this.hex = hex;
+        }
+
+        int lookup(byte[] input) {
+            if (input.length < address + length) {
+                return -1;
+            }
+            final String key = hex
+                    ? asHex(copy(input, address, length))
+                    : new String(input, address, length).toUpperCase(Locale.ENGLISH);
+            final Integer ordinal = ids.get(key);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        private static byte[] copy(byte[] input, int offset, int length) {
+            final byte[] bytes = new byte[length];
+            System.arraycopy(input, offset, bytes, 0, length);
+            return bytes;
+        }
+    }
+
+    /**
+     * The length, modification time and MD5 hash of a file when indexed.
+     */
+    private static final class Stamp {
+        final String path;
+        long length;
+        long lastModified;
+        final String md5;
+
+        Stamp(String path) throws Exception {
+            this(path, new File(path).length(), new File(path).lastModified(), md5(path));
+        }
+
+        Stamp(String path, long length, long lastModified, String md5) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+
+        boolean isCurrent() {
+            final File file = new File(path);
+            return length == file.length() && lastModified == file.lastModified();
+        }
+
+        /**
+         * Take the new length and modification time if the content is
+         * unchanged.
+         * @return true if the content is unchanged
+         */
+        boolean refresh() throws Exception {
+            if (isCurrent()) {
+                return true;
+            }
+            if (!md5.equals(md5(path))) {
+                return false;
+            }
+            length = new File(path).length();
+            lastModified = new File(path).lastModified();
+            return true;
+        }
+
+        private static String md5(String path) throws Exception {
+            return new File(path).isFile() ? MD5Checksum.getMD5Checksum(path) : "";
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(length);
+            out.writeLong(lastModified);
+            out.writeUTF(md5);
+        }
+
+        static Stamp read(DataInputStream in) throws IOException {
+            return new Stamp(in.readUTF(), in.readLong(), in.readLong(), in.readUTF());
+        }
+    }
+
+    private static final class FileEntry {
+        final String path;
+        final Stamp stamp;
+        final List<RomEntry> roms;
+        final List<Stamp> includes;
+        private List<Probe> probes;
+        private int forced = -1;
+
+        FileEntry(Stamp stamp, List<RomEntry> roms, List<Stamp> includes) {
+            this.path = stamp.path;
+            this.stamp = stamp;
+            this.roms = roms;
+            this.includes = includes;
+        }
+
+        /**
+         * @return true if neither the file nor its includes were touched
+         */
+        boolean isCurrent() {
+            if (!stamp.isCurrent()) {
+                return false;
+            }
+            for (Stamp include : includes) {
+                if (!include.isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the content of the file and its includes is
+         * unchanged, the stamps are then updated
+         */
+        boolean refresh() throws Exception {
+            if (!stamp.refresh()) {
+                return false;
+            }
+            for (Stamp include : includes) {
+                if (!include.refresh()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the position of the first rom element that identifies
+         * the image or -1 if none does
+         */
+        int lookup(byte[] input) {
+            if (probes == null) {
+                buildProbes();
+            }
+            int result = forced;
+            for (Probe probe : probes) {
+                final int ordinal = probe.lookup(input);
+                if (ordinal >= 0 && (result < 0 || ordinal < result)) {
+                    result = ordinal;
+                }
+            }
+            return result;
+        }
+
+        private void buildProbes() {
+            final Map<String, Probe> byLocation = new LinkedHashMap<String, Probe>();
+            for (RomEntry rom : roms) {
+                final String idString = rom.idString;
+                if (idString == null || idString.length() == 0) {
+                    continue;
+                }
+
+                final int address;
+                try {
+                    address = rom.address == null
+                            ? 0 : RomAttributeParser.parseHexString(rom.address);
+                }
+                catch (NumberFormatException e) {
+                    continue;
+                }
+
+                if (address == -1 && idString.equalsIgnoreCase(FORCE)) {
+                    if (forced < 0) {
+                        forced = rom.ordinal;
+                    }
+                    continue;
+                }
+                if (address < 0) {
+                    continue;
+                }
+
+                final boolean hex = idString.length() > 2
+                        && idString.substring(0, 2).equalsIgnoreCase("0x");
+                final String key;
+                final int length;
+                if (hex) {
+                    try {
+                        final byte[] bytes = asBytes(idString.substring(2));
+                        key = asHex(bytes);
+                        length = bytes.length;
+                    }
+                    catch (RuntimeException e) {
+                        continue;
+                    }
+                }
+                else {
+                    key = idString.toUpperCase(Locale.ENGLISH);
+                    length = idString.length();
+                }
+
+                final String location = address + ":" + length + ":" + hex;
+                Probe probe = byLocation.get(location);
+                if (probe == null) {
+                    probe = new Probe(address, length, hex);
+                    byLocation.put(location, probe);
+                }
+                if (!probe.ids.containsKey(key)) {
+                    probe.ids.put(key, rom.ordinal);
+                }
+            }
+            probes = new ArrayList<Probe>(byLocation.values());
+        }
+
+        /**
+         * @return the positions of a rom element and of the rom elements it
+         * inherits from
+         */
+        Set<Integer> baseChain(int ordinal) {
+            final Set<Integer> chain = new HashSet<Integer>();
+            RomEntry rom = roms.get(ordinal);
+            while (rom != null && chain.add(rom.ordinal)) {
+                final String base = rom.base;
+                rom = null;
+                if (base != null && !base.equalsIgnoreCase("none")) {
+                    for (RomEntry candidate : roms) {
+                        if (base.equalsIgnoreCase(candidate.xmlid)) {
+                            rom = candidate;
+                            break;
+                        }
+                    }
+                }
+            }
+            return chain;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            stamp.write(out);
+            out.writeInt(includes.size());
+            for (Stamp include : includes) {
+                include.write(out);
+            }
+            out.writeInt(roms.size());
+            for (RomEntry rom : roms) {
+                writeString(out, rom.xmlid);
+                writeString(out, rom.base);
+                writeString(out, rom.address);
+                writeString(out, rom.idString);
+            }
+        }
+
+        static FileEntry read(DataInputStream in) throws IOException {
+            final Stamp stamp = Stamp.read(in);
+            final int includeCount = in.readInt();
+            final List<Stamp> includes = new ArrayList<Stamp>(includeCount);
+            for (int i = 0; i < includeCount; i++) {
+                includes.add(Stamp.read(in));
+            }
+            final int count = in.readInt();
+            final List<RomEntry> roms = new ArrayList<RomEntry>(count);
+            for (int i = 0; i < count; i++) {
+                final RomEntry rom = new RomEntry(i);
+                rom.xmlid = readString(in);
+                rom.base = readString(in);
+                rom.address = readString(in);
+                rom.idString = readString(in);
+                roms.add(rom);
+            }
+            return new FileEntry(stamp, roms, includes);
+        }
+
+        private static void writeString(DataOutputStream out, String s) throws IOException {
+            out.writeBoolean(s != null);
+            if (s != null) {
+                out.writeUTF(s);
+            }
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+
+    /**
+     * Records the identification of each top level rom element.
+     */
+    private static final class ScanHandler extends DefaultHandler {
+        final List<RomEntry> roms = new ArrayList<RomEntry>();
+        private final StringBuilder text = new StringBuilder();
+        private int depth;
+        private RomEntry rom;
+        private boolean inRomId;
+        private boolean romIdSeen;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            depth++;
+            final String name = name(localName, qName);
+            if (depth == 2 && name.equalsIgnoreCase(ROM)) {
+                rom = new RomEntry(roms.size());
+                rom.base = attributes.getValue("base");
+                roms.add(rom);
+                romIdSeen = false;
+            }
+            else if (depth == 3 && rom != null && !romIdSeen
+                    && name.equalsIgnoreCase("romid")) {
+                inRomId = true;
+            }
+            text.setLength(0);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inRomId) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            final String name = name(localName, qName);
+            if (inRomId && depth == 4) {
+                if (name.equalsIgnoreCase("xmlid")) {
+                    rom.xmlid = text.toString();
+                }
+                else if (name.equalsIgnoreCase("internalidaddress")) {
+                    rom.address = text.toString();
+                }
+                else if (name.equalsIgnoreCase("internalidstring")) {
+                    rom.idString = text.toString();
+                }
+            }
+            else if (inRomId && depth == 3) {
+                inRomId = false;
+                romIdSeen = true;
+            }
+            else if (depth == 2) {
+                rom = null;
+            }
+            text.setLength(0);
+            depth--;
+        }
+    }
+
+    /**
+     * Collects the href of the XInclude elements of one file.
+     */
+    private static final class IncludeHandler extends DefaultHandler {
+        final List<String> hrefs = new ArrayList<String>();
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (XINCLUDE_NS.equals(uri) && "include".equals(localName)) {
+                final String href = attributes.getValue("href");
+                if (href != null && href.length() > 0) {
+                    hrefs.add(href);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the top level rom elements whose position is not wanted.
+     */
+    private static final class RomFilter extends XMLFilterImpl {
+        private final Set<Integer> ordinals;
+        private int depth;
+        private int ordinal;
+        private int skipDepth;
+
+        RomFilter(Set<Integer> ordinals) {
+            this.ordinals = ordinals;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts)
+                throws SAXException {
+            depth++;
+            if (skipDepth > 0) {
+                return;
+            }
+            if (depth == 2 && name(localName, qName).equalsIgnoreCase(ROM)
+                    && !ordinals.contains(ordinal++)) {
+                skipDepth = depth;
+                return;
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            final boolean skipped = skipDepth > 0;
+            if (skipDepth == depth) {
+                skipDepth = 0;
+            }
+            depth--;
+            if (!skipped) {
+                super.endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (skipDepth == 0) {
+                super.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            if (skipDepth == 0) {
+                super.ignorableWhitespace(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            if (skipDepth == 0) {
+                super.processingInstruction(target, data);
+            }
+        }
+    }
+
+    private static String name(String localName, String qName) {
+        return localName == null || localName.length() == 0 ? qName : localName;
+    }
+}
@@ -49,7 +49,6 @@ import com.romraider.maps.Table3D;
 import com.romraider.maps.TableBitwiseSwitch;
 import com.romraider.maps.TableSwitch;
 import com.romraider.swing.DebugPanel;
-import com.romraider.util.ObjectCloner;
 import com.romraider.util.SettingsManager;
 
 public class TableScaleUnmarshaller {
@@ -87,9 +86,8 @@ public class TableScaleUnmarshaller {
         if (!unmarshallAttribute(tableNode, "base", "none").equalsIgnoreCase(
                 "none")) { // copy base table for inheritance
             try {
-                table = (Table) ObjectCloner
-                        .deepCopy(rom.getTableByName(unmarshallAttribute(tableNode,
-                                "base", "none")));
+                table = rom.getTableByName(unmarshallAttribute(tableNode,
+                                "base", "none")).copy();
             } catch (NullPointerException ex) {
                 JOptionPane.showMessageDialog(ECUEditorManager.getECUEditor(),
                         new DebugPanel(ex, SettingsManager.getSettings().getSupportURL()), "Exception",
@@ -417,11 +415,7 @@ public class TableScaleUnmarshaller {
             // check whether base value matches the name of a an existing
             // scalingbase, if so, inherit from scalingbase
             if (scales.containsKey(base.toLowerCase())) {
-                try {
-                    scale = (Scale) ObjectCloner.deepCopy(scales.get(base.toLowerCase()));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+                scale = scales.get(base.toLowerCase()).copy();
             }
         }
 
@@ -0,0 +1,151 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SerialReceiveBufferTest {
+    private static final byte[] SSM_REQUEST = {
+            (byte) 0x80, 0x10, (byte) 0xF0, 0x05, (byte) 0xA8, 0x00, 0x00, 0x00, 0x08, 0x35};
+    private static final byte[] SSM_REPLY = {
+            (byte) 0x80, (byte) 0xF0, 0x10, 0x02, (byte) 0xE8, 0x42, 0x5C};
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        final byte[] c = new byte[a.length + b.length];
+        System.arraycopy(a, 0, c, 0, a.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    private static Thread writeLater(final SerialReceiveBuffer buffer,
+            final long delay, final byte[]... chunks) {
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (byte[] chunk : chunks) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    buffer.write(chunk, 0, chunk.length);
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testReadAcrossWrapAndGrow() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(4, 16);
+        buffer.write(new byte[] {1, 2, 3}, 0, 3);
+        assertEquals(1, buffer.read());
+        buffer.write(new byte[] {4, 5, 6, 7, 8}, 0, 5);
+        assertEquals(7, buffer.available());
+
+        final byte[] bytes = new byte[7];
+        assertEquals(7, buffer.read(bytes, 0, bytes.length));
+        assertArrayEquals(new byte[] {2, 3, 4, 5, 6, 7, 8}, bytes);
+        assertEquals(-1, buffer.read());
+    }
+
+    @Test
+    public void testOverflowDropsOldest() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(4, 4);
+        buffer.write(new byte[] {1, 2, 3, 4, 5, 6}, 0, 6);
+        assertEquals(2, buffer.getDropCount());
+        final byte[] bytes = new byte[4];
+        buffer.read(bytes, 0, bytes.length);
+        assertArrayEquals(new byte[] {3, 4, 5, 6}, bytes);
+    }
+
+    @Test
+    public void testClearDiscardsAvailable() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(4, 16);
+        buffer.write(new byte[] {1, 2, 3}, 0, 3);
+        buffer.read();
+        buffer.write(new byte[] {4, 5}, 0, 2);
+        assertEquals(4, buffer.clear());
+        assertEquals(0, buffer.available());
+        buffer.write(new byte[] {6}, 0, 1);
+        assertEquals(6, buffer.read());
+    }
+
+    @Test
+    public void testAwaitWakesOnArrival() throws InterruptedException {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(16, 16);
+        assertFalse(buffer.await(1, 10L));
+        final Thread writer = writeLater(buffer, 20L, new byte[] {1}, new byte[] {2, 3});
+        assertTrue(buffer.await(3, 5000L));
+        writer.join();
+    }
+
+    @Test
+    public void testReplyEndsOnCompleteFrame() throws InterruptedException {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(16, 64);
+        final byte[] line = concat(SSM_REQUEST, SSM_REPLY);
+        final byte[] first = new byte[12];
+        final byte[] rest = new byte[line.length - first.length];
+        System.arraycopy(line, 0, first, 0, first.length);
+        System.arraycopy(line, first.length, rest, 0, rest.length);
+
+        final Thread writer = writeLater(buffer, 10L, first, rest);
+        final long start = System.currentTimeMillis();
+        assertEquals(line.length, buffer.awaitReply(SSM_REQUEST,
+                FrameCompletion.forProtocol("SSM"), 5000L));
+        assertTrue(System.currentTimeMillis() - start < 2500L);
+        writer.join();
+    }
+
+    @Test
+    public void testReplyWithoutCompletionWaitsForQuiet() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer(16, 64);
+        buffer.write(SSM_REPLY, 0, SSM_REPLY.length);
+        final long start = System.currentTimeMillis();
+        assertEquals(SSM_REPLY.length, buffer.awaitReply(SSM_REQUEST, null, 50L));
+        assertTrue(System.currentTimeMillis() - start >= 45L);
+    }
+
+    @Test
+    public void testFrameCompletion() {
+        final FrameCompletion ssm = FrameCompletion.forProtocol("SSM");
+        final byte[] line = concat(SSM_REQUEST, SSM_REPLY);
+        assertEquals(-1, ssm.frameEnd(SSM_REQUEST, line, SSM_REQUEST.length + 3));
+        assertEquals(line.length, ssm.frameEnd(SSM_REQUEST, line, line.length));
+        assertEquals(SSM_REPLY.length, ssm.frameEnd(SSM_REQUEST, SSM_REPLY, SSM_REPLY.length));
+
+        final FrameCompletion ds2 = FrameCompletion.forProtocol("DS2");
+        final byte[] ds2Reply = {0x12, 0x05, (byte) 0xA0, 0x01, (byte) 0xB6};
+        assertEquals(-1, ds2.frameEnd(null, ds2Reply, 4));
+        assertEquals(5, ds2.frameEnd(null, ds2Reply, 5));
+
+        // response pending followed by the positive reply
+        final FrameCompletion kwp = FrameCompletion.forProtocol("NCS");
+        final byte[] kwpReply = {0x03, 0x7F, 0x21, 0x78, 0x1B, 0x02, 0x61, 0x01, 0x64};
+        assertEquals(-1, kwp.frameEnd(null, kwpReply, 5));
+        assertEquals(9, kwp.frameEnd(null, kwpReply, 9));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.io.connection.ConnectionManager;
+import com.romraider.io.protocol.ssm.iso15765.SSMProtocol;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.EcuSwitchConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuSwitchImpl;
+import com.romraider.logger.ecu.definition.Module;
+
+public class SSMLoggerCANSubQueryTest {
+    private static final Module TCU = new Module("TCU",
+            new byte[] {0x00, 0x00, 0x07, (byte) 0xE9}, "Transmission",
+            new byte[] {0x00, 0x00, 0x07, (byte) 0xE1}, false);
+
+    /**
+     * Answers read address requests from a simulated memory and records
+     * the requests it was sent.
+     */
+    private static final class SimulatedTcu implements ConnectionManager {
+        private final Map<Integer, Byte> memory = new HashMap<Integer, Byte>();
+        private final List<byte[]> requests = new ArrayList<byte[]>();
+
+        @Override
+        public void open(byte[] start, byte[] stop) {
+        }
+
+        @Override
+        public void send(byte[] request, byte[] response, PollingState pollState) {
+            requests.add(request);
+            assertEquals(SSMProtocol.READ_ADDRESS_COMMAND, request[4]);
+            final int count = (request.length - 6) / SSMProtocol.ADDRESS_SIZE;
+            assertEquals(SSMProtocol.RESPONSE_NON_DATA_BYTES + count, response.length);
+            System.arraycopy(TCU.getAddress(), 0, response, 0, 4);
+            response[4] = SSMProtocol.READ_ADDRESS_RESPONSE;
+            for (int i = 0; i < count; i++) {
+                final int offset = 6 + i * SSMProtocol.ADDRESS_SIZE;
+                final int address = (request[offset] & 0xFF) << 16
+                        | (request[offset + 1] & 0xFF) << 8
+                        | (request[offset + 2] & 0xFF);
+                final Byte value = memory.get(address);
+                response[5 + i] = value == null ? 0 : value;
+            }
+        }
+
+        @Override
+        public byte[] send(byte[] bytes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearLine() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static EcuQuery parameter(String address, int length, String storageType) {
+        final EcuDataConvertor[] convertors = {new EcuParameterConvertorImpl(
+                "units", "x", "0", -1, storageType, Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault())};
+        return new EcuQueryImpl(new EcuParameterImpl("P" + address, "Parameter " + address, "",
+                new EcuAddressImpl(address, length, -1), null, null, null, convertors));
+    }
+
+    private static EcuQuery bit(String address, int bit) {
+        final EcuDataConvertor[] convertors = {new EcuSwitchConvertorImpl(bit, null, null)};
+        return new EcuQueryImpl(new EcuSwitchImpl("S" + address + bit, "Switch " + bit, "",
+                new EcuAddressImpl(address, 1, bit), null, null, null, convertors));
+    }
+
+    private static List<EcuQuery> queries() {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        queries.add(parameter("0xFF6000", 2, "uint16"));
+        queries.add(bit("0xFF6001", 3));
+        queries.add(bit("0xFF6001", 4));
+        queries.add(parameter("0xFF7000", 1, "uint8"));
+        return queries;
+    }
+
+    private static SimulatedTcu tcu() {
+        final SimulatedTcu tcu = new SimulatedTcu();
+        tcu.memory.put(0xFF6000, (byte) 0x12);
+        tcu.memory.put(0xFF6001, (byte) 0x08);
+        tcu.memory.put(0xFF7000, (byte) 0x2A);
+        return tcu;
+    }
+
+    @Test
+    public void testSharedAddressesAreReadOnce() {
+        final SimulatedTcu tcu = tcu();
+        final List<EcuQuery> queries = queries();
+        final SSMLoggerCANSubQuery subQuery =
+                new SSMLoggerCANSubQuery(SSMLoggerCANSubQuery.TCU_ADDRESSES_PER_REQUEST);
+        subQuery.read(queries, tcu, new SSMProtocol(), TCU, new PollingStateImpl());
+
+        assertEquals(3, tcu.requests.size());
+        assertEquals(0x1208, queries.get(0).getResponse(), 0.0);
+        assertEquals(1.0, queries.get(1).getResponse(), 0.0);
+        assertEquals(0.0, queries.get(2).getResponse(), 0.0);
+        assertEquals(42.0, queries.get(3).getResponse(), 0.0);
+        for (byte[] request : tcu.requests) {
+            // CAN id, command, padding and a single address
+            assertEquals(9, request.length);
+        }
+    }
+
+    @Test
+    public void testPlanIsReusedUntilQueriesChange() {
+        final SimulatedTcu tcu = tcu();
+        final List<EcuQuery> queries = queries();
+        final SSMLoggerCANSubQuery subQuery = new SSMLoggerCANSubQuery(2);
+        final PollingState pollState = new PollingStateImpl();
+        subQuery.read(queries, tcu, new SSMProtocol(), TCU, pollState);
+        assertEquals(2, subQuery.getRequestCount());
+
+        tcu.memory.put(0xFF7000, (byte) 0x07);
+        subQuery.read(queries, tcu, new SSMProtocol(), TCU, pollState);
+        assertEquals(4, tcu.requests.size());
+        assertSame(tcu.requests.get(0), tcu.requests.get(2));
+        assertEquals(7.0, queries.get(3).getResponse(), 0.0);
+
+        queries.remove(3);
+        subQuery.read(queries, tcu, new SSMProtocol(), TCU, pollState);
+        assertEquals(1, subQuery.getRequestCount());
+        assertEquals(0x1208, queries.get(0).getResponse(), 0.0);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuData;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterConvertor;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuDerivedParameterImpl;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class DerivedParameterGraphTest {
+    private final CountingConvertor rpm = new CountingConvertor("rpm", "x/4");
+    private final CountingConvertor maf = new CountingConvertor("g/s", "x/100");
+    private final EcuData engineSpeed = parameter("P8", "0xFF000E", rpm);
+    private final EcuData massAirflow = parameter("P12", "0xFF0012", maf);
+    private final EcuData load = derived("D1", "P12*60/P8", engineSpeed, massAirflow);
+    private final EcuData mixed = derived("D2", "[P8:rpm]/1000+P12", engineSpeed, massAirflow);
+    private final EcuData doubled = derived("D3", "D1*2", load);
+
+    private static EcuData parameter(String id, String address, EcuDataConvertor convertor) {
+        return new EcuParameterImpl(id, id, "", new EcuAddressImpl(address, 2, -1),
+                null, null, null, new EcuDataConvertor[] {convertor});
+    }
+
+    private static EcuData derived(String id, String expression, EcuData... inputs) {
+        final EcuDerivedParameterConvertor[] convertors = {
+                new EcuDerivedParameterConvertorImpl("units", expression, "0.00",
+                        new HashMap<String, String>(), new GaugeMinMax(0, 100, 10))};
+        return new EcuDerivedParameterImpl(id, id, "", inputs, convertors);
+    }
+
+    private static EcuQuery respond(EcuQuery query, int... words) {
+        final byte[] bytes = new byte[words.length * 2];
+        for (int i = 0; i < words.length; i++) {
+            bytes[2 * i] = (byte) (words[i] >> 8);
+            bytes[2 * i + 1] = (byte) words[i];
+        }
+        query.setResponse(bytes);
+        return query;
+    }
+
+    @Test
+    public void testSharedInputsAreDecodedOnce() {
+        final EcuQuery speedQuery = respond(new EcuQueryImpl(engineSpeed), 12000);
+        final EcuQuery[] derivedQueries = {
+                respond(new EcuQueryImpl(load), 12000, 4550),
+                respond(new EcuQueryImpl(mixed), 12000, 4550),
+                respond(new EcuQueryImpl(doubled), 12000, 4550)};
+        final DerivedParameterGraph graph = new DerivedParameterGraph();
+        graph.bind(derivedQueries, new EcuQuery[] {speedQuery});
+        assertEquals(5, graph.size());
+
+        rpm.count = 0;
+        maf.count = 0;
+        final double[] values = graph.evaluate();
+        assertEquals(45.5 * 60 / 3000, values[0], 1e-9);
+        assertEquals(3 + 45.5, values[1], 1e-9);
+        assertEquals(2 * 45.5 * 60 / 3000, values[2], 1e-9);
+        assertEquals(3000.0, speedQuery.getResponse(), 0.0);
+        assertEquals(1, rpm.count);
+        assertEquals(1, maf.count);
+
+        for (int i = 0; i < derivedQueries.length; i++) {
+            final byte[] bytes = derivedQueries[i].getResponseBytes();
+            assertEquals(derivedQueries[i].getLoggerData().getSelectedConvertor().convert(bytes),
+                    values[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testOnlyQueriedParametersAreEvaluated() {
+        final DerivedParameterGraph graph = new DerivedParameterGraph();
+        graph.bind(new EcuQuery[] {respond(new EcuQueryImpl(mixed), 400, 100)},
+                new EcuQuery[0]);
+        assertEquals(3, graph.size());
+        assertEquals(0.1 + 1.0, graph.evaluate()[0], 1e-9);
+
+        graph.bind(new EcuQuery[0], new EcuQuery[0]);
+        assertEquals(0, graph.size());
+        assertEquals(0, graph.evaluate().length);
+    }
+
+    private static final class CountingConvertor implements EcuDataConvertor {
+        private final EcuParameterConvertorImpl convertor;
+        private int count;
+
+        CountingConvertor(String units, String expression) {
+            convertor = new EcuParameterConvertorImpl(units, expression, "0", -1,
+                    "uint16", Settings.Endian.BIG, new HashMap<String, String>(), getDefault());
+        }
+
+        @Override
+        public double convert(byte[] bytes) {
+            count++;
+            return convertor.convert(bytes);
+        }
+
+        @Override
+        public String format(double value) {
+            return convertor.format(value);
+        }
+
+        @Override
+        public String getUnits() {
+            return convertor.getUnits();
+        }
+
+        @Override
+        public GaugeMinMax getGaugeMinMax() {
+            return convertor.getGaugeMinMax();
+        }
+
+        @Override
+        public String getFormat() {
+            return convertor.getFormat();
+        }
+
+        @Override
+        public String getExpression() {
+            return convertor.getExpression();
+        }
+
+        @Override
+        public String getDataType() {
+            return convertor.getDataType();
+        }
+    }
+}
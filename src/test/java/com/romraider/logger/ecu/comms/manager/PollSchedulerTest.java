@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.PollRate;
+
+public class PollSchedulerTest {
+
+    private static EcuQuery query(int index, PollRate rate) {
+        final EcuDataConvertor[] convertors = {new EcuParameterConvertorImpl(
+                "units", "x", "0", -1, "uint8", Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault())};
+        final EcuParameterImpl parameter = new EcuParameterImpl("P" + index,
+                "Parameter " + index, "",
+                new EcuAddressImpl("0x" + Integer.toHexString(0xFF6000 + index), 1, -1),
+                null, null, null, convertors);
+        parameter.setPollRate(rate);
+        return new EcuQueryImpl(parameter);
+    }
+
+    private static int[] run(PollScheduler scheduler, List<EcuQuery> queries,
+            int cycles, boolean pollAll) {
+        final int[] polls = new int[queries.size()];
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            for (EcuQuery query : scheduler.select(queries, pollAll)) {
+                polls[queries.indexOf(query)]++;
+            }
+        }
+        return polls;
+    }
+
+    @Test
+    public void testPollsAtRateDivisor() {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        queries.add(query(0, PollRate.HIGH));
+        queries.add(query(1, PollRate.MEDIUM));
+        queries.add(query(2, PollRate.LOW));
+        final int cycles = 1 + 64;
+
+        final int[] polls = run(new PollScheduler(), queries, cycles, false);
+        assertEquals(cycles, polls[0]);
+        assertEquals(1 + 64 / 4, polls[1]);
+        assertEquals(1 + 64 / 16, polls[2]);
+    }
+
+    @Test
+    public void testNewQueriesAreSentFirstAndSpread() {
+        final PollScheduler scheduler = new PollScheduler();
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < 4; i++) {
+            queries.add(query(i, PollRate.MEDIUM));
+        }
+        assertEquals(4, scheduler.select(queries, false).size());
+        for (int cycle = 1; cycle <= 8; cycle++) {
+            assertEquals(1, scheduler.select(queries, false).size());
+        }
+    }
+
+    @Test
+    public void testFastPollSendsEveryQuery() {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        queries.add(query(0, PollRate.LOW));
+        queries.add(query(1, PollRate.MEDIUM));
+
+        final int[] polls = run(new PollScheduler(), queries, 10, true);
+        assertEquals(10, polls[0]);
+        assertEquals(10, polls[1]);
+    }
+
+    @Test
+    public void testAchievedRate() {
+        final PollScheduler scheduler = new PollScheduler();
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        queries.add(query(0, PollRate.HIGH));
+        queries.add(query(1, PollRate.MEDIUM));
+        scheduler.select(queries, false);
+        scheduler.retainAll(queries, 0L);
+        run(scheduler, queries, 40, false);
+
+        assertEquals(20.0, scheduler.getAchievedRate(queries.get(0), 2000L), 0.0);
+        assertEquals(5.0, scheduler.getAchievedRate(queries.get(1), 2000L), 0.0);
+        assertTrue(scheduler.buildRateReport(2000L).contains("Parameter 1 5.0 Hz"));
+    }
+
+    @Test
+    public void testDueChangesWithSameSize() {
+        final PollScheduler scheduler = new PollScheduler();
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        queries.add(query(0, PollRate.HIGH));
+        queries.add(query(1, PollRate.MEDIUM));
+        queries.add(query(2, PollRate.MEDIUM));
+        scheduler.select(queries, false);
+        assertTrue(scheduler.isDueChanged());
+
+        // the medium queries take turns, so two queries are due every
+        // other cycle but the second one differs
+        List<EcuQuery> last = new ArrayList<EcuQuery>(scheduler.select(queries, false));
+        for (int cycle = 0; cycle < 8; cycle++) {
+            final List<EcuQuery> due = new ArrayList<EcuQuery>(scheduler.select(queries, false));
+            assertEquals(!due.equals(last), scheduler.isDueChanged());
+            last = due;
+        }
+
+        final PollScheduler alternating = new PollScheduler();
+        final List<EcuQuery> first = new ArrayList<EcuQuery>();
+        first.add(query(3, PollRate.HIGH));
+        first.add(query(4, PollRate.HIGH));
+        final List<EcuQuery> second = new ArrayList<EcuQuery>();
+        second.add(first.get(0));
+        second.add(query(5, PollRate.HIGH));
+        alternating.select(first, false);
+        alternating.select(second, false);
+        alternating.select(second, false);
+        assertFalse(alternating.isDueChanged());
+        for (int cycle = 0; cycle < 4; cycle++) {
+            assertEquals(2, alternating.select(cycle % 2 == 0 ? first : second, false).size());
+            assertTrue(alternating.isDueChanged());
+        }
+    }
+}
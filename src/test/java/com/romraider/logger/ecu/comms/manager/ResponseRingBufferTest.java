@@ -0,0 +1,141 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.ResponseImpl;
+
+public class ResponseRingBufferTest {
+
+    private static Response[] responses(int n) {
+        final Response[] responses = new Response[n];
+        for (int i = 0; i < n; i++) {
+            responses[i] = new ResponseImpl();
+        }
+        return responses;
+    }
+
+    @Test
+    public void testFifoAcrossWrap() throws InterruptedException {
+        final ResponseRingBuffer buffer = new ResponseRingBuffer(3, DispatchPolicy.BLOCK);
+        final Response[] r = responses(5);
+        final Response[] batch = new Response[2];
+
+        buffer.put(r[0]);
+        buffer.put(r[1]);
+        assertEquals(2, buffer.drainTo(batch, 0));
+        assertSame(r[0], batch[0]);
+        assertSame(r[1], batch[1]);
+
+        buffer.put(r[2]);
+        buffer.put(r[3]);
+        buffer.put(r[4]);
+        assertEquals(3, buffer.getDepth());
+        assertEquals(2, buffer.drainTo(batch, 0));
+        assertSame(r[2], batch[0]);
+        assertSame(r[3], batch[1]);
+        assertEquals(1, buffer.drainTo(batch, 0));
+        assertSame(r[4], batch[0]);
+        assertEquals(0, buffer.drainTo(batch, 0));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        final ResponseRingBuffer buffer = new ResponseRingBuffer(2, DispatchPolicy.DROP_OLDEST);
+        final Response[] r = responses(4);
+        assertNull(buffer.put(r[0]));
+        assertNull(buffer.put(r[1]));
+        assertSame(r[0], buffer.put(r[2]));
+        assertSame(r[1], buffer.put(r[3]));
+        assertEquals(2, buffer.getDropCount());
+
+        final Response[] batch = new Response[4];
+        assertEquals(2, buffer.drainTo(batch, 0));
+        assertSame(r[2], batch[0]);
+        assertSame(r[3], batch[1]);
+    }
+
+    @Test
+    public void testCoalesceLatest() throws InterruptedException {
+        final ResponseRingBuffer buffer = new ResponseRingBuffer(2, DispatchPolicy.COALESCE_LATEST);
+        final Response[] r = responses(4);
+        buffer.put(r[0]);
+        buffer.put(r[1]);
+        assertSame(r[1], buffer.put(r[2]));
+        assertSame(r[2], buffer.put(r[3]));
+        assertEquals(2, buffer.getDropCount());
+
+        final Response[] batch = new Response[4];
+        assertEquals(2, buffer.drainTo(batch, 0));
+        assertSame(r[0], batch[0]);
+        assertSame(r[3], batch[1]);
+    }
+
+    @Test
+    public void testBlockWaitsForConsumer() throws InterruptedException {
+        final ResponseRingBuffer buffer = new ResponseRingBuffer(1, DispatchPolicy.BLOCK);
+        final Response[] r = responses(2);
+        buffer.put(r[0]);
+
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    buffer.put(r[1]);
+                }
+                catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        producer.start();
+        Thread.sleep(50L);
+        assertTrue(producer.isAlive());
+
+        final Response[] batch = new Response[1];
+        assertEquals(1, buffer.drainTo(batch, 0));
+        assertSame(r[0], batch[0]);
+        producer.join(1000L);
+        assertEquals(1, buffer.drainTo(batch, 1000L));
+        assertSame(r[1], batch[0]);
+        assertEquals(0, buffer.getDropCount());
+    }
+
+    @Test
+    public void testCloseRejectsAndDrains() throws InterruptedException {
+        final ResponseRingBuffer buffer = new ResponseRingBuffer(2, DispatchPolicy.DROP_OLDEST);
+        final Response[] r = responses(2);
+        buffer.put(r[0]);
+        buffer.close();
+        assertSame(r[1], buffer.put(r[1]));
+
+        final Response[] batch = new Response[2];
+        assertEquals(1, buffer.drainTo(batch, 1000L));
+        assertEquals(0, buffer.drainTo(batch, 1000L));
+        assertTrue(buffer.isClosed());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+public class ColumnarResponseTest {
+
+    private static LoggerData loggerData(final String id) {
+        return (LoggerData) Proxy.newProxyInstance(
+                LoggerData.class.getClassLoader(),
+                new Class<?>[] {LoggerData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final String name = method.getName();
+                        if (name.equals("equals")) return proxy == args[0];
+                        if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                        return id;
+                    }
+                });
+    }
+
+    @Test
+    public void testSlotsAreDenseAndReused() {
+        final ResponseSlots slots = new ResponseSlots();
+        final LoggerData a = loggerData("P1");
+        final LoggerData b = loggerData("P2");
+        final LoggerData c = loggerData("P3");
+
+        assertEquals(0, slots.assign(a));
+        assertEquals(1, slots.assign(b));
+        assertEquals(0, slots.assign(a));
+        assertEquals(2, slots.assign(c));
+
+        final ResponseSlots.Layout before = slots.getLayout();
+        slots.retainAll(Arrays.asList(a, c));
+        assertEquals(-1, slots.getLayout().getSlot(b));
+        assertSame(b, before.getLoggerData(1));
+
+        final LoggerData d = loggerData("P4");
+        assertEquals(1, slots.assign(d));
+        assertEquals(3, slots.getLayout().size());
+    }
+
+    @Test
+    public void testResponseValues() {
+        final ResponseSlots slots = new ResponseSlots();
+        final LoggerData a = loggerData("P1");
+        final LoggerData b = loggerData("P2");
+        final LoggerData c = loggerData("P3");
+        final int slotA = slots.assign(a);
+        final int slotB = slots.assign(b);
+        slots.assign(c);
+
+        final ColumnarResponse response = new ResponsePool(slots, 2).acquire();
+        response.setValue(slotB, 2.5);
+        response.setDataValue(a, -1.0);
+        response.setValue(slotB, 3.5);
+
+        assertEquals(2, response.size());
+        assertEquals(slotB, response.getSlotAt(0));
+        assertEquals(slotA, response.getSlotAt(1));
+        assertEquals(3.5, response.getDataValue(b), 0.0);
+        assertEquals(-1.0, response.getValue(slotA), 0.0);
+        assertEquals(0.0, response.getDataValue(c), 0.0);
+
+        final List<LoggerData> data = new ArrayList<LoggerData>(response.getData());
+        assertEquals(Arrays.asList(b, a), data);
+        assertTrue(response.getData().contains(a));
+        assertFalse(response.getData().contains(c));
+    }
+
+    @Test
+    public void testPoolRecyclesAndClears() {
+        final ResponseSlots slots = new ResponseSlots();
+        final LoggerData a = loggerData("P1");
+        final ResponsePool pool = new ResponsePool(slots, 1);
+        final int slotA = slots.assign(a);
+
+        final ColumnarResponse first = pool.acquire();
+        first.setValue(slotA, 42.0);
+        first.release();
+        first.release();
+
+        final LoggerData b = loggerData("P2");
+        final int slotB = slots.assign(b);
+        final ColumnarResponse second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.size());
+        assertFalse(second.hasValue(slotA));
+        second.setValue(slotB, 7.0);
+        assertEquals(7.0, second.getDataValue(b), 0.0);
+
+        assertNotSame(second, pool.acquire());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.util.JEPUtil;
+
+public class EcuParameterConvertorImplTest {
+    private static final String[] TYPES = {"uint8", "int8", "uint16", "int16", "uint32", "int32", "float"};
+    private static final String[] EXPRESSIONS = {"x", "x*0.01-40", "(x-128)/2", "sqrt(abs(x))"};
+
+    private static EcuParameterConvertorImpl convertor(String expression, String format,
+            int bit, String type, Settings.Endian endian, Map<String, String> replace) {
+        return new EcuParameterConvertorImpl("units", expression, format, bit, type,
+                endian, replace, getDefault());
+    }
+
+    /** The conversion as made through a ByteBuffer before decoders. */
+    private static double reference(byte[] bytes, String expression, String type,
+            Settings.Endian endian) {
+        final ByteBuffer bb = ByteBuffer.wrap(bytes);
+        if (endian == Settings.Endian.LITTLE) {
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        double result;
+        if (type.equals("float")) {
+            result = JEPUtil.evaluate(expression, bb.getFloat());
+        }
+        else {
+            long value = bytes.length == 1 ? bb.get()
+                    : bytes.length == 2 ? bb.getShort() : bb.getInt();
+            if (type.startsWith("uint")) {
+                value &= bytes.length == 1 ? 0xffL : bytes.length == 2 ? 0xffffL : 0xffffffffL;
+            }
+            result = JEPUtil.evaluate(expression, value);
+        }
+        return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
+    }
+
+    @Test
+    public void testMatchesByteBufferConversion() {
+        final Random random = new Random(7L);
+        for (Settings.Endian endian : Settings.Endian.values()) {
+            for (String type : TYPES) {
+                final int length = type.equals("float") || type.endsWith("32") ? 4
+                        : type.endsWith("16") ? 2 : 1;
+                for (String expression : EXPRESSIONS) {
+                    final EcuParameterConvertorImpl convertor = convertor(
+                            expression, "0", -1, type, endian, new HashMap<String, String>());
+                    for (int i = 0; i < 200; i++) {
+                        final byte[] bytes = new byte[length];
+                        random.nextBytes(bytes);
+                        assertEquals(type + " " + endian + " " + expression,
+                                Double.doubleToLongBits(reference(bytes, expression, type, endian)),
+                                Double.doubleToLongBits(convertor.convert(bytes)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBit() {
+        final EcuParameterConvertorImpl convertor = convertor(
+                "x", "0", 9, "uint16", Settings.Endian.LITTLE, new HashMap<String, String>());
+        assertEquals(1.0, convertor.convert(new byte[] {0x02, 0x00}), 0.0);
+        assertEquals(0.0, convertor.convert(new byte[] {0x00, 0x02}), 0.0);
+    }
+
+    @Test
+    public void testFormatterMatchesFormat() {
+        final Map<String, String> replace = new HashMap<String, String>();
+        replace.put("0", "Off");
+        replace.put("1", "On");
+        final EcuParameterConvertorImpl convertor = convertor(
+                "x", "0", -1, "uint8", Settings.Endian.BIG, replace);
+        final ValueFormatter formatter = convertor.newFormatter();
+        final byte[] buffer = new byte[16];
+        for (double value : new double[] {0, 1, 2, 255}) {
+            final int end = formatter.format(value, buffer, 0);
+            assertEquals(convertor.format(value), new String(buffer, 0, end));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.FrameScheduler.FrameListener;
+import com.romraider.logger.ecu.ui.handler.FrameValues.Sample;
+
+public class FrameSchedulerTest {
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
+
+    private static LoggerData loggerData(final String id) {
+        return (LoggerData) Proxy.newProxyInstance(
+                LoggerData.class.getClassLoader(),
+                new Class<?>[] {LoggerData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final String name = method.getName();
+                        if (name.equals("equals")) return proxy == args[0];
+                        if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                        return id;
+                    }
+                });
+    }
+
+    @Before
+    public void setUp() {
+        scheduler.resetMetrics();
+    }
+
+    @Test
+    public void testLatestValueKeepsRange() {
+        final FrameValues values = new FrameValues(scheduler);
+        final LoggerData a = loggerData("P1");
+        final LoggerData b = loggerData("P2");
+        values.post(a, 5.0);
+        values.post(b, 1.0);
+        values.post(a, 9.0);
+        values.post(a, 2.0);
+        values.post(a, 4.0);
+
+        final List<Sample> samples = values.drain();
+        assertEquals(2, samples.size());
+        final Sample sample = samples.get(0);
+        assertSame(a, sample.getLoggerData());
+        assertEquals(4.0, sample.getValue(), 0.0);
+        assertEquals(2.0, sample.getMin(), 0.0);
+        assertEquals(9.0, sample.getMax(), 0.0);
+        assertSame(b, samples.get(1).getLoggerData());
+        assertTrue(values.drain().isEmpty());
+
+        assertEquals(5, scheduler.getPostedCount());
+        assertEquals(2, scheduler.getAppliedCount());
+        assertEquals(3, scheduler.getDroppedCount());
+    }
+
+    @Test
+    public void testRequestsCoalesceIntoOneCall() {
+        final int[] calls = new int[1];
+        final FrameListener listener = new FrameListener() {
+            public void applyFrame() {
+                calls[0]++;
+            }
+        };
+        scheduler.requestFrame(listener);
+        scheduler.requestFrame(listener);
+        scheduler.requestFrame(listener);
+        scheduler.runFrame();
+        scheduler.runFrame();
+        assertEquals(1, calls[0]);
+        assertEquals(1, scheduler.getFrameCount());
+    }
+}
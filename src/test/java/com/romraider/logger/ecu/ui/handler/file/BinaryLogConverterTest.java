@@ -0,0 +1,146 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.romraider.logger.ecu.ui.handler.file.LogColumn.Kind;
+
+public class BinaryLogConverterTest {
+
+    @Test
+    public void testConvertedMatchesCsv() throws IOException {
+        checkRoundTrip(",", false);
+        checkRoundTrip(";", true);
+    }
+
+    @Test
+    public void testCsvLayout() throws IOException {
+        final ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        final LogWriter writer = new CsvLogWriter(Channels.newChannel(csv), ",", false);
+        writer.writeHeaders(new LogColumn[] {
+                new LogColumn("P8", "Engine Speed", "rpm", "x/4", "0", Kind.DECIMAL, null),
+                new LogColumn("S1", "Clutch Switch", "", "", "", Kind.SWITCH, null)});
+        writer.writeRecord(1000L, new double[] {2500.0, 1.0});
+        writer.writeRecord(1050L, new double[] {2504.25, 0.0});
+        writer.close();
+
+        final String nl = System.getProperty("line.separator");
+        assertEquals("Time (msec),Engine Speed (rpm),Clutch Switch ()" + nl
+                + "0,2500,1" + nl
+                + "50,2504,0" + nl, csv.toString());
+    }
+
+    @Test
+    public void testTruncatedLog() throws IOException {
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        final LogWriter writer = new BinaryLogWriter(Channels.newChannel(binary), ",", false);
+        writer.writeHeaders(columns());
+        writer.writeRecord(10L, new double[] {1, 2, 3, 4, 5});
+        writer.writeRecord(20L, new double[] {6, 7, 8, 9, 10});
+        writer.close();
+        final byte[] bytes = binary.toByteArray();
+        final byte[] cut = new byte[bytes.length - 5];
+        System.arraycopy(bytes, 0, cut, 0, cut.length);
+
+        final BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(cut));
+        assertEquals(BinaryLogWriter.HEADER, reader.next());
+        assertEquals(5, reader.getColumns().length);
+        assertEquals(BinaryLogWriter.RECORD, reader.next());
+        assertEquals(10L, reader.getTimestamp());
+        assertArrayEquals(new double[] {1, 2, 3, 4, 5}, reader.getValues(), 0.0);
+        assertEquals(BinaryLogReader.END, reader.next());
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotBinaryLog() throws IOException {
+        new BinaryLogReader(new ByteArrayInputStream("Time,RPM".getBytes()));
+    }
+
+    private static void checkRoundTrip(String delimiter, boolean absolute)
+            throws IOException {
+        final ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        final LogWriter csvWriter =
+                new CsvLogWriter(Channels.newChannel(csv), delimiter, absolute);
+        final LogWriter binaryWriter =
+                new BinaryLogWriter(Channels.newChannel(binary), delimiter, absolute);
+        final Random random = new Random(7);
+        long timestamp = 1650000000000L;
+        LogColumn[] columns = columns();
+        for (int block = 0; block < 3; block++) {
+            csvWriter.writeHeaders(columns);
+            binaryWriter.writeHeaders(columns);
+            final double[] values = new double[columns.length];
+            for (int row = 0; row < 20000; row++) {
+                timestamp += 20 + random.nextInt(30);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = (random.nextDouble() - 0.3) * 8000;
+                }
+                values[3] = random.nextInt(3);
+                csvWriter.writeRecord(timestamp, values);
+                binaryWriter.writeRecord(timestamp, values);
+            }
+            // the column set changes during the log
+            final LogColumn[] fewer = new LogColumn[columns.length - 1];
+            System.arraycopy(columns, 1, fewer, 0, fewer.length);
+            columns = block == 0 ? fewer : columns();
+        }
+        csvWriter.close();
+        binaryWriter.close();
+
+        final ByteArrayOutputStream converted = new ByteArrayOutputStream();
+        final BinaryLogReader reader = new BinaryLogReader(
+                new ByteArrayInputStream(binary.toByteArray()));
+        final long records = BinaryLogConverter.convert(
+                reader, Channels.newChannel(converted));
+        reader.close();
+
+        assertEquals(60000, records);
+        assertTrue(binary.size() < csv.size() * 2);
+        assertArrayEquals(csv.toByteArray(), converted.toByteArray());
+    }
+
+    private static LogColumn[] columns() {
+        final Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("0", "Off");
+        replacements.put("1", "On");
+        return new LogColumn[] {
+            new LogColumn("P8", "Engine Speed", "rpm", "x/4", "0", Kind.DECIMAL, null),
+            new LogColumn("P7", "Manifold Pressure", "psi", "x*0.1", "0.00", Kind.DECIMAL, null),
+            new LogColumn("E1", "IAM", "multiplier", "x/16", "0.####", Kind.DECIMAL, null),
+            new LogColumn("P90", "Cruise State", "state", "x", "0", Kind.DECIMAL, replacements),
+            new LogColumn("S12", "Clutch Switch", "", "", "", Kind.SWITCH, null)
+        };
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimeSeriesBufferTest {
+
+    @Test
+    public void testRingKeepsNewestSamples() {
+        final TimeSeriesBuffer buffer = new TimeSeriesBuffer(100);
+        assertEquals(128, buffer.getCapacity());
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i, i * 2);
+        }
+        assertEquals(128, buffer.size());
+        assertEquals(999.0, buffer.getLastX(), 0.0);
+
+        final double[] xs = new double[1024];
+        final double[] ys = new double[1024];
+        assertEquals(128, buffer.decimate(0, 256, xs, ys));
+        assertEquals(872.0, xs[0], 0.0);
+        assertEquals(1744.0, ys[0], 0.0);
+        assertEquals(10, buffer.decimate(990, 256, xs, ys));
+        assertEquals(990.0, xs[0], 0.0);
+
+        buffer.clear();
+        assertEquals(0, buffer.decimate(0, 256, xs, ys));
+        assertTrue(Double.isNaN(buffer.getLastX()));
+    }
+
+    @Test
+    public void testDecimationKeepsExtremes() {
+        final Random random = new Random(11);
+        final TimeSeriesBuffer buffer = new TimeSeriesBuffer(50000);
+        final int total = 123457;
+        final double[] x = new double[total];
+        final double[] y = new double[total];
+        for (int i = 0; i < total; i++) {
+            x[i] = i / 30.0;
+            y[i] = Math.sin(i / 500.0) * 100 + random.nextGaussian() * 5
+                    + (random.nextInt(5000) == 0 ? 400 : 0);
+            buffer.add(x[i], y[i]);
+        }
+        final int buckets = 300;
+        final double[] xs = new double[4 * buckets];
+        final double[] ys = new double[4 * buckets];
+        final double from = x[total - 1] - 1000;
+        final int count = buffer.decimate(from, buckets, xs, ys);
+        assertTrue(count <= 4 * buckets);
+        assertTrue(count > buckets);
+
+        // every point is a real sample, in time order
+        int first = 0;
+        while (x[first] < from) {
+            first++;
+        }
+        assertEquals(x[first], xs[0], 0.0);
+        assertEquals(x[total - 1], xs[count - 1], 0.0);
+        for (int p = 0; p < count; p++) {
+            final int i = (int) Math.round(xs[p] * 30.0);
+            assertEquals(y[i], ys[p], 0.0);
+            assertTrue(p == 0 || xs[p] > xs[p - 1]);
+        }
+
+        // the extremes of every bucket survive
+        final double width = (x[total - 1] - x[first]) / buckets;
+        int i = first;
+        for (int b = 1; b <= buckets; b++) {
+            final double bucketEnd = b == buckets ? Double.MAX_VALUE : x[first] + width * b;
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (; i < total && x[i] < bucketEnd; i++) {
+                min = Math.min(min, y[i]);
+                max = Math.max(max, y[i]);
+            }
+            if (min <= max) {
+                assertTrue(contains(ys, count, min));
+                assertTrue(contains(ys, count, max));
+            }
+        }
+    }
+
+    private static boolean contains(double[] values, int count, double value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
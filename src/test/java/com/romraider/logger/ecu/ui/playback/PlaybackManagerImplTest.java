@@ -0,0 +1,242 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static java.util.Collections.synchronizedList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class PlaybackManagerImplTest {
+    private static final int ROWS = 10000;
+    private final LoggerData rpm = loggerData("P8", "Engine Speed", "rpm", null);
+    private final LoggerData coolant = loggerData("P2", "Coolant Temperature", "C", null);
+    private final LoggerData cruise = loggerData("P90", "Cruise State", "state",
+            replacements("0", "Off", "1", "On"));
+    private final RecordingHandler handler = new RecordingHandler();
+    private PlaybackManagerImpl playback;
+    private File log;
+
+    @Before
+    public void setUp() throws IOException {
+        log = File.createTempFile("playback", ".csv");
+        playback = new PlaybackManagerImpl(Arrays.asList(rpm, coolant, cruise), handler);
+    }
+
+    @After
+    public void tearDown() {
+        playback.reset();
+        log.delete();
+    }
+
+    @Test
+    public void testLoadMapsHeaders() throws IOException {
+        writeRelativeLog();
+        playback.load(log);
+
+        assertEquals(Arrays.asList(rpm, coolant, cruise), handler.registered);
+        assertEquals((ROWS - 1) * 50L, playback.getDuration());
+        assertEquals(0, playback.getPosition());
+        assertTrue(handler.records.isEmpty());
+    }
+
+    @Test
+    public void testStepAndSeek() throws IOException {
+        writeRelativeLog();
+        playback.load(log);
+
+        playback.step(1);
+        assertEquals(0.0, handler.last().get(rpm), 0.0);
+        playback.step(3);
+        assertEquals(4, handler.records.size());
+        assertEquals(3.0, handler.last().get(rpm), 0.0);
+        assertEquals(150, playback.getPosition());
+        playback.step(-2);
+        assertEquals(1.0, handler.last().get(rpm), 0.0);
+        assertEquals(50, playback.getPosition());
+
+        // inside the second header, where the columns are reordered
+        playback.seek(7777 * 50 + 1);
+        assertEquals(7778 * 50, playback.getPosition());
+        final Map<LoggerData, Double> values = handler.last();
+        assertEquals(7778.0, values.get(rpm), 0.0);
+        assertEquals(7778 % 120 / 2.0, values.get(coolant), 0.0);
+        assertEquals(1.0, values.get(cruise), 0.0);
+
+        playback.step(-7000);
+        assertEquals(778.0, handler.last().get(rpm), 0.0);
+        assertNull(handler.last().get(cruise));
+    }
+
+    @Test
+    public void testPlayUnthrottled() throws Exception {
+        writeRelativeLog();
+        playback.load(log);
+        playback.seek(ROWS * 50 - 100 * 50);
+        handler.records.clear();
+
+        playback.play(0);
+        for (int i = 0; i < 500 && playback.isPlaying(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(playback.isPlaying());
+        assertEquals(99, handler.records.size());
+        assertEquals(ROWS - 1.0, handler.last().get(rpm), 0.0);
+        final long first = handler.timestamps.get(0);
+        assertEquals(98 * 50L, handler.timestamps.get(98) - first);
+    }
+
+    @Test
+    public void testAbsoluteTimeAcrossMidnight() throws IOException {
+        final Writer writer = new FileWriter(log);
+        writer.write("Time;Engine Speed (rpm);Cruise State (state)\r\n");
+        writer.write("23:59:59.900;812,5;On\r\n");
+        writer.write("00:00:00.100;1.024,25;Off\r\n");
+        writer.write("00:00:00.300;-3;?\r\n");
+        writer.close();
+        playback.load(log);
+
+        assertEquals(400, playback.getDuration());
+        playback.step(1);
+        assertEquals(812.5, handler.last().get(rpm), 0.0);
+        assertEquals(1.0, handler.last().get(cruise), 0.0);
+        playback.step(1);
+        assertEquals(1024.25, handler.last().get(rpm), 0.0);
+        assertEquals(0.0, handler.last().get(cruise), 0.0);
+        playback.seek(400);
+        assertEquals(-3.0, handler.last().get(rpm), 0.0);
+        assertNull(handler.last().get(cruise));
+    }
+
+    private void writeRelativeLog() throws IOException {
+        final Writer writer = new FileWriter(log);
+        writer.write("Time (msec),Engine Speed (rpm),Coolant Temperature (C),Unknown (x)\n");
+        for (int row = 0; row < ROWS; row++) {
+            if (row == ROWS / 2) {
+                writer.write("Time (msec),Cruise State (state),Coolant Temperature (C),P8\n");
+            }
+            final String temperature = (row % 120) / 2 + ((row % 2) == 0 ? "" : ".5");
+            if (row < ROWS / 2) {
+                writer.write(row * 50 + "," + row + "," + temperature + ",7\n");
+            } else {
+                writer.write(row * 50 + "," + (row % 2 == 0 ? "On" : "1")
+                        + "," + temperature + "," + row + "\n");
+            }
+        }
+        writer.close();
+    }
+
+    private static LoggerData loggerData(final String id, final String name,
+            String units, Map<String, String> replacements) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(units, "x", "0.##",
+                -1, "uint16", Settings.Endian.BIG,
+                replacements == null ? new HashMap<String, String>() : replacements,
+                new GaugeMinMax(0, 100, 10));
+        return (LoggerData) Proxy.newProxyInstance(
+                LoggerData.class.getClassLoader(),
+                new Class<?>[] {LoggerData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final String call = method.getName();
+                        if (call.equals("equals")) return proxy == args[0];
+                        if (call.equals("hashCode")) return System.identityHashCode(proxy);
+                        if (call.equals("getSelectedConvertor")) return convertor;
+                        if (call.equals("getConvertors")) return new EcuDataConvertor[] {convertor};
+                        if (call.equals("getName")) return name;
+                        return id;
+                    }
+                });
+    }
+
+    private static Map<String, String> replacements(String... pairs) {
+        final Map<String, String> map = new LinkedHashMap<String, String>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put(pairs[i], pairs[i + 1]);
+        }
+        return map;
+    }
+
+    private static final class RecordingHandler implements DataUpdateHandler {
+        final List<LoggerData> registered = new ArrayList<LoggerData>();
+        final List<Map<LoggerData, Double>> records =
+                synchronizedList(new ArrayList<Map<LoggerData, Double>>());
+        final List<Long> timestamps = synchronizedList(new ArrayList<Long>());
+
+        Map<LoggerData, Double> last() {
+            return records.get(records.size() - 1);
+        }
+
+        @Override
+        public void registerData(LoggerData loggerData) {
+            registered.add(loggerData);
+        }
+
+        @Override
+        public void handleDataUpdate(Response response) {
+            final Map<LoggerData, Double> values = new HashMap<LoggerData, Double>();
+            for (LoggerData loggerData : response.getData()) {
+                values.put(loggerData, response.getDataValue(loggerData));
+            }
+            records.add(values);
+            timestamps.add(response.getTimestamp());
+        }
+
+        @Override
+        public void deregisterData(LoggerData loggerData) {
+            registered.remove(loggerData);
+        }
+
+        @Override
+        public void cleanUp() {
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}
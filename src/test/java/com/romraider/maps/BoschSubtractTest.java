@@ -0,0 +1,125 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.HexUtil;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.RomAttributeParser;
+
+/**
+ * The Bosch subtract layout must read and write the same bytes as the
+ * original cell by cell implementation, kept below as the reference.
+ */
+public class BoschSubtractTest {
+    private static final int ADDRESS = 0x100;
+
+    // Motronic style axes, stored step sizes from the top of the range down
+    private static final String RPM_AXIS_8BIT = "0c0a0a0a0a0a0a0a0a0c0c0c0e0e10141414";
+    private static final String LOAD_AXIS_16BIT = "04b0012c012c00fa00fa00c800c80096009600640064003200320019";
+
+    private static double referenceValue(byte[] bin, int storageType, int size, int index) {
+        double dataValue = Math.pow(2, 8 * storageType);
+        for (int j = size - 1; j >= index; j--) {
+            dataValue -= RomAttributeParser.parseByteValue(bin, Settings.Endian.BIG,
+                    ADDRESS + j * storageType, storageType, false);
+        }
+        return dataValue;
+    }
+
+    private static void referenceSave(byte[] bin, int storageType, double[] binValues, int index) {
+        final int size = binValues.length;
+        double crossedValue = 0;
+        for (int i = size - 1; i >= index; i--) {
+            if (i == index)
+                crossedValue -= binValues[i];
+            else if (i == size - 1)
+                crossedValue = Math.pow(2, 8 * storageType) - RomAttributeParser.parseByteValue(
+                        bin, Settings.Endian.BIG, ADDRESS + i * storageType, storageType, false);
+            else
+                crossedValue -= RomAttributeParser.parseByteValue(
+                        bin, Settings.Endian.BIG, ADDRESS + i * storageType, storageType, false);
+        }
+        final byte[] output = RomAttributeParser.parseIntegerValue(
+                (int) crossedValue, Settings.Endian.BIG, storageType);
+        System.arraycopy(output, 0, bin, ADDRESS + index * storageType, storageType);
+        if (index > 0) referenceSave(bin, storageType, binValues, index - 1);
+        binValues[index] = referenceValue(bin, storageType, size, index);
+    }
+
+    private static void assertSameAsReference(String axis, int storageType, double[][] edits) {
+        final byte[] stored = HexUtil.asBytes(axis);
+        final int size = stored.length / storageType;
+        final byte[] bin = new byte[0x400];
+        System.arraycopy(stored, 0, bin, ADDRESS, stored.length);
+        final byte[] reference = bin.clone();
+
+        SettingsManager.setTesting(true);
+        final Rom rom = new Rom(new RomID());
+        rom.populateTables(bin, new JProgressPane());
+        final Table1D table = new Table1D();
+        table.setName("Bosch axis");
+        table.setStorageType(storageType);
+        table.setStorageAddress(ADDRESS);
+        table.setDataSize(size);
+        table.setDataLayout(Table.DataLayout.BOSCH_SUBTRACT);
+        table.populateTable(rom);
+
+        final double[] binValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            binValues[i] = referenceValue(reference, storageType, size, i);
+            assertEquals(binValues[i], table.getDataCell(i).getBinValue(), 0);
+        }
+
+        for (double[] edit : edits) {
+            final int index = (int) edit[0];
+            binValues[index] = edit[1];
+            referenceSave(reference, storageType, binValues, index);
+            try {
+                table.getDataCell(index).setBinValue(edit[1]);
+            } catch (UserLevelException e) {
+                throw new IllegalStateException(e);
+            }
+
+            assertArrayEquals(reference, bin);
+            for (int i = 0; i < size; i++) {
+                assertEquals(binValues[i], table.getDataCell(i).getBinValue(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testRpmAxis() {
+        assertSameAsReference(RPM_AXIS_8BIT, 1, new double[][] {
+                {17, 200}, {0, 24}, {8, 100}, {3, 250}, {16, 0}, {17, 255}, {5, 1}});
+    }
+
+    @Test
+    public void testLoadAxis() {
+        assertSameAsReference(LOAD_AXIS_16BIT, 2, new double[][] {
+                {13, 65000}, {0, 1000}, {6, 40000}, {12, 0}, {13, 25}, {2, 65535}});
+    }
+}
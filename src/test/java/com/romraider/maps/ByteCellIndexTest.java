@@ -0,0 +1,75 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ByteCellIndexTest {
+    private final Table1D table = new Table1D();
+
+    private DataCell cell() {
+        return new DataCell(table, null);
+    }
+
+    @Test
+    public void testOverlaps() {
+        final ByteCellIndex index = new ByteCellIndex();
+        final DataCell word = cell();
+        final DataCell low = cell();
+        final DataCell high = cell();
+        final DataCell shifted = cell();
+        final DataCell far = cell();
+        // added out of order, as parallel table population does
+        index.add(far, 0x2000, 4);
+        index.add(high, 0x1001, 1);
+        index.add(word, 0x1000, 2);
+        index.add(shifted, 0x0fff, 2);
+        index.add(low, 0x1000, 1);
+
+        assertEquals(Arrays.asList(shifted, word, low), index.getCells(0x1000, 0x1001));
+        assertEquals(Arrays.asList(word, high), index.getCells(0x1001, 0x1002));
+        assertEquals(Arrays.asList(shifted, word, low, high), index.getCells(0x1000, 0x1002));
+        assertEquals(Collections.<DataCell>emptyList(), index.getCells(0x1002, 0x2000));
+        assertEquals(Arrays.asList(far), index.getCells(0x2003, 0x2004));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void testLongCellBeforeShortOnes() {
+        final ByteCellIndex index = new ByteCellIndex();
+        final DataCell wide = cell();
+        index.add(wide, 0, 0x100);
+        for (int i = 1; i < 0x80; i++) {
+            index.add(cell(), i, 1);
+        }
+        final List<DataCell> found = index.getCells(0xf0, 0xf1);
+        assertEquals(Arrays.asList(wide), found);
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(Collections.<DataCell>emptyList(), index.getCells(0, 0x100));
+    }
+}
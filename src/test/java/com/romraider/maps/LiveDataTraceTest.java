@@ -0,0 +1,108 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.maps.Table1DView.Table1DType;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class LiveDataTraceTest {
+    private static final int ADDRESS = 0x10;
+    private byte[] bin;
+    private Rom rom;
+
+    @Before
+    public void setUp() {
+        SettingsManager.setTesting(true);
+        bin = new byte[0x100];
+        rom = new Rom(new RomID());
+        rom.populateTables(bin, new JProgressPane());
+    }
+
+    private Table1DView axis(int... values) {
+        for (int i = 0; i < values.length; i++) {
+            bin[ADDRESS + i] = (byte) values[i];
+        }
+        final Table1D table = new Table1D();
+        table.setName("Axis");
+        table.setStorageType(1);
+        table.setStorageAddress(ADDRESS);
+        table.setDataSize(values.length);
+        table.populateTable(rom);
+        final Table1DView view = new Table1DView(table, Table1DType.X_AXIS);
+        final DataCellView[] cells = new DataCellView[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cells[i] = new DataCellView(table.getDataCell(i), view);
+        }
+        view.setData(cells);
+        return view;
+    }
+
+    @Test
+    public void testAscendingAxis() {
+        final Table1DView view = axis(10, 20, 20, 40);
+        assertEquals(0, view.findLiveDataIndex(5));
+        assertEquals(0, view.findLiveDataIndex(10));
+        assertEquals(0, view.findLiveDataIndex(19.9));
+        assertEquals(1, view.findLiveDataIndex(20));
+        assertEquals(2, view.findLiveDataIndex(39));
+        assertEquals(3, view.findLiveDataIndex(40));
+        assertEquals(3, view.findLiveDataIndex(100));
+    }
+
+    @Test
+    public void testDescendingAxis() {
+        final Table1DView view = axis(40, 30, 20, 10);
+        assertEquals(3, view.findLiveDataIndex(5));
+        assertEquals(2, view.findLiveDataIndex(25));
+        assertEquals(0, view.findLiveDataIndex(45));
+    }
+
+    @Test
+    public void testLookupFollowsCellChanges() throws UserLevelException {
+        final Table1DView view = axis(10, 20, 30, 40);
+        assertEquals(1, view.findLiveDataIndex(25));
+        view.getTable().getDataCell(1).setBinValue(28);
+        assertEquals(0, view.findLiveDataIndex(25));
+    }
+
+    @Test
+    public void testHistogram() {
+        final Table1DView view = axis(10, 20, 30);
+        view.setOverlayLog(true);
+        view.setLiveDataIndex(1);
+        view.recordLiveDataSample(0);
+        view.recordLiveDataSample(5000000);
+        view.setLiveDataIndex(2);
+        view.recordLiveDataSample(20000000);
+        assertArrayEquals(new int[] {0, 2, 1}, view.getLiveDataHits());
+        assertArrayEquals(new long[] {0, 20, 0}, view.getLiveDataDwellMillis());
+        assertEquals("[LiveDataHits]" + Settings.NEW_LINE + "0\t2\t1" + Settings.NEW_LINE
+                + "[LiveDataDwellMillis]" + Settings.NEW_LINE + "0\t20\t0",
+                view.getLiveDataHistogramAsString());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class RomComparisonTest {
+
+    @Before
+    public void setUp() {
+        SettingsManager.setTesting(true);
+    }
+
+    private static Table2D table2D(String name) {
+        final Table1D axis = new Table1D();
+        axis.setName(name + " Axis");
+        axis.setStorageType(1);
+        axis.setStorageAddress(0x10);
+        axis.setDataSize(4);
+        final Table2D table = new Table2D();
+        table.setName(name);
+        table.setStorageType(1);
+        table.setStorageAddress(0x20);
+        table.setDataSize(4);
+        table.setAxis(axis);
+        return table;
+    }
+
+    private static Table1D table1D(String name, int address) {
+        final Table1D table = new Table1D();
+        table.setName(name);
+        table.setStorageType(1);
+        table.setStorageAddress(address);
+        table.setDataSize(2);
+        return table;
+    }
+
+    private static byte[] binary(int length) {
+        final byte[] bin = new byte[length];
+        for (int i = 0; i < 4; i++) {
+            bin[0x10 + i] = (byte) (10 * i);
+            bin[0x20 + i] = (byte) (100 + i);
+        }
+        return bin;
+    }
+
+    private static Rom rom(byte[] bin, Table... tables) {
+        final Rom rom = new Rom(new RomID());
+        for (Table table : tables) {
+            rom.addTableByName(table);
+        }
+        rom.populateTables(bin, new JProgressPane());
+        return rom;
+    }
+
+    private static RomComparison.TableDiff find(RomComparison comparison, String name) {
+        for (RomComparison.TableDiff diff : comparison.getTables()) {
+            if (diff.getName().equals(name)) {
+                return diff;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testEqualImages() {
+        final Rom left = rom(binary(0x100), table2D("Fuel"), table1D("Idle", 0x40));
+        final Rom right = rom(binary(0x100), table2D("fuel "), table1D("Idle", 0x40));
+        final RomComparison comparison = RomComparison.compare(left, right);
+        assertTrue(comparison.isEqual());
+        assertEquals(2, comparison.getEqualCount());
+    }
+
+    @Test
+    public void testCellDiffs() {
+        final byte[] changed = binary(0x100);
+        changed[0x21] = 110;
+        changed[0x23] = 100;
+        final RomComparison comparison = RomComparison.compare(
+                rom(binary(0x100), table2D("Fuel")), rom(changed, table2D("Fuel")));
+        final RomComparison.TableDiff diff = find(comparison, "Fuel");
+        assertEquals(RomComparison.Status.DIFFERENT, diff.getStatus());
+        assertEquals(2, diff.getChangedCells());
+        assertEquals(9.0, diff.getMaxDelta(), 1e-9);
+        assertEquals(1, diff.getFirstX());
+        assertEquals(3, diff.getLastX());
+        assertFalse(diff.isAxesChanged());
+        assertTrue(comparison.getUncoveredRegions().isEmpty());
+    }
+
+    @Test
+    public void testMissingTablesAndRawBytes() {
+        final byte[] changed = binary(0x110);
+        changed[0x80] = 1;
+        changed[0x81] = 2;
+        changed[0x90] = 3;
+        // covered by a table of the left image only
+        changed[0x40] = 4;
+        final RomComparison comparison = RomComparison.compare(
+                rom(binary(0x100), table2D("Fuel"), table1D("Idle", 0x40)),
+                rom(changed, table2D("Fuel"), table1D("Timing", 0x50)));
+        assertEquals(1, comparison.getEqualCount());
+        assertEquals(2, comparison.getMissingCount());
+
+        final List<RomComparison.ByteRegion> regions = comparison.getUncoveredRegions();
+        assertEquals(3, regions.size());
+        assertEquals(0x80, regions.get(0).getStart());
+        assertEquals(0x82, regions.get(0).getEnd());
+        assertEquals(0x90, regions.get(1).getStart());
+        assertEquals(0x100, regions.get(2).getStart());
+        assertEquals(0x110, regions.get(2).getEnd());
+    }
+
+    @Test
+    public void testCompareAll() {
+        final byte[] changed = binary(0x100);
+        changed[0x12] = 25;
+        final List<RomComparison> comparisons = RomComparison.compareAll(
+                rom(binary(0x100), table2D("Fuel")),
+                Arrays.asList(rom(binary(0x100), table2D("Fuel")), rom(changed, table2D("Fuel"))));
+        assertTrue(comparisons.get(0).isEqual());
+        final RomComparison.TableDiff diff = find(comparisons.get(1), "Fuel");
+        assertEquals(RomComparison.Status.DIFFERENT, diff.getStatus());
+        assertTrue(diff.isAxesChanged());
+        assertEquals(0, diff.getChangedCells());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.Settings.Endian;
+
+public class RomImageTest {
+    private static final int[] TYPES = {1, 2, 4};
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(11L).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** The value as read through a ByteBuffer. */
+    private static long reference(byte[] bytes, Endian endian, int address,
+            int length, boolean signed) {
+        final ByteBuffer bb = ByteBuffer.wrap(bytes);
+        if (endian == Endian.LITTLE) {
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        switch (length) {
+        case 1:
+            return signed ? bb.get(address) : bb.get(address) & 0xff;
+        case 2:
+            return signed ? bb.getShort(address) : bb.getShort(address) & 0xffff;
+        default:
+            return signed ? bb.getInt(address) : bb.getInt(address) & 0xffffffffL;
+        }
+    }
+
+    @Test
+    public void testMatchesByteBuffer() {
+        final byte[] bytes = randomBytes(256);
+        final RomImage image = RomImage.wrap(bytes);
+        for (Endian endian : Endian.values()) {
+            for (int type : TYPES) {
+                for (int address = 0; address + type <= bytes.length; address++) {
+                    assertEquals(reference(bytes, endian, address, type, true),
+                            image.getValue(address, endian, type, true));
+                    assertEquals(reference(bytes, endian, address, type, false),
+                            image.getValue(address, endian, type, false));
+                }
+            }
+            final ByteBuffer bb = ByteBuffer.wrap(bytes).order(
+                    endian == Endian.LITTLE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            assertEquals(bb.getFloat(17), image.getFloat(17, endian), 0.0f);
+        }
+    }
+
+    @Test
+    public void testBulkReads() {
+        final byte[] bytes = randomBytes(400);
+        final RomImage image = RomImage.wrap(bytes);
+        for (Endian endian : Endian.values()) {
+            for (int type : TYPES) {
+                final double[] values = new double[40];
+                image.getValues(6, endian, type, false, values);
+                for (int i = 0; i < values.length; i++) {
+                    assertEquals(image.getValue(6 + i * type, endian, type, false), values[i], 0.0);
+                }
+            }
+            final double[] floats = new double[20];
+            image.getValues(8, endian, Settings.STORAGE_TYPE_FLOAT, true, floats);
+            assertEquals(image.getFloat(8 + 4 * 19, endian), floats[19], 0.0);
+            final int[] words = new int[30];
+            image.getInts(3, endian, words);
+            assertEquals(image.getInt(3 + 4 * 29, endian), words[29]);
+        }
+    }
+
+    @Test
+    public void testMovi20() {
+        // MOVI20 #0x81234 and MOVI20S #0x01234 as SH-2A instruction words
+        final byte[] bytes = {0x00, (byte) 0x80, 0x12, 0x34, (byte) 0x01, 0x12, 0x34};
+        final RomImage image = RomImage.wrap(bytes);
+        assertEquals(0xfff81234L | 0xffffffff00000000L,
+                image.getValue(1, Endian.BIG, Settings.STORAGE_TYPE_MOVI20, true));
+        assertEquals(0x1234L << 8,
+                image.getValue(4, Endian.BIG, Settings.STORAGE_TYPE_MOVI20S, true));
+    }
+
+    @Test
+    public void testWritesAreSeenThroughTheView() {
+        final byte[] bytes = new byte[8];
+        final RomImage image = RomImage.wrap(bytes);
+        image.putInt(0, 0x12345678, Endian.BIG);
+        image.putShort(4, (short) 0xabcd, Endian.LITTLE);
+        assertEquals(0x12, bytes[0]);
+        assertEquals((byte) 0xcd, bytes[4]);
+        assertEquals((short) 0xabcd, image.getShort(4, Endian.LITTLE));
+        bytes[7] = 5;
+        assertEquals(5, image.getUnsignedByte(7));
+    }
+
+    @Test
+    public void testOutOfRange() {
+        final RomImage image = RomImage.wrap(new byte[8]);
+        try {
+            image.getInt(6, Endian.BIG);
+            fail();
+        }
+        catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            image.getValues(0, Endian.BIG, 2, false, new double[5]);
+            fail();
+        }
+        catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        final byte[] bytes = randomBytes(1024);
+        final File file = File.createTempFile("romimage", ".bin");
+        file.deleteOnExit();
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        }
+        finally {
+            out.close();
+        }
+        final RomImage mapped = RomImage.map(file);
+        final RomImage wrapped = RomImage.wrap(bytes);
+        assertTrue(mapped.isReadOnly());
+        assertEquals(bytes.length, mapped.size());
+        for (int address = 0; address + 4 <= bytes.length; address += 3) {
+            assertEquals(wrapped.getInt(address, Endian.LITTLE), mapped.getInt(address, Endian.LITTLE));
+        }
+        final int[] a = new int[200];
+        final int[] b = new int[200];
+        mapped.getInts(1, Endian.BIG, a);
+        wrapped.getInts(1, Endian.BIG, b);
+        assertEquals(a[199], b[199]);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class Table3DGridViewTest {
+    private static final int SIZE = 16;
+    private Table3D table;
+
+    @Before
+    public void setUp() {
+        SettingsManager.setTesting(true);
+        final byte[] bin = new byte[0x2000];
+        for (int i = 0; i < SIZE * SIZE * 2; i++) {
+            bin[0x1000 + i] = (byte) (i * 7);
+        }
+        final Rom rom = new Rom(new RomID());
+        rom.populateTables(bin, new JProgressPane());
+        table = TableFixtures.buildTable("Fuel Map", SIZE);
+        table.populateTable(rom);
+    }
+
+    @Test
+    public void testCellTextMatchesCellViews() {
+        final Table3DView cellView = new Table3DView(table);
+        cellView.populateTableVisual();
+        cellView.drawTable();
+        final String[][] expected = new String[SIZE][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                expected[x][y] = cellView.getCellText(x, y);
+            }
+        }
+
+        final Table3DGridView gridView = new Table3DGridView(table);
+        gridView.populateTableVisual();
+        gridView.drawTable();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                assertEquals(expected[x][y], gridView.getCellText(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testHighlightAndPaint() {
+        final Table3DGridView view = new Table3DGridView(table);
+        view.populateTableVisual();
+        view.startHighlight(2, 3);
+        view.highlight(4, 5);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                assertEquals(x >= 2 && x <= 4 && y >= 3 && y <= 5, view.isCellHighlighted(x, y));
+            }
+        }
+
+        final int cell = 20;
+        view.centerPanel.setSize(cell * (SIZE + 1), cell * (SIZE + 1));
+        view.centerPanel.doLayout();
+        final Component grid = view.centerPanel.getComponent(view.centerPanel.getComponentCount() - 1);
+        assertEquals(cell * SIZE, grid.getWidth());
+
+        final BufferedImage image = new BufferedImage(grid.getWidth(), grid.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        grid.paint(g);
+        g.dispose();
+        final int highlight = TableView.getSettings().getHighlightColor().getRGB() | 0xff000000;
+        assertEquals(highlight, image.getRGB(3 * cell + 3, 4 * cell + 3));
+        assertFalse(highlight == image.getRGB(6 * cell + 3, 4 * cell + 3));
+    }
+
+    @Test
+    public void testLiveDataTrace() {
+        final Table3DGridView view = new Table3DGridView(table);
+        view.populateTableVisual();
+        view.setOverlayLog(true);
+        view.getXAxis().setLiveDataIndex(1);
+        view.getYAxis().setLiveDataIndex(2);
+        view.updateLiveDataHighlight();
+        view.getCellData(1, 2).setLiveDataTraceValue("42");
+        assertTrue(view.getCellText(1, 2).endsWith(":42"));
+        view.clearLiveDataTrace();
+        assertFalse(view.getCellText(1, 2).endsWith(":42"));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.romraider.maps.PresetManager.PresetEntry;
+
+public class TableCopyTest {
+
+    @Test
+    public void testCopyAttributes() {
+        final Table3D table = TableFixtures.buildTable("Fuel Map", 16);
+        table.setSwapXY(true);
+        table.setSkipCells(2);
+        final Table3D copy = table.copy();
+
+        assertNotSame(table, copy);
+        assertEquals(table.getName(), copy.getName());
+        assertEquals(table.getCategory(), copy.getCategory());
+        assertEquals(table.getStorageAddress(), copy.getStorageAddress());
+        assertEquals(table.getSizeX(), copy.getSizeX());
+        assertEquals(table.getSizeY(), copy.getSizeY());
+        assertEquals(table.getSwapXY(), copy.getSwapXY());
+        assertEquals(table.getSkipCells(), copy.getSkipCells());
+        assertEquals(table.getScales(), copy.getScales());
+        assertEquals(table.getCurrentScale(), copy.getCurrentScale());
+        assertEquals(table.getYAxis().getTableAsString().toString(),
+                copy.getYAxis().getTableAsString().toString());
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        final Table3D table = TableFixtures.buildTable("Fuel Map", 8);
+        final Table3D copy = table.copy();
+
+        assertNotSame(table.getScales(), copy.getScales());
+        assertSame(copy.getScales().lastElement(), copy.getCurrentScale());
+        copy.getCurrentScale().setExpression("x*2");
+        assertEquals("x*0.01*14.7", table.getCurrentScale().getExpression());
+
+        assertNotSame(table.get3dData(), copy.get3dData());
+        assertNotSame(table.getXAxis(), copy.getXAxis());
+        assertSame(copy, copy.getXAxis().getAxisParent());
+        assertSame(copy, copy.getYAxis().getAxisParent());
+        assertSame(table, table.getYAxis().getAxisParent());
+
+        for (DataCell cell : copy.getYAxis().getData()) {
+            assertSame(copy.getYAxis(), cell.getTable());
+        }
+        copy.getYAxis().setName("renamed");
+        assertEquals("Fuel Map Y", table.getYAxis().getName());
+    }
+
+    @Test
+    public void testCopyPresets() {
+        final TableSwitch table = new TableSwitch();
+        table.setName("Switch");
+        table.setDataSize(2);
+        table.setPresetValues("on", "01 02");
+        table.setPresetValues("off", "00 00");
+
+        final Table copy = table.copy();
+        assertTrue(copy instanceof TableSwitch);
+        assertNotSame(table.presetManager, copy.presetManager);
+
+        final PresetEntry original = table.presetManager.getPresets().get(0);
+        final PresetEntry copied = copy.presetManager.getPresets().get(0);
+        assertNotSame(original, copied);
+        assertEquals(original.name, copied.name);
+        assertEquals(original.data, copied.data);
+        assertNotSame(original.data, copied.data);
+        assertEquals(2, copy.presetManager.getPresets().size());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+/**
+ * Tables built in memory, shared by the unit tests and the benchmarks.
+ */
+final class TableFixtures {
+
+    private TableFixtures() {
+    }
+
+    /**
+     * Build a 3D table the way the definition unmarshaller leaves it before
+     * the ROM is populated: attributes, scales and static axis data only.
+     */
+    static Table3D buildTable(String name, int size) {
+        final Table3D table = new Table3D();
+        table.setName(name);
+        table.setCategory("Fuel//Primary");
+        table.setStorageType(2);
+        table.setStorageAddress(0x1000);
+        table.setSizeX(size);
+        table.setSizeY(size);
+        addScale(table, "Metric", "x*0.01", "x/0.01");
+        addScale(table, "Standard", "x*0.01*14.7", "x/0.01/14.7");
+
+        final Table1D xAxis = new Table1D();
+        xAxis.setName(name + " X");
+        xAxis.setStorageType(2);
+        xAxis.setDataSize(size);
+        addScale(xAxis, "Metric", "x/4", "x*4");
+        final Table1D yAxis = new Table1D();
+        yAxis.setName(name + " Y");
+        yAxis.setDataSize(size);
+        for (int i = 0; i < size; i++) {
+            yAxis.addStaticDataCell(String.valueOf(i * 500));
+        }
+        table.setXAxis(xAxis);
+        table.setYAxis(yAxis);
+        return table;
+    }
+
+    private static void addScale(Table table, String category, String expression, String byteExpression) {
+        final Scale scale = new Scale();
+        scale.setCategory(category);
+        scale.setName(category);
+        scale.setExpression(expression);
+        scale.setByteExpression(byteExpression);
+        table.scales.add(scale);
+        table.curScale = scale;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class TableLookupTest {
+    private static final double DELTA = 1e-9;
+    private byte[] bin;
+    private Rom rom;
+
+    @Before
+    public void setUp() {
+        SettingsManager.setTesting(true);
+        bin = new byte[0x100];
+        rom = new Rom(new RomID());
+        rom.populateTables(bin, new JProgressPane());
+    }
+
+    private Table1D axis(int address, int... values) {
+        for (int i = 0; i < values.length; i++) {
+            bin[address + i] = (byte) values[i];
+        }
+        final Table1D axis = new Table1D();
+        axis.setName("Axis " + address);
+        axis.setStorageType(1);
+        axis.setStorageAddress(address);
+        axis.setDataSize(values.length);
+        return axis;
+    }
+
+    private Table2D table2D(int[] axisValues, int... values) {
+        for (int i = 0; i < values.length; i++) {
+            bin[0x80 + i] = (byte) values[i];
+        }
+        final Table2D table = new Table2D();
+        table.setName("2D");
+        table.setStorageType(1);
+        table.setStorageAddress(0x80);
+        table.setDataSize(values.length);
+        table.setAxis(axis(0x10, axisValues));
+        table.populateTable(rom);
+        return table;
+    }
+
+    // values are stored row by row, one row per Y axis cell
+    private Table3D table3D(int[] xValues, int[] yValues, int... values) {
+        for (int i = 0; i < values.length; i++) {
+            bin[0x80 + i] = (byte) values[i];
+        }
+        final Table3D table = new Table3D();
+        table.setName("3D");
+        table.setStorageType(1);
+        table.setStorageAddress(0x80);
+        table.setSizeX(xValues.length);
+        table.setSizeY(yValues.length);
+        table.setXAxis(axis(0x10, xValues));
+        table.setYAxis(axis(0x20, yValues));
+        table.populateTable(rom);
+        return table;
+    }
+
+    @Test
+    public void test2DInterpolation() {
+        final Table2D table = table2D(new int[] {10, 20, 40}, 100, 200, 0);
+        assertEquals(150, table.queryTable(15.0, null), DELTA);
+        assertEquals(200, table.queryTable(20.0, null), DELTA);
+        assertEquals(100, table.queryTable(null, 30.0), DELTA);
+        // clamped outside the axis
+        assertEquals(100, table.queryTable(0.0, null), DELTA);
+        assertEquals(0, table.queryTable(99.0, null), DELTA);
+    }
+
+    @Test
+    public void test2DDescendingAxis() {
+        final Table2D table = table2D(new int[] {40, 20, 10}, 0, 200, 100);
+        assertEquals(150, table.queryTable(15.0, null), DELTA);
+        assertEquals(100, table.queryTable(30.0, null), DELTA);
+        assertEquals(0, table.queryTable(50.0, null), DELTA);
+    }
+
+    @Test
+    public void test3DBilinear() {
+        final Table3D table = table3D(new int[] {0, 10}, new int[] {0, 100},
+                0, 10,
+                100, 50);
+        assertEquals(5, table.queryTable(5.0, 0.0), DELTA);
+        assertEquals(75, table.queryTable(5.0, 100.0), DELTA);
+        assertEquals(40, table.queryTable(5.0, 50.0), DELTA);
+        assertEquals(50, table.queryTable(0.0, 50.0), DELTA);
+        assertEquals(30, table.queryTable(10.0, 50.0), DELTA);
+        assertEquals(50, table.queryTable(20.0, 200.0), DELTA);
+    }
+
+    @Test
+    public void test3DDescendingAxes() {
+        final Table3D table = table3D(new int[] {10, 0}, new int[] {100, 0},
+                50, 100,
+                10, 0);
+        assertEquals(40, table.queryTable(5.0, 50.0), DELTA);
+        assertEquals(75, table.queryTable(5.0, 100.0), DELTA);
+    }
+
+    @Test
+    public void testLookupFollowsCellChanges() throws UserLevelException {
+        final Table2D table = table2D(new int[] {10, 20}, 100, 200);
+        assertEquals(150, table.queryTable(15.0, null), DELTA);
+        table.getDataCell(1).setBinValue(100);
+        assertEquals(100, table.queryTable(15.0, null), DELTA);
+        table.getAxis().getDataCell(1).setBinValue(30);
+        table.getDataCell(1).setBinValue(200);
+        assertEquals(125, table.queryTable(15.0, null), DELTA);
+    }
+
+    @Test
+    public void testBatchMatchesSingleQueries() {
+        final Table3D table = table3D(new int[] {0, 10, 30}, new int[] {0, 50, 100},
+                0, 10, 20,
+                30, 60, 90,
+                100, 50, 0);
+        final double[] x = {-5, 0, 4, 4, 12, 29, 31, 15, 1};
+        final double[] y = {0, 10, 60, 99, 50, 75, 120, -1, 30};
+        final double[] expected = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            expected[i] = table.queryTable(x[i], y[i]);
+        }
+        assertArrayEquals(expected, table.queryTable(x, y), DELTA);
+
+        final Table2D table2D = table2D(new int[] {10, 20, 40}, 100, 200, 0);
+        assertArrayEquals(new double[] {100, 150, 100, 0},
+                table2D.queryTable(new double[] {0, 15, 30, 50}), DELTA);
+    }
+}
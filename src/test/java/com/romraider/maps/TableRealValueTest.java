@@ -0,0 +1,108 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class TableRealValueTest {
+    private static final double DELTA = 1e-9;
+    private Table1D table;
+    private Scale doubled;
+
+    @Before
+    public void setUp() {
+        SettingsManager.setTesting(true);
+        final byte[] bin = new byte[0x100];
+        for (int i = 0; i < 4; i++) {
+            bin[0x10 + i] = (byte) (i + 1);
+        }
+        final Rom rom = new Rom(new RomID());
+        rom.populateTables(bin, new JProgressPane());
+
+        table = new Table1D();
+        table.setName("Values");
+        table.setStorageType(1);
+        table.setStorageAddress(0x10);
+        table.setDataSize(4);
+        doubled = scale("Doubled", "x*2", "x/2");
+        table.addScale(doubled);
+        table.addScale(scale("Offset", "x+100", "x-100"));
+        table.setCurrentScale(doubled);
+        table.populateTable(rom);
+    }
+
+    private static Scale scale(String category, String expression, String byteExpression) {
+        final Scale scale = new Scale();
+        scale.setCategory(category);
+        scale.setName(category);
+        scale.setExpression(expression);
+        scale.setByteExpression(byteExpression);
+        return scale;
+    }
+
+    private double value(int index) {
+        return table.getDataCell(index).getRealValue();
+    }
+
+    @Test
+    public void testCacheHit() {
+        assertEquals(2, value(0), DELTA);
+        final int version = table.getRealValuesVersion();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(2 * (i + 1), value(i), DELTA);
+        }
+        assertEquals(version, table.getRealValuesVersion());
+
+        // an equal expression read again from a definition is no change
+        doubled.setExpression(new String("x*2"));
+        assertEquals(8, value(3), DELTA);
+        assertEquals(version, table.getRealValuesVersion());
+    }
+
+    @Test
+    public void testScaleSwitch() throws Exception {
+        assertEquals(4, value(1), DELTA);
+        table.setScaleByCategory("Offset");
+        assertEquals(102, value(1), DELTA);
+        table.setScaleByCategory("Doubled");
+        assertEquals(4, value(1), DELTA);
+
+        doubled.setExpression("x*3");
+        doubled.setByteExpression("x/3");
+        assertEquals(6, value(1), DELTA);
+    }
+
+    @Test
+    public void testBinValueChange() throws Exception {
+        assertEquals(6, value(2), DELTA);
+        final int version = table.getRealValuesVersion();
+        table.getDataCell(2).setBinValue(10);
+        assertTrue(version != table.getRealValuesVersion());
+        assertEquals(20, value(2), DELTA);
+        assertEquals(8, value(3), DELTA);
+    }
+}
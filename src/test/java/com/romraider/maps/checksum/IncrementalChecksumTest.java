@@ -0,0 +1,195 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.romraider.Settings.Endian;
+import com.romraider.maps.DirtyRanges;
+import com.romraider.maps.RomImage;
+
+/**
+ * An update from the changed bytes must write the same file as working
+ * the checksums out from scratch.
+ */
+public class IncrementalChecksumTest {
+    private static final int SIZE = 0x40000;
+
+    private interface Factory {
+        IncrementalChecksumManager create();
+    }
+
+    private static Map<String, String> vars(String... pairs) {
+        final Map<String, String> vars = new HashMap<String, String>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            vars.put(pairs[i], pairs[i + 1]);
+        }
+        return vars;
+    }
+
+    private static byte[] e38Image(Random random) {
+        final byte[] data = new byte[SIZE];
+        random.nextBytes(data);
+        final RomImage image = RomImage.wrap(data);
+        final int[] offsets = {0x24, 0x48, 0x6b, 0x8e, 0xb1, 0xd4};
+        for (int i = 0; i < offsets.length; i++) {
+            final int start = 0x20000 + i * 0x4000;
+            image.putInt(0x10000 + offsets[i], start, Endian.BIG);
+            image.putInt(0x10000 + offsets[i] + 4, start + 0x3fff, Endian.BIG);
+        }
+        return data;
+    }
+
+    private static void assertIncremental(Factory factory, byte[] data, Random random) {
+        final IncrementalChecksumManager manager = factory.create();
+        final DirtyRanges changes = new DirtyRanges();
+        manager.validate(data);
+        for (int round = 0; round < 30; round++) {
+            for (int edit = 0; edit < 1 + random.nextInt(6); edit++) {
+                final int length = 1 + random.nextInt(8);
+                final int address = random.nextInt(SIZE - length);
+                changes.mark(data, address, length);
+                for (int i = 0; i < length; i++) {
+                    data[address + i] = (byte) random.nextInt();
+                }
+            }
+            final byte[] expected = data.clone();
+            final int expectedUpdated = factory.create().update(expected);
+            assertEquals(expectedUpdated, manager.update(data, changes));
+            changes.clear();
+            assertArrayEquals(expected, data);
+        }
+    }
+
+    private static byte[] randomImage(Random random) {
+        final byte[] data = new byte[SIZE];
+        random.nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testStd() {
+        final Random random = new Random(1L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumSTD cm = new ChecksumSTD();
+                cm.configure(vars("start", "0x0", "end", "0x3fff0",
+                        "sumloc", "0x1000", "xorloc", "0x1004"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testByteXor() {
+        final Random random = new Random(2L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumBYTEXOR cm = new ChecksumBYTEXOR();
+                cm.configure(vars("start", "0x100", "end", "0x3f000", "xorloc", "0x2000"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testMotronicDouble() {
+        final Random random = new Random(3L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumMOTRONICDOUBLE cm = new ChecksumMOTRONICDOUBLE();
+                cm.configure(vars("start", "0x0", "end", "0x1ffff", "loc", "0x28000",
+                        "startsecond", "0x30000", "endsecond", "0x3ffff"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testMotronicSingle() {
+        final Random random = new Random(5L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumMOTRONICSINGLE cm = new ChecksumMOTRONICSINGLE();
+                cm.configure(vars("start", "0x0", "end", "0x2ffff", "loc", "0x38000",
+                        "initial", "0x1234"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testAlt() {
+        final Random random = new Random(6L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumALT cm = new ChecksumALT();
+                cm.configure(vars("start", "0x0", "end", "0x3fff0",
+                        "sumloc", "0x1000", "xorloc", "0x1004"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testCopy() {
+        final Random random = new Random(7L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                final ChecksumCOPY cm = new ChecksumCOPY();
+                cm.configure(vars("start", "0x8000", "end", "0xbfff", "loc", "0x30000"));
+                return cm;
+            }
+        }, randomImage(random), random);
+    }
+
+    @Test
+    public void testE38() {
+        final Random random = new Random(4L);
+        assertIncremental(new Factory() {
+            public IncrementalChecksumManager create() {
+                return new ChecksumE38PCM();
+            }
+        }, e38Image(random), random);
+    }
+
+    @Test
+    public void testIntersects() {
+        final byte[] data = new byte[SIZE];
+        final DirtyRanges changes = new DirtyRanges();
+        changes.mark(data, 0x5000, 4);
+        assertEquals(true, changes.intersects(0x4000, 0x5001));
+        assertEquals(false, changes.intersects(0x6000, 0x7000));
+        assertEquals(1, changes.getSpans(data).size());
+        assertEquals(0x5000, changes.getSpans(data).get(0).getStart());
+        for (int address = 0; address < SIZE; address += DirtyRanges.PAGE_SIZE) {
+            changes.mark(data, address, 1);
+        }
+        assertEquals(true, changes.isOverflow());
+        assertEquals(true, changes.intersects(0x6000, 0x7000));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteDecimalFormatTest {
+    private static final String[] PATTERNS = {
+        "0", "#", "#0", "00", "0.0", "0.00", "#0.000", "0.###", "#.##",
+        "0.00##", "000.0", "0.000000", "#,##0.0", "0.0E0", "0%"
+    };
+
+    private static final double[] VALUES = {
+        0.0, -0.0, 1.0, -1.0, 0.5, 1.5, 2.5, -2.5, 0.125, 0.135, 0.005,
+        0.0049999, -0.001, 12.345, 12.355, 99.995, 255.0, 1023.75,
+        14.7, 3.14159265358979, 1e-7, 123456789.123, 4.35, 1.005,
+        Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        1e20, -7654321.0
+    };
+
+    @Test
+    public void testMatchesDecimalFormat() {
+        final byte[] buffer = new byte[512];
+        final Random random = new Random(42);
+        for (String pattern : PATTERNS) {
+            final DecimalFormat expected = new DecimalFormat(pattern);
+            final ByteDecimalFormat format = new ByteDecimalFormat(pattern);
+            for (double value : VALUES) {
+                check(pattern, expected, format, value, buffer);
+            }
+            for (int i = 0; i < 5000; i++) {
+                final double value = (random.nextDouble() - 0.5)
+                        * Math.pow(10, random.nextInt(8));
+                check(pattern, expected, format, value, buffer);
+                // values sitting on or near rounding ties
+                final double tie = Math.round(value * 1000) / 1000.0 + 0.0005;
+                check(pattern, expected, format, tie, buffer);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallBuffer() {
+        final ByteDecimalFormat format = new ByteDecimalFormat("0.00");
+        final byte[] buffer = new byte[8];
+        assertEquals(-1, format.format(123456789.0, buffer, 0));
+        assertEquals(4, format.format(1.5, buffer, 0));
+        assertEquals(new DecimalFormat("0.00").format(1.5), new String(buffer, 0, 4));
+    }
+
+    private static void check(String pattern, DecimalFormat expected,
+            ByteDecimalFormat format, double value, byte[] buffer) {
+        final int end = format.format(value, buffer, 0);
+        // compare encoded, as that is what ends up in the log file
+        assertEquals(pattern + " @ " + value,
+                new String(expected.format(value).getBytes()),
+                new String(buffer, 0, end));
+    }
+}
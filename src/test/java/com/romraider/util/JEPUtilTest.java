@@ -0,0 +1,141 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.nfunk.jep.JEP;
+
+public class JEPUtilTest {
+    private static final String[] EXPRESSIONS = {
+        "x",
+        "x*.001333224",
+        "x/.001333224",
+        "(x-128)*0.5",
+        "x*0.0078125-1",
+        "-x+3",
+        "-(x^2)/4",
+        "2^-x",
+        "(x*100)/255",
+        "x%7",
+        "mod(x,3)",
+        "pow(x,0.5)",
+        "sqrt(abs(x))",
+        "ln(x+301)+log(x+301)",
+        "exp(x/1000)",
+        "sin(x)+cos(x)-tan(x/100)",
+        "atan2(x,2)",
+        "if(x-5,1,2)",
+        "if(x,10,20,30)",
+        "(x>5)+(x<5)*2+(x>=5)*4+(x<=5)*8+(x==5)*16+(x!=5)*32",
+        "(x>1)&&(x<200)",
+        "(x<1)||!(x<200)",
+        "BitWise(24,x,1)",
+        "BitWise(3,x,4)/2",
+        "BitWise(1,x,5)+BitWise(0,x,7)",
+        "sum(x,1,2)",
+        "1+2*3",
+        "x*(14.7/2048)",
+    };
+
+    private static final double[] VALUES = {
+        -300, -5.5, -1, 0, 1, 5, 42.25, 255, 1024, 65535
+    };
+
+    @Test
+    public void testMatchesJep() {
+        for (String expression : EXPRESSIONS) {
+            final CompiledExpression compiled = JEPUtil.compile(expression);
+            assertTrue(expression, compiled.isValid());
+            for (double value : VALUES) {
+                assertEquals(expression + " @ " + value,
+                        jep(expression, value),
+                        compiled.evaluate(value), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testLinearIsExact() {
+        final String[] linear = {
+            "x", "x*.001333224", "x/.001333224", "(x-128)*0.5",
+            "x*0.0078125-1", "x*(14.7/2048)", "0.1*x+40", "(x+40)/8", "x*-1"
+        };
+        for (String expression : linear) {
+            final CompiledExpression compiled = JEPUtil.compile(expression);
+            assertTrue(expression, compiled.isLinear());
+            for (double value : VALUES) {
+                assertEquals(expression + " @ " + value,
+                        Double.doubleToLongBits(jep(expression, value)),
+                        Double.doubleToLongBits(compiled.evaluate(value)));
+            }
+        }
+        assertFalse(JEPUtil.compile("-x+3").isLinear());
+        assertFalse(JEPUtil.compile("(x*100)/255").isLinear());
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(JEPUtil.compile("x*2+1"), JEPUtil.compile("x*2+1"));
+    }
+
+    @Test
+    public void testInvalidEvaluatesToZero() {
+        final CompiledExpression compiled = JEPUtil.compile("x*(");
+        assertFalse(compiled.isValid());
+        assertEquals(0.0, compiled.evaluate(12.0), 0.0);
+        assertEquals(0.0, JEPUtil.evaluate("x*y", 2.0), 0.0);
+    }
+
+    @Test
+    public void testNamedVariables() {
+        final Map<String, Double> values = new HashMap<String, Double>();
+        values.put("P8", 2000.0);
+        values.put("P12", 35.5);
+        final String expression = "P12*60/P8";
+        assertEquals(35.5 * 60 / 2000.0, JEPUtil.evaluate(expression, values), 1e-12);
+
+        final CompiledExpression compiled = JEPUtil.compile(expression);
+        final double[] bound = new double[compiled.getVariables().length];
+        bound[compiled.getVariableIndex("P8")] = 1000.0;
+        bound[compiled.getVariableIndex("P12")] = 10.0;
+        assertEquals(0.6, compiled.evaluate(bound), 1e-12);
+
+        values.remove("P8");
+        assertEquals(0.0, JEPUtil.evaluate(expression, values), 0.0);
+    }
+
+    private static double jep(String expression, double value) {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab();
+        parser.addVariable("x", value);
+        parser.parseExpression(expression);
+        return parser.getValue();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+public class ThreadUtilTest {
+
+    private static final Callable<Integer> ONE = new Callable<Integer>() {
+        @Override
+        public Integer call() {
+            return 1;
+        }
+    };
+
+    private static List<Callable<Integer>> tasks(final int count, final int failing) {
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    if (value >= failing) {
+                        throw new IllegalArgumentException(String.valueOf(value));
+                    }
+                    // nested calls run inline on the worker
+                    final List<Callable<Integer>> nested = new ArrayList<Callable<Integer>>();
+                    nested.add(ONE);
+                    nested.add(ONE);
+                    return ThreadUtil.invokeAll(nested).size() * value;
+                }
+            });
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testResultsInTaskOrder() {
+        final List<Integer> results = ThreadUtil.invokeAll(tasks(50, Integer.MAX_VALUE));
+        assertEquals(50, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(2 * i, results.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testFirstFailureInTaskOrder() {
+        try {
+            ThreadUtil.invokeAll(tasks(50, 20));
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("20", e.getMessage());
+            return;
+        }
+        throw new AssertionError("no exception");
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+public class RomDefinitionIndexTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private File definition;
+    private File include;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        definition = folder.newFile("definition.xml");
+        folder.newFolder("sub");
+        include = new File(folder.getRoot(), "sub/included.xml");
+        indexFile = new File(folder.getRoot(), "index.bin");
+        write(definition,
+                "<roms xmlns:xi=\"http://www.w3.org/2001/XInclude\">",
+                rom("BASE", null, "0", "AAAA"),
+                rom("CHILD", "BASE", "0", "BBBB"),
+                rom("HEX", null, "4", "0x0102"),
+                "<xi:include href=\"sub/included.xml\"/>",
+                "</roms>");
+        write(include, rom("INCLUDED", null, "0", "CCCC"));
+    }
+
+    private static String rom(String xmlid, String base, String address, String id) {
+        return "<rom" + (base == null ? "" : " base=\"" + base + "\"") + "><romid>"
+                + "<xmlid>" + xmlid + "</xmlid>"
+                + "<internalidaddress>" + address + "</internalidaddress>"
+                + "<internalidstring>" + id + "</internalidstring>"
+                + "</romid><table name=\"" + xmlid + " table\"/></rom>";
+    }
+
+    // the new content gets a later time, the file system may keep seconds only
+    private static void write(File file, String... lines) throws IOException {
+        final long before = file.lastModified();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        if (before > 0) {
+            file.setLastModified(before + 2000);
+        }
+    }
+
+    private static byte[] image(String id) {
+        final byte[] image = new byte[16];
+        System.arraycopy(id.getBytes(), 0, image, 0, id.length());
+        return image;
+    }
+
+    private String findXmlId(RomDefinitionIndex index, byte[] image) throws Exception {
+        final RomDefinitionIndex.Match match = index.findMatch(definition, image);
+        return match == null ? null : match.getXmlId();
+    }
+
+    @Test
+    public void testFindMatch() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        assertEquals("BASE", findXmlId(index, image("AAAA")));
+        assertEquals("CHILD", findXmlId(index, image("bbbb")));
+        assertEquals(1, index.findMatch(definition, image("BBBB")).getOrdinal());
+        assertEquals("INCLUDED", findXmlId(index, image("CCCC")));
+        assertNull(findXmlId(index, image("DDDD")));
+
+        final byte[] hex = image("XXXX");
+        hex[4] = 1;
+        hex[5] = 2;
+        assertEquals("HEX", findXmlId(index, hex));
+    }
+
+    @Test
+    public void testSavedIndexIsReused() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        findXmlId(index, image("AAAA"));
+        index.save();
+        assertTrue(indexFile.isFile());
+
+        final RomDefinitionIndex loaded = new RomDefinitionIndex(indexFile);
+        assertEquals("CHILD", findXmlId(loaded, image("BBBB")));
+        assertEquals("INCLUDED", findXmlId(loaded, image("CCCC")));
+    }
+
+    @Test
+    public void testChangedDefinitionIsRescanned() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        assertEquals("BASE", findXmlId(index, image("AAAA")));
+        index.save();
+
+        write(definition, "<roms>", rom("OTHER", null, "0", "EEEE"), "</roms>");
+        final RomDefinitionIndex loaded = new RomDefinitionIndex(indexFile);
+        assertNull(findXmlId(loaded, image("AAAA")));
+        assertEquals("OTHER", findXmlId(loaded, image("EEEE")));
+    }
+
+    @Test
+    public void testChangedIncludeIsRescanned() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        assertEquals("INCLUDED", findXmlId(index, image("CCCC")));
+        index.save();
+
+        write(include, rom("INCLUDED", null, "0", "FFFF"));
+        assertNull(findXmlId(index, image("CCCC")));
+        assertEquals("INCLUDED", findXmlId(index, image("FFFF")));
+
+        write(include, rom("INCLUDED", null, "0", "GGGG"));
+        final RomDefinitionIndex loaded = new RomDefinitionIndex(indexFile);
+        assertEquals("INCLUDED", findXmlId(loaded, image("GGGG")));
+    }
+
+    @Test
+    public void testTouchedFileKeepsEntry() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        assertEquals("BASE", findXmlId(index, image("AAAA")));
+        include.setLastModified(include.lastModified() + 2000);
+        assertEquals("INCLUDED", findXmlId(index, image("CCCC")));
+    }
+
+    @Test
+    public void testParseRomDocument() throws Exception {
+        final RomDefinitionIndex index = new RomDefinitionIndex(indexFile);
+        final RomDefinitionIndex.Match match = index.findMatch(definition, image("BBBB"));
+        final Document document = RomDefinitionIndex.parseRomDocument(definition, match);
+        assertEquals(2, document.getElementsByTagName("rom").getLength());
+        assertEquals("BASE", document.getElementsByTagName("xmlid").item(0).getTextContent());
+        assertEquals("CHILD", document.getElementsByTagName("xmlid").item(1).getTextContent());
+    }
+}